@@ -0,0 +1,106 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成数据：固定随机种子，同样的参数在不同提交间生成完全相同的数据
+ */
+public final class BenchmarkData {
+
+  public static final long SEED = 20250630L;
+  public static final String SHEET_NAME = "样本";
+  public static final int FOLDER_COUNT = 50;
+
+  private BenchmarkData() {
+  }
+
+  /** 第 i 个入库单号，如 CGRK-250400000123 */
+  public static String receipt(int i) {
+    return "CGRK-" + (250400000000L + i);
+  }
+
+  /**
+   * 样本检查记录：Q列、Z列为入库单号（每 10 行一个 “A、B” 复合单号），AC列为文件夹
+   */
+  public static XSSFWorkbook mappingWorkbook(int rows) {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet(SHEET_NAME);
+    Row header = sheet.createRow(0);
+    header.createCell(16).setCellValue("入库单号");
+    header.createCell(25).setCellValue("凭证入库单号");
+    header.createCell(28).setCellValue("文件夹");
+    for (int i = 0; i < rows; i++) {
+      Row row = sheet.createRow(i + 1);
+      for (int column = 0; column < 16; column++) {
+        row.createCell(column).setCellValue("样本数据" + column);
+      }
+      String receipt = i % 10 == 9 ? receipt(i) + "、" + receipt(i + rows) : receipt(i);
+      row.createCell(16).setCellValue(receipt(i));
+      row.createCell(25).setCellValue(receipt);
+      row.createCell(28).setCellValue("F" + (i % FOLDER_COUNT));
+    }
+    return workbook;
+  }
+
+  /**
+   * 图片文件名（不含扩展名）：60% 与入库单号完全一致，30% 带 -1 / (1) / " (1)" 后缀，10% 无法匹配
+   */
+  public static String[] imageBaseNames(int files, int rows) {
+    Random random = new Random(SEED);
+    String[] names = new String[files];
+    for (int i = 0; i < files; i++) {
+      String receipt = receipt(random.nextInt(rows));
+      int kind = random.nextInt(20);
+      if (kind < 12) {
+        names[i] = receipt;
+      } else if (kind < 15) {
+        names[i] = receipt + "-" + (1 + random.nextInt(3));
+      } else if (kind < 17) {
+        names[i] = receipt + "(" + (1 + random.nextInt(3)) + ")";
+      } else if (kind < 18) {
+        names[i] = receipt + " (" + (1 + random.nextInt(3)) + ")";
+      } else {
+        names[i] = "IMG_" + (100000 + random.nextInt(900000));
+      }
+    }
+    return names;
+  }
+
+  /**
+   * 数据搜索记录：凭证号 记1..记(rows/12)，分布在 2025 年 12 个月，少量 凭证号+月份 重复
+   */
+  public static LedgerStore ledger(int rows) {
+    Random random = new Random(SEED);
+    LedgerStore store = new LedgerStore("bench", rows);
+    int vouchersPerMonth = Math.max(1, rows / 12);
+    for (int i = 0; i < rows; i++) {
+      int month = 1 + i % 12;
+      int voucher = 1 + (i / 12) % vouchersPerMonth;
+      int day = 1 + random.nextInt(28);
+      String date = String.format("2025/%02d/%02d", month, day);
+      store.add(LedgerStore.parseEpochDay(date), "记" + voucher, "采购付款", "应付账款",
+              "人民币", String.valueOf(random.nextInt(10_000_000) / 100.0));
+    }
+    return store;
+  }
+
+  /** 凭证文件名 “序号、YYYY.MM#凭证号.pdf”，约 5% 指向不存在的凭证 */
+  public static List<String> voucherFileNames(int files, int rows) {
+    Random random = new Random(SEED + 1);
+    int vouchersPerMonth = Math.max(1, rows / 12);
+    List<String> names = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      int month = 1 + random.nextInt(12);
+      int voucher = random.nextInt(20) == 0 ? vouchersPerMonth + 1 + random.nextInt(1000)
+              : 1 + random.nextInt(vouchersPerMonth);
+      names.add((i + 1) + "、" + String.format("2025.%02d", month) + "#" + voucher + ".pdf");
+    }
+    return names;
+  }
+}
@@ -0,0 +1,103 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DocumentScanner 的匹配与单元格取值热点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LedgerMatchingBenchmark {
+
+  /** 数据搜索记录行数 */
+  @Param({"10000", "200000"})
+  public int rows;
+
+  /** 凭证文件数 */
+  @Param({"1000"})
+  public int files;
+
+  private LedgerIndex index;
+  private String[] vouchers;
+  private String[] yearMonths;
+  private int nextFile;
+
+  private XSSFWorkbook workbook;
+  private Cell[] cells;
+  private int nextCell;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    index = LedgerIndex.build(BenchmarkData.ledger(rows));
+    List<String> names = BenchmarkData.voucherFileNames(files, rows);
+    vouchers = new String[names.size()];
+    yearMonths = new String[names.size()];
+    for (int i = 0; i < names.size(); i++) {
+      String fileName = names.get(i);
+      vouchers[i] = "记" + fileName.substring(fileName.indexOf("#") + 1, fileName.indexOf(".pdf"));
+      yearMonths[i] = fileName.substring(fileName.indexOf("、") + 1, fileName.indexOf("#"));
+    }
+
+    // 与数据搜索表相同的单元格类型：日期、文本、数字
+    workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet("数据");
+    CellStyle dateStyle = workbook.createCellStyle();
+    dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy/m/d"));
+    int cellRows = 1000;
+    cells = new Cell[cellRows * 3];
+    for (int i = 0; i < cellRows; i++) {
+      Row row = sheet.createRow(i);
+      Cell date = row.createCell(0);
+      date.setCellValue(45658 + i % 365);
+      date.setCellStyle(dateStyle);
+      Cell voucher = row.createCell(1);
+      voucher.setCellValue("记" + (i + 1));
+      Cell amount = row.createCell(5);
+      amount.setCellValue(i * 10.25);
+      cells[i * 3] = date;
+      cells[i * 3 + 1] = voucher;
+      cells[i * 3 + 2] = amount;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    workbook.close();
+  }
+
+  @Benchmark
+  public int[] findMatchedRecords() {
+    int i = nextFile;
+    nextFile = nextFile + 1 == vouchers.length ? 0 : nextFile + 1;
+    return DocumentScanner.findMatchedRecords(index, vouchers[i], yearMonths[i]);
+  }
+
+  private Cell nextCell() {
+    Cell cell = cells[nextCell];
+    nextCell = nextCell + 1 == cells.length ? 0 : nextCell + 1;
+    return cell;
+  }
+
+  @Benchmark
+  public String getCellValue() {
+    return DocumentScanner.getCellValue(nextCell());
+  }
+
+  @Benchmark
+  public String getCellValueAsString() {
+    return FileLocationValidator.getCellValueAsString(nextCell());
+  }
+}
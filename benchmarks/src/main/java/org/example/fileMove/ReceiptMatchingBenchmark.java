@@ -0,0 +1,91 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入库单号匹配相关的热点：文件名查找入库单号、读取映射、标记匹配行
+ * 每次调用处理一个文件名/一个入库单号，数据按参数循环使用
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ReceiptMatchingBenchmark {
+
+  /** 样本检查记录行数 */
+  @Param({"1000", "20000"})
+  public int rows;
+
+  /** 图片文件数 */
+  @Param({"1000"})
+  public int files;
+
+  private XSSFWorkbook workbook;
+  private Sheet sheet;
+  private CellStyle greenStyle;
+  private ReceiptMap archiverMapping;
+  private ReceiptMap validatorMapping;
+  private String[] baseNames;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    workbook = BenchmarkData.mappingWorkbook(rows);
+    sheet = workbook.getSheet(BenchmarkData.SHEET_NAME);
+    greenStyle = workbook.createCellStyle();
+    greenStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
+    greenStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    archiverMapping = PurchaseImageArchiver1.readExcelMapping(workbook, BenchmarkData.SHEET_NAME);
+    validatorMapping = FileLocationValidator.readExcelMapping(workbook, BenchmarkData.SHEET_NAME);
+    baseNames = BenchmarkData.imageBaseNames(files, rows);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    workbook.close();
+  }
+
+  private String nextName() {
+    String name = baseNames[next];
+    next = next + 1 == baseNames.length ? 0 : next + 1;
+    return name;
+  }
+
+  @Benchmark
+  public String findReceiptNumberArchiver() {
+    return PurchaseImageArchiver1.findReceiptNumber(archiverMapping, nextName());
+  }
+
+  @Benchmark
+  public String findReceiptNumberValidator() {
+    return FileLocationValidator.findReceiptNumber(validatorMapping, nextName());
+  }
+
+  @Benchmark
+  public ReceiptMap readExcelMappingArchiver() {
+    return PurchaseImageArchiver1.readExcelMapping(workbook, BenchmarkData.SHEET_NAME);
+  }
+
+  @Benchmark
+  public ReceiptMap readExcelMappingValidator() {
+    return FileLocationValidator.readExcelMapping(workbook, BenchmarkData.SHEET_NAME);
+  }
+
+  /** 标记一个入库单号对应的行（每次调用扫描整个工作表） */
+  @Benchmark
+  public void markMatchedRow() {
+    String name = nextName();
+    String receipt = PurchaseImageArchiver1.findReceiptNumber(archiverMapping, name);
+    PurchaseImageArchiver1.markMatchedRow(sheet, receipt != null ? receipt : name, greenStyle);
+  }
+}
@@ -0,0 +1,154 @@
+package org.example.image;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片合并 PDF：按文件名序号排序，逐张图片插入 PDF 的吞吐量（images/s），以及普通保存与线性化保存的耗时
+ */
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ConverterBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class SortState {
+    /** 文件数 */
+    @Param({"100", "5000"})
+    public int files;
+
+    private List<File> shuffled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      shuffled = new ArrayList<>(files);
+      for (int i = 1; i <= files; i++) {
+        shuffled.add(new File(i + "、CGRK-" + (250400000000L + i) + ".jpg"));
+      }
+      Collections.shuffle(shuffled, new Random(20250630L));
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class MergeState {
+    /** 每次合并的图片数 */
+    @Param({"20"})
+    public int images;
+
+    private Path folder;
+    private File[] files;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      folder = Files.createTempDirectory("merge-bench");
+      Random random = new Random(20250630L);
+      files = new File[images];
+      for (int i = 0; i < images; i++) {
+        // 模拟截图：1240x1754（A4 150dpi），带噪点避免压缩过于理想
+        BufferedImage image = new BufferedImage(1240, 1754, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (int dot = 0; dot < 20000; dot++) {
+          image.setRGB(random.nextInt(image.getWidth()), random.nextInt(image.getHeight()), random.nextInt());
+        }
+        graphics.dispose();
+        files[i] = folder.resolve((i + 1) + "、截图" + i + (i % 2 == 0 ? ".png" : ".jpg")).toFile();
+        ImageIO.write(image, i % 2 == 0 ? "png" : "jpg", files[i]);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      File[] all = folder.toFile().listFiles();
+      if (all != null) {
+        for (File file : all) {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+      Files.deleteIfExists(folder);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class SaveState {
+    @Param({"false", "true"})
+    public boolean linearized;
+
+    private MergeState merge;
+    private PDDocument document;
+    private File target;
+
+    // 先合并一次，之后每次只重复保存同一个文档
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      merge = new MergeState();
+      merge.images = 20;
+      merge.setUp();
+      ImagesAndPdfsToPdfConverter.mergeImagesAndPdfsToPdf(merge.folder.toFile(), merge.files, "merged.pdf");
+      document = PDDocument.load(merge.folder.resolve("merged.pdf").toFile());
+      target = merge.folder.resolve("saved.pdf").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      document.close();
+      merge.tearDown();
+    }
+  }
+
+  /** 每次迭代合并的图片数，JMH 按时间换算为 images/s */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class ImageCounter {
+    public long images;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      images = 0;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<File> sortByLeadingNumber(SortState state) {
+    List<File> files = new ArrayList<>(state.shuffled);
+    files.sort(Comparator.comparingInt(f -> PagePlan.leadingNumber(f.getName())));
+    return files;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void mergeImages(MergeState state, ImageCounter counter) throws IOException {
+    ImagesAndPdfsToPdfConverter.mergeImagesAndPdfsToPdf(state.folder.toFile(), state.files, "merged.pdf");
+    counter.images += state.images;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void save(SaveState state) throws IOException {
+    if (state.linearized) {
+      LinearizedPdfWriter.save(state.document, state.target);
+    } else {
+      state.document.save(state.target);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 为打包后的 launcher JAR 生成应用类数据共享（AppCDS）归档，并对比使用前后的冷启动耗时
+ * <p>
+ * 归档与生成时的 JDK 版本绑定，需在实际运行工具的机器上、用同一个 JDK 执行：
+ * <pre>
+ *   java -jar shengji-launcher.jar cds [冷启动测量次数，默认 5] [训练语料条数，默认 40]
+ * </pre>
+ * JDK 13+ 用训练运行退出时转储的动态归档（-XX:ArchiveClassesAtExit）；
+ * JDK 10~12 先记录训练运行加载的类，再 -Xshare:dump；JDK 8 不支持应用类归档。
+ * 归档写在 JAR 旁边（同名 .jsa），shengji.sh / shengji.cmd 发现后自动使用。
+ */
+public class AppCds {
+
+  private final File jar;
+  private final File archive;
+  private final String java;
+  private final int feature;
+
+  AppCds(File jar) {
+    this.jar = jar;
+    this.archive = new File(jar.getParentFile(), jar.getName().replaceFirst("\\.jar$", "") + ".jsa");
+    this.java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+    this.feature = featureVersion();
+  }
+
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    String trainingItems = args.length > 1 ? args[1] : "40";
+
+    File jar = launcherJar();
+    if (jar == null) {
+      System.err.println("请在打包后的 JAR 上运行：java -jar target/shengji-launcher.jar cds");
+      System.exit(1);
+      return;
+    }
+    AppCds cds = new AppCds(jar);
+    if (cds.feature < 10) {
+      System.err.println("当前 JDK（" + System.getProperty("java.version") + "）不支持应用类数据共享，需 JDK 10 及以上");
+      System.exit(1);
+      return;
+    }
+
+    Files.deleteIfExists(cds.archive.toPath());
+    System.out.println("测量冷启动耗时（不使用归档）...");
+    long[] before = cds.measure(runs, false);
+
+    System.out.println("训练运行并生成归档: " + cds.archive);
+    long start = System.nanoTime();
+    cds.createArchive(trainingItems);
+    System.out.printf("归档已生成（%.1f MB，耗时 %d ms）%n", cds.archive.length() / 1048576.0,
+            (System.nanoTime() - start) / 1_000_000);
+
+    System.out.println("测量冷启动耗时（使用归档）...");
+    long[] after = cds.measure(runs, true);
+
+    System.out.printf("%n=== 冷启动耗时（probe，%d 次，JDK %s）===%n", runs, System.getProperty("java.version"));
+    System.out.printf("%-10s %10s %10s%n", "", "最短ms", "中位数ms");
+    System.out.printf("%-10s %10d %10d%n", "不使用归档", before[0], median(before));
+    System.out.printf("%-10s %10d %10d%n", "使用归档", after[0], median(after));
+    System.out.printf("中位数缩短 %.0f%%%n", 100.0 * (median(before) - median(after)) / median(before));
+    System.out.println("使用方式: " + String.join(" ", cds.command(cds.archiveOptions(), "<子命令>")));
+  }
+
+  // 训练运行加载的类写入归档
+  void createArchive(String trainingItems) throws IOException, InterruptedException {
+    if (feature >= 13) {
+      run(command(Collections.singletonList("-XX:ArchiveClassesAtExit=" + archive.getPath()), "train", trainingItems));
+    } else {
+      File classList = new File(archive.getPath() + ".classlist");
+      try {
+        run(command(Collections.singletonList("-XX:DumpLoadedClassList=" + classList.getPath()), "train", trainingItems));
+        List<String> dump = new ArrayList<>(Arrays.asList(java, "-Xshare:dump",
+                "-XX:SharedClassListFile=" + classList.getPath(),
+                "-XX:SharedArchiveFile=" + archive.getPath(), "-cp", jar.getPath()));
+        if (feature == 10) dump.add(1, "-XX:+UseAppCDS");
+        run(dump);
+      } finally {
+        Files.deleteIfExists(classList.toPath());
+      }
+    }
+    if (!archive.isFile()) {
+      throw new IOException("归档未生成，请查看训练运行的输出");
+    }
+  }
+
+  // 每次启动一个新 JVM 运行 probe，返回排序后的耗时（毫秒）
+  long[] measure(int runs, boolean useArchive) throws IOException, InterruptedException {
+    long[] millis = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      run(command(useArchive ? archiveOptions() : Collections.emptyList(), "probe"));
+      millis[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    Arrays.sort(millis);
+    return millis;
+  }
+
+  // 归档不可用（JDK 不一致等）时 -Xshare:auto 退回普通类加载
+  private List<String> archiveOptions() {
+    return Arrays.asList("-XX:SharedArchiveFile=" + archive.getPath(), "-Xshare:auto");
+  }
+
+  // java <JVM 参数> -cp <jar> org.example.Launcher <子命令> [参数]
+  private List<String> command(List<String> jvmOptions, String... launcherArgs) {
+    List<String> command = new ArrayList<>();
+    command.add(java);
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(jar.getPath());
+    command.add(Launcher.class.getName());
+    command.addAll(Arrays.asList(launcherArgs));
+    return command;
+  }
+
+  // 子进程的输出丢弃（训练运行的输出较多），失败时报告退出码
+  private static void run(List<String> command) throws IOException, InterruptedException {
+    File log = File.createTempFile("appcds", ".log");
+    try {
+      Process process = new ProcessBuilder(command)
+              .redirectErrorStream(true)
+              .redirectOutput(log)
+              .start();
+      int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        throw new IOException("命令执行失败（退出码 " + exitCode + "）: " + String.join(" ", command)
+                + "\n" + new String(Files.readAllBytes(log.toPath())));
+      }
+    } finally {
+      Files.deleteIfExists(log.toPath());
+    }
+  }
+
+  private static long median(long[] sorted) {
+    return sorted[sorted.length / 2];
+  }
+
+  // 当前类所在的 JAR，从 classes 目录运行时返回 null
+  private static File launcherJar() throws URISyntaxException {
+    File location = new File(AppCds.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    return location.isFile() && location.getName().endsWith(".jar") ? location : null;
+  }
+
+  // "1.8" → 8，"17.0.9" → 17
+  private static int featureVersion() {
+    String version = System.getProperty("java.specification.version");
+    if (version.startsWith("1.")) version = version.substring(2);
+    int dot = version.indexOf('.');
+    return Integer.parseInt(dot < 0 ? version : version.substring(0, dot));
+  }
+}
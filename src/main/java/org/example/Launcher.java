@@ -0,0 +1,128 @@
+package org.example;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.bench.CorpusGenerator;
+import org.example.bench.MacroBenchmark;
+import org.example.fileMove.*;
+import org.example.image.ImagesAndPdfsToPdfConverter;
+import org.example.pipeline.JobServer;
+import org.example.pipeline.PipelineRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 打包后的统一入口：java -jar shengji-launcher.jar &lt;子命令&gt; [参数]
+ * <p>
+ * 每个工具一个子命令，参数原样传给工具的 main（bench 除外，不接受语料目录参数）。另有：
+ * probe（只加载 POI/PDFBox 常用类，测启动耗时）、
+ * train（在生成的小语料上跑一遍各工具，供生成类数据共享归档）、
+ * cds（生成类数据共享归档并对比启动耗时，见 {@link AppCds}）
+ */
+public class Launcher {
+
+  private interface Command {
+    void run(String[] args) throws Exception;
+  }
+
+  private static final Map<String, Command> COMMANDS = new LinkedHashMap<>();
+  private static final Map<String, String> DESCRIPTIONS = new LinkedHashMap<>();
+
+  static {
+    register("archive", "按入库单号归档图片（PurchaseImageArchiver）", PurchaseImageArchiver::main);
+    register("archive-dirs", "按子目录归档图片（PurchaseImageArchiver1）", PurchaseImageArchiver1::main);
+    register("validate", "校验归档位置（FileLocationValidator）", FileLocationValidator::main);
+    register("rename", "文件名加序号（RenameFilesWithNumber）", RenameFilesWithNumber::main);
+    register("scan", "凭证扫描（DocumentScanner）", DocumentScanner::main);
+    register("merge", "图片和PDF合并（ImagesAndPdfsToPdfConverter）", ImagesAndPdfsToPdfConverter::main);
+    register("catalog", "查询归档记录（ArchiveCatalog）", ArchiveCatalog::main);
+    register("search", "凭证全文索引（VoucherSearchIndex）", VoucherSearchIndex::main);
+    register("pipeline", "月末流水线（PipelineRunner）", PipelineRunner::main);
+    register("server", "本地常驻任务服务（JobServer）", JobServer::main);
+    register("corpus", "生成测试语料（CorpusGenerator）", CorpusGenerator::main);
+    register("bench", "端到端基准（MacroBenchmark，使用临时语料目录）", Launcher::bench);
+    register("probe", "加载 POI/PDFBox 常用类后退出，测启动耗时", args -> probe());
+    register("train", "在小语料上运行各工具（生成类数据共享归档用）", Launcher::train);
+    register("cds", "生成类数据共享归档并对比启动耗时", AppCds::main);
+  }
+
+  private static void register(String name, String description, Command command) {
+    COMMANDS.put(name, command);
+    DESCRIPTIONS.put(name, description);
+  }
+
+  public static void main(String[] args) {
+    Command command = args.length == 0 ? null : COMMANDS.get(args[0]);
+    if (command == null) {
+      System.out.println("用法: java -jar shengji-launcher.jar <子命令> [参数]");
+      for (Map.Entry<String, String> entry : DESCRIPTIONS.entrySet()) {
+        System.out.printf("  %-13s %s%n", entry.getKey(), entry.getValue());
+      }
+      System.exit(args.length == 0 ? 0 : 1);
+      return;
+    }
+    try {
+      command.run(Arrays.copyOfRange(args, 1, args.length));
+    } catch (Exception e) {
+      System.err.println(args[0] + " 执行失败: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  // 各工具启动时都会用到的部分：在内存中读写一个 xlsx 和一个 PDF
+  static void probe() throws IOException {
+    ByteArrayOutputStream xlsx = new ByteArrayOutputStream();
+    try (Workbook workbook = new XSSFWorkbook()) {
+      Sheet sheet = workbook.createSheet("probe");
+      Row row = sheet.createRow(0);
+      row.createCell(0).setCellValue("CGRK-250400000001");
+      row.createCell(1).setCellValue(1.5);
+      workbook.write(xlsx);
+    }
+    try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx.toByteArray()))) {
+      workbook.getSheetAt(0).getRow(0).getCell(0).getStringCellValue();
+    }
+
+    ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+    try (PDDocument document = new PDDocument()) {
+      PDPage page = new PDPage(PDRectangle.A4);
+      document.addPage(page);
+      try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+        content.addRect(100, 100, 200, 100);
+        content.fill();
+      }
+      document.save(pdf);
+    }
+    try (PDDocument document = PDDocument.load(pdf.toByteArray())) {
+      document.getNumberOfPages();
+    }
+  }
+
+  // 基准只在临时语料目录上运行，不清空用户指定的目录；需要固定语料目录时直接运行 MacroBenchmark
+  private static void bench(String[] args) {
+    if (args.length > 2) {
+      System.out.println("用法: bench <条数> [预算配置文件]（语料生成在临时目录，运行后删除）");
+      System.exit(1);
+      return;
+    }
+    MacroBenchmark.main(args);
+  }
+
+  // 训练运行：各工具在小语料上各跑一遍，覆盖实际运行时加载的类；参数为语料条数，默认 40
+  private static void train(String[] args) throws Exception {
+    probe();
+    MacroBenchmark.main(new String[]{args.length > 0 ? args[0] : "40"});
+  }
+}
@@ -0,0 +1,314 @@
+package org.example.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 生成本地测试语料，规模 1k ~ 1M，固定随机种子，同样的参数生成同样的数据
+ * <p>
+ * 目录结构：
+ * <pre>
+ *   样本检查记录.xlsx            Q列/Z列入库单号（每 10 行一个 “A、B” 复合单号），AC列文件夹
+ *   archive/批次001...          入库单截图，文件名为入库单号，部分带 -N / (N) / " (N)" 后缀，约 5% 无法匹配
+ *   vouchers/N、YYYY.MM#凭证号.pdf  凭证 PDF
+ *   vouchers/数据搜索.xlsx       账簿：日期、凭证号、摘要、科目全名、币别、借方金额；
+ *                               每个工作表最多 50 万行（数据搜索、数据搜索2…），按 “数据搜索.xlsx!*” 读取全部工作表
+ *   rename/                     待编号的文件
+ *   merge/N、入库单号.jpg         待合并的图片（数量有上限）
+ *   .corpus                     标记文件，{@link MacroBenchmark} 只清空带此标记（或为空）的目录
+ * </pre>
+ * 用法：CorpusGenerator &lt;输出目录&gt; &lt;条数&gt;
+ */
+public class CorpusGenerator {
+
+  public static final String SAMPLE_WORKBOOK = "样本检查记录.xlsx";
+  public static final String SAMPLE_SHEET = "样本检查记录";
+  public static final String LEDGER_WORKBOOK = "数据搜索.xlsx";
+  public static final String LEDGER_SHEET = "数据搜索";
+  public static final long DEFAULT_SEED = 20250630L;
+  /** 语料根目录下的标记文件 */
+  public static final String MARKER = ".corpus";
+
+  // 每个批次子目录的文件数，每个归档文件夹对应的样本行数
+  private static final int FILES_PER_BATCH = 5000;
+  private static final int ROWS_PER_FOLDER = 20;
+  private static final int MAX_MERGE_IMAGES = 50;
+  // 1M 条加干扰记录超过 Excel 单个工作表的 1,048,576 行上限，账簿按此行数分工作表
+  private static final int LEDGER_ROWS_PER_SHEET = 500_000;
+
+  private final Path root;
+  private final int items;
+  private final long seed;
+  private final int ledgerRowsPerSheet;
+
+  public CorpusGenerator(Path root, int items, long seed) {
+    this(root, items, seed, LEDGER_ROWS_PER_SHEET);
+  }
+
+  // ledgerRowsPerSheet：账簿每个工作表的数据行数（测试时用小值）
+  CorpusGenerator(Path root, int items, long seed, int ledgerRowsPerSheet) {
+    this.root = root;
+    this.items = Math.max(1, items);
+    this.seed = seed;
+    this.ledgerRowsPerSheet = Math.max(1, ledgerRowsPerSheet);
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.out.println("用法: CorpusGenerator <输出目录> <条数>");
+      return;
+    }
+    try {
+      long start = System.nanoTime();
+      new CorpusGenerator(Paths.get(args[0]), Integer.parseInt(args[1]), DEFAULT_SEED).generate();
+      System.out.printf("语料已生成: %s（%d 条，耗时 %d ms）%n", args[0], Integer.parseInt(args[1]),
+              (System.nanoTime() - start) / 1_000_000);
+    } catch (Exception e) {
+      System.err.println("生成失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  public void generate() throws IOException {
+    Files.createDirectories(root);
+    Files.write(root.resolve(MARKER), ("items=" + items + "\nseed=" + seed + "\n").getBytes(StandardCharsets.UTF_8));
+    writeSampleWorkbook(root.resolve(SAMPLE_WORKBOOK));
+    writeArchiveImages(root.resolve("archive"));
+    writeVouchers(root.resolve("vouchers"));
+    writeRenameFiles(root.resolve("rename"));
+    writeMergeImages(root.resolve("merge"));
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  public int getItems() {
+    return items;
+  }
+
+  /** 第 i 个入库单号，如 CGRK-250400000123 */
+  public static String receipt(int i) {
+    return "CGRK-" + (250400000000L + i);
+  }
+
+  public static String folder(int row) {
+    return String.format("F%05d", row / ROWS_PER_FOLDER);
+  }
+
+  // ================ 样本检查记录 ================ //
+
+  private void writeSampleWorkbook(Path file) throws IOException {
+    // 流式写入，只在内存中保留最近 1000 行
+    try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+      Sheet sheet = workbook.createSheet(SAMPLE_SHEET);
+      Row header = sheet.createRow(0);
+      header.createCell(0).setCellValue("序号");
+      header.createCell(16).setCellValue("入库单号");
+      header.createCell(25).setCellValue("凭证入库单号");
+      header.createCell(28).setCellValue("归档文件夹");
+      for (int i = 0; i < items; i++) {
+        Row row = sheet.createRow(i + 1);
+        row.createCell(0).setCellValue(i + 1);
+        for (int column = 1; column < 16; column++) {
+          row.createCell(column).setCellValue("样本" + column);
+        }
+        row.createCell(16).setCellValue(receipt(i));
+        row.createCell(25).setCellValue(i % 10 == 9 ? receipt(i) + "、" + receipt(i + items) : receipt(i));
+        row.createCell(28).setCellValue(folder(i));
+      }
+      write(workbook, file);
+      workbook.dispose();
+    }
+  }
+
+  // ================ 入库单截图 ================ //
+
+  private void writeArchiveImages(Path dir) throws IOException {
+    byte[] image = noiseImage(400, 300, "jpg");
+    int batches = (items + FILES_PER_BATCH - 1) / FILES_PER_BATCH;
+    for (int batch = 0; batch < batches; batch++) {
+      Files.createDirectories(dir.resolve(String.format("批次%03d", batch + 1)));
+    }
+    parallelWrite(items, i -> {
+      Random random = new Random(seed + i);
+      String batch = String.format("批次%03d", i / FILES_PER_BATCH + 1);
+      return dir.resolve(batch).resolve(imageBaseName(i, random) + ".jpg");
+    }, image);
+  }
+
+  // 与真实截图命名一致：多数为入库单号，部分带重复截图后缀
+  private String imageBaseName(int i, Random random) {
+    int kind = random.nextInt(20);
+    if (kind == 0) return "IMG_" + (1_000_000 + i);
+    String receipt = receipt(i);
+    if (kind < 3) return receipt + "-" + (1 + random.nextInt(3));
+    if (kind < 5) return receipt + "(" + (1 + random.nextInt(3)) + ")";
+    if (kind == 5) return receipt + " (" + (1 + random.nextInt(3)) + ")";
+    return receipt;
+  }
+
+  // ================ 凭证 PDF 与账簿 ================ //
+
+  private void writeVouchers(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    byte[] pdf = blankPdf();
+    int vouchersPerMonth = Math.max(1, items / 12);
+    parallelWrite(items, i -> {
+      int month = 1 + i % 12;
+      int voucher = 1 + (i / 12) % vouchersPerMonth;
+      return dir.resolve((i + 1) + "、" + String.format("2025.%02d", month) + "#" + voucher + ".pdf");
+    }, pdf);
+    writeLedger(dir.resolve(LEDGER_WORKBOOK), vouchersPerMonth);
+  }
+
+  // 每张凭证一行应付账款记录，另有约 5% 干扰记录（上年的同号凭证）；写满一个工作表后换下一个
+  private void writeLedger(Path file, int vouchersPerMonth) throws IOException {
+    Random random = new Random(seed);
+    try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+      int sheets = 1;
+      Sheet sheet = ledgerSheet(workbook, sheets);
+      CellStyle dateStyle = workbook.createCellStyle();
+      dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/m/d"));
+      int rowNum = 1;
+      for (int i = 0; i < items; i++) {
+        int month = 1 + i % 12;
+        int voucher = 1 + (i / 12) % vouchersPerMonth;
+        LocalDate date = LocalDate.of(2025, month, 1 + random.nextInt(28));
+        if (rowNum > ledgerRowsPerSheet) {
+          sheet = ledgerSheet(workbook, ++sheets);
+          rowNum = 1;
+        }
+        rowNum = ledgerRow(sheet, rowNum, dateStyle, date, voucher, "采购付款", "应付账款",
+                random.nextInt(100_000_000) / 100.0);
+        if (random.nextInt(20) == 0) {
+          if (rowNum > ledgerRowsPerSheet) {
+            sheet = ledgerSheet(workbook, ++sheets);
+            rowNum = 1;
+          }
+          rowNum = ledgerRow(sheet, rowNum, dateStyle, date.minusYears(1), voucher, "上年凭证", "应付账款",
+                  random.nextInt(100_000) / 100.0);
+        }
+      }
+      write(workbook, file);
+      workbook.dispose();
+    }
+  }
+
+  // 第 n 个账簿工作表（第一个不带序号），带标题行
+  private static Sheet ledgerSheet(SXSSFWorkbook workbook, int n) {
+    Sheet sheet = workbook.createSheet(n == 1 ? LEDGER_SHEET : LEDGER_SHEET + n);
+    String[] header = {"日期", "凭证号", "摘要", "科目全名", "币别", "借方金额"};
+    Row headerRow = sheet.createRow(0);
+    for (int c = 0; c < header.length; c++) {
+      headerRow.createCell(c).setCellValue(header[c]);
+    }
+    return sheet;
+  }
+
+  private static int ledgerRow(Sheet sheet, int rowNum, CellStyle dateStyle, LocalDate date, int voucher,
+                               String summary, String subject, double debit) {
+    Row row = sheet.createRow(rowNum);
+    Cell dateCell = row.createCell(0);
+    dateCell.setCellValue(date);
+    dateCell.setCellStyle(dateStyle);
+    row.createCell(1).setCellValue("记" + voucher);
+    row.createCell(2).setCellValue(summary);
+    row.createCell(3).setCellValue(subject);
+    row.createCell(4).setCellValue("人民币");
+    row.createCell(5).setCellValue(debit);
+    return rowNum + 1;
+  }
+
+  // ================ 重命名与合并 ================ //
+
+  private void writeRenameFiles(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    byte[] pdf = blankPdf();
+    parallelWrite(items, i -> dir.resolve(String.format("2025.%02d#%d.pdf", 1 + i % 12, i + 1)), pdf);
+  }
+
+  private void writeMergeImages(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    byte[] image = noiseImage(1240, 1754, "jpg");
+    parallelWrite(Math.min(items, MAX_MERGE_IMAGES), i -> dir.resolve((i + 1) + "、" + receipt(i) + ".jpg"), image);
+  }
+
+  // ================ 工具方法 ================ //
+
+  private interface PathForIndex {
+    Path path(int index);
+  }
+
+  // 并行写入内容相同的文件（语料规模到 1M 时单线程创建文件太慢）
+  private static void parallelWrite(int count, PathForIndex paths, byte[] content) throws IOException {
+    try {
+      IntStream.range(0, count).parallel().forEach(i -> {
+        try {
+          Files.write(paths.path(i), content);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static void write(SXSSFWorkbook workbook, Path file) throws IOException {
+    try (OutputStream out = Files.newOutputStream(file)) {
+      workbook.write(out);
+    }
+  }
+
+  // 带噪点的截图，避免压缩率不真实
+  private byte[] noiseImage(int width, int height, String format) throws IOException {
+    Random random = new Random(seed);
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(0, 0, width, height);
+    graphics.setColor(Color.BLACK);
+    for (int line = 0; line < height / 20; line++) {
+      graphics.drawLine(20, 10 + line * 20, 20 + random.nextInt(width - 40), 10 + line * 20);
+    }
+    graphics.dispose();
+    for (int dot = 0; dot < width * height / 50; dot++) {
+      image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt());
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, format, out);
+    return out.toByteArray();
+  }
+
+  private static byte[] blankPdf() throws IOException {
+    try (PDDocument document = new PDDocument()) {
+      document.addPage(new PDPage(PDRectangle.A4));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package org.example.bench;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.fileMove.*;
+import org.example.image.ImagesAndPdfsToPdfConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 端到端基准：生成语料后依次运行各工具，记录耗时和堆内存峰值，超出预算时以非零状态退出
+ * <p>
+ * 用法：MacroBenchmark &lt;条数&gt; [预算配置文件] [语料目录，默认临时目录，运行后删除]
+ * 指定的语料目录会先清空重新生成，只接受不存在、为空或带 {@link CorpusGenerator#MARKER} 标记的目录，其他目录拒绝运行
+ * 预算配置（properties）：
+ * <pre>
+ *   archive.maxMillis=60000
+ *   archive.maxHeapMb=2048
+ *   default.maxMillis=120000   # 未单独配置的工具使用
+ * </pre>
+ * 工具：archive、validate、scan、rename、merge；未配置预算的只记录不判定
+ * 堆内存峰值取各堆内存池的峰值之和，运行每个工具前先 GC 并清零峰值，建议配合固定的 -Xmx 运行
+ */
+public class MacroBenchmark {
+
+  private final CorpusGenerator corpus;
+  private final Properties budgets;
+  private final List<String[]> results = new ArrayList<>();
+  private boolean failed;
+
+  public MacroBenchmark(CorpusGenerator corpus, Properties budgets) {
+    this.corpus = corpus;
+    this.budgets = budgets;
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("用法: MacroBenchmark <条数> [预算配置文件] [语料目录]");
+      return;
+    }
+    boolean failed = true;
+    try {
+      int items = Integer.parseInt(args[0]);
+      Properties budgets = new Properties();
+      if (args.length > 1) {
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+          budgets.load(reader);
+        }
+      }
+      boolean temporary = args.length < 3;
+      Path root = temporary ? Files.createTempDirectory("corpus") : Paths.get(args[2]);
+      try {
+        clearCorpus(root);
+        CorpusGenerator corpus = new CorpusGenerator(root, items, CorpusGenerator.DEFAULT_SEED);
+        long start = System.nanoTime();
+        corpus.generate();
+        System.out.printf("语料已生成: %s（%d 条，耗时 %d ms）%n", root, items, (System.nanoTime() - start) / 1_000_000);
+
+        MacroBenchmark benchmark = new MacroBenchmark(corpus, budgets);
+        benchmark.runAll();
+        failed = benchmark.failed;
+      } finally {
+        if (temporary) deleteRecursively(root);
+      }
+    } catch (Exception e) {
+      System.err.println("基准运行失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+    System.exit(failed ? 1 : 0);
+  }
+
+  private interface Tool {
+    void run() throws Exception;
+  }
+
+  public void runAll() throws Exception {
+    Path root = corpus.getRoot();
+    String sampleWorkbook = root.resolve(CorpusGenerator.SAMPLE_WORKBOOK).toString();
+    String reportDir = Files.createDirectories(root.resolve("reports")).toString();
+
+    measure("archive", () -> {
+      try (Workbook workbook = openWorkbook(sampleWorkbook);
+           ResultReporter reporter = ResultReporter.create(reportDir, "归档结果",
+                   ResultReporter.ConsoleMode.SUMMARY, PurchaseImageArchiver1.PROCESSED,
+                   PurchaseImageArchiver1.UNMATCHED, PurchaseImageArchiver1.ERROR)) {
+        PurchaseImageArchiver1.archive(workbook, sampleWorkbook, CorpusGenerator.SAMPLE_SHEET,
+                root.resolve("archive").toString(), reporter, new DirectoryCache(), 32, null);
+      }
+    });
+
+    measure("validate", () -> {
+      try (Workbook workbook = openWorkbook(sampleWorkbook);
+           ResultReporter reporter = ResultReporter.create(reportDir, "校验结果",
+                   ResultReporter.ConsoleMode.SUMMARY, FileLocationValidator.CORRECT,
+                   FileLocationValidator.INCORRECT, FileLocationValidator.UNMATCHED,
+                   FileLocationValidator.MISSING_FOLDER)) {
+        ReceiptMap mapping = FileLocationValidator.readExcelMapping(workbook, CorpusGenerator.SAMPLE_SHEET);
+        FileLocationValidator.validateArchiveStructure(root.resolve("archive").resolve("批次001").toString(),
+                mapping, reporter, new DirectoryCache());
+      }
+    });
+
+    measure("scan", () -> {
+      DocumentScanner.Options options = new DocumentScanner.Options();
+      options.sourceFolderPath = root.resolve("vouchers").toString();
+      // 大语料的账簿分在多个工作表中，读取全部工作表
+      options.ledgerSources = Collections.singletonList(
+              root.resolve("vouchers").resolve(CorpusGenerator.LEDGER_WORKBOOK) + "!*");
+      options.outputFilePath = root.resolve("审计结果.xlsx").toString();
+      DocumentScanner.scan(options, new DirectoryCache());
+    });
+
+    measure("rename", () -> {
+      RenamePlanner planner = RenamePlanner.numbered(root.resolve("rename"));
+      if (!planner.getProblems().isEmpty()) {
+        throw new IOException("重命名计划存在冲突: " + planner.getProblems().get(0));
+      }
+      planner.execute(32);
+    });
+
+    measure("merge", () -> ImagesAndPdfsToPdfConverter.mergeImagesAndPdfsToPdf(
+            root.resolve("merge").toString(), "merged_output.pdf"));
+
+    printResults();
+  }
+
+  private void measure(String name, Tool tool) {
+    System.out.println("\n>>> " + name);
+    List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) heapPools.add(pool);
+    }
+    System.gc();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+    long start = System.nanoTime();
+    String error = null;
+    try {
+      tool.run();
+    } catch (Exception e) {
+      error = e.getMessage();
+      e.printStackTrace();
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    long peakBytes = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peakBytes += pool.getPeakUsage().getUsed();
+    }
+    long peakMb = peakBytes / (1024 * 1024);
+
+    long maxMillis = budget(name, "maxMillis");
+    long maxHeapMb = budget(name, "maxHeapMb");
+    List<String> violations = new ArrayList<>();
+    if (error != null) violations.add("运行失败: " + error);
+    if (maxMillis > 0 && millis > maxMillis) violations.add("耗时超出预算 " + maxMillis + " ms");
+    if (maxHeapMb > 0 && peakMb > maxHeapMb) violations.add("堆内存超出预算 " + maxHeapMb + " MB");
+    if (!violations.isEmpty()) failed = true;
+
+    results.add(new String[]{name, String.valueOf(millis), maxMillis > 0 ? String.valueOf(maxMillis) : "-",
+            String.valueOf(peakMb), maxHeapMb > 0 ? String.valueOf(maxHeapMb) : "-",
+            violations.isEmpty() ? "通过" : String.join("；", violations)});
+  }
+
+  // 工具专属预算优先，其次 default.*，都没有时返回 0（不判定）
+  private long budget(String tool, String key) {
+    String value = budgets.getProperty(tool + "." + key, budgets.getProperty("default." + key));
+    return value == null || value.trim().isEmpty() ? 0 : Long.parseLong(value.trim());
+  }
+
+  private void printResults() {
+    System.out.printf("%n=== 端到端基准（%d 条）===%n", corpus.getItems());
+    System.out.printf("%-10s %10s %10s %10s %10s  %s%n", "工具", "耗时ms", "预算ms", "堆峰值MB", "预算MB", "结果");
+    for (String[] row : results) {
+      System.out.printf("%-10s %10s %10s %10s %10s  %s%n", (Object[]) row);
+    }
+    System.out.println(failed ? "结果：存在超出预算或失败的工具" : "结果：全部在预算内");
+  }
+
+  public boolean isFailed() {
+    return failed;
+  }
+
+  private static Workbook openWorkbook(String path) throws IOException {
+    try (InputStream in = Files.newInputStream(Paths.get(path))) {
+      return new XSSFWorkbook(in);
+    }
+  }
+
+  // 只清空之前生成的语料：目录不存在、为空或带标记文件，否则报错，避免误删输错路径的目录
+  private static void clearCorpus(Path root) throws IOException {
+    if (!Files.exists(root)) return;
+    if (!Files.isDirectory(root)) {
+      throw new IOException("语料路径不是目录: " + root);
+    }
+    if (!Files.exists(root.resolve(CorpusGenerator.MARKER))) {
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+        if (entries.iterator().hasNext()) {
+          throw new IOException("目录不为空且不是生成的语料（缺少 " + CorpusGenerator.MARKER + " 标记），拒绝清空: " + root);
+        }
+      }
+    }
+    deleteRecursively(root);
+  }
+
+  private static void deleteRecursively(Path root) throws IOException {
+    if (!Files.exists(root)) return;
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -0,0 +1,484 @@
+package org.example.fileMove;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 归档记录：归档工具每移动一个文件追加一条（入库单号、归档后路径、大小、SHA-256、时间），
+ * 之后按入库单号查位置、按文件夹列文件都不需要再遍历归档目录
+ * <p>
+ * 目录中的文件：
+ * moves.log 追加写入的记录（UTF-8，制表符分隔，每行一条，同一路径以最后一条为准）；
+ * entries-代号.dat 压缩后的记录（每个路径一条，按路径排序）；
+ * path-代号.off / receipt-代号.off 按路径、按入库单号排序的偏移表，查询时二分查找；
+ * catalog.state 当前代号、压缩时已覆盖的日志长度及各索引文件的长度，之后追加的日志查询时直接扫描。
+ * <p>
+ * 每次压缩写一组新代号的文件，全部写完后以一次原子改名替换 catalog.state 切换过去，再删除旧代号的文件；
+ * 中途中断时 catalog.state 仍指向旧的一组。索引文件长度与 catalog.state 不符时不使用索引，全部按日志查询。
+ * <p>
+ * 用法：
+ * <pre>
+ *   ArchiveCatalog find &lt;记录目录&gt; &lt;入库单号&gt;...   查找文件位置
+ *   ArchiveCatalog list &lt;记录目录&gt; &lt;文件夹&gt;         列出文件夹下已归档的文件
+ *   ArchiveCatalog compact &lt;记录目录&gt;                压缩日志
+ * </pre>
+ */
+public class ArchiveCatalog implements Closeable {
+
+  private static final int FORMAT_VERSION = 2;
+  private static final String STATE_FILE = "catalog.state";
+  // 未压缩的日志超过此长度时，关闭时自动压缩
+  private static final long COMPACT_TAIL_BYTES = 256 * 1024;
+
+  private final Path dir;
+  private final Path logFile;
+  private Writer log;
+
+  private ArchiveCatalog(Path dir) {
+    this.dir = dir;
+    this.logFile = dir.resolve("moves.log");
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2 || !Arrays.asList("find", "list", "compact").contains(args[0])
+            || ("list".equals(args[0]) && args.length < 3)) {
+      System.out.println("用法: ArchiveCatalog find <记录目录> <入库单号>...");
+      System.out.println("      ArchiveCatalog list <记录目录> <文件夹>");
+      System.out.println("      ArchiveCatalog compact <记录目录>");
+      return;
+    }
+    try (ArchiveCatalog catalog = open(Paths.get(args[1]))) {
+      long start = System.nanoTime();
+      List<Entry> entries = new ArrayList<>();
+      if ("find".equals(args[0])) {
+        for (int i = 2; i < args.length; i++) {
+          entries.addAll(catalog.findByReceipt(args[i].trim()));
+        }
+      } else if ("list".equals(args[0])) {
+        entries = catalog.listFolder(Paths.get(args[2]));
+      } else {
+        catalog.compact();
+        System.out.printf("已压缩，耗时 %.2f ms%n", (System.nanoTime() - start) / 1e6);
+        return;
+      }
+      for (Entry entry : entries) {
+        System.out.println(entry);
+      }
+      System.out.printf("共 %d 条，耗时 %.2f ms%n", entries.size(), (System.nanoTime() - start) / 1e6);
+    } catch (Exception e) {
+      System.err.println("处理失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  /** 打开（不存在时创建）记录目录 */
+  public static ArchiveCatalog open(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    return new ArchiveCatalog(dir);
+  }
+
+  // ================ 写入 ================ //
+
+  /**
+   * 记录一个已归档的文件：读取大小并计算 SHA-256（在文件移动所在的 I/O 线程中调用）
+   */
+  public static Entry describe(String receiptNumber, Path file) throws IOException {
+    MessageDigest digest = sha256();
+    byte[] buffer = new byte[64 * 1024];
+    long size = 0;
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+        size += read;
+      }
+    }
+    StringBuilder hash = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hash.append(String.format("%02x", b));
+    }
+    return new Entry(receiptNumber, file.toAbsolutePath().normalize().toString(), size, hash.toString(),
+            System.currentTimeMillis());
+  }
+
+  public synchronized void append(Entry entry) throws IOException {
+    if (containsLineBreakOrTab(entry.receiptNumber) || containsLineBreakOrTab(entry.path)) {
+      throw new IOException("入库单号或路径包含制表符/换行，无法记录: " + entry.path);
+    }
+    if (log == null) {
+      log = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(logFile,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+    }
+    log.write(entry.receiptNumber + '\t' + entry.path + '\t' + entry.size + '\t' + entry.sha256 + '\t'
+            + entry.movedMillis + '\n');
+  }
+
+  /** 写出已追加的记录；未压缩部分较多时顺带压缩 */
+  @Override
+  public synchronized void close() throws IOException {
+    if (log == null) return;
+    log.close();
+    log = null;
+    if (Files.size(logFile) - readState().covered > COMPACT_TAIL_BYTES) {
+      compact();
+    }
+  }
+
+  /**
+   * 把上次压缩后追加的日志合并进排序的索引文件（同一路径保留最新一条），写成新代号的一组文件后切换
+   */
+  public synchronized void compact() throws IOException {
+    if (log != null) log.flush();
+    long logLength = Files.exists(logFile) ? Files.size(logFile) : 0;
+    State current = readState();
+    TreeMap<String, Entry> byPath = new TreeMap<>();
+    for (Entry entry : readIndexedEntries(current)) {
+      byPath.put(entry.path, entry);
+    }
+    for (Entry entry : readLogTail(current.covered, logLength)) {
+      byPath.put(entry.path, entry);
+    }
+
+    // 上次中断的压缩可能留下同代号的文件，直接覆盖
+    State next = new State(current.generation + 1, logLength, byPath.size(), 0);
+    List<Entry> entries = new ArrayList<>(byPath.values());
+    long[] offsets = new long[entries.size()];
+    CountingOutputStream counter = new CountingOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(next.file("entries", ".dat"))));
+    try (DataOutputStream data = new DataOutputStream(counter)) {
+      for (int i = 0; i < entries.size(); i++) {
+        offsets[i] = counter.getCount();
+        entries.get(i).write(data);
+      }
+    }
+    next.dataLength = counter.getCount();
+    Integer[] byReceipt = new Integer[entries.size()];
+    for (int i = 0; i < byReceipt.length; i++) byReceipt[i] = i;
+    Arrays.sort(byReceipt, Comparator.comparing((Integer i) -> entries.get(i).receiptNumber)
+            .thenComparing(i -> entries.get(i).path));
+
+    try (DataOutputStream pathOffsets = new DataOutputStream(new BufferedOutputStream(
+                 Files.newOutputStream(next.file("path", ".off"))));
+         DataOutputStream receiptOffsets = new DataOutputStream(new BufferedOutputStream(
+                 Files.newOutputStream(next.file("receipt", ".off"))))) {
+      for (int i = 0; i < entries.size(); i++) {
+        pathOffsets.writeLong(offsets[i]);
+        receiptOffsets.writeLong(offsets[byReceipt[i]]);
+      }
+    }
+    // 新文件落盘后才切换，断电时不会指向未写完的文件
+    sync(next.file("entries", ".dat"));
+    sync(next.file("path", ".off"));
+    sync(next.file("receipt", ".off"));
+
+    Path stateTemp = dir.resolve(STATE_FILE + ".tmp");
+    try (DataOutputStream state = new DataOutputStream(Files.newOutputStream(stateTemp))) {
+      state.writeInt(FORMAT_VERSION);
+      state.writeLong(next.generation);
+      state.writeLong(next.covered);
+      state.writeLong(next.count);
+      state.writeLong(next.dataLength);
+    }
+    sync(stateTemp);
+    try {
+      Files.move(stateTemp, dir.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(stateTemp, dir.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+    deleteOtherGenerations(next.generation);
+  }
+
+  // 删除旧代号（及旧格式）的索引文件；其他进程正在读取而删除失败的，留到下次压缩
+  private void deleteOtherGenerations(long generation) throws IOException {
+    String suffix = "-" + generation + ".";
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+            "{entries*.dat,path*.off,receipt*.off}")) {
+      for (Path file : stream) {
+        if (file.getFileName().toString().contains(suffix)) continue;
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          System.err.println("旧的归档索引文件暂时无法删除: " + file.getFileName());
+        }
+      }
+    }
+  }
+
+  // ================ 查询 ================ //
+
+  /** 入库单号对应的全部已归档文件（按路径排序） */
+  public List<Entry> findByReceipt(String receiptNumber) throws IOException {
+    TreeMap<String, Entry> result = new TreeMap<>();
+    State state = readState();
+    if (state.count > 0) {
+      try (RandomAccessFile data = openRead(state.file("entries", ".dat"));
+           RandomAccessFile offsets = openRead(state.file("receipt", ".off"))) {
+        long count = state.count;
+        long index = lowerBound(data, offsets, count, entry -> entry.receiptNumber.compareTo(receiptNumber));
+        for (; index < count; index++) {
+          Entry entry = read(data, offsets, index);
+          if (!entry.receiptNumber.equals(receiptNumber)) break;
+          result.put(entry.path, entry);
+        }
+      }
+    }
+    // 压缩后追加的记录覆盖索引中的同一路径
+    for (Entry entry : readLogTail(state.covered, logLength())) {
+      if (entry.receiptNumber.equals(receiptNumber)) {
+        result.put(entry.path, entry);
+      } else {
+        result.remove(entry.path);
+      }
+    }
+    return new ArrayList<>(result.values());
+  }
+
+  /** 文件夹下直接包含的已归档文件 */
+  public List<Entry> listFolder(Path folder) throws IOException {
+    String folderPath = folder.toAbsolutePath().normalize().toString();
+    List<Entry> result = new ArrayList<>();
+    for (Entry entry : listUnder(folder)) {
+      if (folderPath.equals(entry.getFolderPath())) result.add(entry);
+    }
+    return result;
+  }
+
+  /** 目录下（含各级子目录）的已归档文件，按路径排序 */
+  public List<Entry> listUnder(Path directory) throws IOException {
+    String prefix = directory.toAbsolutePath().normalize().toString();
+    if (!prefix.endsWith(File.separator)) prefix += File.separator;
+    TreeMap<String, Entry> result = new TreeMap<>();
+    State state = readState();
+    if (state.count > 0) {
+      String from = prefix;
+      try (RandomAccessFile data = openRead(state.file("entries", ".dat"));
+           RandomAccessFile offsets = openRead(state.file("path", ".off"))) {
+        long count = state.count;
+        long index = lowerBound(data, offsets, count, entry -> entry.path.compareTo(from));
+        for (; index < count; index++) {
+          Entry entry = read(data, offsets, index);
+          if (!entry.path.startsWith(prefix)) break;
+          result.put(entry.path, entry);
+        }
+      }
+    }
+    for (Entry entry : readLogTail(state.covered, logLength())) {
+      if (entry.path.startsWith(prefix)) result.put(entry.path, entry);
+    }
+    return new ArrayList<>(result.values());
+  }
+
+  // ================ 文件读写 ================ //
+
+  private interface EntryComparison {
+    int compareTo(Entry entry);
+  }
+
+  // 第一个不小于目标的位置
+  private static long lowerBound(RandomAccessFile data, RandomAccessFile offsets, long count,
+                                 EntryComparison comparison) throws IOException {
+    long low = 0;
+    long high = count;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      if (comparison.compareTo(read(data, offsets, mid)) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static Entry read(RandomAccessFile data, RandomAccessFile offsets, long index) throws IOException {
+    offsets.seek(index * 8);
+    data.seek(offsets.readLong());
+    return new Entry(data.readUTF(), data.readUTF(), data.readLong(), data.readUTF(), data.readLong());
+  }
+
+  private List<Entry> readIndexedEntries(State state) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    if (state.count == 0) return entries;
+    // 记录按路径顺序连续存放
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(state.file("entries", ".dat"))))) {
+      for (long i = 0; i < state.count; i++) {
+        entries.add(new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readUTF(), in.readLong()));
+      }
+    }
+    return entries;
+  }
+
+  // 读取日志中 [from, to) 的记录，最后一行不完整（写入中）时忽略
+  private List<Entry> readLogTail(long from, long to) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    if (to <= from) return entries;
+    byte[] bytes = new byte[(int) (to - from)];
+    try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "r")) {
+      file.seek(from);
+      file.readFully(bytes);
+    }
+    int lineStart = 0;
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] != '\n') continue;
+      String[] fields = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).split("\t");
+      lineStart = i + 1;
+      if (fields.length != 5) continue;
+      try {
+        entries.add(new Entry(fields[0], fields[1], Long.parseLong(fields[2]), fields[3], Long.parseLong(fields[4])));
+      } catch (NumberFormatException e) {
+        System.err.println("跳过无法解析的归档记录: " + String.join("\t", fields));
+      }
+    }
+    return entries;
+  }
+
+  // 当前索引；没有索引、格式不符或索引文件长度与记录不符时为空（全部按日志读取）
+  private State readState() throws IOException {
+    Path stateFile = dir.resolve(STATE_FILE);
+    State empty = new State(0, 0, 0, 0);
+    if (!Files.exists(stateFile)) return empty;
+    State state;
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(stateFile))) {
+      if (in.readInt() != FORMAT_VERSION) return empty;
+      state = new State(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    } catch (EOFException e) {
+      return empty;
+    }
+    if (length(state.file("entries", ".dat")) != state.dataLength
+            || length(state.file("path", ".off")) != state.count * 8
+            || length(state.file("receipt", ".off")) != state.count * 8) {
+      System.err.println("归档索引文件不完整，改为按日志查询（下次压缩时重建）: " + dir);
+      return new State(state.generation, 0, 0, 0);
+    }
+    return state;
+  }
+
+  private static long length(Path file) throws IOException {
+    return Files.exists(file) ? Files.size(file) : -1;
+  }
+
+  private static void sync(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+  }
+
+  private long logLength() throws IOException {
+    synchronized (this) {
+      if (log != null) log.flush();
+    }
+    return Files.exists(logFile) ? Files.size(logFile) : 0;
+  }
+
+  private static RandomAccessFile openRead(Path file) throws FileNotFoundException {
+    return new RandomAccessFile(file.toFile(), "r");
+  }
+
+  // catalog.state 的内容：代号、已覆盖的日志长度、条数、entries 文件长度
+  private final class State {
+    private final long generation;
+    private final long covered;
+    private final long count;
+    private long dataLength;
+
+    State(long generation, long covered, long count, long dataLength) {
+      this.generation = generation;
+      this.covered = covered;
+      this.count = count;
+      this.dataLength = dataLength;
+    }
+
+    Path file(String name, String extension) {
+      return dir.resolve(name + "-" + generation + extension);
+    }
+  }
+
+  private static boolean containsLineBreakOrTab(String value) {
+    return value.indexOf('\t') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** 一个已归档的文件 */
+  public static class Entry {
+    private final String receiptNumber;
+    private final String path;
+    private final long size;
+    private final String sha256;
+    private final long movedMillis;
+
+    Entry(String receiptNumber, String path, long size, String sha256, long movedMillis) {
+      this.receiptNumber = receiptNumber;
+      this.path = path;
+      this.size = size;
+      this.sha256 = sha256;
+      this.movedMillis = movedMillis;
+    }
+
+    public String getReceiptNumber() {
+      return receiptNumber;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    /** 所在文件夹的完整路径 */
+    public String getFolderPath() {
+      int separator = path.lastIndexOf(File.separatorChar);
+      return separator < 0 ? "" : path.substring(0, separator);
+    }
+
+    /** 所在文件夹名 */
+    public String getFolderName() {
+      String folder = getFolderPath();
+      return folder.substring(folder.lastIndexOf(File.separatorChar) + 1);
+    }
+
+    public String getFileName() {
+      return path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public String getSha256() {
+      return sha256;
+    }
+
+    public long getMovedMillis() {
+      return movedMillis;
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeUTF(receiptNumber);
+      out.writeUTF(path);
+      out.writeLong(size);
+      out.writeUTF(sha256);
+      out.writeLong(movedMillis);
+    }
+
+    @Override
+    public String toString() {
+      return receiptNumber + "\t" + path + "\t" + size + " 字节\t" + sha256.substring(0, Math.min(12, sha256.length()))
+              + "\t" + LocalDateTime.ofInstant(Instant.ofEpochMilli(movedMillis), ZoneId.systemDefault()).withNano(0);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package org.example.fileMove;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞文件操作（移动、创建目录等）的执行器
+ * 本实现用于 Java 8 ~ 20：有界的平台线程池，并发数即线程数；
+ * Java 21 及以上运行时会使用多版本 JAR 中 META-INF/versions/21 下的同名类（虚拟线程 + 信号量限流）
+ */
+public final class BlockingIoExecutor implements AutoCloseable {
+
+  private final ExecutorService pool;
+  private final int maxConcurrency;
+
+  private BlockingIoExecutor(int maxConcurrency) {
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.pool = Executors.newFixedThreadPool(this.maxConcurrency);
+  }
+
+  /**
+   * @param maxConcurrency 同时进行的阻塞操作上限
+   */
+  public static BlockingIoExecutor create(int maxConcurrency) {
+    return new BlockingIoExecutor(maxConcurrency);
+  }
+
+  public <T> Future<T> submit(Callable<T> task) {
+    return pool.submit(task);
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /** 用于日志输出的说明 */
+  public String describe() {
+    return "平台线程池，并发上限 " + maxConcurrency;
+  }
+
+  /**
+   * 等待已提交的任务全部完成后关闭
+   * 同 ExecutorService.close()：等待中被中断时取消未完成的任务，继续等到全部结束后再恢复中断标记
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (pool.awaitTermination(1, TimeUnit.MINUTES)) break;
+        System.out.println("等待文件操作完成...");
+      } catch (InterruptedException e) {
+        if (!interrupted) {
+          pool.shutdownNow();
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Arrays;
+
+/**
+ * 写入单元格时顺带记录每列最大显示宽度，写完后一次性设置列宽，
+ * 代替 sheet.autoSizeColumn（后者要对每个单元格做字体测量，大表很慢且依赖服务器字体）
+ * 宽度按字符估算：中日韩文字及全角符号算 2，其他算 1
+ */
+public class ColumnWidthTracker {
+
+  // Excel 列宽上限为 255 个字符
+  private static final int MAX_CHARS = 255;
+  // 两侧留白
+  private static final int PADDING_CHARS = 2;
+
+  private int[] maxWidths;
+
+  public ColumnWidthTracker(int columnCount) {
+    this.maxWidths = new int[Math.max(1, columnCount)];
+  }
+
+  /** 创建文本单元格并记录宽度 */
+  public Cell createCell(Row row, int column, String value) {
+    Cell cell = row.createCell(column);
+    cell.setCellValue(value);
+    track(column, value);
+    return cell;
+  }
+
+  /** 创建数字单元格，按显示文本（如千分位格式后的金额）记录宽度 */
+  public Cell createCell(Row row, int column, double value, String displayText) {
+    Cell cell = row.createCell(column);
+    cell.setCellValue(value);
+    track(column, displayText);
+    return cell;
+  }
+
+  public void track(int column, String text) {
+    if (column < 0 || text == null) return;
+    if (column >= maxWidths.length) {
+      maxWidths = Arrays.copyOf(maxWidths, column + 1);
+    }
+    int width = displayWidth(text);
+    if (width > maxWidths[column]) {
+      maxWidths[column] = width;
+    }
+  }
+
+  /** 将记录的宽度设置到工作表（只设置有内容的列） */
+  public void applyTo(Sheet sheet) {
+    for (int column = 0; column < maxWidths.length; column++) {
+      if (maxWidths[column] == 0) continue;
+      sheet.setColumnWidth(column, getColumnChars(column) * 256);
+    }
+  }
+
+  /** 列宽（字符数，含两侧留白），没有内容的列为 0 */
+  public int getColumnChars(int column) {
+    int width = getWidth(column);
+    return width == 0 ? 0 : Math.min(MAX_CHARS, width + PADDING_CHARS);
+  }
+
+  public int getWidth(int column) {
+    return column < maxWidths.length ? maxWidths[column] : 0;
+  }
+
+  /** 文本的显示宽度（多行文本取最长一行） */
+  static int displayWidth(String text) {
+    int max = 0;
+    int current = 0;
+    for (int i = 0; i < text.length(); ) {
+      int codePoint = text.codePointAt(i);
+      i += Character.charCount(codePoint);
+      if (codePoint == '\n') {
+        max = Math.max(max, current);
+        current = 0;
+      } else if (codePoint != '\r') {
+        current += isWide(codePoint) ? 2 : 1;
+      }
+    }
+    return Math.max(max, current);
+  }
+
+  private static boolean isWide(int codePoint) {
+    if (codePoint < 0x1100) return false;
+    Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+    return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+            || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+            || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
+            || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+            || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+            || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && codePoint < 0xFF61
+            || block == Character.UnicodeBlock.HIRAGANA
+            || block == Character.UnicodeBlock.KATAKANA
+            || block == Character.UnicodeBlock.HANGUL_SYLLABLES
+            || block == Character.UnicodeBlock.HANGUL_JAMO
+            || block == Character.UnicodeBlock.BOPOMOFO;
+  }
+}
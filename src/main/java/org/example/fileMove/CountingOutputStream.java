@@ -0,0 +1,38 @@
+package org.example.fileMove;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 记录已写字节数的输出流，用于生成偏移表
+ * <p>
+ * DataOutputStream.size() 是 int，超过 2 GB 后停在 Integer.MAX_VALUE，偏移量必须自己按 long 计数。
+ * 放在 DataOutputStream 和缓冲流之间：new DataOutputStream(new CountingOutputStream(new BufferedOutputStream(...)))
+ */
+final class CountingOutputStream extends FilterOutputStream {
+
+  private long count;
+
+  CountingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  /** 已写入的字节数 */
+  long getCount() {
+    return count;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    count++;
+  }
+
+  // FilterOutputStream 默认逐字节转发，这里整块写入
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    count += len;
+  }
+}
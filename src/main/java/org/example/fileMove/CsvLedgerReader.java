@@ -0,0 +1,392 @@
+package org.example.fileMove;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ERP 导出的数据搜索 CSV/TSV 读取：内存映射文件，按行边界切块后并行解析
+ * <p>
+ * 列：日期、凭证号、摘要、科目全名、币别、借方金额。首行为标题，
+ * 标题中含上述列名时按列名定位，否则按前六列顺序读取。
+ * 支持双引号字段（含引号内的分隔符、换行和 "" 转义），UTF-8（可带BOM）与 GBK 编码自动识别，
+ * 日期格式 yyyy/MM/dd（也接受 yyyy-MM-dd），金额允许千分位逗号。
+ * <p>
+ * 分隔符、引号和换行都是 ASCII 字节，GBK 双字节字符的第二字节不小于 0x40，不会与之混淆，
+ * 因此可以直接按字节切块和拆分字段，只在取字段值时解码。
+ */
+public class CsvLedgerReader {
+
+  private static final String[] COLUMN_NAMES = {"日期", "凭证号", "摘要", "科目全名", "币别", "借方金额"};
+  // 每块的目标大小，块边界会向后移到最近的记录结束处
+  private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+  // 用于识别编码的样本大小
+  private static final int SAMPLE_SIZE = 64 * 1024;
+
+  private final int threads;
+  private long scannedRows;
+  private long retainedRows;
+
+  public CsvLedgerReader(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * 读取 CSV/TSV，符合过滤条件的行写入新的存储（来源为文件名）
+   *
+   * @param charset 文件编码，为 null 时自动识别
+   */
+  public LedgerStore read(File csvFile, Charset charset, LedgerRowFilter filter) throws IOException {
+    try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      LedgerStore store = new LedgerStore(csvFile.getName(), 1024);
+      if (fileSize == 0) return store;
+
+      // 1. 识别编码、BOM、分隔符，解析标题行
+      ByteBuffer sample = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, SAMPLE_SIZE));
+      byte[] sampleBytes = new byte[sample.remaining()];
+      sample.get(sampleBytes);
+      int bomLength = hasUtf8Bom(sampleBytes) ? 3 : 0;
+      Charset encoding = charset != null ? charset
+              : bomLength > 0 || isUtf8(sampleBytes, bomLength) ? StandardCharsets.UTF_8 : Charset.forName("GBK");
+
+      // 样本就是整个文件时，没有换行的标题行到文件末尾结束；否则标题行必须在样本内结束
+      int headerEnd = findRecordEnd(sampleBytes, bomLength, sampleBytes.length, fileSize <= sampleBytes.length);
+      if (headerEnd < 0) {
+        throw new IOException("CSV 标题行超过 " + SAMPLE_SIZE / 1024 + " KB 或文件格式不正确: " + csvFile);
+      }
+      byte delimiter = detectDelimiter(csvFile.getName(), sampleBytes, bomLength, headerEnd);
+      List<String> header = new ArrayList<>();
+      splitRecord(sampleBytes, bomLength, headerEnd, delimiter, encoding, header);
+      int[] columns = resolveColumns(header);
+
+      // 2. 按目标大小切块，再在块内找到第一个完整记录的起点
+      long dataStart = headerEnd;
+      if (dataStart < sampleBytes.length && sampleBytes[(int) dataStart] == '\r') dataStart++;
+      if (dataStart < sampleBytes.length && sampleBytes[(int) dataStart] == '\n') dataStart++;
+      List<long[]> chunks = splitChunks(channel, dataStart, fileSize);
+      if (chunks.isEmpty()) return store;
+
+      // 3. 各块并行解析到独立的存储，再按顺序合并
+      ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+      try {
+        List<Future<ChunkResult>> results = new ArrayList<>();
+        for (long[] chunk : chunks) {
+          results.add(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1],
+                  delimiter, encoding, columns, filter, csvFile.getName())));
+        }
+        for (Future<ChunkResult> result : results) {
+          ChunkResult chunkResult = result.get();
+          store.appendAll(chunkResult.store);
+          scannedRows += chunkResult.scannedRows;
+          retainedRows += chunkResult.store.size();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("读取 CSV 被中断: " + csvFile, e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) throw (IOException) cause;
+        throw new IOException("解析 CSV 失败: " + csvFile + " - " + cause.getMessage(), cause);
+      } finally {
+        pool.shutdownNow();
+      }
+      return store;
+    }
+  }
+
+  public long getScannedRows() {
+    return scannedRows;
+  }
+
+  public long getRetainedRows() {
+    return retainedRows;
+  }
+
+  // ================ 切块 ================ //
+
+  /**
+   * 把 [dataStart, fileSize) 切成若干块，每块以完整记录开始和结束
+   * 先并行统计各块名义范围内的引号个数，得到每个名义起点处是否在引号内，
+   * 再从名义起点向后找到第一个引号外的换行作为实际边界
+   */
+  private List<long[]> splitChunks(FileChannel channel, long dataStart, long fileSize) throws IOException {
+    List<long[]> nominal = new ArrayList<>();
+    for (long start = dataStart; start < fileSize; start += CHUNK_SIZE) {
+      nominal.add(new long[]{start, Math.min(fileSize, start + CHUNK_SIZE)});
+    }
+
+    // 各名义块内引号个数的奇偶
+    boolean[] oddQuotes = new boolean[nominal.size()];
+    runParallel(nominal.size(), i -> {
+      MappedByteBuffer buffer = map(channel, nominal.get(i)[0], nominal.get(i)[1]);
+      boolean odd = false;
+      while (buffer.hasRemaining()) {
+        if (buffer.get() == '"') odd = !odd;
+      }
+      oddQuotes[i] = odd;
+    });
+
+    // 各名义起点向后找实际边界（第一个名义块从数据开始处开始）
+    long[] boundaries = new long[nominal.size() + 1];
+    boundaries[0] = dataStart;
+    boundaries[nominal.size()] = fileSize;
+    boolean[] inQuotesAtStart = new boolean[nominal.size()];
+    for (int i = 1; i < nominal.size(); i++) {
+      inQuotesAtStart[i] = inQuotesAtStart[i - 1] ^ oddQuotes[i - 1];
+    }
+    runParallel(nominal.size() - 1, j -> {
+      int i = j + 1;
+      MappedByteBuffer buffer = map(channel, nominal.get(i)[0], fileSize);
+      boolean inQuotes = inQuotesAtStart[i];
+      long position = nominal.get(i)[0];
+      while (buffer.hasRemaining()) {
+        byte b = buffer.get();
+        position++;
+        if (b == '"') {
+          inQuotes = !inQuotes;
+        } else if (b == '\n' && !inQuotes) {
+          break;
+        }
+      }
+      boundaries[i] = position;
+    });
+
+    List<long[]> chunks = new ArrayList<>();
+    for (int i = 0; i < nominal.size(); i++) {
+      long start = Math.max(boundaries[i], i > 0 ? chunksEnd(chunks) : dataStart);
+      long end = Math.max(start, boundaries[i + 1]);
+      if (end > start) {
+        chunks.add(new long[]{start, end});
+      }
+    }
+    return chunks;
+  }
+
+  private static long chunksEnd(List<long[]> chunks) {
+    return chunks.isEmpty() ? 0 : chunks.get(chunks.size() - 1)[1];
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+    // 单个映射最大 2GB，边界查找最多只需要读到下一个换行
+    long length = Math.min(end - start, Integer.MAX_VALUE);
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+  }
+
+  // ================ 块解析 ================ //
+
+  private static ChunkResult parseChunk(FileChannel channel, long start, long end, byte delimiter,
+                                        Charset encoding, int[] columns, LedgerRowFilter filter,
+                                        String source) throws IOException {
+    MappedByteBuffer buffer = map(channel, start, end);
+    byte[] bytes = new byte[(int) (end - start)];
+    buffer.get(bytes);
+
+    ChunkResult result = new ChunkResult(new LedgerStore(source, 1024));
+    List<String> fields = new ArrayList<>(8);
+    int position = 0;
+    while (position < bytes.length) {
+      int recordEnd = findRecordEnd(bytes, position, bytes.length, true);
+      int next = recordEnd;
+      if (next < bytes.length && bytes[next] == '\r') next++;
+      if (next < bytes.length && bytes[next] == '\n') next++;
+
+      if (recordEnd > position) {
+        result.scannedRows++;
+        addRecord(bytes, position, recordEnd, delimiter, encoding, columns, filter, fields, result.store);
+      }
+      position = Math.max(next, position + 1);
+    }
+    return result;
+  }
+
+  private static void addRecord(byte[] bytes, int start, int end, byte delimiter, Charset encoding,
+                                int[] columns, LedgerRowFilter filter, List<String> fields, LedgerStore store) {
+    fields.clear();
+    splitRecord(bytes, start, end, delimiter, encoding, fields);
+
+    String voucherNumber = field(fields, columns[1]);
+    if (!filter.acceptVoucher(voucherNumber)) return;
+    String date = field(fields, columns[0]);
+    int epochDay = LedgerStore.parseEpochDay(date.indexOf('-') >= 0 ? date.replace('-', '/') : date);
+    if (!filter.accept(voucherNumber, epochDay)) return;
+
+    String debit = field(fields, columns[5]);
+    if (debit.indexOf(',') >= 0 && debit.matches("-?[\\d,]+(\\.\\d+)?")) {
+      debit = debit.replace(",", "");
+    }
+    store.add(epochDay, voucherNumber, field(fields, columns[2]), field(fields, columns[3]),
+            field(fields, columns[4]), debit);
+  }
+
+  private static String field(List<String> fields, int column) {
+    return column >= 0 && column < fields.size() ? fields.get(column).trim() : "";
+  }
+
+  /**
+   * 查找从 start 开始的记录结束位置（指向 \r\n 或 \n，或 limit）
+   *
+   * @param allowEof 到达 limit 仍未遇到换行时是否视为记录结束
+   * @return 结束位置；allowEof 为 false 且未找到换行时返回 -1
+   */
+  private static int findRecordEnd(byte[] bytes, int start, int limit, boolean allowEof) {
+    boolean inQuotes = false;
+    for (int i = start; i < limit; i++) {
+      byte b = bytes[i];
+      if (b == '"') {
+        inQuotes = !inQuotes;
+      } else if (b == '\n' && !inQuotes) {
+        return i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+      }
+    }
+    return allowEof ? limit : -1;
+  }
+
+  // 拆分一条记录的字段（引号字段去掉外层引号并还原 "" 转义）
+  private static void splitRecord(byte[] bytes, int start, int end, byte delimiter, Charset encoding,
+                                  List<String> fields) {
+    int position = start;
+    while (true) {
+      if (position < end && bytes[position] == '"') {
+        // 引号字段
+        int contentStart = position + 1;
+        int i = contentStart;
+        boolean hasEscapedQuote = false;
+        while (i < end) {
+          if (bytes[i] == '"') {
+            if (i + 1 < end && bytes[i + 1] == '"') {
+              hasEscapedQuote = true;
+              i += 2;
+              continue;
+            }
+            break;
+          }
+          i++;
+        }
+        String value = new String(bytes, contentStart, i - contentStart, encoding);
+        fields.add(hasEscapedQuote ? value.replace("\"\"", "\"") : value);
+        // 跳过结束引号后到分隔符之间的内容
+        while (i < end && bytes[i] != delimiter) i++;
+        position = i;
+      } else {
+        int i = position;
+        while (i < end && bytes[i] != delimiter) i++;
+        fields.add(new String(bytes, position, i - position, encoding));
+        position = i;
+      }
+      if (position >= end) return;
+      position++; // 跳过分隔符
+    }
+  }
+
+  // ================ 格式识别 ================ //
+
+  private static boolean hasUtf8Bom(byte[] bytes) {
+    return bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF;
+  }
+
+  // 样本能否按 UTF-8 严格解码（按未结束输入解码，样本末尾被截断的多字节字符不算错误）
+  private static boolean isUtf8(byte[] sample, int offset) {
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    ByteBuffer in = ByteBuffer.wrap(sample, offset, sample.length - offset);
+    CoderResult result = decoder.decode(in, CharBuffer.allocate(sample.length), false);
+    return !result.isError();
+  }
+
+  private static byte detectDelimiter(String fileName, byte[] bytes, int start, int end) {
+    if (fileName.toLowerCase().endsWith(".tsv")) return '\t';
+    int tabs = 0;
+    int commas = 0;
+    for (int i = start; i < end; i++) {
+      if (bytes[i] == '\t') tabs++;
+      else if (bytes[i] == ',') commas++;
+    }
+    return tabs > commas ? (byte) '\t' : (byte) ',';
+  }
+
+  // 标题中包含列名时按列名定位，否则按顺序
+  private static int[] resolveColumns(List<String> header) {
+    int[] columns = new int[COLUMN_NAMES.length];
+    boolean named = false;
+    for (int c = 0; c < COLUMN_NAMES.length; c++) {
+      columns[c] = -1;
+      for (int i = 0; i < header.size(); i++) {
+        if (COLUMN_NAMES[c].equals(header.get(i).trim())) {
+          columns[c] = i;
+          named = true;
+          break;
+        }
+      }
+    }
+    if (!named) {
+      for (int c = 0; c < columns.length; c++) {
+        columns[c] = c;
+      }
+    }
+    return columns;
+  }
+
+  // ================ 工具 ================ //
+
+  @FunctionalInterface
+  private interface IndexTask {
+    void run(int index) throws IOException;
+  }
+
+  private void runParallel(int count, IndexTask task) throws IOException {
+    if (count <= 0) return;
+    if (count == 1 || threads == 1) {
+      for (int i = 0; i < count; i++) task.run(i);
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, count));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        int index = i;
+        futures.add(pool.submit(() -> {
+          task.run(index);
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("读取 CSV 被中断", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      throw new IOException(cause.getMessage(), cause);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static class ChunkResult {
+    private final LedgerStore store;
+    private long scannedRows;
+
+    ChunkResult(LedgerStore store) {
+      this.store = store;
+    }
+  }
+}
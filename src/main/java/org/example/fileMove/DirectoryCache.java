@@ -0,0 +1,143 @@
+package org.example.fileMove;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 目录列表缓存：同一目录只列一次，供多个工具/阶段共享
+ * 文件类型取自列目录时返回的属性，不再对每个文件单独调用 isFile()/isDirectory()
+ * 会改动目录内容的操作（移动、重命名）完成后须调用 invalidate
+ */
+public class DirectoryCache {
+
+  private final ConcurrentHashMap<String, Listing> listings = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  /** 目录下的普通文件（不含子目录），目录不存在时返回 null，与 File.listFiles 一致 */
+  public File[] listFiles(File dir) {
+    Listing listing = get(dir);
+    return listing == null ? null : listing.files.clone();
+  }
+
+  /** 目录下文件名满足条件的普通文件 */
+  public File[] listFiles(File dir, FilenameFilter filter) {
+    Listing listing = get(dir);
+    if (listing == null) return null;
+    List<File> accepted = new ArrayList<>();
+    for (File file : listing.files) {
+      if (filter.accept(dir, file.getName())) accepted.add(file);
+    }
+    return accepted.toArray(new File[0]);
+  }
+
+  /** 目录下的子目录 */
+  public File[] listDirectories(File dir) {
+    Listing listing = get(dir);
+    return listing == null ? null : listing.directories.clone();
+  }
+
+  /**
+   * 并发列出多个目录并放入缓存（网络盘上逐个列目录时大部分时间在等待），
+   * 同一设备上的并发数仍受 {@link IoScheduler} 限制
+   */
+  public void prefetch(File[] dirs, int concurrency) throws InterruptedException {
+    if (dirs == null || dirs.length < 2) return;
+    try (BlockingIoExecutor io = BlockingIoExecutor.create(Math.min(concurrency, dirs.length))) {
+      for (File dir : dirs) {
+        io.submit(() -> get(dir));
+      }
+    }
+  }
+
+  /** 目录内容已变化：清除该目录及其下所有子目录的缓存 */
+  public void invalidate(File dir) {
+    String key = key(dir);
+    String prefix = key + File.separator;
+    listings.keySet().removeIf(path -> path.equals(key) || path.startsWith(prefix));
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  private Listing get(File dir) {
+    String key = key(dir);
+    Listing listing = listings.get(key);
+    if (listing != null) {
+      hits.incrementAndGet();
+      return listing;
+    }
+    misses.incrementAndGet();
+    listing = list(dir);
+    // 不存在的目录不缓存，之后创建时可以列到
+    if (listing != null) {
+      listings.put(key, listing);
+    }
+    return listing;
+  }
+
+  private static Listing list(File dir) {
+    try {
+      return IoScheduler.getDefault().run(dir.toPath(), 0, () -> walk(dir));
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private static Listing walk(File dir) {
+    if (!dir.isDirectory()) return null;
+    List<File> files = new ArrayList<>();
+    List<File> directories = new ArrayList<>();
+    try {
+      Files.walkFileTree(dir.toPath(), EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile()) {
+            files.add(file.toFile());
+          } else if (attrs.isDirectory()) {
+            directories.add(file.toFile());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      return null;
+    }
+    return new Listing(files.toArray(new File[0]), directories.toArray(new File[0]));
+  }
+
+  private static String key(File dir) {
+    return dir.getAbsoluteFile().toPath().normalize().toString();
+  }
+
+  private static class Listing {
+    private final File[] files;
+    private final File[] directories;
+
+    Listing(File[] files, File[] directories) {
+      this.files = files;
+      this.directories = directories;
+    }
+  }
+}
@@ -6,77 +6,157 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 通过文件名称 36、2025.05#791.pdf 匹配excel凭证号 “记791” 并且日期为 2025.05月数据，
  * 将匹配到的结果数据输出到审计结果.xlsx中
  */
 public class DocumentScanner {
-  private static final SimpleDateFormat FILE_DATE_FORMAT = new SimpleDateFormat("yyyy.MM");
-  private static final SimpleDateFormat RECORD_DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd");
+  // java.time 格式化器不可变、线程安全，可在并行匹配中共享
+  private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM");
+  private static final DateTimeFormatter RECORD_DATE_FORMAT = LedgerStore.RECORD_DATE_FORMAT;
+
+  private static final String RESULT_SHEET = "审计结果";
+  private static final String INDEX_PREFIX = "F2202-50-";
+  private static final int INDEX_COLUMN = 8;
+  private static final int CONCLUSION_COLUMN = 9;
+  private static final int SOURCE_COLUMN = 10;
+  private static final String UNMATCHED = "异常：未匹配到数据";
+  private static final String MULTI_MATCH = "异常：匹配到多条数据";
 
   public static void main(String[] args) {
-    String sourceFolderPath = "C:\\Users\\20847\\Desktop\\c\\应付账款抽凭";
-    String dataSearchFilePath = sourceFolderPath + "\\数据搜索.xlsx";
-    String outputFilePath = sourceFolderPath + "\\审计结果.xlsx";
+    Options options = new Options();
+    options.sourceFolderPath = "C:\\Users\\20847\\Desktop\\c\\应付账款抽凭";
+    String dataSearchFilePath = options.sourceFolderPath + "\\数据搜索.xlsx";
+    options.outputFilePath = options.sourceFolderPath + "\\审计结果.xlsx";
+    // 匹配并行度：1 为串行，大批量抽凭时可用满所有核
+    options.parallelism = Runtime.getRuntime().availableProcessors();
+    // 谓词下推：先扫描文件夹，只载入文件名中出现的 凭证号+年月 对应的记录
+    options.pushdownLoad = true;
+    // 数据搜索来源：可配置多个文件，“路径!工作表名”指定工作表，“路径!*”表示全部工作表，只写路径读取第一个工作表
+    // 也可以是 ERP 导出的同样列的 CSV/TSV 文件（只写路径，不带工作表；内存映射并行解析，比 xlsx 快得多）
+    options.ledgerSources = Collections.singletonList(dataSearchFilePath);
+    // 并发解析数据搜索文件/工作表的线程数
+    options.ingestThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    // PDF内容核对：检查唯一匹配的凭证PDF中是否出现凭证号和借方金额（提取文本按内容哈希缓存）
+    options.verifyPdfText = false;
+    options.verifyPageLimit = 3;
+    options.textCacheDir = options.sourceFolderPath + "\\.pdf_text_cache";
+    // 增量：审计结果已存在时只匹配其中没有的索引号和上次未匹配/多条匹配的文件，追加到结果末尾，已有的行不改写
+    options.incremental = false;
 
     try {
-      // 1. 扫描文件夹并筛选有效文件（按1、2、3排序）
-      List<File> validFiles = scanAndSortFiles(sourceFolderPath);
-      if (validFiles.isEmpty()) return;
-
-      // 2. 读取数据搜索文件
-      List<Map<String, String>> dataSearchRecords = readDataSearchFile(dataSearchFilePath);
-
-      // 3. 严格匹配：每个文件必须唯一对应一条数据
-      List<MatchResult> matchResults = new ArrayList<>();
-      List<String> unmatchedFiles = new ArrayList<>();
-      List<String> multiMatchFiles = new ArrayList<>();
-
-      for (File file : validFiles) {
-        String fileName = file.getName();
-        String voucherNumber = "记" + fileName.substring(fileName.indexOf("#") + 1, fileName.indexOf(".pdf"));
-        String fileYearMonth = fileName.substring(fileName.indexOf("、") + 1, fileName.indexOf("#"));
-
-        // 匹配数据
-        List<Map<String, String>> matchedRecords = findMatchedRecords(
-                dataSearchRecords, voucherNumber, fileYearMonth
-        );
+      scan(options, new DirectoryCache());
+    } catch (Exception e) {
+      System.out.println("处理失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
 
-        // 检查匹配结果
-        if (matchedRecords.isEmpty()) {
-          unmatchedFiles.add(fileName);
-        } else if (matchedRecords.size() > 1) {
-          multiMatchFiles.add(fileName);
-        } else {
-          String indexNumber = fileName.substring(0, fileName.indexOf("、"));
-          matchResults.add(new MatchResult(matchedRecords.get(0), indexNumber, fileName));
-        }
+  /** 扫描配置（默认值与 main 中一致） */
+  public static class Options {
+    public String sourceFolderPath;
+    public String outputFilePath;
+    public List<String> ledgerSources;
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+    public boolean pushdownLoad = true;
+    public int ingestThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    public boolean verifyPdfText = false;
+    public int verifyPageLimit = 3;
+    public String textCacheDir;
+    public boolean incremental = false;
+    /** 已载入的数据搜索索引（常驻服务在多次扫描间复用），设置后不再读取 ledgerSources */
+    public LedgerIndex ledgerIndex;
+  }
+
+  /**
+   * 扫描入口（供 main 和流水线调用），凭证文件夹的目录列表取自共享缓存
+   */
+  public static void scan(Options options, DirectoryCache cache) throws Exception {
+    // 1. 扫描文件夹并筛选有效文件（按1、2、3排序）
+    List<File> validFiles = scanAndSortFiles(options.sourceFolderPath, cache);
+    if (validFiles.isEmpty()) return;
+
+    // 增量：已有结果中正常匹配的索引号不再处理，只处理新文件和上次的异常文件（异常行重新生成）
+    ExistingResult existing = null;
+    if (options.incremental && new File(options.outputFilePath).isFile()) {
+      existing = readExistingResult(options.outputFilePath);
+      Set<String> done = existing.matchedIndexes;
+      validFiles = validFiles.stream()
+              .filter(f -> !done.contains(f.getName().substring(0, f.getName().indexOf("、"))))
+              .collect(Collectors.toList());
+      System.out.println("增量模式：已有结果 " + done.size() + " 个文件，上次异常 " + existing.exceptionRows.size()
+              + " 行，本次处理 " + validFiles.size() + " 个文件");
+      if (validFiles.isEmpty() && existing.exceptionRows.isEmpty()) {
+        System.out.println("没有新文件，结果未改动: " + options.outputFilePath);
+        return;
       }
+    }
 
-      // 4. 输出异常信息
-      printAbnormalCases(unmatchedFiles, multiMatchFiles);
+    // 2. 读取数据搜索文件（下推模式下只保留需要匹配的行），按 凭证号+年月 建立索引
+    LedgerIndex ledgerIndex = options.ledgerIndex;
+    if (ledgerIndex == null) {
+      LedgerRowFilter rowFilter = options.pushdownLoad ? buildWantedKeys(validFiles) : LedgerRowFilter.ALL;
+      ledgerIndex = loadLedgerIndex(options.ledgerSources, rowFilter, options.ingestThreads);
+    }
+    LedgerStore dataSearchRecords = ledgerIndex.getStore();
+
+    // 3. 严格匹配：每个文件必须唯一对应一条数据（可并行匹配，结果保持索引号顺序）
+    List<FileMatch> fileMatches = matchFiles(validFiles, ledgerIndex, options.parallelism);
+
+    List<MatchResult> matchResults = new ArrayList<>();
+    List<String> unmatchedFiles = new ArrayList<>();
+    List<String> multiMatchFiles = new ArrayList<>();
+    for (FileMatch fileMatch : fileMatches) {
+      if (fileMatch.matchedRows.length == 0) {
+        unmatchedFiles.add(fileMatch.fileName);
+      } else if (fileMatch.matchedRows.length > 1) {
+        multiMatchFiles.add(fileMatch.fileName);
+      } else {
+        matchResults.add(new MatchResult(dataSearchRecords.row(fileMatch.matchedRows[0]),
+                fileMatch.indexNumber, fileMatch.fileName));
+      }
+    }
 
-      // 5. 生成结果Excel（带辅助排查列）
-      generateResultExcelWithDebugColumns(matchResults, unmatchedFiles, multiMatchFiles, outputFilePath);
+    // 4. 可选：核对PDF内容与账面记录是否一致
+    if (options.verifyPdfText && !matchResults.isEmpty()) {
+      verifyMatchedPdfs(matchResults, options.sourceFolderPath, options.textCacheDir, options.verifyPageLimit);
+    }
 
-      System.out.println("处理完成，结果已保存至: " + outputFilePath);
+    // 5. 输出异常信息
+    printAbnormalCases(unmatchedFiles, multiMatchFiles);
 
-    } catch (Exception e) {
-      System.out.println("处理失败: " + e.getMessage());
-      e.printStackTrace();
+    // 6. 生成结果Excel（带辅助排查列）；增量时追加到已有结果
+    if (existing != null) {
+      appendResultRows(existing, matchResults, unmatchedFiles, multiMatchFiles, options.outputFilePath);
+    } else {
+      generateResultExcelWithDebugColumns(matchResults, unmatchedFiles, multiMatchFiles, options.outputFilePath);
     }
+
+    System.out.println("处理完成，结果已保存至: " + options.outputFilePath);
   }
 
   // ================ 以下是工具方法 ================ //
 
   // 扫描文件并按1、2、3排序
-  private static List<File> scanAndSortFiles(String folderPath) {
+  private static List<File> scanAndSortFiles(String folderPath, DirectoryCache cache) {
     File dir = new File(folderPath);
-    File[] files = dir.listFiles((d, name) -> name.matches("^\\d+、\\d{4}\\.\\d{2}#\\d+\\.pdf$"));
+    File[] files = cache.listFiles(dir, (d, name) -> name.matches("^\\d+、\\d{4}\\.\\d{2}#\\d+\\.pdf$"));
     if (files == null || files.length == 0) {
       System.out.println("错误：未找到符合命名规则的文件（格式：数字、YYYY.MM#凭证号.pdf）");
       return Collections.emptyList();
@@ -87,49 +167,212 @@ public class DocumentScanner {
     return Arrays.asList(files);
   }
 
-  // 读取数据搜索文件
-  private static List<Map<String, String>> readDataSearchFile(String filePath) throws IOException {
-    List<Map<String, String>> records = new ArrayList<>();
+  // 按文件匹配：parallelism > 1 时在独立的 fork-join 池中并行执行，有序收集保证结果仍按索引号排列
+  private static List<FileMatch> matchFiles(List<File> files, LedgerIndex ledgerIndex, int parallelism)
+          throws InterruptedException, ExecutionException {
+    if (parallelism <= 1) {
+      return matchFiles(files.stream(), ledgerIndex);
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.submit(() -> matchFiles(files.parallelStream(), ledgerIndex)).get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static List<FileMatch> matchFiles(Stream<File> files, LedgerIndex ledgerIndex) {
+    return files.map(file -> matchFile(file.getName(), ledgerIndex)).collect(Collectors.toList());
+  }
+
+  // 解析文件名并匹配，只读访问索引，可在多线程中调用
+  private static FileMatch matchFile(String fileName, LedgerIndex ledgerIndex) {
+    String voucherNumber = "记" + fileName.substring(fileName.indexOf("#") + 1, fileName.indexOf(".pdf"));
+    String fileYearMonth = fileName.substring(fileName.indexOf("、") + 1, fileName.indexOf("#"));
+    String indexNumber = fileName.substring(0, fileName.indexOf("、"));
+
+    int[] matchedRows;
+    try {
+      matchedRows = findMatchedRecords(ledgerIndex, voucherNumber, fileYearMonth);
+    } catch (DateTimeParseException e) {
+      // 文件名中的年月不合法（如 2025.13），视为未匹配
+      matchedRows = new int[0];
+    }
+    return new FileMatch(fileName, indexNumber, matchedRows);
+  }
+
+  // 并行提取匹配PDF的文本，核对凭证号与借方金额，结论写回匹配结果
+  private static void verifyMatchedPdfs(List<MatchResult> matchResults, String folderPath,
+                                        String cacheDir, int pageLimit)
+          throws IOException, InterruptedException {
+    List<File> pdfFiles = new ArrayList<>(matchResults.size());
+    List<LedgerStore.Row> records = new ArrayList<>(matchResults.size());
+    for (MatchResult result : matchResults) {
+      pdfFiles.add(new File(folderPath, result.getFileName()));
+      records.add(result.getRecord());
+    }
+
+    VoucherPdfVerifier verifier = new VoucherPdfVerifier(Paths.get(cacheDir),
+            Runtime.getRuntime().availableProcessors(), pageLimit);
+    List<String> conclusions = verifier.verify(pdfFiles, records);
+    int abnormal = 0;
+    for (int i = 0; i < matchResults.size(); i++) {
+      matchResults.get(i).setConclusion(conclusions.get(i));
+      if (!VoucherPdfVerifier.OK.equals(conclusions.get(i))) abnormal++;
+    }
+    System.out.println("PDF内容核对完成：" + matchResults.size() + " 个文件，缓存命中 "
+            + verifier.getCacheHits() + " 个，需关注 " + abnormal + " 个");
+  }
+
+  // 根据文件名收集需要匹配的 凭证号+年月
+  private static LedgerRowFilter.WantedKeys buildWantedKeys(List<File> files) {
+    LedgerRowFilter.WantedKeys wantedKeys = new LedgerRowFilter.WantedKeys();
+    for (File file : files) {
+      String fileName = file.getName();
+      String voucherNumber = "记" + fileName.substring(fileName.indexOf("#") + 1, fileName.indexOf(".pdf"));
+      String fileYearMonth = fileName.substring(fileName.indexOf("、") + 1, fileName.indexOf("#"));
+      try {
+        YearMonth yearMonth = YearMonth.parse(fileYearMonth, FILE_DATE_FORMAT);
+        wantedKeys.add(voucherNumber, yearMonth.getYear(), yearMonth.getMonthValue());
+      } catch (DateTimeParseException e) {
+        // 年月不合法的文件匹配时按未匹配处理，不需要载入记录
+      }
+    }
+    return wantedKeys;
+  }
+
+  /**
+   * 读取数据搜索文件并建立索引；filter 为 LedgerRowFilter.ALL 时载入全部记录，可供多次扫描复用
+   */
+  public static LedgerIndex loadLedgerIndex(List<String> sources, LedgerRowFilter filter, int threads)
+          throws IOException, InterruptedException {
+    LedgerIndex ledgerIndex = LedgerIndex.build(readDataSearchFiles(sources, filter, threads));
+    if (ledgerIndex.getSkippedRecords() > 0) {
+      System.out.println("提示：" + ledgerIndex.getSkippedRecords() + " 条记录凭证号或日期为空/无法解析，已跳过");
+    }
+    return ledgerIndex;
+  }
+
+  // 读取多个数据搜索文件/工作表：在有界线程池中并发解析，再按配置顺序合并为一个存储（每行保留来源）
+  private static LedgerStore readDataSearchFiles(List<String> sources, LedgerRowFilter filter, int threads)
+          throws IOException, InterruptedException {
+    // 展开为 (文件, 工作表) 任务，工作表为 null 表示第一个工作表
+    List<String[]> tasks = new ArrayList<>();
+    for (String source : sources) {
+      // 路径本身含 “!” 的文件按整个路径读取
+      int separator = new File(source).isFile() ? -1 : source.lastIndexOf('!');
+      String filePath = separator > 0 ? source.substring(0, separator) : source;
+      String sheetName = separator > 0 ? source.substring(separator + 1) : null;
+      if (isCsv(filePath)) {
+        if (sheetName != null) {
+          throw new IOException("CSV 文件没有工作表，请去掉 “!" + sheetName + "”: " + source);
+        }
+        tasks.add(new String[]{filePath, null});
+      } else if ("*".equals(sheetName)) {
+        for (String name : listSheetNames(filePath)) {
+          tasks.add(new String[]{filePath, name});
+        }
+      } else {
+        tasks.add(new String[]{filePath, sheetName});
+      }
+    }
+    if (tasks.size() == 1) {
+      return readDataSearchFile(tasks.get(0)[0], tasks.get(0)[1], filter);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+    try {
+      List<Future<LedgerStore>> parts = new ArrayList<>();
+      for (String[] task : tasks) {
+        parts.add(pool.submit(() -> readDataSearchFile(task[0], task[1], filter)));
+      }
+      LedgerStore merged = new LedgerStore();
+      for (Future<LedgerStore> part : parts) {
+        try {
+          merged.appendAll(part.get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) throw (IOException) cause;
+          throw new IOException("读取数据搜索文件失败: " + cause.getMessage(), cause);
+        }
+      }
+      return merged;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static boolean isCsv(String filePath) {
+    String lower = filePath.toLowerCase();
+    return lower.endsWith(".csv") || lower.endsWith(".tsv") || lower.endsWith(".txt");
+  }
+
+  private static List<String> listSheetNames(String filePath) throws IOException {
+    if (filePath.toLowerCase().endsWith(".xlsx")) {
+      return LedgerSheetReader.listSheetNames(new File(filePath));
+    }
+    try (Workbook workbook = WorkbookFactory.create(new File(filePath), null, true)) {
+      List<String> names = new ArrayList<>();
+      for (Sheet sheet : workbook) {
+        names.add(sheet.getSheetName());
+      }
+      return names;
+    }
+  }
+
+  // 读取一个数据搜索工作表（列式存储，日期转为 epoch-day，金额转为分）
+  // xlsx 使用事件模型流式读取；其他格式（xls）读入工作簿后按同样条件过滤
+  private static LedgerStore readDataSearchFile(String filePath, String sheetName, LedgerRowFilter filter)
+          throws IOException {
+    String fileName = new File(filePath).getName();
+    if (isCsv(filePath)) {
+      CsvLedgerReader reader = new CsvLedgerReader(Runtime.getRuntime().availableProcessors());
+      LedgerStore store = reader.read(new File(filePath), null, filter);
+      System.out.println("数据搜索记录[" + fileName + "]：扫描 "
+              + reader.getScannedRows() + " 行，保留 " + reader.getRetainedRows() + " 行");
+      return store;
+    }
+    if (filePath.toLowerCase().endsWith(".xlsx")) {
+      LedgerSheetReader reader = new LedgerSheetReader();
+      LedgerStore store = new LedgerStore(fileName + (sheetName == null ? "" : "!" + sheetName), 1024);
+      reader.read(new File(filePath), sheetName, filter, store);
+      System.out.println("数据搜索记录[" + fileName + "!" + reader.getSheetName() + "]：扫描 "
+              + reader.getScannedRows() + " 行，保留 " + reader.getRetainedRows() + " 行");
+      return store;
+    }
+
     try (Workbook workbook = WorkbookFactory.create(new FileInputStream(filePath))) {
-      Sheet sheet = workbook.getSheetAt(0);
+      Sheet sheet = sheetName == null ? workbook.getSheetAt(0) : workbook.getSheet(sheetName);
+      if (sheet == null) {
+        throw new IOException("未找到工作表 '" + sheetName + "': " + filePath);
+      }
+      LedgerStore store = new LedgerStore(fileName + (sheetName == null ? "" : "!" + sheetName),
+              filter == LedgerRowFilter.ALL ? sheet.getLastRowNum() + 1 : 1024);
       for (Row row : sheet) {
         if (row.getRowNum() == 0) continue; // 跳过标题行
-        Map<String, String> record = new HashMap<>();
-        record.put("日期", getCellValue(row.getCell(0)));      // A列：日期
-        record.put("凭证号", getCellValue(row.getCell(1)));    // B列：凭证号
-        record.put("摘要", getCellValue(row.getCell(2)));      // C列：摘要
-        record.put("科目全名", getCellValue(row.getCell(3)));  // D列：科目全名
-        record.put("币别", getCellValue(row.getCell(4)));      // E列：币别
-        record.put("借方金额", getCellValue(row.getCell(5)));   // F列：借方金额
-        records.add(record);
+        String voucherNumber = getCellValue(row.getCell(1));  // B列：凭证号
+        if (!filter.acceptVoucher(voucherNumber)) continue;
+        int epochDay = getEpochDay(row.getCell(0));            // A列：日期
+        if (!filter.accept(voucherNumber, epochDay)) continue;
+        store.add(
+                epochDay,
+                voucherNumber,
+                getCellValue(row.getCell(2)),     // C列：摘要
+                getCellValue(row.getCell(3)),     // D列：科目全名
+                getCellValue(row.getCell(4)),     // E列：币别
+                getCellValue(row.getCell(5))      // F列：借方金额
+        );
       }
+      return store;
     }
-    return records;
   }
 
   // 严格匹配：凭证号+年月必须唯一
-  private static List<Map<String, String>> findMatchedRecords(
-          List<Map<String, String>> records, String voucherNumber, String fileYearMonth
-  ) throws ParseException {
-    List<Map<String, String>> matched = new ArrayList<>();
-    Date fileDate = FILE_DATE_FORMAT.parse(fileYearMonth);
-    Calendar fileCalendar = Calendar.getInstance();
-    fileCalendar.setTime(fileDate);
-
-    for (Map<String, String> record : records) {
-      if (!voucherNumber.equals(record.get("凭证号"))) continue;
-
-      Date recordDate = RECORD_DATE_FORMAT.parse(record.get("日期"));
-      Calendar recordCalendar = Calendar.getInstance();
-      recordCalendar.setTime(recordDate);
-
-      // 检查年月是否一致
-      if (fileCalendar.get(Calendar.YEAR) == recordCalendar.get(Calendar.YEAR) &&
-              fileCalendar.get(Calendar.MONTH) == recordCalendar.get(Calendar.MONTH)) {
-        matched.add(record);
-      }
-    }
-    return matched;
+  static int[] findMatchedRecords(
+          LedgerIndex ledgerIndex, String voucherNumber, String fileYearMonth
+  ) {
+    YearMonth yearMonth = YearMonth.parse(fileYearMonth, FILE_DATE_FORMAT);
+    return ledgerIndex.find(voucherNumber, yearMonth.getYear(), yearMonth.getMonthValue());
   }
 
   // 输出异常信息
@@ -152,111 +395,206 @@ public class DocumentScanner {
           String outputPath
   ) throws IOException {
     Workbook workbook = new XSSFWorkbook();
-    Sheet sheet = workbook.createSheet("审计结果");
+    Sheet sheet = workbook.createSheet(RESULT_SHEET);
 
     // 标题行（新增两列）
     String[] headers = {
             "日期", "凭证编号", "业务内容", "科目名称", "二级科目",
             "借方金额", "贷方金额", "附件", "索引号", "审计结论"
     };
+    // 写入时记录各列最大宽度，最后统一设置列宽（不再逐列 autoSizeColumn）
+    ColumnWidthTracker widths = new ColumnWidthTracker(headers.length);
     Row headerRow = sheet.createRow(0);
     for (int i = 0; i < headers.length; i++) {
-      headerRow.createCell(i).setCellValue(headers[i]);
+      widths.createCell(headerRow, i, headers[i]);
+    }
+    // 合并了多个数据搜索文件/工作表时，追加数据来源列便于排查
+    boolean multipleSources = matchResults.stream()
+            .map(result -> result.getRecord().getSource()).distinct().count() > 1;
+    if (multipleSources) {
+      widths.createCell(headerRow, SOURCE_COLUMN, "数据来源");
     }
 
-    // 数据行（正常匹配的记录）
+    // 借方金额（千分位格式）
+    CellStyle amountStyle = workbook.createCellStyle();
+    amountStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+
     int rowNum = 1;
-    for (MatchResult result : matchResults) {
+    for (Object[] cells : resultRows(matchResults, unmatchedFiles, multiMatchFiles, multipleSources)) {
       Row row = sheet.createRow(rowNum++);
-      Map<String, String> record = result.getRecord();
+      for (int column = 0; column < cells.length; column++) {
+        if (cells[column] instanceof Double) {
+          double amount = (Double) cells[column];
+          widths.createCell(row, column, amount, String.format("%,.2f", amount)).setCellStyle(amountStyle);
+        } else if (cells[column] != null) {
+          widths.createCell(row, column, (String) cells[column]);
+        }
+      }
+    }
 
-      // 原始数据列
-      row.createCell(0).setCellValue(record.get("日期"));
-      row.createCell(1).setCellValue(record.get("凭证号"));
-      row.createCell(2).setCellValue(record.get("摘要"));
-      row.createCell(3).setCellValue(record.get("科目全名"));
-      row.createCell(4).setCellValue(record.get("币别"));
+    // 调整列宽
+    widths.applyTo(sheet);
 
-      // 借方金额（千分位格式）
-      try {
-        double amount = Double.parseDouble(record.get("借方金额"));
-        Cell amountCell = row.createCell(5);
-        amountCell.setCellValue(amount);
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
-        amountCell.setCellStyle(style);
-      } catch (NumberFormatException e) {
-        row.createCell(5).setCellValue(record.get("借方金额"));
-      }
+    // 保存文件
+    try (FileOutputStream fos = new FileOutputStream(outputPath)) {
+      workbook.write(fos);
+    }
+    workbook.close();
+  }
+
+  // 结果行的单元格（下标为列号，null 不写）：正常匹配的记录在前，未匹配、匹配到多条的文件标记为异常追加在后
+  private static List<Object[]> resultRows(
+          List<MatchResult> matchResults,
+          List<String> unmatchedFiles,
+          List<String> multiMatchFiles,
+          boolean sourceColumn
+  ) {
+    List<Object[]> rows = new ArrayList<>();
+    for (MatchResult result : matchResults) {
+      Object[] cells = new Object[sourceColumn ? 11 : 10];
+      LedgerStore.Row record = result.getRecord();
 
-      row.createCell(6).setCellValue(""); // 贷方金额
-      row.createCell(7).setCellValue(""); // 附件
-      row.createCell(8).setCellValue("F2202-50-" + result.getIndexNumber());
-      row.createCell(9).setCellValue("无异常");
+      // 原始数据列
+      cells[0] = record.getDate();
+      cells[1] = record.getVoucherNumber();
+      cells[2] = record.getSummary();
+      cells[3] = record.getSubject();
+      cells[4] = record.getCurrency();
+      cells[5] = record.hasDebitAmount() ? (Object) record.getDebitAmount() : record.getDebitText();
+      cells[6] = ""; // 贷方金额
+      cells[7] = ""; // 附件
+      cells[INDEX_COLUMN] = INDEX_PREFIX + result.getIndexNumber();
+      cells[CONCLUSION_COLUMN] = result.getConclusion();
 
       // 新增的辅助排查列
       //row.createCell(10).setCellValue(record.get("凭证号")); // 匹配凭证号
       //row.createCell(11).setCellValue(record.get("日期"));   // 匹配日期
+      if (sourceColumn) {
+        cells[SOURCE_COLUMN] = record.getSource(); // 数据来源
+      }
+      rows.add(cells);
     }
-
-    // 追加未匹配的文件（标记为异常）
     for (String fileName : unmatchedFiles) {
-      Row row = sheet.createRow(rowNum++);
-      row.createCell(8).setCellValue("F2202-50-" + fileName.substring(0, fileName.indexOf("、")));
-      row.createCell(9).setCellValue("异常：未匹配到数据");
-      // 辅助列留空
-      row.createCell(10).setCellValue("");
-      row.createCell(11).setCellValue("");
+      rows.add(exceptionRow(fileName, UNMATCHED));
     }
-
-    // 追加匹配到多条的文件（标记为异常）
     for (String fileName : multiMatchFiles) {
-      Row row = sheet.createRow(rowNum++);
-      row.createCell(8).setCellValue("F2202-50-" + fileName.substring(0, fileName.indexOf("、")));
-      row.createCell(9).setCellValue("异常：匹配到多条数据");
-      // 辅助列留空
-      row.createCell(10).setCellValue("");
-      row.createCell(11).setCellValue("");
+      rows.add(exceptionRow(fileName, MULTI_MATCH));
     }
+    return rows;
+  }
 
-    // 调整列宽
-    for (int i = 0; i < headers.length; i++) {
-      sheet.autoSizeColumn(i);
-    }
+  private static Object[] exceptionRow(String fileName, String conclusion) {
+    Object[] cells = new Object[12];
+    cells[INDEX_COLUMN] = INDEX_PREFIX + fileName.substring(0, fileName.indexOf("、"));
+    cells[CONCLUSION_COLUMN] = conclusion;
+    // 辅助列留空
+    cells[10] = "";
+    cells[11] = "";
+    return cells;
+  }
 
-    // 保存文件
-    try (FileOutputStream fos = new FileOutputStream(outputPath)) {
-      workbook.write(fos);
+  // 已有审计结果中的索引号：正常匹配的（含PDF核对有问题的）不再处理，未匹配/多条匹配的异常行重新生成
+  private static ExistingResult readExistingResult(String outputPath) throws IOException {
+    ExistingResult existing = new ExistingResult();
+    Map<Integer, String[]> rows = XlsxRowAppender.readColumns(new File(outputPath), RESULT_SHEET,
+            INDEX_COLUMN, CONCLUSION_COLUMN, SOURCE_COLUMN);
+    for (Map.Entry<Integer, String[]> entry : rows.entrySet()) {
+      String[] values = entry.getValue();
+      if (entry.getKey() == 0) {
+        existing.sourceColumn = values[2] != null;
+        continue;
+      }
+      if (values[0] == null || !values[0].startsWith(INDEX_PREFIX)) continue;
+      if (UNMATCHED.equals(values[1]) || MULTI_MATCH.equals(values[1])) {
+        existing.exceptionRows.add(entry.getKey());
+      } else {
+        existing.matchedIndexes.add(values[0].substring(INDEX_PREFIX.length()));
+      }
     }
-    workbook.close();
+    return existing;
+  }
+
+  // 增量写入：删去原异常行，新匹配的记录和本次的异常行追加在末尾，其余行原样保留
+  private static void appendResultRows(
+          ExistingResult existing,
+          List<MatchResult> matchResults,
+          List<String> unmatchedFiles,
+          List<String> multiMatchFiles,
+          String outputPath
+  ) throws IOException {
+    List<Object[]> rows = resultRows(matchResults, unmatchedFiles, multiMatchFiles, existing.sourceColumn);
+    Path output = Paths.get(outputPath);
+    Path tempFile = Paths.get(outputPath + ".temp");
+    XlsxRowAppender.append(output, tempFile, RESULT_SHEET, existing.exceptionRows, rows);
+    Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING);
+    System.out.println("增量追加 " + matchResults.size() + " 行，异常 " + (unmatchedFiles.size() + multiMatchFiles.size())
+            + " 行（原异常 " + existing.exceptionRows.size() + " 行已重新生成）");
   }
 
   // 辅助方法：获取单元格值
-  private static String getCellValue(Cell cell) {
+  static String getCellValue(Cell cell) {
     if (cell == null) return "";
     switch (cell.getCellType()) {
       case STRING: return cell.getStringCellValue();
       case NUMERIC:
         return DateUtil.isCellDateFormatted(cell)
-                ? RECORD_DATE_FORMAT.format(cell.getDateCellValue())
+                ? cell.getLocalDateTimeCellValue().format(RECORD_DATE_FORMAT)
                 : String.valueOf(cell.getNumericCellValue());
       default: return "";
     }
   }
 
+  // 辅助方法：获取日期单元格的 epoch-day（日期单元格直接换算，文本按 yyyy/MM/dd 解析）
+  private static int getEpochDay(Cell cell) {
+    if (cell == null) return LedgerStore.NO_DATE;
+    if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+      return (int) cell.getLocalDateTimeCellValue().toLocalDate().toEpochDay();
+    }
+    return LedgerStore.parseEpochDay(getCellValue(cell));
+  }
+
+  // 已有审计结果的概要（增量模式）
+  private static class ExistingResult {
+    private final Set<String> matchedIndexes = new HashSet<>();
+    private final Set<Integer> exceptionRows = new HashSet<>();
+    private boolean sourceColumn;
+  }
+
+  // 单个文件的匹配结果（matchedRows 为空表示未匹配，多于一条表示多条匹配）
+  static class FileMatch {
+    private final String fileName;
+    private final String indexNumber;
+    private final int[] matchedRows;
+
+    FileMatch(String fileName, String indexNumber, int[] matchedRows) {
+      this.fileName = fileName;
+      this.indexNumber = indexNumber;
+      this.matchedRows = matchedRows;
+    }
+  }
+
   // 匹配结果封装类（新增fileName字段）
   static class MatchResult {
-    private final Map<String, String> record;
+    private final LedgerStore.Row record;
     private final String indexNumber;
     private final String fileName;
+    private String conclusion = "无异常";
 
-    public MatchResult(Map<String, String> record, String indexNumber, String fileName) {
+    public MatchResult(LedgerStore.Row record, String indexNumber, String fileName) {
       this.record = record;
       this.indexNumber = indexNumber;
       this.fileName = fileName;
     }
 
-    public Map<String, String> getRecord() {
+    public String getConclusion() {
+      return conclusion;
+    }
+
+    public void setConclusion(String conclusion) {
+      this.conclusion = conclusion;
+    }
+
+    public LedgerStore.Row getRecord() {
       return record;
     }
 
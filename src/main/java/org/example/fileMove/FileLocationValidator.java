@@ -4,6 +4,7 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -12,68 +13,96 @@ import java.util.stream.Collectors;
  */
 public class FileLocationValidator {
 
+  // 校验结果类别
+  public static final String CORRECT = "正确归档";
+  public static final String INCORRECT = "位置不正确";
+  public static final String UNMATCHED = "未匹配到入库单号";
+  public static final String MISSING_FOLDER = "应存在但未创建的文件夹";
+
+  // 同时列出的子文件夹数，同一设备上的实际并发另受 IoScheduler 限制
+  private static final int LIST_CONCURRENCY = 16;
+
   public static void main(String[] args) {
     // 配置参数
     String archiveBasePath = "C:\\Users\\gu\\Desktop\\e\\采购细节测试-广东高义\\test\\采购入库单截图";
     String excelFilePath = "C:\\Users\\gu\\Desktop\\e\\采购细节测试-广东高义\\test\\广东高义-采购细节测试样本检查记录630-刘丹.xlsx";
     String sheetName = "1-6月样本检查记录";
-
-    // 记录校验结果
-    List<String> correctFiles = new ArrayList<>();
-    List<String> incorrectFiles = new ArrayList<>();
-    List<String> unmatchedFiles = new ArrayList<>();
+    // 校验明细输出目录（CSV / JSON Lines），控制台默认只输出汇总
+    String reportDir = new File(excelFilePath).getParent();
+    ResultReporter.ConsoleMode consoleMode = ResultReporter.ConsoleMode.SUMMARY;
+    // 归档工具生成的归档记录目录；设置后按记录校验，不遍历归档目录（手工放入的文件不在记录中）
+    String catalogDir = null;
 
     // 1. 读取Excel文件并构建映射关系
-    Map<String, String> receiptToFolderMap = readExcelMapping(excelFilePath, sheetName);
+    ReceiptMap receiptToFolderMap = readExcelMapping(excelFilePath, sheetName);
     if (receiptToFolderMap == null) {
       System.err.println("Excel文件读取失败，程序终止");
       return;
     }
 
-    // 2. 校验归档文件夹结构
-    validateArchiveStructure(archiveBasePath, receiptToFolderMap, correctFiles, incorrectFiles, unmatchedFiles);
+    // 2. 校验归档文件夹结构，结果边产生边写入文件
+    try (ResultReporter reporter = ResultReporter.create(reportDir, "校验结果", consoleMode,
+            CORRECT, INCORRECT, UNMATCHED, MISSING_FOLDER)) {
+      if (catalogDir != null) {
+        try (ArchiveCatalog catalog = ArchiveCatalog.open(Paths.get(catalogDir))) {
+          validateFromCatalog(archiveBasePath, receiptToFolderMap, reporter, catalog);
+        }
+      } else {
+        validateArchiveStructure(archiveBasePath, receiptToFolderMap, reporter, new DirectoryCache());
+      }
 
-    // 3. 输出校验结果
-    printValidationResults(correctFiles, incorrectFiles, unmatchedFiles);
+      // 3. 输出校验结果
+      reporter.printSummary("校验结果");
+    } catch (IOException e) {
+      System.err.println("写入校验结果失败: " + e.getMessage());
+    }
   }
 
-  private static Map<String, String> readExcelMapping(String excelFilePath, String sheetName) {
+  private static ReceiptMap readExcelMapping(String excelFilePath, String sheetName) {
     try (FileInputStream fis = new FileInputStream(excelFilePath);
          Workbook workbook = new XSSFWorkbook(fis)) {
+      return readExcelMapping(workbook, sheetName);
+    } catch (Exception e) {
+      System.err.println("读取Excel文件时出错: " + e.getMessage());
+      return null;
+    }
+  }
 
-      Sheet sheet = workbook.getSheet(sheetName);
-      if (sheet == null) {
-        System.err.println("错误: 未找到工作表 '" + sheetName + "'");
-        return null;
-      }
+  /**
+   * 从已打开的工作簿读取 Q列入库单号 -> AC列文件夹 映射（流水线中与归档阶段共享同一工作簿）
+   */
+  public static ReceiptMap readExcelMapping(Workbook workbook, String sheetName) {
+    Sheet sheet = workbook.getSheet(sheetName);
+    if (sheet == null) {
+      System.err.println("错误: 未找到工作表 '" + sheetName + "'");
+      return null;
+    }
 
-      Map<String, String> mapping = new HashMap<>();
-      for (Row row : sheet) {
-        if (row == null) continue;
+    ReceiptMap mapping = new ReceiptMap(sheet.getLastRowNum() + 1);
+    for (Row row : sheet) {
+      if (row == null) continue;
 
-        Cell receiptCell = row.getCell(16); // Q列
-        Cell folderCell = row.getCell(28); // AC列
+      Cell receiptCell = row.getCell(16); // Q列
+      Cell folderCell = row.getCell(28); // AC列
 
-        if (receiptCell != null && folderCell != null) {
-          String receiptNumber = getCellValueAsString(receiptCell).trim();
-          String folderName = getCellValueAsString(folderCell).trim();
-          if (!receiptNumber.isEmpty() && !folderName.isEmpty()) {
-            mapping.put(receiptNumber, folderName);
-          }
+      if (receiptCell != null && folderCell != null) {
+        String receiptNumber = getCellValueAsString(receiptCell).trim();
+        String folderName = getCellValueAsString(folderCell).trim();
+        if (!receiptNumber.isEmpty() && !folderName.isEmpty()) {
+          mapping.put(receiptNumber, folderName);
         }
       }
-      return mapping;
-    } catch (Exception e) {
-      System.err.println("读取Excel文件时出错: " + e.getMessage());
-      return null;
     }
+    return mapping;
   }
 
-  private static void validateArchiveStructure(String basePath,
-                                               Map<String, String> mapping,
-                                               List<String> correctFiles,
-                                               List<String> incorrectFiles,
-                                               List<String> unmatchedFiles) {
+  /**
+   * 校验入口（供 main 和流水线调用），目录列表取自共享缓存
+   */
+  public static void validateArchiveStructure(String basePath,
+                                              ReceiptMap mapping,
+                                              ResultReporter reporter,
+                                              DirectoryCache cache) {
     File baseDir = new File(basePath);
     if (!baseDir.exists() || !baseDir.isDirectory()) {
       System.err.println("归档基础目录不存在或不是目录");
@@ -81,14 +110,20 @@ public class FileLocationValidator {
     }
 
     // 遍历所有子文件夹
-    File[] folders = baseDir.listFiles(File::isDirectory);
+    File[] folders = cache.listDirectories(baseDir);
     if (folders == null) return;
+    try {
+      cache.prefetch(folders, LIST_CONCURRENCY);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
 
     for (File folder : folders) {
       String folderName = folder.getName();
 
       // 检查文件夹中的文件
-      File[] files = folder.listFiles(File::isFile);
+      File[] files = cache.listFiles(folder);
       if (files == null) continue;
 
       for (File file : files) {
@@ -104,13 +139,12 @@ public class FileLocationValidator {
           // 检查文件夹名称是否正确
           String expectedFolder = mapping.get(receiptNumber);
           if (folderName.equals(expectedFolder)) {
-            correctFiles.add(fileName + " -> " + folderName);
+            reporter.report(CORRECT, fileName, folderName, "");
           } else {
-            incorrectFiles.add(fileName + " (当前位置: " + folderName +
-                    ", 应放位置: " + expectedFolder + ")");
+            reporter.report(INCORRECT, fileName, folderName, "应放位置: " + expectedFolder);
           }
         } else {
-          unmatchedFiles.add(fileName + " (在文件夹: " + folderName + ")");
+          reporter.report(UNMATCHED, fileName, folderName, "");
         }
       }
     }
@@ -120,12 +154,45 @@ public class FileLocationValidator {
             .map(File::getName)
             .collect(Collectors.toSet());
 
-    Set<String> expectedFolders = new HashSet<>(mapping.values());
+    Set<String> expectedFolders = mapping.getFolders();
     expectedFolders.removeAll(existingFolders);
 
-    if (!expectedFolders.isEmpty()) {
-      System.out.println("\n以下文件夹应该存在但未创建:");
-      expectedFolders.forEach(System.out::println);
+    for (String folder : expectedFolders) {
+      reporter.report(MISSING_FOLDER, "", folder, "");
+    }
+  }
+
+  /**
+   * 按归档记录校验：只查询 basePath 下已记录的文件，不列目录
+   * 文件所在文件夹与当前映射不符的报告为位置不正确，入库单号已不在映射中的报告为未匹配
+   */
+  public static void validateFromCatalog(String basePath,
+                                         ReceiptMap mapping,
+                                         ResultReporter reporter,
+                                         ArchiveCatalog catalog) throws IOException {
+    String base = new File(basePath).getAbsoluteFile().toPath().normalize().toString();
+    Set<String> existingFolders = new HashSet<>();
+    for (ArchiveCatalog.Entry entry : catalog.listUnder(Paths.get(basePath))) {
+      // 与遍历时一致，只看 basePath 下一级文件夹中的文件
+      String folderPath = entry.getFolderPath();
+      if (!base.equals(new File(folderPath).getParent())) continue;
+
+      String folderName = entry.getFolderName();
+      existingFolders.add(folderName);
+      String expectedFolder = mapping.get(entry.getReceiptNumber());
+      if (expectedFolder == null) {
+        reporter.report(UNMATCHED, entry.getFileName(), folderName, "");
+      } else if (folderName.equals(expectedFolder)) {
+        reporter.report(CORRECT, entry.getFileName(), folderName, "");
+      } else {
+        reporter.report(INCORRECT, entry.getFileName(), folderName, "应放位置: " + expectedFolder);
+      }
+    }
+
+    Set<String> expectedFolders = mapping.getFolders();
+    expectedFolders.removeAll(existingFolders);
+    for (String folder : expectedFolders) {
+      reporter.report(MISSING_FOLDER, "", folder, "");
     }
   }
 
@@ -138,40 +205,13 @@ public class FileLocationValidator {
    * 4. 空格+括号数字后缀：XXX (1) → XXX
    * 5. 组合情况：XXX-1(2) → XXX-1 → XXX
    */
-  private static String findReceiptNumber(Map<String, String> mapping, String baseName) {
-    // 1. 首先尝试完整匹配
-    if (mapping.containsKey(baseName)) {
-      return baseName;
-    }
-
-    // 2. 尝试各种后缀去除方式
-    String[] testNames = {
-            baseName,
-            // 处理"XXX-1"格式
-            baseName.replaceFirst("-\\d+$", ""),
-            // 处理"XXX(1)"格式
-            baseName.replaceFirst("\\(\\d+\\)$", ""),
-            // 处理"XXX (1)"格式（带空格）
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", ""),
-            // 组合处理：先去掉括号后缀，再去掉短横线后缀
-            baseName.replaceFirst("\\(\\d+\\)$", "").replaceFirst("-\\d+$", ""),
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", "").replaceFirst("-\\d+$", "")
-    };
-
-    // 去重并保留原始顺序
-    Set<String> uniqueNames = new LinkedHashSet<>(Arrays.asList(testNames));
-
-    // 按优先级检查各个可能的名称
-    for (String testName : uniqueNames) {
-      if (!testName.equals(baseName) && mapping.containsKey(testName)) {
-        return testName;
-      }
-    }
-
-    return null; // 未找到匹配
+  static String findReceiptNumber(ReceiptMap mapping, String baseName) {
+    // 后缀去除在 ReceiptMap 内按下标进行，只有匹配到带后缀的文件名时才截取字符串
+    int end = mapping.match(baseName);
+    return end < 0 ? null : baseName.substring(0, end);
   }
 
-  private static String getCellValueAsString(Cell cell) {
+  static String getCellValueAsString(Cell cell) {
     if (cell == null) return "";
 
     switch (cell.getCellType()) {
@@ -191,18 +231,4 @@ public class FileLocationValidator {
         return "";
     }
   }
-
-  private static void printValidationResults(List<String> correctFiles,
-                                             List<String> incorrectFiles,
-                                             List<String> unmatchedFiles) {
-    System.out.println("\n========== 校验结果 ==========");
-    System.out.println("正确归档的文件 (" + correctFiles.size() + "):");
-    correctFiles.forEach(System.out::println);
-
-    System.out.println("\n位置不正确的文件 (" + incorrectFiles.size() + "):");
-    incorrectFiles.forEach(System.out::println);
-
-    System.out.println("\n未匹配到入库单号的文件 (" + unmatchedFiles.size() + "):");
-    unmatchedFiles.forEach(System.out::println);
-  }
-}
\ No newline at end of file
+}
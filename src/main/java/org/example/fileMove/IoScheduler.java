@@ -0,0 +1,303 @@
+package org.example.fileMove;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按设备限流的文件操作调度：同一设备上同时进行的操作数、每秒读写字节数有上限，
+ * 工具内部可以放开并发，而不会占满其他人也在用的共享盘（NAS）
+ * <p>
+ * 设备按配置的根路径划分（最长前缀匹配，如 \\nas\财务、/mnt/nas），未配置的按路径的根（盘符、UNC 共享）划分。
+ * 带宽按令牌桶计算，允许一秒的突发；令牌不足时操作先等待补足差额再执行（预扣后桶为负，之后的操作依次顺延）。
+ * 可设置模拟延迟（每个操作额外等待），用本地目录模拟网络盘测试。
+ * <p>
+ * 各工具使用 {@link #getDefault()}，由入口程序按配置替换：
+ * <pre>
+ * io.concurrency=4               # 未单独配置的设备：同时进行的操作数，0 不限
+ * io.bandwidth=40M               # 未单独配置的设备：每秒字节数，可带 K/M/G，0 不限
+ * io.device.nas=//nas/财务,2,20M  # 单独配置的设备：根路径,并发数,带宽
+ * io.latencyMillis=0             # 模拟延迟
+ * </pre>
+ */
+public class IoScheduler {
+
+  /** 调度执行的文件操作 */
+  public interface IoTask<T> {
+    T call() throws IOException;
+  }
+
+  private static volatile IoScheduler defaultScheduler = new IoScheduler(0, 0);
+
+  private final int defaultConcurrency;
+  private final long defaultBandwidth;
+  // 单独配置的设备，按根路径长度从长到短
+  private final List<Device> configured = new ArrayList<>();
+  // 未单独配置的设备：路径的根 -> 设备
+  private final Map<String, Device> byRoot = new ConcurrentHashMap<>();
+  private volatile long latencyMillis;
+
+  /**
+   * @param defaultConcurrency 未单独配置的设备上同时进行的操作数，0 不限
+   * @param defaultBandwidth   未单独配置的设备每秒字节数，0 不限
+   */
+  public IoScheduler(int defaultConcurrency, long defaultBandwidth) {
+    this.defaultConcurrency = defaultConcurrency;
+    this.defaultBandwidth = defaultBandwidth;
+  }
+
+  public static IoScheduler getDefault() {
+    return defaultScheduler;
+  }
+
+  public static void setDefault(IoScheduler scheduler) {
+    defaultScheduler = scheduler;
+  }
+
+  /** 按 io.* 配置项创建，未配置时不限流 */
+  public static IoScheduler fromConfig(Properties config) {
+    IoScheduler scheduler = new IoScheduler(
+            Integer.parseInt(config.getProperty("io.concurrency", "0").trim()),
+            parseBytes(config.getProperty("io.bandwidth", "0")));
+    for (String key : config.stringPropertyNames()) {
+      if (!key.startsWith("io.device.")) continue;
+      String[] parts = config.getProperty(key).split(",");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException(key + " 格式应为 根路径,并发数,带宽: " + config.getProperty(key));
+      }
+      scheduler.addDevice(parts[0].trim(), Integer.parseInt(parts[1].trim()), parseBytes(parts[2]));
+    }
+    scheduler.setLatencyMillis(Long.parseLong(config.getProperty("io.latencyMillis", "0").trim()));
+    return scheduler;
+  }
+
+  /**
+   * 单独配置一个设备（挂载点、网络共享等）
+   *
+   * @param root           设备的根路径，其下的路径都算作该设备
+   * @param maxConcurrency 同时进行的操作数，0 不限
+   * @param bytesPerSecond 每秒字节数，0 不限
+   */
+  public synchronized void addDevice(String root, int maxConcurrency, long bytesPerSecond) {
+    Device device = new Device(normalize(new File(root).getAbsolutePath()), maxConcurrency, bytesPerSecond);
+    int i = 0;
+    while (i < configured.size() && configured.get(i).root.length() >= device.root.length()) i++;
+    configured.add(i, device);
+  }
+
+  /** 每个操作额外等待的毫秒数，用于模拟网络盘 */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /**
+   * 在路径所在设备的限额内执行操作，等待并发名额和带宽
+   *
+   * @param path  操作的文件或目录（移动时为源文件）
+   * @param bytes 读写的字节数，只占并发名额时传 0
+   */
+  public <T> T run(Path path, long bytes, IoTask<T> task) throws IOException, InterruptedException {
+    Device device = device(path);
+    long start = System.nanoTime();
+    device.maxQueued.accumulateAndGet(device.queued.incrementAndGet(), Math::max);
+    try {
+      if (device.permits != null) device.permits.acquire();
+    } finally {
+      device.queued.decrementAndGet();
+    }
+    try {
+      device.active.incrementAndGet();
+      long throttle = device.bucket == null ? 0 : device.bucket.reserve(bytes);
+      if (throttle > 0) TimeUnit.NANOSECONDS.sleep(throttle);
+      device.waitNanos.addAndGet(System.nanoTime() - start);
+      if (latencyMillis > 0) Thread.sleep(latencyMillis);
+      T result = task.call();
+      // 只统计成功的操作读写的字节数
+      device.bytes.addAndGet(bytes);
+      return result;
+    } finally {
+      device.active.decrementAndGet();
+      device.completed.incrementAndGet();
+      if (device.permits != null) device.permits.release();
+    }
+  }
+
+  /** 把文件移动到目标目录要读写的字节数：同一设备上只是改名，跨设备时复制整个文件 */
+  public long moveBytes(Path source, Path targetDir) {
+    return device(source) == device(targetDir) ? 0 : source.toFile().length();
+  }
+
+  /** 各设备的统计（有过操作或单独配置的设备） */
+  public List<DeviceStats> getStats() {
+    List<DeviceStats> stats = new ArrayList<>();
+    synchronized (this) {
+      for (Device device : configured) stats.add(device.snapshot());
+    }
+    for (Device device : byRoot.values()) stats.add(device.snapshot());
+    return stats;
+  }
+
+  /** 输出各设备的操作数、字节数和排队情况，没有操作时不输出 */
+  public void printSummary() {
+    for (DeviceStats stats : getStats()) {
+      if (stats.getCompleted() == 0) continue;
+      System.out.printf("设备 %s：操作 %d 次，%.1f MB，最大排队 %d，平均等待 %.1f ms%n",
+              stats.getRoot(), stats.getCompleted(), stats.getBytes() / 1048576.0,
+              stats.getMaxQueued(), stats.getAverageWaitMillis());
+    }
+  }
+
+  // ================ 内部实现 ================ //
+
+  private Device device(Path path) {
+    String absolute = normalize(path.toAbsolutePath().normalize().toString());
+    synchronized (this) {
+      for (Device device : configured) {
+        if (absolute.equals(device.root) || absolute.startsWith(device.root + File.separator)) return device;
+      }
+    }
+    Path root = path.toAbsolutePath().getRoot();
+    String key = root == null ? "" : normalize(root.toString());
+    return byRoot.computeIfAbsent(key, k -> new Device(k, defaultConcurrency, defaultBandwidth));
+  }
+
+  // Windows 路径不区分大小写；去掉末尾的分隔符便于前缀比较
+  private static String normalize(String path) {
+    String result = File.separatorChar == '\\' ? path.toLowerCase() : path;
+    while (result.length() > 1 && result.endsWith(File.separator)) {
+      result = result.substring(0, result.length() - 1);
+    }
+    return result;
+  }
+
+  // "40M" → 41943040
+  static long parseBytes(String value) {
+    String text = value.trim().toUpperCase();
+    long unit = 1;
+    if (text.endsWith("K")) unit = 1L << 10;
+    else if (text.endsWith("M")) unit = 1L << 20;
+    else if (text.endsWith("G")) unit = 1L << 30;
+    if (unit > 1) text = text.substring(0, text.length() - 1).trim();
+    return (long) (Double.parseDouble(text) * unit);
+  }
+
+  private static class Device {
+    private final String root;
+    private final int maxConcurrency;
+    private final long bytesPerSecond;
+    private final Semaphore permits;
+    private final TokenBucket bucket;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    Device(String root, int maxConcurrency, long bytesPerSecond) {
+      this.root = root;
+      this.maxConcurrency = maxConcurrency;
+      this.bytesPerSecond = bytesPerSecond;
+      this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+      this.bucket = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond) : null;
+    }
+
+    DeviceStats snapshot() {
+      return new DeviceStats(root, maxConcurrency, bytesPerSecond, queued.get(), active.get(),
+              maxQueued.get(), completed.get(), bytes.get(), waitNanos.get());
+    }
+  }
+
+  private static final class TokenBucket {
+    private final long rate;
+    private double tokens;
+    private long lastNanos = System.nanoTime();
+
+    TokenBucket(long rate) {
+      this.rate = rate;
+      this.tokens = rate;
+    }
+
+    /** 预扣字节数，返回需要等待的纳秒数（令牌不足的部分按速率折算） */
+    synchronized long reserve(long bytes) {
+      long now = System.nanoTime();
+      tokens = Math.min(rate, tokens + (now - lastNanos) * (double) rate / 1e9);
+      lastNanos = now;
+      tokens -= bytes;
+      return tokens >= 0 ? 0 : (long) (-tokens * 1e9 / rate);
+    }
+  }
+
+  /** 一个设备的统计快照 */
+  public static class DeviceStats {
+    private final String root;
+    private final int maxConcurrency;
+    private final long bytesPerSecond;
+    private final int queued;
+    private final int active;
+    private final int maxQueued;
+    private final long completed;
+    private final long bytes;
+    private final long waitNanos;
+
+    DeviceStats(String root, int maxConcurrency, long bytesPerSecond, int queued, int active,
+                int maxQueued, long completed, long bytes, long waitNanos) {
+      this.root = root;
+      this.maxConcurrency = maxConcurrency;
+      this.bytesPerSecond = bytesPerSecond;
+      this.queued = queued;
+      this.active = active;
+      this.maxQueued = maxQueued;
+      this.completed = completed;
+      this.bytes = bytes;
+      this.waitNanos = waitNanos;
+    }
+
+    public String getRoot() {
+      return root;
+    }
+
+    public int getMaxConcurrency() {
+      return maxConcurrency;
+    }
+
+    public long getBytesPerSecond() {
+      return bytesPerSecond;
+    }
+
+    /** 当前等待并发名额的操作数 */
+    public int getQueued() {
+      return queued;
+    }
+
+    public int getActive() {
+      return active;
+    }
+
+    public int getMaxQueued() {
+      return maxQueued;
+    }
+
+    public long getCompleted() {
+      return completed;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    /** 平均等待（并发名额 + 带宽）毫秒数，不含模拟延迟 */
+    public double getAverageWaitMillis() {
+      return completed == 0 ? 0 : waitNanos / 1e6 / completed;
+    }
+  }
+}
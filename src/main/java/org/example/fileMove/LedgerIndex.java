@@ -0,0 +1,80 @@
+package org.example.fileMove;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 数据搜索记录的哈希索引：键为 凭证号 + 年月，
+ * 日期只在载入时解析一次，之后每个文件的匹配都是一次哈希查找
+ */
+public class LedgerIndex {
+
+  private static final int[] NO_ROWS = new int[0];
+
+  private final LedgerStore store;
+  // 键：凭证号字典编号（高32位）+ 年月序号（低32位），值：行号
+  private final Map<Long, int[]> index = new HashMap<>();
+  private int skippedRecords;
+
+  private LedgerIndex(LedgerStore store) {
+    this.store = store;
+  }
+
+  /**
+   * 按 凭证号 + 记录日期年月 建立索引
+   */
+  public static LedgerIndex build(LedgerStore store) {
+    LedgerIndex ledgerIndex = new LedgerIndex(store);
+    int emptyVoucherCode = store.lookupVoucherCode("");
+    for (int row = 0; row < store.size(); row++) {
+      int epochDay = store.getEpochDay(row);
+      if (epochDay == LedgerStore.NO_DATE || store.getVoucherCode(row) == emptyVoucherCode) {
+        // 凭证号为空或日期无法解析的记录不可能与任何文件匹配
+        ledgerIndex.skippedRecords++;
+        continue;
+      }
+      LocalDate date = LocalDate.ofEpochDay(epochDay);
+      long key = key(store.getVoucherCode(row), date.getYear(), date.getMonthValue());
+      int[] rows = ledgerIndex.index.get(key);
+      if (rows == null) {
+        rows = new int[]{row};
+      } else {
+        rows = Arrays.copyOf(rows, rows.length + 1);
+        rows[rows.length - 1] = row;
+      }
+      ledgerIndex.index.put(key, rows);
+    }
+    return ledgerIndex;
+  }
+
+  /**
+   * 查找 凭证号 + 年月 对应的全部记录行号
+   *
+   * @param month 1-12
+   */
+  public int[] find(String voucherNumber, int year, int month) {
+    int voucherCode = store.lookupVoucherCode(voucherNumber);
+    if (voucherCode < 0) return NO_ROWS;
+    int[] rows = index.get(key(voucherCode, year, month));
+    return rows == null ? NO_ROWS : rows;
+  }
+
+  public LedgerStore getStore() {
+    return store;
+  }
+
+  /** 建索引时因凭证号/日期为空或日期无法解析而跳过的记录数 */
+  public int getSkippedRecords() {
+    return skippedRecords;
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  private static long key(int voucherCode, int year, int month) {
+    return ((long) voucherCode << 32) | (year * 12 + month - 1);
+  }
+}
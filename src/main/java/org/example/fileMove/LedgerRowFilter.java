@@ -0,0 +1,62 @@
+package org.example.fileMove;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 载入数据搜索记录时的行过滤条件（谓词下推）：只保留需要匹配的 凭证号 + 年月
+ */
+public interface LedgerRowFilter {
+
+  /** 不过滤，保留所有行 */
+  LedgerRowFilter ALL = new LedgerRowFilter() {
+    @Override
+    public boolean acceptVoucher(String voucherNumber) {
+      return true;
+    }
+
+    @Override
+    public boolean accept(String voucherNumber, int epochDay) {
+      return true;
+    }
+  };
+
+  /** 只看凭证号的快速判断，返回 false 时该行其余单元格不再处理 */
+  boolean acceptVoucher(String voucherNumber);
+
+  /** 凭证号 + 日期的完整判断 */
+  boolean accept(String voucherNumber, int epochDay);
+
+  /**
+   * 按 凭证号 + 年月 集合过滤
+   */
+  class WantedKeys implements LedgerRowFilter {
+    // 凭证号 -> 需要的年月（year * 12 + month - 1）
+    private final Map<String, Set<Integer>> wanted = new HashMap<>();
+
+    /** @param month 1-12 */
+    public void add(String voucherNumber, int year, int month) {
+      wanted.computeIfAbsent(voucherNumber, k -> new HashSet<>(2)).add(year * 12 + month - 1);
+    }
+
+    public int voucherCount() {
+      return wanted.size();
+    }
+
+    @Override
+    public boolean acceptVoucher(String voucherNumber) {
+      return wanted.containsKey(voucherNumber);
+    }
+
+    @Override
+    public boolean accept(String voucherNumber, int epochDay) {
+      Set<Integer> months = wanted.get(voucherNumber);
+      if (months == null || epochDay == LedgerStore.NO_DATE) return false;
+      LocalDate date = LocalDate.ofEpochDay(epochDay);
+      return months.contains(date.getYear() * 12 + date.getMonthValue() - 1);
+    }
+  }
+}
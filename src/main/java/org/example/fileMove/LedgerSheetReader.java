@@ -0,0 +1,170 @@
+package org.example.fileMove;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以事件模型（SAX）流式读取数据搜索 xlsx，
+ * 不构建整个工作簿的 DOM，不符合过滤条件的行读到凭证号后即跳过，不进入存储
+ * 列顺序：A日期 B凭证号 C摘要 D科目全名 E币别 F借方金额，第一行为标题
+ */
+public class LedgerSheetReader {
+
+  private static final int COLUMN_COUNT = 6;
+
+  private long scannedRows;
+  private long retainedRows;
+  private String sheetName;
+
+  /** 按工作簿中的顺序列出全部工作表名称 */
+  public static List<String> listSheetNames(File xlsxFile) throws IOException {
+    try (OPCPackage pkg = OPCPackage.open(xlsxFile, PackageAccess.READ)) {
+      XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+      List<String> names = new ArrayList<>();
+      while (sheets.hasNext()) {
+        sheets.next().close();
+        names.add(sheets.getSheetName());
+      }
+      return names;
+    } catch (OpenXML4JException e) {
+      throw new IOException("读取工作表列表失败: " + xlsxFile + " - " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * 读取工作簿中的一个工作表，符合过滤条件的行追加到 store
+   *
+   * @param sheetName 工作表名称，为 null 时读取第一个工作表
+   */
+  public void read(File xlsxFile, String sheetName, LedgerRowFilter filter, LedgerStore store)
+          throws IOException {
+    try (OPCPackage pkg = OPCPackage.open(xlsxFile, PackageAccess.READ)) {
+      XSSFReader reader = new XSSFReader(pkg);
+      ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+      StylesTable styles = reader.getStylesTable();
+
+      XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+      while (sheets.hasNext()) {
+        try (InputStream sheet = sheets.next()) {
+          if (sheetName != null && !sheetName.equals(sheets.getSheetName())) continue;
+          this.sheetName = sheets.getSheetName();
+
+          XMLReader parser = XMLHelper.newXMLReader();
+          parser.setContentHandler(new XSSFSheetXMLHandler(styles, sharedStrings,
+                  new RowHandler(filter, store), new LedgerCellFormatter(), false));
+          parser.parse(new InputSource(sheet));
+          return;
+        }
+      }
+      throw new IOException(sheetName == null
+              ? "工作簿中没有工作表: " + xlsxFile
+              : "未找到工作表 '" + sheetName + "': " + xlsxFile);
+    } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+      throw new IOException("读取数据搜索文件失败: " + xlsxFile + " - " + e.getMessage(), e);
+    }
+  }
+
+  /** 已扫描的数据行数（不含标题行） */
+  public long getScannedRows() {
+    return scannedRows;
+  }
+
+  /** 通过过滤条件、写入存储的行数 */
+  public long getRetainedRows() {
+    return retainedRows;
+  }
+
+  /** 实际读取的工作表名称 */
+  public String getSheetName() {
+    return sheetName;
+  }
+
+  private class RowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+    private final LedgerRowFilter filter;
+    private final LedgerStore store;
+    private final String[] values = new String[COLUMN_COUNT];
+    private boolean skipRow;
+
+    RowHandler(LedgerRowFilter filter, LedgerStore store) {
+      this.filter = filter;
+      this.store = store;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      Arrays.fill(values, "");
+      skipRow = rowNum == 0; // 跳过标题行
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+      if (skipRow) return;
+      int column = columnIndex(cellReference);
+      if (column < 0 || column >= COLUMN_COUNT) return;
+
+      values[column] = formattedValue == null ? "" : formattedValue;
+      // 凭证号不在需要的集合中，整行后续单元格不再处理
+      if (column == 1 && !filter.acceptVoucher(values[1])) {
+        skipRow = true;
+      }
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      if (rowNum == 0) return;
+      scannedRows++;
+      if (skipRow || !filter.acceptVoucher(values[1])) return;
+
+      int epochDay = LedgerStore.parseEpochDay(values[0]);
+      if (!filter.accept(values[1], epochDay)) return;
+      store.add(epochDay, values[1], values[2], values[3], values[4], values[5]);
+      retainedRows++;
+    }
+  }
+
+  // 单元格引用（如 "AB12"）中的列号，0 开始
+  private static int columnIndex(String cellReference) {
+    if (cellReference == null) return -1;
+    int column = 0;
+    for (int i = 0; i < cellReference.length(); i++) {
+      char c = cellReference.charAt(i);
+      if (c < 'A' || c > 'Z') break;
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+
+  /**
+   * 与 DocumentScanner.getCellValue 的取值方式保持一致：
+   * 日期单元格输出 yyyy/MM/dd，其他数字输出 String.valueOf(double)
+   */
+  private static class LedgerCellFormatter extends DataFormatter {
+    @Override
+    public String formatRawCellContents(double value, int formatIndex, String formatString) {
+      if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+        return DateUtil.getLocalDateTime(value).format(LedgerStore.RECORD_DATE_FORMAT);
+      }
+      return String.valueOf(value);
+    }
+  }
+}
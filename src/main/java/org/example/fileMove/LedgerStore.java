@@ -0,0 +1,245 @@
+package org.example.fileMove;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 数据搜索记录的列式存储
+ * 日期存为 epoch-day（int），借方金额存为分（long），
+ * 凭证号、科目全名、币别、来源重复度高，做字典编码，每行只占几个基本类型数组元素；
+ * 摘要几乎每行都不同，字典只会多一份 HashMap 开销，直接按行保存字符串
+ * 每行记录其来源（文件名!工作表名），多个来源的存储可通过 {@link #appendAll} 合并
+ */
+public class LedgerStore {
+
+  /** 日期为空或无法解析 */
+  public static final int NO_DATE = Integer.MIN_VALUE;
+  /** 借方金额为空或不是数字（原文保存在 rawDebits 中） */
+  private static final long NO_AMOUNT = Long.MIN_VALUE;
+
+  /** 记录日期的输出格式 */
+  public static final DateTimeFormatter RECORD_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+  // 解析文本日期时月、日允许一位数（如 2025/5/3），与原 SimpleDateFormat 的宽松解析一致
+  private static final DateTimeFormatter RECORD_DATE_PARSER = DateTimeFormatter.ofPattern("yyyy/M/d");
+
+  private final StringDictionary vouchers = new StringDictionary();
+  private final StringDictionary subjects = new StringDictionary();
+  private final StringDictionary currencies = new StringDictionary();
+  private final StringDictionary sources = new StringDictionary();
+  // 新增行的来源编号
+  private final int currentSourceCode;
+
+  private int size;
+  private int[] epochDays;
+  private int[] voucherCodes;
+  private String[] summaries;
+  private int[] subjectCodes;
+  private int[] currencyCodes;
+  private long[] debitCents;
+  private int[] sourceCodes;
+  // 非数字的借方金额很少见，按行号稀疏保存原文
+  private final Map<Integer, String> rawDebits = new HashMap<>();
+
+  public LedgerStore() {
+    this("", 1024);
+  }
+
+  /**
+   * @param source 新增行的来源标识（如 数据搜索.xlsx!Sheet1）
+   */
+  public LedgerStore(String source, int initialCapacity) {
+    int capacity = Math.max(16, initialCapacity);
+    currentSourceCode = sources.encode(source);
+    epochDays = new int[capacity];
+    voucherCodes = new int[capacity];
+    summaries = new String[capacity];
+    subjectCodes = new int[capacity];
+    currencyCodes = new int[capacity];
+    debitCents = new long[capacity];
+    sourceCodes = new int[capacity];
+  }
+
+  /**
+   * 追加一行记录
+   *
+   * @param epochDay  日期的 epoch-day，无日期时传 {@link #NO_DATE}
+   * @param debitText 借方金额原文，数字会转成分保存
+   * @return 行号
+   */
+  public int add(int epochDay, String voucherNumber, String summary, String subject,
+                 String currency, String debitText) {
+    ensureCapacity(size + 1);
+    int row = size++;
+    epochDays[row] = epochDay;
+    voucherCodes[row] = vouchers.encode(voucherNumber);
+    summaries[row] = summary;
+    subjectCodes[row] = subjects.encode(subject);
+    currencyCodes[row] = currencies.encode(currency);
+
+    long cents = NO_AMOUNT;
+    try {
+      cents = Math.round(Double.parseDouble(debitText) * 100);
+    } catch (NumberFormatException | NullPointerException e) {
+      if (debitText != null && !debitText.isEmpty()) {
+        rawDebits.put(row, debitText);
+      }
+    }
+    debitCents[row] = cents;
+    sourceCodes[row] = currentSourceCode;
+    return row;
+  }
+
+  /**
+   * 追加另一个存储中的全部行（保留各行来源），字典编号按本存储重新编码
+   */
+  public void appendAll(LedgerStore other) {
+    ensureCapacity(size + other.size);
+    int[] voucherMap = remap(other.vouchers, vouchers);
+    int[] subjectMap = remap(other.subjects, subjects);
+    int[] currencyMap = remap(other.currencies, currencies);
+    int[] sourceMap = remap(other.sources, sources);
+
+    for (int r = 0; r < other.size; r++) {
+      int row = size++;
+      epochDays[row] = other.epochDays[r];
+      voucherCodes[row] = voucherMap[other.voucherCodes[r]];
+      summaries[row] = other.summaries[r];
+      subjectCodes[row] = subjectMap[other.subjectCodes[r]];
+      currencyCodes[row] = currencyMap[other.currencyCodes[r]];
+      debitCents[row] = other.debitCents[r];
+      sourceCodes[row] = sourceMap[other.sourceCodes[r]];
+      String rawDebit = other.rawDebits.get(r);
+      if (rawDebit != null) {
+        rawDebits.put(row, rawDebit);
+      }
+    }
+  }
+
+  // 另一个字典的编号 -> 本字典编号
+  private static int[] remap(StringDictionary from, StringDictionary to) {
+    int[] map = new int[from.size()];
+    for (int code = 0; code < map.length; code++) {
+      map[code] = to.encode(from.decode(code));
+    }
+    return map;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** 存储中出现过的来源数量（含构造时指定的来源） */
+  public int sourceCount() {
+    return sources.size();
+  }
+
+  /**
+   * 将 yyyy/MM/dd 文本日期解析为 epoch-day，日期后面的时间等多余文本忽略
+   *
+   * @return epoch-day，为空或无法解析时返回 {@link #NO_DATE}
+   */
+  public static int parseEpochDay(String text) {
+    if (text == null || text.isEmpty()) return NO_DATE;
+    try {
+      return (int) LocalDate.from(RECORD_DATE_PARSER.parse(text, new ParsePosition(0))).toEpochDay();
+    } catch (DateTimeException e) {
+      return NO_DATE;
+    }
+  }
+
+  public Row row(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("行号越界: " + row);
+    }
+    return new Row(row);
+  }
+
+  // ================ 按列访问（供索引使用，避免创建行对象） ================ //
+
+  public int getEpochDay(int row) {
+    return epochDays[row];
+  }
+
+  public int getVoucherCode(int row) {
+    return voucherCodes[row];
+  }
+
+  /** 凭证号对应的字典编号，不存在时返回 -1 */
+  public int lookupVoucherCode(String voucherNumber) {
+    return vouchers.lookup(voucherNumber);
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= epochDays.length) return;
+    int capacity = Math.max(required, epochDays.length + (epochDays.length >> 1));
+    epochDays = Arrays.copyOf(epochDays, capacity);
+    voucherCodes = Arrays.copyOf(voucherCodes, capacity);
+    summaries = Arrays.copyOf(summaries, capacity);
+    subjectCodes = Arrays.copyOf(subjectCodes, capacity);
+    currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+    debitCents = Arrays.copyOf(debitCents, capacity);
+    sourceCodes = Arrays.copyOf(sourceCodes, capacity);
+  }
+
+  /**
+   * 行视图：只保存行号，取值时再从列中解码
+   */
+  public final class Row {
+    private final int row;
+
+    private Row(int row) {
+      this.row = row;
+    }
+
+    public int getRowIndex() {
+      return row;
+    }
+
+    /** yyyy/MM/dd 格式的日期，无日期时返回空串 */
+    public String getDate() {
+      int epochDay = epochDays[row];
+      return epochDay == NO_DATE ? "" : LocalDate.ofEpochDay(epochDay).format(RECORD_DATE_FORMAT);
+    }
+
+    public String getVoucherNumber() {
+      return vouchers.decode(voucherCodes[row]);
+    }
+
+    public String getSummary() {
+      return summaries[row];
+    }
+
+    public String getSubject() {
+      return subjects.decode(subjectCodes[row]);
+    }
+
+    public String getCurrency() {
+      return currencies.decode(currencyCodes[row]);
+    }
+
+    /** 借方金额是否为数字 */
+    public boolean hasDebitAmount() {
+      return debitCents[row] != NO_AMOUNT;
+    }
+
+    public double getDebitAmount() {
+      return debitCents[row] / 100.0;
+    }
+
+    /** 来源（文件名!工作表名） */
+    public String getSource() {
+      return sources.decode(sourceCodes[row]);
+    }
+
+    /** 借方金额原文（非数字时）或空串 */
+    public String getDebitText() {
+      if (hasDebitAmount()) return String.valueOf(getDebitAmount());
+      return rawDebits.getOrDefault(row, "");
+    }
+  }
+}
@@ -1,11 +1,12 @@
 package org.example.fileMove;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.IndexedColors;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * 将文件夹下面的图片名字与 excel的文件中 入库单号匹配，并将文件移动到索引文件夹下
@@ -15,96 +16,75 @@ public class PurchaseImageArchiver {
   public static final int TARGET_IDX = 16;
   public static final int FOLDER_NAME_IDX = 28;
 
+  // 处理结果类别
+  static final String PROCESSED = "成功处理";
+  static final String UNMATCHED = "未匹配";
+  static final String ERROR = "处理失败";
+
   public static void main(String[] args) {
     // 配置参数
     String sourceFolderPath = "C:\\Users\\gu\\Desktop\\e\\采购细节测试-广东高义\\test\\采购入库单截图";
     String excelFilePath = "C:\\Users\\gu\\Desktop\\e\\采购细节测试-广东高义\\test\\广东高义-采购细节测试样本检查记录630-刘丹.xlsx";
     String sheetName = "1-6月样本检查记录";
     String outputBasePath = "C:\\Users\\gu\\Desktop\\e\\采购细节测试-广东高义\\test\\采购入库单截图";
-
-    // 记录处理结果
-    List<String> processedFiles = new ArrayList<>();
-    List<String> unmatchedFiles = new ArrayList<>();
-    List<String> errorFiles = new ArrayList<>();
-
-    // 1. 读取Excel文件并构建映射关系
-    Workbook workbook = null;
-    try {
-      FileInputStream fis = new FileInputStream(excelFilePath);
-      workbook = new XSSFWorkbook(fis);
-
-      Map<String, String> receiptToFolderMap = readExcelMapping(workbook, sheetName);
-      if (receiptToFolderMap == null) {
-        System.err.println("Excel文件读取失败，程序终止");
-        return;
-      }
-
-      // 预创建绿色样式
-      CellStyle greenStyle = createGreenStyle(workbook);
+    // 处理明细输出目录（CSV / JSON Lines），控制台默认只输出汇总
+    String reportDir = new File(excelFilePath).getParent();
+    ResultReporter.ConsoleMode consoleMode = ResultReporter.ConsoleMode.SUMMARY;
+    // 同时进行的文件移动数（网络存储上可调大；Java 21+ 使用虚拟线程）
+    int ioConcurrency = 32;
+    // 归档记录目录：记录每个文件的去向，供 ArchiveCatalog 查询和 FileLocationValidator 校验
+    String catalogDir = new File(new File(excelFilePath).getParent(), "归档记录").getPath();
+    // 共享盘限流：同一设备上同时进行的操作数、每秒读写字节数，0 不限
+    int deviceConcurrency = 0;
+    long deviceBandwidth = 0;
+    IoScheduler.setDefault(new IoScheduler(deviceConcurrency, deviceBandwidth));
+
+    // 1. 流式读取 Q列、AC列并构建映射关系（不构建整个工作簿）
+    try (ResultReporter reporter = ResultReporter.create(reportDir, "归档结果", consoleMode,
+            PROCESSED, UNMATCHED, ERROR);
+         ArchiveCatalog catalog = ArchiveCatalog.open(Paths.get(catalogDir))) {
+      Map<Integer, String[]> sampleRows = XlsxRowAppender.readColumns(new File(excelFilePath), sheetName,
+              TARGET_IDX, FOLDER_NAME_IDX);
+      ReceiptMap receiptToFolderMap = readExcelMapping(sampleRows);
 
       // 2. 处理源文件夹中的所有文件
+      Set<String> matchedReceipts = new HashSet<>();
       processSourceFiles(sourceFolderPath, outputBasePath, receiptToFolderMap,
-              processedFiles, unmatchedFiles, errorFiles, workbook, sheetName, greenStyle);
+              reporter, matchedReceipts, ioConcurrency, catalog);
 
-      // 3. 保存修改后的Excel文件
-      saveModifiedExcel(workbook, excelFilePath);
+      // 3. 把匹配行标为绿色，另存为 _processed.xlsx
+      saveModifiedExcel(excelFilePath, sheetName, findMatchedRows(sampleRows, matchedReceipts));
 
       // 4. 输出处理结果
-      printResults(processedFiles, unmatchedFiles, errorFiles);
+      reporter.printSummary("处理结果");
+      IoScheduler.getDefault().printSummary();
 
     } catch (Exception e) {
       System.err.println("处理过程中发生错误: " + e.getMessage());
       e.printStackTrace();
-    } finally {
-      if (workbook != null) {
-        try {
-          workbook.close();
-        } catch (IOException e) {
-          System.err.println("关闭工作簿时出错: " + e.getMessage());
-        }
-      }
     }
   }
 
-  private static Map<String, String> readExcelMapping(Workbook workbook, String sheetName) {
-    Sheet sheet = workbook.getSheet(sheetName);
-    if (sheet == null) {
-      System.err.println("错误: 未找到工作表 '" + sheetName + "'");
-      return null;
-    }
-
-    Map<String, String> mapping = new HashMap<>();
-    for (Row row : sheet) {
-      if (row == null) continue;
-
-      Cell receiptCell = row.getCell(TARGET_IDX); // Q列
-      Cell folderCell = row.getCell(FOLDER_NAME_IDX); // AC列
-
-      if (receiptCell != null && folderCell != null) {
-        String receiptNumber = getCellValueAsString(receiptCell).trim();
-        String folderName = getCellValueAsString(folderCell).trim();
-        if (!receiptNumber.isEmpty() && !folderName.isEmpty()) {
-          mapping.put(receiptNumber, folderName);
-        }
+  // sampleRows：行号 -> {Q列, AC列}
+  private static ReceiptMap readExcelMapping(Map<Integer, String[]> sampleRows) {
+    ReceiptMap mapping = new ReceiptMap(sampleRows.size());
+    for (String[] values : sampleRows.values()) {
+      String receiptNumber = trim(values[0]);
+      String folderName = trim(values[1]);
+      if (!receiptNumber.isEmpty() && !folderName.isEmpty()) {
+        mapping.put(receiptNumber, folderName);
       }
     }
     return mapping;
   }
 
-  private static CellStyle createGreenStyle(Workbook workbook) {
-    CellStyle style = workbook.createCellStyle();
-    style.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-    style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-    return style;
-  }
-
+  // 匹配在当前线程进行，文件移动并发执行；结果按文件顺序汇总，移动成功的入库单号记入 matchedReceipts
   private static void processSourceFiles(String sourcePath, String outputBasePath,
-                                         Map<String, String> mapping,
-                                         List<String> processedFiles,
-                                         List<String> unmatchedFiles,
-                                         List<String> errorFiles,
-                                         Workbook workbook, String sheetName,
-                                         CellStyle greenStyle) {
+                                         ReceiptMap mapping,
+                                         ResultReporter reporter,
+                                         Set<String> matchedReceipts, int ioConcurrency,
+                                         ArchiveCatalog catalog)
+          throws InterruptedException {
     File sourceFolder = new File(sourcePath);
     File[] files = sourceFolder.listFiles();
 
@@ -121,47 +101,76 @@ public class PurchaseImageArchiver {
       return;
     }
 
-    Sheet sheet = workbook.getSheet(sheetName);
-    for (File file : files) {
-      if (file.isDirectory()) {
-        continue; // 跳过子目录
-      }
-
-      String fileName = file.getName();
-      String baseName = fileName.contains(".")
-              ? fileName.substring(0, fileName.lastIndexOf('.'))
-              : fileName;
-
-      // 尝试匹配的优先级：
-      // 1. 完整文件名（如CGRK-250415012167-1）
-      // 2. 去除数字后缀的基础名（如CGRK-250415012167）
-      String receiptNumber = findReceiptNumber(mapping, baseName);
+    List<PendingMove> moves = new ArrayList<>();
+    IoScheduler scheduler = IoScheduler.getDefault();
+    try (BlockingIoExecutor io = BlockingIoExecutor.create(ioConcurrency)) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          continue; // 跳过子目录
+        }
 
-      if (receiptNumber != null) {
-        String targetFolderName = mapping.get(receiptNumber);
-        Path targetPath = Paths.get(outputBasePath, targetFolderName);
+        String fileName = file.getName();
+        String baseName = fileName.contains(".")
+                ? fileName.substring(0, fileName.lastIndexOf('.'))
+                : fileName;
+
+        // 尝试匹配的优先级：
+        // 1. 完整文件名（如CGRK-250415012167-1）
+        // 2. 去除数字后缀的基础名（如CGRK-250415012167）
+        String receiptNumber = findReceiptNumber(mapping, baseName);
+
+        if (receiptNumber != null) {
+          String targetFolderName = mapping.get(receiptNumber);
+          Path targetPath = Paths.get(outputBasePath, targetFolderName);
+
+          // 创建目标文件夹并移动文件
+          // 计算摘要要读一遍文件，按文件大小计入带宽
+          moves.add(new PendingMove(fileName, receiptNumber, targetFolderName, io.submit(() ->
+                  scheduler.run(file.toPath(), scheduler.moveBytes(file.toPath(), targetPath) + file.length(), () -> {
+                    Files.createDirectories(targetPath);
+                    Path target = Files.move(file.toPath(), targetPath.resolve(fileName),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    // 大小和摘要在 I/O 线程中计算
+                    return ArchiveCatalog.describe(receiptNumber, target);
+                  }))));
+        } else {
+          reporter.report(UNMATCHED, fileName, "", "");
+        }
+      }
 
+      for (PendingMove move : moves) {
         try {
-          // 创建目标文件夹
-          Files.createDirectories(targetPath);
-
-          // 移动文件到目标位置
-          Path destination = targetPath.resolve(fileName);
-          Files.move(file.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
-
-          processedFiles.add(fileName + " -> " + targetFolderName);
-
-          // 标记Excel中的匹配行
-          markMatchedRow(sheet, receiptNumber, greenStyle);
-        } catch (IOException e) {
-          errorFiles.add(fileName + " (移动失败: " + e.getMessage() + ")");
+          ArchiveCatalog.Entry entry = move.result.get();
+          reporter.report(PROCESSED, move.fileName, move.targetFolderName, "");
+          matchedReceipts.add(move.receiptNumber);
+          try {
+            catalog.append(entry);
+          } catch (IOException e) {
+            // 记录失败不影响归档本身
+            System.err.println("写入归档记录失败: " + e.getMessage());
+          }
+        } catch (ExecutionException e) {
+          reporter.report(ERROR, move.fileName, move.targetFolderName, "移动失败: " + e.getCause().getMessage());
         }
-      } else {
-        unmatchedFiles.add(fileName);
       }
     }
   }
 
+  // 已提交、尚未确认结果的文件移动
+  private static class PendingMove {
+    private final String fileName;
+    private final String receiptNumber;
+    private final String targetFolderName;
+    private final Future<ArchiveCatalog.Entry> result;
+
+    PendingMove(String fileName, String receiptNumber, String targetFolderName,
+                Future<ArchiveCatalog.Entry> result) {
+      this.fileName = fileName;
+      this.receiptNumber = receiptNumber;
+      this.targetFolderName = targetFolderName;
+      this.result = result;
+    }
+  }
 
   /**
    * 从映射表中查找匹配的入库单号
@@ -172,101 +181,39 @@ public class PurchaseImageArchiver {
    * 4. 空格+括号数字后缀：XXX (1) → XXX
    * 5. 组合情况：XXX-1(2) → XXX-1 → XXX
    */
-  private static String findReceiptNumber(Map<String, String> mapping, String baseName) {
-    // 1. 首先尝试完整匹配
-    if (mapping.containsKey(baseName)) {
-      return baseName;
-    }
-
-    // 2. 尝试各种后缀去除方式
-    String[] testNames = {
-            baseName,
-            // 处理"XXX-1"格式
-            baseName.replaceFirst("-\\d+$", ""),
-            // 处理"XXX(1)"格式
-            baseName.replaceFirst("\\(\\d+\\)$", ""),
-            // 处理"XXX (1)"格式（带空格）
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", ""),
-            // 组合处理：先去掉括号后缀，再去掉短横线后缀
-            baseName.replaceFirst("\\(\\d+\\)$", "").replaceFirst("-\\d+$", ""),
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", "").replaceFirst("-\\d+$", "")
-    };
-
-    // 去重并保留原始顺序
-    Set<String> uniqueNames = new LinkedHashSet<>(Arrays.asList(testNames));
-
-    // 按优先级检查各个可能的名称
-    for (String testName : uniqueNames) {
-      if (!testName.equals(baseName) && mapping.containsKey(testName)) {
-        return testName;
-      }
-    }
-
-    return null; // 未找到匹配
+  private static String findReceiptNumber(ReceiptMap mapping, String baseName) {
+    // 后缀去除在 ReceiptMap 内按下标进行，只有匹配到带后缀的文件名时才截取字符串
+    int end = mapping.match(baseName);
+    return end < 0 ? null : baseName.substring(0, end);
   }
 
-  private static void markMatchedRow(Sheet sheet, String receiptNumber, CellStyle style) {
-    for (Row row : sheet) {
-      if (row == null) continue;
-
-      Cell cell = row.getCell(16); // Q列
-      if (cell != null && receiptNumber.equals(getCellValueAsString(cell).trim())) {
-        // 应用绿色样式到整行
-        for (int i = 0; i < row.getLastCellNum(); i++) {
-          Cell currentCell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-          currentCell.setCellStyle(style);
-        }
+  // 一次遍历找出 Q列 为已匹配入库单号的行
+  private static Set<Integer> findMatchedRows(Map<Integer, String[]> sampleRows, Set<String> matchedReceipts) {
+    Set<Integer> rows = new HashSet<>();
+    if (matchedReceipts.isEmpty()) return rows;
+    for (Map.Entry<Integer, String[]> row : sampleRows.entrySet()) {
+      if (matchedReceipts.contains(trim(row.getValue()[0]))) {
+        rows.add(row.getKey());
       }
     }
+    return rows;
   }
 
-  private static void saveModifiedExcel(Workbook workbook, String originalFilePath) throws IOException {
+  // 不重新序列化整个工作簿：只改写样式表和该工作表中的匹配行，其余部分原样复制
+  private static void saveModifiedExcel(String originalFilePath, String sheetName, Set<Integer> matchedRows)
+          throws IOException {
     String outputExcelPath = originalFilePath.replace(".xlsx", "_processed.xlsx");
-    File tempFile = new File(outputExcelPath + ".temp");
+    Path tempFile = Paths.get(outputExcelPath + ".temp");
 
-    try (FileOutputStream out = new FileOutputStream(tempFile)) {
-      workbook.write(out);
-    } catch (Exception e) {
-      System.out.println(e.getMessage());
-    }
+    int patchedRows = XlsxRowStylePatcher.patch(Paths.get(originalFilePath), tempFile, sheetName,
+            matchedRows, IndexedColors.LIGHT_GREEN.getIndex());
 
     // 重命名临时文件为最终文件
-    Files.move(tempFile.toPath(), Paths.get(outputExcelPath), StandardCopyOption.REPLACE_EXISTING);
-    System.out.println("\n修改后的Excel已保存为: " + outputExcelPath);
-  }
-
-  private static String getCellValueAsString(Cell cell) {
-    if (cell == null) return "";
-
-    switch (cell.getCellType()) {
-      case STRING:
-        return cell.getStringCellValue();
-      case NUMERIC:
-        return String.valueOf((int) cell.getNumericCellValue());
-      case BOOLEAN:
-        return String.valueOf(cell.getBooleanCellValue());
-      case FORMULA:
-        try {
-          return cell.getStringCellValue();
-        } catch (IllegalStateException e) {
-          return String.valueOf(cell.getNumericCellValue());
-        }
-      default:
-        return "";
-    }
+    Files.move(tempFile, Paths.get(outputExcelPath), StandardCopyOption.REPLACE_EXISTING);
+    System.out.println("\n已标记 " + patchedRows + " 行，修改后的Excel已保存为: " + outputExcelPath);
   }
 
-  private static void printResults(List<String> processed, List<String> unmatched, List<String> errors) {
-    System.out.println("\n========== 处理结果 ==========");
-    System.out.println("成功处理的文件 (" + processed.size() + "):");
-    processed.forEach(System.out::println);
-
-    System.out.println("\n未匹配的文件 (" + unmatched.size() + "):");
-    unmatched.forEach(System.out::println);
-
-    if (!errors.isEmpty()) {
-      System.out.println("\n处理失败的文件 (" + errors.size() + "):");
-      errors.forEach(System.out::println);
-    }
+  private static String trim(String value) {
+    return value == null ? "" : value.trim();
   }
-}
\ No newline at end of file
+}
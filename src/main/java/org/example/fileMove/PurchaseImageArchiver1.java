@@ -6,6 +6,8 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * 递归将文件夹下面的图片名字与 Excel 的文件中  Z列凭证号号匹配，并将文件移动到索引文件夹下
@@ -17,61 +19,99 @@ public class PurchaseImageArchiver1 {
   public static final int FOLDER_NAME_IDX = 28;    // AC列(0-based)
   public static final String PROBLEM_SHEET_NAME = "问题文件";
 
+  // 处理结果类别
+  public static final String PROCESSED = "成功处理";
+  public static final String UNMATCHED = "未匹配";
+  public static final String ERROR = "处理失败";
+
   public static void main(String[] args) {
     // 配置参数
     String sourceFolderPath = "C:\\Users\\gu\\Desktop\\f\\凭证汇总";
     String excelFilePath = "C:\\Users\\gu\\Desktop\\f\\凭证汇总\\广东高义-采购细节测试样本检查记录630-刘丹.xlsx";
     String sheetName = "1-6月样本检查记录";
+    // 处理明细输出目录（CSV / JSON Lines），控制台默认只输出汇总
+    String reportDir = new File(excelFilePath).getParent();
+    ResultReporter.ConsoleMode consoleMode = ResultReporter.ConsoleMode.SUMMARY;
+    // 同时进行的文件移动数（网络存储上可调大；Java 21+ 使用虚拟线程）
+    int ioConcurrency = 32;
+    // 归档记录目录：记录每个文件的去向，供 ArchiveCatalog 查询和 FileLocationValidator 校验
+    String catalogDir = new File(new File(excelFilePath).getParent(), "归档记录").getPath();
+    // 共享盘限流：同一设备上同时进行的操作数、每秒读写字节数，0 不限
+    int deviceConcurrency = 0;
+    long deviceBandwidth = 0;
+    IoScheduler.setDefault(new IoScheduler(deviceConcurrency, deviceBandwidth));
+
+    try (Workbook workbook = new XSSFWorkbook(Files.newInputStream(Paths.get(excelFilePath)));
+         ResultReporter reporter = ResultReporter.create(reportDir, "归档结果", consoleMode,
+                 PROCESSED, UNMATCHED, ERROR);
+         ArchiveCatalog catalog = ArchiveCatalog.open(Paths.get(catalogDir))) {
+      // 1-4. 匹配、移动、标记并保存Excel
+      archive(workbook, excelFilePath, sheetName, sourceFolderPath, reporter, new DirectoryCache(),
+              ioConcurrency, catalog);
 
-    // 记录处理结果
-    Map<String, List<String>> processedFiles = new LinkedHashMap<>();
-    List<String> unmatchedFiles = new ArrayList<>();
-    List<String> errorFiles = new ArrayList<>();
-
-    try (Workbook workbook = new XSSFWorkbook(Files.newInputStream(Paths.get(excelFilePath)))) {
-      // 1. 读取Excel映射关系
-      Map<String, String> receiptToFolderMap = readExcelMapping(workbook, sheetName);
-      if (receiptToFolderMap == null) {
-        System.err.println("Excel映射关系读取失败，程序终止");
-        return;
-      }
+      // 5. 输出结果
+      reporter.printSummary("处理结果汇总");
+      IoScheduler.getDefault().printSummary();
 
-      // 2. 预创建绿色样式
-      CellStyle greenStyle = createGreenStyle(workbook);
+    } catch (Exception e) {
+      System.err.println("处理失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
 
-      // 3. 处理每个子目录
-      File sourceFolder = new File(sourceFolderPath);
-      File[] subDirs = sourceFolder.listFiles(File::isDirectory);
+  /**
+   * 归档入口（供 main 和流水线调用）：按 Z 列入库单号将各子目录中的文件移入对应文件夹，
+   * 标记匹配行、生成问题文件 Sheet 并另存为 _processed.xlsx
+   *
+   * @param workbook 已打开的工作簿（流水线中与其他阶段共享）
+   * @param cache    目录列表缓存，移动完成后清除对应子目录的缓存
+   * @param ioConcurrency 同时进行的文件移动数（同一设备上另受 IoScheduler 限制）
+   * @param catalog  归档记录，为 null 时不记录
+   * @return 映射读取失败或没有子目录时返回 false
+   */
+  public static boolean archive(Workbook workbook, String excelFilePath, String sheetName,
+                                String sourceFolderPath, ResultReporter reporter,
+                                DirectoryCache cache, int ioConcurrency, ArchiveCatalog catalog)
+          throws IOException, InterruptedException {
+    // 1. 读取Excel映射关系
+    ReceiptMap receiptToFolderMap = readExcelMapping(workbook, sheetName);
+    if (receiptToFolderMap == null) {
+      System.err.println("Excel映射关系读取失败，程序终止");
+      return false;
+    }
 
-      if (subDirs == null || subDirs.length == 0) {
-        System.out.println("源文件夹中没有子目录");
-        return;
-      }
+    // 2. 预创建绿色样式
+    CellStyle greenStyle = createGreenStyle(workbook);
+
+    // 3. 处理每个子目录
+    File sourceFolder = new File(sourceFolderPath);
+    File[] subDirs = cache.listDirectories(sourceFolder);
 
+    if (subDirs == null || subDirs.length == 0) {
+      System.out.println("源文件夹中没有子目录");
+      return false;
+    }
+
+    try (BlockingIoExecutor io = BlockingIoExecutor.create(ioConcurrency)) {
       for (File subDir : subDirs) {
         System.out.println("\n正在处理目录: " + subDir.getName());
-        processSubDirectory(subDir, receiptToFolderMap,
-                processedFiles, unmatchedFiles, errorFiles,
-                workbook, sheetName, greenStyle);
+        processSubDirectory(subDir, cache.listFiles(subDir), receiptToFolderMap, reporter,
+                workbook, sheetName, greenStyle, io, catalog);
       }
-      // 4. 创建问题文件Sheet并写入数据
-      createProblemFilesSheet(workbook, unmatchedFiles, errorFiles);
-
-      // 4. 保存修改后的Excel
-      saveModifiedExcel(workbook, excelFilePath);
-
-      // 5. 输出结果
-      printResults(processedFiles, unmatchedFiles, errorFiles);
-
-    } catch (Exception e) {
-      System.err.println("处理失败: " + e.getMessage());
-      e.printStackTrace();
+    } finally {
+      // 文件已移动，目录列表失效
+      cache.invalidate(sourceFolder);
     }
+    // 4. 创建问题文件Sheet并写入数据（从结果文件回放，不在内存中保留明细）
+    createProblemFilesSheet(workbook, reporter);
+
+    // 5. 保存修改后的Excel
+    saveModifiedExcel(workbook, excelFilePath);
+    return true;
   }
 
   private static void createProblemFilesSheet(Workbook workbook,
-                                              List<String> unmatchedFiles,
-                                              List<String> errorFiles) {
+                                              ResultReporter reporter) throws IOException {
     // 删除已存在的problem sheet（如果存在）
     int problemSheetIndex = workbook.getSheetIndex(PROBLEM_SHEET_NAME);
     if (problemSheetIndex != -1) {
@@ -81,49 +121,42 @@ public class PurchaseImageArchiver1 {
     // 创建新的problem sheet
     Sheet problemSheet = workbook.createSheet(PROBLEM_SHEET_NAME);
 
-    // 创建表头
+    // 创建表头（写入时记录列宽，不再逐列 autoSizeColumn）
+    ColumnWidthTracker widths = new ColumnWidthTracker(3);
     Row headerRow = problemSheet.createRow(0);
-    headerRow.createCell(0).setCellValue("文件路径");
-    headerRow.createCell(1).setCellValue("问题类型");
-    headerRow.createCell(2).setCellValue("错误信息");
+    widths.createCell(headerRow, 0, "文件路径");
+    widths.createCell(headerRow, 1, "问题类型");
+    widths.createCell(headerRow, 2, "错误信息");
 
     // 写入未匹配文件
-    int rowNum = 1;
-    for (String filePath : unmatchedFiles) {
-      Row row = problemSheet.createRow(rowNum++);
-      row.createCell(0).setCellValue(filePath);
-      row.createCell(1).setCellValue("未匹配");
-      row.createCell(2).setCellValue("未找到对应的入库单号");
-    }
+    int[] rowNum = {1};
+    reporter.forEachRecord(UNMATCHED, (filePath, folder, detail) -> {
+      Row row = problemSheet.createRow(rowNum[0]++);
+      widths.createCell(row, 0, filePath);
+      widths.createCell(row, 1, "未匹配");
+      widths.createCell(row, 2, "未找到对应的入库单号");
+    });
 
     // 写入错误文件
-    for (String error : errorFiles) {
-      Row row = problemSheet.createRow(rowNum++);
-
-      // 从错误信息中提取文件路径和错误详情
-      String[] parts = error.split(" → ", 2);
-      String filePath = parts[0];
-      String errorMsg = parts.length > 1 ? parts[1] : "";
-
-      row.createCell(0).setCellValue(filePath);
-      row.createCell(1).setCellValue("处理失败");
-      row.createCell(2).setCellValue(errorMsg);
-    }
+    reporter.forEachRecord(ERROR, (filePath, folder, errorMsg) -> {
+      Row row = problemSheet.createRow(rowNum[0]++);
+      widths.createCell(row, 0, filePath);
+      widths.createCell(row, 1, "处理失败");
+      widths.createCell(row, 2, errorMsg);
+    });
 
-    // 自动调整列宽
-    for (int i = 0; i < 3; i++) {
-      problemSheet.autoSizeColumn(i);
-    }
+    // 调整列宽
+    widths.applyTo(problemSheet);
   }
 
-  private static Map<String, String> readExcelMapping(Workbook workbook, String sheetName) {
+  static ReceiptMap readExcelMapping(Workbook workbook, String sheetName) {
     Sheet sheet = workbook.getSheet(sheetName);
     if (sheet == null) {
       System.err.println("错误: 未找到工作表 '" + sheetName + "'");
       return null;
     }
 
-    Map<String, String> mapping = new HashMap<>();
+    ReceiptMap mapping = new ReceiptMap(sheet.getLastRowNum() + 1);
     for (Row row : sheet) {
       if (row == null) continue;
 
@@ -156,22 +189,23 @@ public class PurchaseImageArchiver1 {
     return mapping;
   }
 
-  private static void processSubDirectory(File subDir,
-                                          Map<String, String> mapping,
-                                          Map<String, List<String>> processedFiles,
-                                          List<String> unmatchedFiles,
-                                          List<String> errorFiles,
+  // 匹配和 Excel 标记在当前线程进行，文件移动并发执行；结果按文件顺序汇总
+  private static void processSubDirectory(File subDir, File[] files,
+                                          ReceiptMap mapping,
+                                          ResultReporter reporter,
                                           Workbook workbook, String sheetName,
-                                          CellStyle greenStyle) {
-    File[] files = subDir.listFiles(File::isFile);
+                                          CellStyle greenStyle, BlockingIoExecutor io,
+                                          ArchiveCatalog catalog)
+          throws InterruptedException {
     if (files == null || files.length == 0) {
       System.out.println("  目录中没有可处理的文件");
       return;
     }
 
-    List<String> processedInThisDir = new ArrayList<>();
     Sheet sheet = workbook.getSheet(sheetName);
+    IoScheduler scheduler = IoScheduler.getDefault();
 
+    List<PendingMove> moves = new ArrayList<>();
     for (File file : files) {
       String fileName = file.getName();
       String baseName = getBaseName(fileName);
@@ -182,57 +216,62 @@ public class PurchaseImageArchiver1 {
         String targetFolderName = mapping.get(receiptNumber);
         Path targetPath = Paths.get(subDir.getAbsolutePath(), targetFolderName);
 
-        try {
-          Files.createDirectories(targetPath);
-          Path destination = targetPath.resolve(fileName);
-          Files.move(file.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
-
-          processedInThisDir.add(fileName + " → " + targetFolderName);
-          markMatchedRow(sheet, receiptNumber, greenStyle);
-        } catch (IOException e) {
-          String errorMsg = String.format("%s/%s → 移动失败: %s",
-                  subDir.getName(), fileName, e.getMessage());
-          errorFiles.add(errorMsg);
-          System.err.println("  " + errorMsg);
-        }
+        moves.add(new PendingMove(subDir.getName() + "/" + fileName, receiptNumber, targetFolderName,
+                io.submit(() -> scheduler.run(file.toPath(), scheduler.moveBytes(file.toPath(), targetPath)
+                        + (catalog == null ? 0 : file.length()), () -> {
+                  Files.createDirectories(targetPath);
+                  Path target = Files.move(file.toPath(), targetPath.resolve(fileName),
+                          StandardCopyOption.REPLACE_EXISTING);
+                  // 大小和摘要在 I/O 线程中计算（摘要要读一遍文件，已计入带宽）
+                  return catalog == null ? null : ArchiveCatalog.describe(receiptNumber, target);
+                }))));
       } else {
-        String unmatchedMsg = subDir.getName() + "/" + fileName;
-        unmatchedFiles.add(unmatchedMsg);
-        System.out.println("  未匹配: " + unmatchedMsg);
+        reporter.report(UNMATCHED, subDir.getName() + "/" + fileName, "", "");
       }
     }
 
-    if (!processedInThisDir.isEmpty()) {
-      processedFiles.put(subDir.getName(), processedInThisDir);
+    for (PendingMove move : moves) {
+      try {
+        ArchiveCatalog.Entry entry = move.result.get();
+        reporter.report(PROCESSED, move.filePath, move.targetFolderName, "");
+        markMatchedRow(sheet, move.receiptNumber, greenStyle);
+        if (entry != null) appendToCatalog(catalog, entry);
+      } catch (ExecutionException e) {
+        reporter.report(ERROR, move.filePath, move.targetFolderName,
+                "移动失败: " + e.getCause().getMessage());
+      }
     }
   }
 
-  private static String findReceiptNumber(Map<String, String> mapping, String baseName) {
-    // 1. 首先尝试完整匹配
-    if (mapping.containsKey(baseName)) {
-      return baseName;
+  // 已提交、尚未确认结果的文件移动
+  private static class PendingMove {
+    private final String filePath;
+    private final String receiptNumber;
+    private final String targetFolderName;
+    private final Future<ArchiveCatalog.Entry> result;
+
+    PendingMove(String filePath, String receiptNumber, String targetFolderName,
+                Future<ArchiveCatalog.Entry> result) {
+      this.filePath = filePath;
+      this.receiptNumber = receiptNumber;
+      this.targetFolderName = targetFolderName;
+      this.result = result;
     }
+  }
 
-    // 2. 尝试各种后缀去除方式
-    String[] testNames = {
-            baseName,
-            baseName.replaceFirst("-\\d+$", ""),      // 处理"XXX-1"格式
-            baseName.replaceFirst("\\(\\d+\\)$", ""),  // 处理"XXX(1)"格式
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", ""), // 处理"XXX (1)"格式
-            baseName.replaceFirst("\\(\\d+\\)$", "").replaceFirst("-\\d+$", ""), // 组合处理
-            baseName.replaceFirst("\\s*\\(\\d+\\)$", "").replaceFirst("-\\d+$", "")
-    };
-
-    // 去重并保留原始顺序
-    Set<String> uniqueNames = new LinkedHashSet<>(Arrays.asList(testNames));
-
-    for (String testName : uniqueNames) {
-      if (!testName.equals(baseName) && mapping.containsKey(testName)) {
-        return testName;
-      }
+  // 记录失败不影响归档本身
+  private static void appendToCatalog(ArchiveCatalog catalog, ArchiveCatalog.Entry entry) {
+    try {
+      catalog.append(entry);
+    } catch (IOException e) {
+      System.err.println("写入归档记录失败: " + e.getMessage());
     }
+  }
 
-    return null;
+  static String findReceiptNumber(ReceiptMap mapping, String baseName) {
+    // 后缀去除在 ReceiptMap 内按下标进行，只有匹配到带后缀的文件名时才截取字符串
+    int end = mapping.match(baseName);
+    return end < 0 ? null : baseName.substring(0, end);
   }
 
   private static String getBaseName(String fileName) {
@@ -247,7 +286,7 @@ public class PurchaseImageArchiver1 {
     return style;
   }
 
-  private static void markMatchedRow(Sheet sheet, String receiptNumber, CellStyle style) {
+  static void markMatchedRow(Sheet sheet, String receiptNumber, CellStyle style) {
     for (Row row : sheet) {
       if (row == null) continue;
 
@@ -274,7 +313,7 @@ public class PurchaseImageArchiver1 {
     System.out.println("\n修改后的Excel已保存为: " + outputExcelPath);
   }
 
-  private static String getCellValueAsString(Cell cell) {
+  static String getCellValueAsString(Cell cell) {
     if (cell == null) return "";
 
     switch (cell.getCellType()) {
@@ -294,36 +333,4 @@ public class PurchaseImageArchiver1 {
         return "";
     }
   }
-
-  private static void printResults(Map<String, List<String>> processedFiles,
-                                   List<String> unmatchedFiles,
-                                   List<String> errorFiles) {
-    System.out.println("\n========== 处理结果汇总 ==========");
-
-    // 成功处理的文件
-    int totalProcessed = processedFiles.values().stream().mapToInt(List::size).sum();
-    System.out.println("\n成功处理的文件 (" + totalProcessed + "):");
-    processedFiles.forEach((folder, files) -> {
-      System.out.println("\n[" + folder + "] (" + files.size() + "):");
-      files.forEach(file -> System.out.println("  " + file));
-    });
-
-    // 未匹配的文件
-    if (!unmatchedFiles.isEmpty()) {
-      System.out.println("\n未匹配的文件 (" + unmatchedFiles.size() + "):");
-      unmatchedFiles.forEach(file -> System.out.println("  " + file));
-    }
-
-    // 处理失败的文件
-    if (!errorFiles.isEmpty()) {
-      System.out.println("\n处理失败的文件 (" + errorFiles.size() + "):");
-      errorFiles.forEach(error -> System.out.println("  " + error));
-    }
-
-    // 统计信息
-    System.out.println("\n========== 统计信息 ==========");
-    System.out.println("总成功处理文件: " + totalProcessed);
-    System.out.println("总未匹配文件: " + unmatchedFiles.size());
-    System.out.println("总处理失败文件: " + errorFiles.size());
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,215 @@
+package org.example.fileMove;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 入库单号 -> 文件夹 映射，针对百万级入库单号的内存占用和查找开销
+ * <p>
+ * 规范的入库单号（1~4 位大写字母 + 可选短横线 + 12 位数字，如 CGRK-250415012167）压缩成一个 long，
+ * 存在开放寻址的 long[] 表中；文件夹名经字典编码，每个入库单号只占一个 int。
+ * 不符合格式的入库单号走 HashMap 兜底。查找（包括去后缀匹配）不创建对象，非线程安全
+ */
+public class ReceiptMap {
+
+  private static final int MAX_PREFIX = 4;
+  private static final int DIGITS = 12;
+  // 空槽位标记：合法键的字母部分不为 0，不会与之冲突
+  private static final long EMPTY = 0L;
+  private static final int NOT_FOUND = -1;
+
+  private final StringDictionary folders = new StringDictionary();
+  private long[] keys;
+  private int[] values;
+  private int packedSize;
+  private final Map<String, Integer> fallback = new HashMap<>();
+
+  public ReceiptMap() {
+    this(16);
+  }
+
+  public ReceiptMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity * 0.6 < expectedSize) capacity <<= 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+  }
+
+  public void put(String receiptNumber, String folderName) {
+    int folder = folders.encode(folderName);
+    long key = pack(receiptNumber, receiptNumber.length());
+    if (key == EMPTY) {
+      fallback.put(receiptNumber, folder);
+      return;
+    }
+    if (packedSize + 1 > keys.length * 0.6) resize();
+    int slot = slot(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      packedSize++;
+    }
+    values[slot] = folder;
+  }
+
+  /** 入库单号对应的文件夹，不存在时返回 null */
+  public String get(String receiptNumber) {
+    int folder = folderCode(receiptNumber, receiptNumber.length());
+    return folder == NOT_FOUND ? null : folders.decode(folder);
+  }
+
+  public boolean containsKey(String receiptNumber) {
+    return folderCode(receiptNumber, receiptNumber.length()) != NOT_FOUND;
+  }
+
+  /**
+   * 按文件名（不含扩展名）查找入库单号，返回匹配部分的长度（入库单号即 baseName 的前缀），未找到返回 -1
+   * 依次尝试：
+   * 1. 完整名称直接匹配
+   * 2. 短横线数字后缀：XXX-1 → XXX
+   * 3. 括号数字后缀：XXX(1) → XXX
+   * 4. 空格+括号数字后缀：XXX (1) → XXX
+   * 5. 组合情况：XXX-1(2) → XXX-1 → XXX
+   */
+  public int match(String baseName) {
+    int length = baseName.length();
+    if (folderCode(baseName, length) != NOT_FOUND) return length;
+
+    int paren = stripParen(baseName, length);
+    int spaceParen = stripSpaces(baseName, paren);
+    int end;
+    if (matches(baseName, end = stripDash(baseName, length))) return end;
+    if (matches(baseName, paren)) return paren;
+    if (matches(baseName, spaceParen)) return spaceParen;
+    if (matches(baseName, end = stripDash(baseName, paren))) return end;
+    if (matches(baseName, end = stripDash(baseName, spaceParen))) return end;
+    return NOT_FOUND;
+  }
+
+  /** 全部入库单号对应的文件夹（去重） */
+  public Set<String> getFolders() {
+    Set<String> result = new HashSet<>();
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) result.add(folders.decode(values[slot]));
+    }
+    for (int folder : fallback.values()) {
+      result.add(folders.decode(folder));
+    }
+    return result;
+  }
+
+  public int size() {
+    return packedSize + fallback.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** 走 HashMap 兜底的（不符合格式的）入库单号数量 */
+  public int getFallbackSize() {
+    return fallback.size();
+  }
+
+  // ================ 内部实现 ================ //
+
+  // 去掉后缀后的候选（与原名相同的已在完整匹配时查过）
+  private boolean matches(String text, int end) {
+    return end != text.length() && folderCode(text, end) != NOT_FOUND;
+  }
+
+  private int folderCode(String text, int end) {
+    long key = pack(text, end);
+    if (key != EMPTY) {
+      int slot = slot(key);
+      return keys[slot] == EMPTY ? NOT_FOUND : values[slot];
+    }
+    if (fallback.isEmpty()) return NOT_FOUND;
+    Integer folder = fallback.get(end == text.length() ? text : text.substring(0, end));
+    return folder == null ? NOT_FOUND : folder;
+  }
+
+  // 键的位布局：字母（每位 5 bit，最多 4 位）| 短横线 1 bit | 12 位数字（40 bit）；不符合格式返回 EMPTY
+  private static long pack(String text, int end) {
+    int digitsStart = end - DIGITS;
+    if (digitsStart < 1) return EMPTY;
+    long number = 0;
+    for (int i = digitsStart; i < end; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') return EMPTY;
+      number = number * 10 + (c - '0');
+    }
+    int prefixEnd = digitsStart;
+    long dash = 0;
+    if (text.charAt(prefixEnd - 1) == '-') {
+      dash = 1;
+      prefixEnd--;
+    }
+    if (prefixEnd < 1 || prefixEnd > MAX_PREFIX) return EMPTY;
+    long letters = 0;
+    for (int i = 0; i < prefixEnd; i++) {
+      char c = text.charAt(i);
+      if (c < 'A' || c > 'Z') return EMPTY;
+      letters = (letters << 5) | (c - 'A' + 1);
+    }
+    return (letters << 41) | (dash << 40) | number;
+  }
+
+  // 线性探测，返回键所在槽位或应插入的空槽位
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) mix(key) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length << 1];
+    values = new int[oldKeys.length << 1];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  // "XXX-12" → "XXX" 的长度，不以 -数字 结尾时原样返回
+  private static int stripDash(String text, int end) {
+    int i = end;
+    while (i > 0 && isDigit(text.charAt(i - 1))) i--;
+    return i < end && i > 0 && text.charAt(i - 1) == '-' ? i - 1 : end;
+  }
+
+  // "XXX(12)" → "XXX" 的长度，不以 (数字) 结尾时原样返回
+  private static int stripParen(String text, int end) {
+    if (end < 3 || text.charAt(end - 1) != ')') return end;
+    int i = end - 1;
+    while (i > 0 && isDigit(text.charAt(i - 1))) i--;
+    return i < end - 1 && i > 0 && text.charAt(i - 1) == '(' ? i - 1 : end;
+  }
+
+  // 去掉末尾空白（与正则 \s 相同的字符），仅在确实去掉了括号后缀时使用
+  private static int stripSpaces(String text, int end) {
+    if (end == text.length()) return end;
+    while (end > 0 && " \t\n\u000B\f\r".indexOf(text.charAt(end - 1)) >= 0) end--;
+    return end;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
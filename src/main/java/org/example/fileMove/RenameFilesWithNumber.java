@@ -1,12 +1,14 @@
 package org.example.fileMove;
 
-import java.io.File;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * 重命名目录下的所有文件，添加前缀为数字和顿号
  * 例如：1、文件名.txt  2、文件名.pdf
- * 注意：此代码不会处理子目录中的文件
+ * 注意：此代码不会处理子目录中的文件；已有 “数字、” 前缀的文件跳过，新文件接着最大序号编号
+ * 文件按自然顺序编号（2 排在 10 之前）；先生成完整计划，有冲突时不改任何文件；
+ * 每批改名都会在目录下写撤销日志（.rename-journal-时间.tsv），undo = true 时按最近一次日志还原
  */
 public class RenameFilesWithNumber {
   public static void main(String[] args) {
@@ -15,44 +17,54 @@ public class RenameFilesWithNumber {
 
     // 指定要处理的目录路径
     String directoryPath = "C:\\Users\\20847\\Desktop\\c\\应付账款抽凭"; // <-- 修改为你的目录路径
+    // 并发改名的线程数（网络共享目录上可适当调大）
+    int threads = 8;
+    // 只重命名匹配的文件（通配符，不区分大小写），如 "*.pdf"；null 表示全部文件
+    String include = null;
+    // 只打印计划，不实际改名
+    boolean dryRun = false;
+    // 按最近一次撤销日志还原
+    boolean undo = false;
 
-    File dir = new File(directoryPath);
-
-    // 检查目录是否存在且是目录
-    if (!dir.exists() || !dir.isDirectory()) {
-      System.out.println("错误：目录不存在或路径不是目录！");
-      return;
-    }
-
-    // 获取目录下所有文件（不包括子目录）
-    File[] files = dir.listFiles(File::isFile);
-
-    if (files == null || files.length == 0) {
-      System.out.println("该目录为空或无法读取文件。");
-      return;
-    }
-
-    // 按文件名排序（可选：按修改时间排序可改为 Arrays.sort(files, (a,b) -> Long.compare(a.lastModified(), b.lastModified()));）
-    Arrays.sort(files);
-
-    int counter = 1;
-    for (File file : files) {
-      String originalName = file.getName();
-      String newName = counter + "、" + originalName;
-      File newFile = new File(dir, newName);
-
-      // 检查新文件名是否已存在，避免覆盖
-      if (newFile.exists()) {
-        System.out.println("跳过: " + newName + " 已存在。");
-      } else if (file.renameTo(newFile)) {
-        System.out.println("重命名: " + originalName + " -> " + newName);
+    Path dir = Paths.get(directoryPath);
+    try {
+      RenamePlanner planner;
+      if (undo) {
+        Path journal = RenamePlanner.latestJournal(dir);
+        if (journal == null) {
+          System.out.println("错误：目录下没有重命名日志，无法还原。");
+          return;
+        }
+        System.out.println("按日志还原: " + journal.getFileName());
+        planner = RenamePlanner.undo(journal);
       } else {
-        System.out.println("无法重命名: " + originalName);
+        planner = RenamePlanner.numbered(dir, include);
       }
 
-      counter++;
-    }
+      if (planner.size() == 0 && planner.getProblems().isEmpty()) {
+        System.out.println("该目录为空或没有需要重命名的文件。");
+        return;
+      }
+      if (!planner.getProblems().isEmpty()) {
+        System.out.println("错误：重命名计划存在冲突，未改动任何文件：");
+        planner.getProblems().forEach(problem -> System.out.println("  " + problem));
+        return;
+      }
+      System.out.printf("计划重命名 %d 个文件（链 %d 个，环 %d 个，经临时名中转）%n",
+              planner.size(), planner.getChainCount(), planner.getCycleCount());
+      if (dryRun) {
+        planner.describe().forEach(line -> System.out.println("  " + line));
+        return;
+      }
 
-    System.out.println("重命名完成，共处理 " + files.length + " 个文件。");
+      RenamePlanner.Result result = planner.execute(threads);
+      result.getRenamed().forEach(line -> System.out.println("重命名: " + line));
+      result.getFailed().forEach(line -> System.out.println("无法重命名: " + line));
+      System.out.println("重命名完成，成功 " + result.getRenamed().size() + " 个，失败 "
+              + result.getFailed().size() + " 个。撤销日志: " + result.getJournal());
+    } catch (Exception e) {
+      System.out.println("错误：" + e.getMessage());
+      e.printStackTrace();
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,430 @@
+package org.example.fileMove;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 两阶段批量重命名：先一次性算出全部目标名并检查冲突，再并发执行
+ * <p>
+ * 1. 目录只列一次，文件属性取自列目录的结果，不再对每个文件调用 exists()；
+ * 2. 按预先计算的自然排序键排序（2、排在 10、之前）；
+ * 3. 目标名与批次外的文件/目录重名、或多个文件目标名相同时，整批不执行；
+ * 4. 原名恰好是批次内另一文件的目标名（链或环）时，先改为临时名让出名称，全部让出后再改为目标名；
+ * 5. 执行前写撤销日志，可按日志一次性还原整批；
+ * 6. 已有 “数字、” 前缀的文件不再编号，新文件接着已有的最大序号编号，重复运行不会产生 “1、1、”。
+ * 文件名比较不区分大小写（Windows / SMB 共享目录）
+ */
+public class RenamePlanner {
+
+  public static final String JOURNAL_PREFIX = ".rename-journal-";
+  private static final String TEMP_PREFIX = ".renaming-";
+  private static final DateTimeFormatter BATCH_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+  private static final Pattern NUMBERED = Pattern.compile("^(\\d+)、");
+  // .rename-journal-批次时间[-同一秒内的序号].tsv
+  private static final Pattern JOURNAL_NAME = Pattern.compile("^\\.rename-journal-(\\d{14})(?:-(\\d{1,9}))?\\.tsv$");
+
+  private final Path dir;
+  private final String batchId;
+  private final List<Entry> entries = new ArrayList<>();
+  private final List<String> problems = new ArrayList<>();
+  private int chainCount;
+  private int cycleCount;
+
+  private RenamePlanner(Path dir) {
+    this.dir = dir;
+    this.batchId = LocalDateTime.now().format(BATCH_FORMAT);
+  }
+
+  /**
+   * 为目录下的文件（不含子目录）按自然顺序添加 “序号、” 前缀
+   */
+  public static RenamePlanner numbered(Path dir) throws IOException {
+    return numbered(dir, null);
+  }
+
+  /**
+   * 为目录下匹配 include 的文件按自然顺序添加 “序号、” 前缀；已编号的文件跳过，序号接着其中最大的序号
+   *
+   * @param include 文件名通配符（如 *.pdf，不区分大小写），null 或空表示全部文件
+   */
+  public static RenamePlanner numbered(Path dir, String include) throws IOException {
+    RenamePlanner planner = new RenamePlanner(dir);
+    Map<String, Boolean> listing = planner.list(false);
+    PathMatcher matcher = include == null || include.trim().isEmpty() ? null
+            : FileSystems.getDefault().getPathMatcher("glob:" + lower(include.trim()));
+
+    List<String> files = new ArrayList<>();
+    int counter = 1;
+    for (Map.Entry<String, Boolean> item : listing.entrySet()) {
+      String name = item.getKey();
+      if (!item.getValue() || (matcher != null && !matcher.matches(Paths.get(lower(name))))) continue;
+      Matcher numbered = NUMBERED.matcher(name);
+      if (numbered.find()) {
+        // 序号位数过多时不参与计数
+        if (numbered.group(1).length() < 9) counter = Math.max(counter, Integer.parseInt(numbered.group(1)) + 1);
+      } else {
+        files.add(name);
+      }
+    }
+    // 排序键只计算一次
+    Map<String, NaturalKey> keys = new HashMap<>();
+    for (String name : files) {
+      keys.put(name, new NaturalKey(name));
+    }
+    files.sort(Comparator.comparing(keys::get));
+
+    for (String name : files) {
+      planner.entries.add(new Entry(name, counter++ + "、" + name));
+    }
+    planner.validate(listing.keySet());
+    return planner;
+  }
+
+  /**
+   * 根据撤销日志生成还原计划：已改名的改回原名，停留在临时名的也改回原名
+   */
+  public static RenamePlanner undo(Path journal) throws IOException {
+    List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !lines.get(0).startsWith("# ")) {
+      throw new IOException("不是有效的重命名日志: " + journal);
+    }
+    RenamePlanner planner = new RenamePlanner(Paths.get(lines.get(0).substring(2)));
+    // 中断的批次可能有文件停留在临时名，列目录时要包含临时名
+    Map<String, Boolean> listing = planner.list(true);
+    Set<String> present = lowerCaseSet(listing.keySet());
+
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.isEmpty()) continue;
+      String[] parts = line.split("\t", -1);
+      if (parts.length != 3) {
+        throw new IOException("重命名日志格式错误: " + line);
+      }
+      String source = parts[0];
+      String temp = parts[1];
+      String target = parts[2];
+      if (present.contains(lower(target)) && !lower(target).equals(lower(source))) {
+        planner.entries.add(new Entry(target, source));
+      } else if (!temp.isEmpty() && present.contains(lower(temp))) {
+        planner.entries.add(new Entry(temp, source));
+      } else if (!present.contains(lower(source))) {
+        planner.problems.add("找不到文件，无法还原: " + source + "（目标名 " + target + "）");
+      }
+      // 其余情况：文件仍是原名，无需处理
+    }
+    planner.validate(listing.keySet());
+    return planner;
+  }
+
+  /**
+   * 目录中所有名称 -> 是否为普通文件；跳过本工具自身的日志
+   *
+   * @param includeTemp 是否包含临时名的文件（规划新批次时跳过，还原时需要）
+   */
+  private Map<String, Boolean> list(boolean includeTemp) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      throw new IOException("目录不存在或路径不是目录: " + dir);
+    }
+    Map<String, Boolean> listing = new LinkedHashMap<>();
+    // walkFileTree 在 Windows 上直接使用列目录时返回的属性，每个文件不再单独访问一次
+    Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(JOURNAL_PREFIX) && (includeTemp || !name.startsWith(TEMP_PREFIX))) {
+          listing.put(name, attrs.isRegularFile());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        listing.put(file.getFileName().toString(), false);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return listing;
+  }
+
+  // 检查冲突，标记需要经临时名中转的文件，统计链和环
+  private void validate(Collection<String> existingNames) {
+    entries.removeIf(entry -> entry.source.equals(entry.target));
+
+    Map<String, Entry> bySource = new HashMap<>();
+    for (Entry entry : entries) {
+      bySource.put(lower(entry.source), entry);
+    }
+    Map<String, Entry> byTarget = new HashMap<>();
+    for (Entry entry : entries) {
+      Entry previous = byTarget.put(lower(entry.target), entry);
+      if (previous != null) {
+        problems.add("目标名重复: " + previous.source + " 与 " + entry.source + " -> " + entry.target);
+      }
+    }
+    Set<String> existing = lowerCaseSet(existingNames);
+    for (Entry entry : entries) {
+      String target = lower(entry.target);
+      if (existing.contains(target) && !bySource.containsKey(target)) {
+        problems.add("目标名已被占用: " + entry.source + " -> " + entry.target);
+      }
+      if (!existing.contains(lower(entry.source))) {
+        problems.add("文件不存在: " + entry.source);
+      }
+      // 原名是批次内某个文件的目标名（含仅大小写不同的改名），需先移开
+      entry.viaTemp = byTarget.containsKey(lower(entry.source));
+    }
+
+    // 链：从未被其他文件指向的原名开始；环：沿 “目标名 = 另一文件原名” 走回到自身
+    for (Entry entry : entries) {
+      if (bySource.containsKey(lower(entry.target)) && !entry.viaTemp) chainCount++;
+    }
+    Map<Entry, Integer> state = new HashMap<>();
+    for (Entry start : entries) {
+      Entry current = start;
+      while (current != null && !state.containsKey(current)) {
+        state.put(current, 1);
+        current = bySource.get(lower(current.target));
+      }
+      if (current != null && state.get(current) == 1) cycleCount++;
+      current = start;
+      while (current != null && state.get(current) == 1) {
+        state.put(current, 2);
+        current = bySource.get(lower(current.target));
+      }
+    }
+  }
+
+  /**
+   * 执行重命名：先写撤销日志，再分两阶段并发改名
+   */
+  public Result execute(int threads) throws IOException, InterruptedException {
+    if (!problems.isEmpty()) {
+      throw new IllegalStateException("重命名计划存在冲突，未执行任何改名: " + problems.get(0));
+    }
+    Path journal = dir.resolve(JOURNAL_PREFIX + batchId + ".tsv");
+    for (int n = 2; Files.exists(journal); n++) {
+      journal = dir.resolve(JOURNAL_PREFIX + batchId + "-" + n + ".tsv");
+    }
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.viaTemp) {
+        entry.temp = TEMP_PREFIX + batchId + "-" + i;
+      }
+    }
+    writeJournal(journal);
+
+    Result result = new Result(journal);
+    try (BlockingIoExecutor pool = BlockingIoExecutor.create(threads)) {
+      // 阶段一：需要中转的文件先改为临时名
+      runAll(pool, entries, entry -> entry.temp != null, entry -> {
+        Files.move(dir.resolve(entry.source), dir.resolve(entry.temp));
+        entry.current = entry.temp;
+      }, result);
+      // 阶段二：全部改为目标名（阶段一失败的文件保持原名，不再处理）
+      runAll(pool, entries, entry -> entry.temp == null || entry.temp.equals(entry.current), entry -> {
+        Files.move(dir.resolve(entry.current), dir.resolve(entry.target));
+        entry.current = entry.target;
+        result.renamed.add(entry.source + " -> " + entry.target);
+      }, result);
+    }
+    return result;
+  }
+
+  private interface Step {
+    void run(Entry entry) throws IOException;
+  }
+
+  private interface EntryFilter {
+    boolean test(Entry entry);
+  }
+
+  private void runAll(BlockingIoExecutor pool, List<Entry> batch, EntryFilter filter, Step step, Result result)
+          throws InterruptedException {
+    List<Future<?>> futures = new ArrayList<>();
+    List<Entry> submitted = new ArrayList<>();
+    for (Entry entry : batch) {
+      if (!filter.test(entry)) continue;
+      submitted.add(entry);
+      futures.add(pool.submit(() -> {
+        step.run(entry);
+        return null;
+      }));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        Entry entry = submitted.get(i);
+        result.failed.add(entry.current + " -> " + entry.target + ": " + e.getCause());
+      }
+    }
+  }
+
+  // 日志格式：首行 “# 目录”，其后每行 原名\t临时名\t目标名
+  private void writeJournal(Path journal) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(journal, StandardCharsets.UTF_8)) {
+      writer.write("# " + dir.toAbsolutePath());
+      writer.newLine();
+      for (Entry entry : entries) {
+        writer.write(entry.source + "\t" + (entry.temp == null ? "" : entry.temp) + "\t" + entry.target);
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * 找出目录下最近一次的撤销日志：按文件名中的批次时间，同一秒内的按序号（无序号为第 1 个）
+   * <p>
+   * 不能直接比较文件名，否则 “-2.tsv” 排在无序号的 “.tsv” 之前，“-10” 排在 “-2” 之前
+   */
+  public static Path latestJournal(Path dir) throws IOException {
+    Path latest = null;
+    String latestBatch = null;
+    int latestSequence = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, JOURNAL_PREFIX + "*.tsv")) {
+      for (Path journal : stream) {
+        Matcher matcher = JOURNAL_NAME.matcher(journal.getFileName().toString());
+        if (!matcher.matches()) continue;
+        String batch = matcher.group(1);
+        int sequence = matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2));
+        int cmp = latest == null ? 1 : batch.compareTo(latestBatch);
+        if (cmp > 0 || (cmp == 0 && sequence > latestSequence)) {
+          latest = journal;
+          latestBatch = batch;
+          latestSequence = sequence;
+        }
+      }
+    }
+    return latest;
+  }
+
+  public List<String> getProblems() {
+    return problems;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public int getChainCount() {
+    return chainCount;
+  }
+
+  public int getCycleCount() {
+    return cycleCount;
+  }
+
+  /** 计划中的改名（原名 -> 目标名），按执行顺序 */
+  public List<String> describe() {
+    List<String> lines = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      lines.add(entry.source + " -> " + entry.target + (entry.viaTemp ? "（经临时名）" : ""));
+    }
+    return lines;
+  }
+
+  private static String lower(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> lowerCaseSet(Collection<String> names) {
+    Set<String> set = new HashSet<>();
+    for (String name : names) {
+      set.add(lower(name));
+    }
+    return set;
+  }
+
+  private static class Entry {
+    private final String source;
+    private final String target;
+    private String temp;
+    private boolean viaTemp;
+    private volatile String current;
+
+    Entry(String source, String target) {
+      this.source = source;
+      this.target = target;
+      this.current = source;
+    }
+  }
+
+  /** 执行结果：成功的改名、失败的改名和撤销日志 */
+  public static class Result {
+    private final Path journal;
+    private final Queue<String> renamed = new ConcurrentLinkedQueue<>();
+    private final Queue<String> failed = new ConcurrentLinkedQueue<>();
+
+    Result(Path journal) {
+      this.journal = journal;
+    }
+
+    public Path getJournal() {
+      return journal;
+    }
+
+    public Collection<String> getRenamed() {
+      return renamed;
+    }
+
+    public Collection<String> getFailed() {
+      return failed;
+    }
+  }
+
+  /**
+   * 自然排序键：文件名拆成数字段和非数字段，数字段按数值比较（忽略前导零），非数字段按字符比较
+   */
+  static final class NaturalKey implements Comparable<NaturalKey> {
+    private final String[] parts;
+    private final boolean[] numeric;
+    private final String name;
+
+    NaturalKey(String name) {
+      this.name = name;
+      List<String> chunks = new ArrayList<>();
+      List<Boolean> kinds = new ArrayList<>();
+      int i = 0;
+      while (i < name.length()) {
+        boolean digit = Character.isDigit(name.charAt(i));
+        int start = i;
+        while (i < name.length() && Character.isDigit(name.charAt(i)) == digit) i++;
+        String chunk = name.substring(start, i);
+        chunks.add(digit ? chunk.replaceFirst("^0+(?=\\d)", "") : chunk.toLowerCase(Locale.ROOT));
+        kinds.add(digit);
+      }
+      this.parts = chunks.toArray(new String[0]);
+      this.numeric = new boolean[kinds.size()];
+      for (int k = 0; k < numeric.length; k++) {
+        numeric[k] = kinds.get(k);
+      }
+    }
+
+    @Override
+    public int compareTo(NaturalKey other) {
+      int n = Math.min(parts.length, other.parts.length);
+      for (int i = 0; i < n; i++) {
+        int cmp;
+        if (numeric[i] && other.numeric[i]) {
+          cmp = Integer.compare(parts[i].length(), other.parts[i].length());
+          if (cmp == 0) cmp = parts[i].compareTo(other.parts[i]);
+        } else {
+          cmp = parts[i].compareTo(other.parts[i]);
+        }
+        if (cmp != 0) return cmp;
+      }
+      int cmp = Integer.compare(parts.length, other.parts.length);
+      return cmp != 0 ? cmp : name.compareTo(other.name);
+    }
+  }
+}
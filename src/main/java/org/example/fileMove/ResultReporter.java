@@ -0,0 +1,252 @@
+package org.example.fileMove;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式结果输出：每条处理结果产生时立即写入 CSV 与 JSON Lines 文件，
+ * 内存中只保留各类别的计数，控制台可选择逐条输出或只输出汇总
+ */
+public class ResultReporter implements Closeable {
+
+  public enum ConsoleMode {
+    /** 每条结果都打印到控制台 */
+    FULL,
+    /** 只在结束时打印各类别数量 */
+    SUMMARY
+  }
+
+  private static final String[] CSV_HEADERS = {"类别", "文件", "文件夹", "详情"};
+
+  private final Path csvPath;
+  private final Path jsonlPath;
+  private final BufferedWriter csvWriter;
+  private final BufferedWriter jsonlWriter;
+  private final ConsoleMode consoleMode;
+  private final Map<String, Long> counts = new LinkedHashMap<>();
+
+  /**
+   * @param outputDir 结果文件所在目录
+   * @param baseName  结果文件名（不含扩展名），生成 baseName.csv 与 baseName.jsonl
+   * @param consoleMode 控制台输出模式
+   * @param categories 预先登记的类别，保证汇总按此顺序输出（数量为0也会输出）
+   */
+  public ResultReporter(Path outputDir, String baseName, ConsoleMode consoleMode,
+                        String... categories) throws IOException {
+    Files.createDirectories(outputDir);
+    this.csvPath = outputDir.resolve(baseName + ".csv");
+    this.jsonlPath = outputDir.resolve(baseName + ".jsonl");
+    this.consoleMode = consoleMode;
+    for (String category : categories) {
+      counts.put(category, 0L);
+    }
+
+    this.csvWriter = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8);
+    try {
+      this.jsonlWriter = Files.newBufferedWriter(jsonlPath, StandardCharsets.UTF_8);
+      // 写入BOM，保证Excel直接打开CSV时中文不乱码
+      csvWriter.write('\uFEFF');
+      writeCsvLine(csvWriter, CSV_HEADERS);
+    } catch (IOException e) {
+      csvWriter.close();
+      throw e;
+    }
+  }
+
+  /** 结果文件名固定为“前缀_时间戳”，写到指定目录下 */
+  public static ResultReporter create(String outputDir, String prefix, ConsoleMode consoleMode,
+                                      String... categories) throws IOException {
+    String baseName = prefix + "_" + System.currentTimeMillis();
+    return new ResultReporter(Paths.get(outputDir), baseName, consoleMode, categories);
+  }
+
+  /**
+   * 记录一条结果
+   *
+   * @param category 结果类别，如“成功”“未匹配”“处理失败”
+   * @param file     文件名或相对路径
+   * @param folder   所在/目标文件夹，可为空
+   * @param detail   补充说明，可为空
+   */
+  public synchronized void report(String category, String file, String folder, String detail) {
+    counts.merge(category, 1L, Long::sum);
+    String[] fields = {category, nullToEmpty(file), nullToEmpty(folder), nullToEmpty(detail)};
+    try {
+      writeCsvLine(csvWriter, fields);
+      writeJsonLine(jsonlWriter, fields);
+    } catch (IOException e) {
+      throw new UncheckedIOException("写入结果文件失败: " + e.getMessage(), e);
+    }
+
+    if (consoleMode == ConsoleMode.FULL) {
+      StringBuilder line = new StringBuilder("  [").append(category).append("] ").append(fields[1]);
+      if (!fields[2].isEmpty()) line.append(" -> ").append(fields[2]);
+      if (!fields[3].isEmpty()) line.append(" (").append(fields[3]).append(")");
+      System.out.println(line);
+    }
+  }
+
+  public synchronized long getCount(String category) {
+    return counts.getOrDefault(category, 0L);
+  }
+
+  public synchronized long getTotal() {
+    return counts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  public Path getCsvPath() {
+    return csvPath;
+  }
+
+  public Path getJsonlPath() {
+    return jsonlPath;
+  }
+
+  public synchronized void flush() throws IOException {
+    csvWriter.flush();
+    jsonlWriter.flush();
+  }
+
+  /**
+   * 重新读取已写入CSV中某一类别的记录（用于结果量大时按需回放，而不是常驻内存）
+   */
+  public void forEachRecord(String category, RecordConsumer consumer) throws IOException {
+    flush();
+    try (BufferedReader reader = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
+      reader.readLine(); // 跳过表头
+      String[] fields;
+      while ((fields = readCsvRecord(reader)) != null) {
+        if (fields.length == CSV_HEADERS.length && category.equals(fields[0])) {
+          consumer.accept(fields[1], fields[2], fields[3]);
+        }
+      }
+    }
+  }
+
+  public synchronized void printSummary(String title) {
+    System.out.println("\n========== " + title + " ==========");
+    counts.forEach((category, count) -> System.out.println(category + ": " + count));
+    System.out.println("明细已写入: " + csvPath);
+    System.out.println("            " + jsonlPath);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      csvWriter.close();
+    } finally {
+      jsonlWriter.close();
+    }
+  }
+
+  @FunctionalInterface
+  public interface RecordConsumer {
+    void accept(String file, String folder, String detail) throws IOException;
+  }
+
+  // ================ CSV / JSON 编码 ================ //
+
+  private static void writeCsvLine(Writer writer, String[] fields) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) writer.write(',');
+      String field = fields[i];
+      if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+              || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+      } else {
+        writer.write(field);
+      }
+    }
+    writer.write("\r\n");
+  }
+
+  private static void writeJsonLine(Writer writer, String[] fields) throws IOException {
+    writer.write('{');
+    for (int i = 0; i < CSV_HEADERS.length; i++) {
+      if (i > 0) writer.write(',');
+      writeJsonString(writer, CSV_HEADERS[i]);
+      writer.write(':');
+      writeJsonString(writer, fields[i]);
+    }
+    writer.write("}\n");
+  }
+
+  static void writeJsonString(Writer writer, String value) throws IOException {
+    writer.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"': writer.write("\\\""); break;
+        case '\\': writer.write("\\\\"); break;
+        case '\n': writer.write("\\n"); break;
+        case '\r': writer.write("\\r"); break;
+        case '\t': writer.write("\\t"); break;
+        default:
+          if (c < 0x20) {
+            writer.write(String.format("\\u%04x", (int) c));
+          } else {
+            writer.write(c);
+          }
+      }
+    }
+    writer.write('"');
+  }
+
+  // 读取一条CSV记录，引号内的换行会继续读取下一行
+  private static String[] readCsvRecord(BufferedReader reader) throws IOException {
+    String line = reader.readLine();
+    if (line == null) return null;
+
+    List<String> fields = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (quoted) {
+          if (c == '"') {
+            if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+              current.append('"');
+              i++;
+            } else {
+              quoted = false;
+            }
+          } else {
+            current.append(c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(current.toString());
+          current.setLength(0);
+        } else {
+          current.append(c);
+        }
+      }
+      if (!quoted) break;
+      line = reader.readLine();
+      if (line == null) break;
+      current.append('\n');
+    }
+    fields.add(current.toString());
+    return fields.toArray(new String[0]);
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+}
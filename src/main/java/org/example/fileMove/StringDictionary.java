@@ -0,0 +1,41 @@
+package org.example.fileMove;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串字典编码：相同的字符串只保存一份，用 int 编号代替
+ * 编号从 0 开始连续分配，非线程安全
+ */
+public class StringDictionary {
+
+  private final Map<String, Integer> codes = new HashMap<>();
+  private final List<String> values = new ArrayList<>();
+
+  /** 返回字符串的编号，不存在时分配新编号 */
+  public int encode(String value) {
+    Integer code = codes.get(value);
+    if (code == null) {
+      code = values.size();
+      codes.put(value, code);
+      values.add(value);
+    }
+    return code;
+  }
+
+  /** 返回已存在字符串的编号，不存在时返回 -1（不分配新编号） */
+  public int lookup(String value) {
+    Integer code = codes.get(value);
+    return code == null ? -1 : code;
+  }
+
+  public String decode(int code) {
+    return values.get(code);
+  }
+
+  public int size() {
+    return values.size();
+  }
+}
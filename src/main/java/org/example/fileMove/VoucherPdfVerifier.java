@@ -0,0 +1,188 @@
+package org.example.fileMove;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 核对匹配到的凭证 PDF 内容：提取前几页文本，检查其中是否出现凭证号和借方金额
+ * 每个任务使用独立的 PDDocument，在线程池中并行执行；
+ * 提取的文本按文件内容哈希缓存到磁盘，重复核对同一批凭证时不再解析 PDF
+ */
+public class VoucherPdfVerifier {
+
+  public static final String OK = "无异常";
+  public static final String AMOUNT_NOT_FOUND = "异常：PDF中未找到借方金额";
+  public static final String VOUCHER_NOT_FOUND = "异常：PDF中未找到凭证号";
+  public static final String NOTHING_FOUND = "异常：PDF中未找到凭证号和借方金额";
+  public static final String NO_TEXT = "待核对：PDF无可提取文本（可能为扫描件）";
+
+  private static final Pattern DIGITS = Pattern.compile("\\d+");
+  // 千分位逗号：数字之后、恰好三位数字之前的逗号（不去掉空白和换行，相邻的数字不会连在一起）
+  private static final Pattern THOUSANDS_SEPARATOR = Pattern.compile("(?<=\\d)[,，](?=\\d{3}(?!\\d))");
+
+  private final Path cacheDir;
+  private final int threads;
+  private final int pageLimit;
+  private int cacheHits;
+
+  /**
+   * @param cacheDir  文本缓存目录
+   * @param threads   并行核对的线程数
+   * @param pageLimit 每个 PDF 最多提取的页数
+   */
+  public VoucherPdfVerifier(Path cacheDir, int threads, int pageLimit) {
+    this.cacheDir = cacheDir;
+    this.threads = Math.max(1, threads);
+    this.pageLimit = Math.max(1, pageLimit);
+  }
+
+  /**
+   * 并行核对，返回与输入顺序一致的审计结论
+   */
+  public List<String> verify(List<File> pdfFiles, List<LedgerStore.Row> records)
+          throws IOException, InterruptedException {
+    Files.createDirectories(cacheDir);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < pdfFiles.size(); i++) {
+        File pdf = pdfFiles.get(i);
+        LedgerStore.Row record = records.get(i);
+        futures.add(pool.submit(() -> verify(pdf, record)));
+      }
+      List<String> conclusions = new ArrayList<>(futures.size());
+      for (Future<String> future : futures) {
+        try {
+          conclusions.add(future.get());
+        } catch (ExecutionException e) {
+          conclusions.add("异常：PDF核对失败: " + e.getCause().getMessage());
+        }
+      }
+      return conclusions;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** 本次核对中命中文本缓存的文件数 */
+  public synchronized int getCacheHits() {
+    return cacheHits;
+  }
+
+  private String verify(File pdf, LedgerStore.Row record) {
+    String text;
+    try {
+      text = extractText(pdf);
+    } catch (IOException e) {
+      return "异常：PDF无法读取: " + e.getMessage();
+    }
+    if (text.trim().isEmpty()) {
+      return NO_TEXT;
+    }
+
+    boolean voucherFound = containsVoucherNumber(text, record.getVoucherNumber());
+    boolean amountFound = !record.hasDebitAmount() || containsAmount(text, record.getDebitAmount());
+
+    if (voucherFound && amountFound) return OK;
+    if (!voucherFound && !amountFound) return NOTHING_FOUND;
+    return voucherFound ? AMOUNT_NOT_FOUND : VOUCHER_NOT_FOUND;
+  }
+
+  /**
+   * 凭证号须紧跟在凭证字（如 “记”）或 “凭证号”“字号” 标签之后，其间允许空白、冒号、短横线、“第” 和前导零
+   * （如 “记791” 在 PDF 中可能是 “记-791”“记 0791”“凭证字号：记-791”“记字第791号”）；
+   * 单独出现的数字可能是金额、日期、页码或其他凭证的分录，不算找到，后面紧跟小数点/逗号加数字的也不算
+   */
+  static boolean containsVoucherNumber(String text, String voucherNumber) {
+    Matcher matcher = DIGITS.matcher(voucherNumber);
+    if (!matcher.find()) return text.contains(voucherNumber);
+    String prefix = voucherNumber.substring(0, matcher.start()).trim();
+    String number = matcher.group().replaceFirst("^0+(?=\\d)", "");
+    String label = prefix.isEmpty() ? "凭证号|字号" : Pattern.quote(prefix) + "|凭证号|字号";
+    return Pattern.compile("(?:" + label + ")[\\s:：\\-－—]*(?:字[\\s]*)?(?:第[\\s]*)?0*" + number
+            + "(?!\\d|[.,，]\\d)").matcher(text).find();
+  }
+
+  // 金额去掉千分位后以两位小数查找
+  static boolean containsAmount(String text, double amount) {
+    return containsNumber(THOUSANDS_SEPARATOR.matcher(text).replaceAll(""),
+            String.format(Locale.ROOT, "%.2f", amount));
+  }
+
+  // 金额以两位小数比较，前后不能紧接数字
+  private static boolean containsNumber(String text, String number) {
+    String negativeFree = number.startsWith("-") ? number.substring(1) : number;
+    return Pattern.compile("(?<![\\d.])" + Pattern.quote(negativeFree) + "(?!\\d)").matcher(text).find();
+  }
+
+  // ================ 文本提取与缓存 ================ //
+
+  private String extractText(File pdf) throws IOException {
+    String hash = sha256(pdf.toPath());
+    Path cacheFile = cacheDir.resolve(hash + "_p" + pageLimit + ".txt");
+    if (Files.exists(cacheFile)) {
+      synchronized (this) {
+        cacheHits++;
+      }
+      return new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+    }
+
+    String text;
+    try (PDDocument document = PDDocument.load(pdf)) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setStartPage(1);
+      stripper.setEndPage(Math.min(pageLimit, document.getNumberOfPages()));
+      text = stripper.getText(document);
+    }
+
+    // 先写临时文件再改名，避免并发或中断时留下不完整的缓存
+    Path tempFile = Files.createTempFile(cacheDir, hash, ".tmp");
+    try {
+      Files.write(tempFile, text.getBytes(StandardCharsets.UTF_8));
+      Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    return text;
+  }
+
+  static String sha256(Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    StringBuilder hex = new StringBuilder(64);
+    for (byte b : digest.digest()) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
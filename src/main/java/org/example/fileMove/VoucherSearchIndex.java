@@ -0,0 +1,450 @@
+package org.example.fileMove;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 归档 PDF / 图片的本地倒排索引：凭证号、年月、金额、入库单号 → 文件及页码
+ * <p>
+ * 用法：
+ * <pre>
+ *   VoucherSearchIndex build &lt;索引目录&gt; &lt;归档目录&gt;...   增量建索引（只解析新增或变化的文件）
+ *   VoucherSearchIndex query &lt;索引目录&gt; &lt;词&gt;...        查询，多个词时要求同一文件全部命中
+ * </pre>
+ * 例：query D:\索引 记791 2025.05 12,345.00
+ * <p>
+ * 索引目录中的文件：
+ * docs.dat 每个文件的路径、大小、修改时间及词条（增量更新时复用）；
+ * terms.dat / terms.off 按词排序的倒排表及其偏移表，查询时二分查找，不需要整体载入；
+ * paths.dat / paths.off 文件编号到路径。
+ */
+public class VoucherSearchIndex {
+
+  private static final int FORMAT_VERSION = 1;
+  // 页码 0 表示词条来自文件名
+  private static final int FILE_NAME_PAGE = 0;
+  private static final int MAX_PAGES = 50;
+
+  private static final Pattern VOUCHER = Pattern.compile("记\\s*[-－]?\\s*0*(\\d{1,8})(?!\\d)");
+  // 文件名 N、YYYY.MM#凭证号
+  private static final Pattern FILE_NAME_VOUCHER = Pattern.compile("(\\d{4})\\.(\\d{2})#0*(\\d+)");
+  private static final Pattern YEAR_MONTH = Pattern.compile("(?<!\\d)(20\\d{2})\\s*[.\\-/年]\\s*(\\d{1,2})(?!\\d)");
+  private static final Pattern AMOUNT = Pattern.compile("(?<![\\d.])(\\d{1,3}(?:[,，]\\d{3})+|\\d+)\\.(\\d{2})(?!\\d)");
+  private static final Pattern RECEIPT = Pattern.compile("(?<![A-Z])([A-Z]{2,6})-(\\d{6,})");
+
+  private static final Set<String> INDEXED_EXTENSIONS =
+          new HashSet<>(Arrays.asList("pdf", "jpg", "jpeg", "png", "gif", "bmp"));
+
+  public static void main(String[] args) {
+    if (args.length < 2 || !("build".equals(args[0]) || "query".equals(args[0]))) {
+      System.out.println("用法: VoucherSearchIndex build <索引目录> <归档目录>...");
+      System.out.println("      VoucherSearchIndex query <索引目录> <词>...");
+      return;
+    }
+    Path indexDir = Paths.get(args[1]);
+    String[] rest = Arrays.copyOfRange(args, 2, args.length);
+
+    try {
+      if ("build".equals(args[0])) {
+        List<Path> roots = Arrays.stream(rest).map(Paths::get).collect(Collectors.toList());
+        build(indexDir, roots, Runtime.getRuntime().availableProcessors());
+      } else {
+        long start = System.nanoTime();
+        List<Hit> hits = query(indexDir, Arrays.asList(rest));
+        long micros = (System.nanoTime() - start) / 1000;
+        for (Hit hit : hits) {
+          System.out.println(hit);
+        }
+        System.out.printf("共 %d 个文件，耗时 %.2f ms%n", hits.size(), micros / 1000.0);
+      }
+    } catch (Exception e) {
+      System.err.println("处理失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  // ================ 建索引 ================ //
+
+  /**
+   * 增量建索引：大小和修改时间都未变化的文件沿用上次的词条，其余文件重新解析
+   */
+  public static void build(Path indexDir, List<Path> roots, int threads)
+          throws IOException, InterruptedException {
+    Files.createDirectories(indexDir);
+    Map<String, Doc> previous = readDocs(indexDir.resolve("docs.dat"));
+
+    // 1. 遍历归档目录
+    List<Path> files = new ArrayList<>();
+    for (Path root : roots) {
+      Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && INDEXED_EXTENSIONS.contains(extension(file.getFileName().toString()))) {
+            files.add(file.toAbsolutePath().normalize());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          // 跳过索引目录自身及隐藏的缓存目录
+          String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+          return dir.toAbsolutePath().normalize().equals(indexDir.toAbsolutePath().normalize()) || name.startsWith(".")
+                  ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+        }
+      });
+    }
+    Collections.sort(files);
+
+    // 2. 未变化的沿用，新增/变化的并行解析
+    List<Doc> docs = new ArrayList<>(files.size());
+    Map<Integer, Future<Doc>> pending = new HashMap<>();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    int reused = 0;
+    int failed = 0;
+    try {
+      for (Path file : files) {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        Doc old = previous.get(file.toString());
+        if (old != null && old.size == attrs.size() && old.modified == attrs.lastModifiedTime().toMillis()) {
+          docs.add(old);
+          reused++;
+        } else {
+          pending.put(docs.size(), pool.submit(() -> extract(file, attrs)));
+          docs.add(null);
+        }
+      }
+      for (Map.Entry<Integer, Future<Doc>> entry : pending.entrySet()) {
+        try {
+          docs.set(entry.getKey(), entry.getValue().get());
+        } catch (ExecutionException e) {
+          failed++;
+          System.err.println("解析失败，跳过: " + files.get(entry.getKey()) + " - " + e.getCause().getMessage());
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    docs.removeIf(Objects::isNull);
+
+    // 3. 写入文档表与倒排表
+    writeDocs(indexDir, docs);
+    writeInverted(indexDir, docs);
+    Set<String> current = new HashSet<>();
+    for (Path file : files) {
+      current.add(file.toString());
+    }
+    long removed = previous.keySet().stream().filter(path -> !current.contains(path)).count();
+    System.out.printf("索引完成：共 %d 个文件，沿用 %d 个，新解析 %d 个，失败 %d 个，移除 %d 个%n",
+            docs.size(), reused, pending.size() - failed, failed, removed);
+  }
+
+  private static Doc extract(Path file, BasicFileAttributes attrs) throws IOException {
+    Doc doc = new Doc(file.toString(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    String fileName = file.getFileName().toString();
+    addFileNameTokens(doc, fileName);
+
+    if ("pdf".equals(extension(fileName))) {
+      try (PDDocument document = PDDocument.load(file.toFile())) {
+        PDFTextStripper stripper = new PDFTextStripper();
+        int pages = Math.min(MAX_PAGES, document.getNumberOfPages());
+        for (int page = 1; page <= pages; page++) {
+          stripper.setStartPage(page);
+          stripper.setEndPage(page);
+          tokenize(stripper.getText(document), page, doc);
+        }
+      }
+    }
+    return doc;
+  }
+
+  private static void addFileNameTokens(Doc doc, String fileName) {
+    Matcher matcher = FILE_NAME_VOUCHER.matcher(fileName);
+    if (matcher.find()) {
+      doc.add("记" + Integer.parseInt(matcher.group(3)), FILE_NAME_PAGE);
+      doc.add(matcher.group(1) + "." + matcher.group(2), FILE_NAME_PAGE);
+    }
+    tokenize(fileName, FILE_NAME_PAGE, doc);
+  }
+
+  // 从文本中提取词条：凭证号（记N）、年月（yyyy.MM）、金额（两位小数，去千分位）、入库单号
+  private static void tokenize(String text, int page, Doc doc) {
+    Matcher matcher = VOUCHER.matcher(text);
+    while (matcher.find()) {
+      doc.add("记" + matcher.group(1), page);
+    }
+    matcher = YEAR_MONTH.matcher(text);
+    while (matcher.find()) {
+      int month = Integer.parseInt(matcher.group(2));
+      if (month >= 1 && month <= 12) {
+        doc.add(matcher.group(1) + "." + (month < 10 ? "0" : "") + month, page);
+      }
+    }
+    matcher = AMOUNT.matcher(text);
+    while (matcher.find()) {
+      doc.add(normalizeAmount(matcher.group(1)) + "." + matcher.group(2), page);
+    }
+    matcher = RECEIPT.matcher(text.toUpperCase());
+    while (matcher.find()) {
+      doc.add(matcher.group(1) + "-" + matcher.group(2), page);
+    }
+  }
+
+  private static String normalizeAmount(String integerPart) {
+    String digits = integerPart.replace(",", "").replace("，", "");
+    return digits.replaceFirst("^0+(?=\\d)", "");
+  }
+
+  // ================ 查询 ================ //
+
+  /**
+   * 查询，多个词时返回全部命中的文件（及各词所在页码）
+   */
+  public static List<Hit> query(Path indexDir, List<String> terms) throws IOException {
+    List<String> normalizedTerms = new ArrayList<>();
+    for (String term : terms) {
+      normalizedTerms.add(normalizeQuery(term));
+    }
+
+    try (RandomAccessFile termData = new RandomAccessFile(indexDir.resolve("terms.dat").toFile(), "r");
+         RandomAccessFile termOffsets = new RandomAccessFile(indexDir.resolve("terms.off").toFile(), "r")) {
+      // 文件编号 -> 命中页码；多词取交集
+      Map<Integer, TreeSet<Integer>> result = null;
+      for (String term : normalizedTerms) {
+        Map<Integer, TreeSet<Integer>> postings = lookup(termData, termOffsets, term);
+        if (result == null) {
+          result = postings;
+        } else {
+          result.keySet().retainAll(postings.keySet());
+          for (Map.Entry<Integer, TreeSet<Integer>> entry : result.entrySet()) {
+            entry.getValue().addAll(postings.get(entry.getKey()));
+          }
+        }
+        if (result.isEmpty()) break;
+      }
+      if (result == null) return Collections.emptyList();
+
+      List<Hit> hits = new ArrayList<>();
+      try (RandomAccessFile pathData = new RandomAccessFile(indexDir.resolve("paths.dat").toFile(), "r");
+           RandomAccessFile pathOffsets = new RandomAccessFile(indexDir.resolve("paths.off").toFile(), "r")) {
+        for (Map.Entry<Integer, TreeSet<Integer>> entry : new TreeMap<>(result).entrySet()) {
+          pathOffsets.seek(entry.getKey() * 8L);
+          pathData.seek(pathOffsets.readLong());
+          hits.add(new Hit(pathData.readUTF(), new ArrayList<>(entry.getValue())));
+        }
+      }
+      return hits;
+    }
+  }
+
+  // 查询词按建索引时的规则归一化
+  static String normalizeQuery(String term) {
+    Doc probe = new Doc("", 0, 0);
+    tokenize(term.trim(), 1, probe);
+    if (probe.terms.size() == 1) return probe.terms.get(0);
+    // 纯数字按凭证号查询
+    if (term.trim().matches("\\d+")) return "记" + term.trim().replaceFirst("^0+(?=\\d)", "");
+    return term.trim().toUpperCase();
+  }
+
+  // 在排序的词表中二分查找
+  private static Map<Integer, TreeSet<Integer>> lookup(RandomAccessFile termData, RandomAccessFile termOffsets,
+                                                       String term) throws IOException {
+    Map<Integer, TreeSet<Integer>> postings = new HashMap<>();
+    long low = 0;
+    long high = termOffsets.length() / 8 - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      termOffsets.seek(mid * 8);
+      termData.seek(termOffsets.readLong());
+      int cmp = termData.readUTF().compareTo(term);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        int count = termData.readInt();
+        byte[] bytes = new byte[count * 8];
+        termData.readFully(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        for (int i = 0; i < count; i++) {
+          int docId = in.readInt();
+          int page = in.readInt();
+          postings.computeIfAbsent(docId, k -> new TreeSet<>()).add(page);
+        }
+        return postings;
+      }
+    }
+    return postings;
+  }
+
+  // ================ 索引文件读写 ================ //
+
+  private static Map<String, Doc> readDocs(Path docsFile) throws IOException {
+    Map<String, Doc> docs = new HashMap<>();
+    if (!Files.exists(docsFile)) return docs;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(docsFile)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        System.out.println("索引格式已变化，将全部重建");
+        return docs;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        Doc doc = new Doc(in.readUTF(), in.readLong(), in.readLong());
+        int tokens = in.readInt();
+        for (int t = 0; t < tokens; t++) {
+          doc.add(in.readUTF(), in.readInt());
+        }
+        docs.put(doc.path, doc);
+      }
+    }
+    return docs;
+  }
+
+  private static void writeDocs(Path indexDir, List<Doc> docs) throws IOException {
+    Path temp = indexDir.resolve("docs.dat.tmp");
+    Path pathTemp = indexDir.resolve("paths.dat.tmp");
+    Path pathOffTemp = indexDir.resolve("paths.off.tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+         CountingDataOutput paths = new CountingDataOutput(pathTemp);
+         DataOutputStream pathOffsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pathOffTemp)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(docs.size());
+      for (Doc doc : docs) {
+        out.writeUTF(doc.path);
+        out.writeLong(doc.size);
+        out.writeLong(doc.modified);
+        out.writeInt(doc.terms.size());
+        for (int i = 0; i < doc.terms.size(); i++) {
+          out.writeUTF(doc.terms.get(i));
+          out.writeInt(doc.pages.get(i));
+        }
+        pathOffsets.writeLong(paths.position());
+        paths.out.writeUTF(doc.path);
+      }
+    }
+    replace(temp, indexDir.resolve("docs.dat"));
+    replace(pathTemp, indexDir.resolve("paths.dat"));
+    replace(pathOffTemp, indexDir.resolve("paths.off"));
+  }
+
+  private static void writeInverted(Path indexDir, List<Doc> docs) throws IOException {
+    // 词 -> (文件编号, 页码) 列表，按词排序
+    TreeMap<String, List<long[]>> inverted = new TreeMap<>();
+    for (int docId = 0; docId < docs.size(); docId++) {
+      Doc doc = docs.get(docId);
+      for (int i = 0; i < doc.terms.size(); i++) {
+        inverted.computeIfAbsent(doc.terms.get(i), k -> new ArrayList<>())
+                .add(new long[]{docId, doc.pages.get(i)});
+      }
+    }
+
+    Path dataTemp = indexDir.resolve("terms.dat.tmp");
+    Path offTemp = indexDir.resolve("terms.off.tmp");
+    try (CountingDataOutput data = new CountingDataOutput(dataTemp);
+         DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offTemp)))) {
+      for (Map.Entry<String, List<long[]>> entry : inverted.entrySet()) {
+        offsets.writeLong(data.position());
+        data.out.writeUTF(entry.getKey());
+        data.out.writeInt(entry.getValue().size());
+        for (long[] posting : entry.getValue()) {
+          data.out.writeInt((int) posting[0]);
+          data.out.writeInt((int) posting[1]);
+        }
+      }
+    }
+    replace(dataTemp, indexDir.resolve("terms.dat"));
+    replace(offTemp, indexDir.resolve("terms.off"));
+  }
+
+  private static void replace(Path source, Path target) throws IOException {
+    Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static String extension(String fileName) {
+    int dot = fileName.lastIndexOf('.');
+    return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase();
+  }
+
+  // 偏移表用的输出：位置按 long 计数（DataOutputStream.size() 超过 2 GB 后停在 Integer.MAX_VALUE）
+  private static class CountingDataOutput implements Closeable {
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+
+    CountingDataOutput(Path file) throws IOException {
+      this.counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+      this.out = new DataOutputStream(counter);
+    }
+
+    long position() {
+      return counter.getCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+
+  // 一个被索引的文件及其词条（同一词同一页只记一次）
+  private static class Doc {
+    private final String path;
+    private final long size;
+    private final long modified;
+    private final List<String> terms = new ArrayList<>();
+    private final List<Integer> pages = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+
+    Doc(String path, long size, long modified) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    void add(String term, int page) {
+      if (seen.add(term + '\u0000' + page)) {
+        terms.add(term);
+        pages.add(page);
+      }
+    }
+  }
+
+  /** 查询结果：文件路径及命中页码（0 表示文件名） */
+  public static class Hit {
+    private final String path;
+    private final List<Integer> pages;
+
+    Hit(String path, List<Integer> pages) {
+      this.path = path;
+      this.pages = pages;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public List<Integer> getPages() {
+      return pages;
+    }
+
+    @Override
+    public String toString() {
+      String pageText = pages.stream()
+              .map(page -> page == FILE_NAME_PAGE ? "文件名" : "第" + page + "页")
+              .collect(Collectors.joining("、"));
+      return path + "  [" + pageText + "]";
+    }
+  }
+}
@@ -0,0 +1,370 @@
+package org.example.fileMove;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.TransformerException;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 在不载入整个工作簿的情况下向 xlsx 工作表末尾追加行（可同时删去若干旧行）
+ * <p>
+ * 做法同 {@link XlsxRowStylePatcher}：目标工作表流式改写，保留的行原样写回，新行写在 sheetData 末尾，
+ * 文本写成内联字符串，不改共享字符串表；只有需要新增金额样式时才改写样式表，其余条目原样复制压缩数据。
+ * 已有的列宽不够新内容时加宽，dimension 更新到新的最后一行
+ */
+public class XlsxRowAppender {
+
+  private static final String MAIN_NS = XlsxRowStylePatcher.MAIN_NS;
+  // 千分位两位小数 "#,##0.00" 是内置格式 4
+  private static final String AMOUNT_FORMAT_ID = "4";
+
+  /**
+   * 读取工作表中若干列的值（事件模型流式读取，不构建工作簿）
+   *
+   * @param columns 列号（从 0 开始）
+   * @return 行号（从 0 开始）→ 各列的值（顺序同 columns，空单元格为 null），只包含这些列有内容的行
+   */
+  public static Map<Integer, String[]> readColumns(File workbook, String sheetName, int... columns)
+          throws IOException {
+    Map<Integer, String[]> rows = new LinkedHashMap<>();
+    try (OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ)) {
+      XSSFReader reader = new XSSFReader(pkg);
+      ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+      XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+      while (sheets.hasNext()) {
+        try (InputStream sheet = sheets.next()) {
+          if (!sheetName.equals(sheets.getSheetName())) continue;
+          XMLReader parser = XMLHelper.newXMLReader();
+          parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), sharedStrings,
+                  new ColumnHandler(columns, rows), new DataFormatter(), false));
+          parser.parse(new InputSource(sheet));
+          return rows;
+        }
+      }
+      throw new IOException("未找到工作表 '" + sheetName + "': " + workbook);
+    } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+      throw new IOException("读取工作簿失败: " + workbook + " - " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * 复制 source 到 target，删去 removedRows 中的行，并在保留的最后一行之后追加 rows
+   *
+   * @param removedRows 要删去的行号（从 0 开始）
+   * @param rows        追加的行，下标为列号：String 写成文本，Number 写成金额（千分位两位小数），null 不写
+   * @return 第一条追加行的行号（从 0 开始）
+   */
+  public static int append(Path source, Path target, String sheetName, Set<Integer> removedRows,
+                           List<Object[]> rows) throws IOException {
+    try (ZipFile zip = new ZipFile(source.toFile());
+         OutputStream fileOut = Files.newOutputStream(target);
+         ZipArchiveOutputStream out = new ZipArchiveOutputStream(fileOut)) {
+      String workbookPart = XlsxRowStylePatcher.findPart(zip, "_rels/.rels", "/officeDocument", null);
+      String workbookRels = XlsxRowStylePatcher.relsPartOf(workbookPart);
+      String sheetPart = XlsxRowStylePatcher.findPart(zip, workbookRels, "/worksheet",
+              XlsxRowStylePatcher.sheetRelationId(zip, workbookPart, sheetName));
+      String stylesPart = XlsxRowStylePatcher.findPart(zip, workbookRels, "/styles", null);
+
+      // 样式表很小，先用 DOM 找出（没有时追加）金额样式，工作表排在样式表前面时也能用上
+      Document styles = null;
+      int amountStyle = -1;
+      if (hasNumbers(rows)) {
+        try (InputStream in = zip.getInputStream(zip.getEntry(stylesPart))) {
+          styles = XlsxRowStylePatcher.documentBuilderFactory().newDocumentBuilder().parse(in);
+        }
+        amountStyle = findAmountStyle(styles);
+        if (amountStyle < 0) {
+          amountStyle = addAmountStyle(styles);
+        } else {
+          styles = null;
+        }
+      }
+
+      SheetRewriter rewriter = new SheetRewriter(removedRows, rows, amountStyle);
+      for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+        String name = entry.getName();
+        if (name.equals(stylesPart) && styles != null) {
+          out.putArchiveEntry(XlsxRowStylePatcher.rewrittenEntry(entry));
+          XlsxRowStylePatcher.writeXml(styles, out);
+          out.closeArchiveEntry();
+        } else if (name.equals(sheetPart)) {
+          out.putArchiveEntry(XlsxRowStylePatcher.rewrittenEntry(entry));
+          try (InputStream in = zip.getInputStream(entry)) {
+            rewriter.rewrite(in, out);
+          }
+          out.closeArchiveEntry();
+        } else {
+          out.addRawArchiveEntry(entry, zip.getRawInputStream(entry));
+        }
+      }
+      out.finish();
+      return rewriter.firstNewRow;
+    } catch (XMLStreamException | SAXException | ParserConfigurationException | TransformerException e) {
+      throw new IOException("改写工作簿失败: " + e.getMessage(), e);
+    }
+  }
+
+  // ================ 样式表 ================ //
+
+  private static boolean hasNumbers(List<Object[]> rows) {
+    for (Object[] cells : rows) {
+      for (Object value : cells) {
+        if (value instanceof Number) return true;
+      }
+    }
+    return false;
+  }
+
+  // 已有的金额样式（格式 4，无填充、无边框）的编号，没有时返回 -1
+  private static int findAmountStyle(Document styles) throws IOException {
+    Element cellXfs = cellXfs(styles);
+    int index = 0;
+    for (Node node = cellXfs.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (!(node instanceof Element) || !"xf".equals(node.getLocalName())) continue;
+      Element xf = (Element) node;
+      if (AMOUNT_FORMAT_ID.equals(xf.getAttribute("numFmtId")) && isZero(xf.getAttribute("fillId"))
+              && isZero(xf.getAttribute("borderId"))) {
+        return index;
+      }
+      index++;
+    }
+    return -1;
+  }
+
+  private static int addAmountStyle(Document styles) throws IOException {
+    Element cellXfs = cellXfs(styles);
+    int styleIndex = XlsxRowStylePatcher.countChildren(cellXfs, "xf");
+    Element xf = XlsxRowStylePatcher.element(styles, cellXfs, "xf");
+    xf.setAttribute("numFmtId", AMOUNT_FORMAT_ID);
+    xf.setAttribute("fontId", "0");
+    xf.setAttribute("fillId", "0");
+    xf.setAttribute("borderId", "0");
+    xf.setAttribute("xfId", "0");
+    xf.setAttribute("applyNumberFormat", "1");
+    cellXfs.setAttribute("count", String.valueOf(styleIndex + 1));
+    return styleIndex;
+  }
+
+  private static Element cellXfs(Document styles) throws IOException {
+    Element cellXfs = XlsxRowStylePatcher.child(styles.getDocumentElement(), "cellXfs");
+    if (cellXfs == null) throw new IOException("样式表缺少 cellXfs");
+    return cellXfs;
+  }
+
+  private static boolean isZero(String value) {
+    return value.isEmpty() || "0".equals(value);
+  }
+
+  // ================ 工作表 ================ //
+
+  /** 流式复制工作表：跳过删去的行，调整 dimension 和列宽，在 sheetData 结束前写入新行 */
+  private static class SheetRewriter {
+    private final Set<Integer> removedRows;
+    private final List<Object[]> rows;
+    private final String amountStyle;
+    private final ColumnWidthTracker widths;
+    private final XMLEventFactory events = XMLEventFactory.newInstance();
+    private int firstNewRow = -1;
+
+    SheetRewriter(Set<Integer> removedRows, List<Object[]> rows, int amountStyle) {
+      this.removedRows = removedRows;
+      this.rows = rows;
+      this.amountStyle = String.valueOf(amountStyle);
+      this.widths = new ColumnWidthTracker(0);
+      for (Object[] cells : rows) {
+        for (int column = 0; column < cells.length; column++) {
+          if (cells[column] != null) widths.track(column, displayText(cells[column]));
+        }
+      }
+    }
+
+    void rewrite(InputStream in, OutputStream out) throws IOException, XMLStreamException {
+      XMLEventReader reader = XlsxRowStylePatcher.inputFactory().createXMLEventReader(in);
+      BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(buffered, "UTF-8");
+
+      int rowNumber = 0;
+      int lastKeptRow = -1;
+      boolean skipping = false;
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (XlsxRowStylePatcher.isStart(event, MAIN_NS, "row")) {
+          String r = XlsxRowStylePatcher.attribute(event.asStartElement(), new QName("r"));
+          // 省略 r 属性时行号为上一行加一
+          rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+          skipping = removedRows.contains(rowNumber - 1);
+          if (!skipping) lastKeptRow = Math.max(lastKeptRow, rowNumber - 1);
+        } else if (XlsxRowStylePatcher.isStart(event, MAIN_NS, "dimension")) {
+          event = dimension(event.asStartElement());
+        } else if (XlsxRowStylePatcher.isStart(event, MAIN_NS, "col")) {
+          event = widenColumn(event.asStartElement());
+        } else if (event.isEndElement() && "sheetData".equals(event.asEndElement().getName().getLocalPart())) {
+          // dimension 只是估算（按原最后一行），实际以保留的最后一行为准
+          firstNewRow = Math.max(firstNewRow, lastKeptRow + 1);
+          writeRows(writer, event.asEndElement().getName().getPrefix());
+        }
+
+        if (!skipping) writer.add(event);
+        if (skipping && event.isEndElement() && "row".equals(event.asEndElement().getName().getLocalPart())) {
+          skipping = false;
+        }
+      }
+      writer.flush();
+      buffered.flush();
+    }
+
+    // 原最后一行之前（含）没有被删去的最后一行之后开始追加，范围的结束行改为追加后的最后一行
+    private StartElement dimension(StartElement element) {
+      String ref = XlsxRowStylePatcher.attribute(element, new QName("ref"));
+      if (ref == null) return element;
+      String[] range = ref.split(":");
+      CellReference end = new CellReference(range[range.length - 1]);
+      int lastRow = end.getRow();
+      while (lastRow >= 0 && removedRows.contains(lastRow)) lastRow--;
+      firstNewRow = lastRow + 1;
+      int lastColumn = end.getCol();
+      for (Object[] cells : rows) lastColumn = Math.max(lastColumn, cells.length - 1);
+      int newLastRow = Math.max(0, lastRow + rows.size());
+      return withAttribute(element, "ref", range[0] + ":"
+              + new CellReference(newLastRow, lastColumn).formatAsString(false));
+    }
+
+    // 只处理单列的 col 元素：新内容更宽时加宽
+    private StartElement widenColumn(StartElement element) {
+      String min = XlsxRowStylePatcher.attribute(element, new QName("min"));
+      String max = XlsxRowStylePatcher.attribute(element, new QName("max"));
+      String width = XlsxRowStylePatcher.attribute(element, new QName("width"));
+      if (min == null || !min.equals(max) || width == null) return element;
+      int chars = widths.getColumnChars(Integer.parseInt(min) - 1);
+      if (chars <= Double.parseDouble(width)) return element;
+      return withAttribute(withAttribute(element, "width", String.valueOf(chars)), "customWidth", "1");
+    }
+
+    private void writeRows(XMLEventWriter writer, String prefix) throws XMLStreamException {
+      for (int i = 0; i < rows.size(); i++) {
+        Object[] cells = rows.get(i);
+        int rowIndex = firstNewRow + i;
+        writer.add(events.createStartElement(prefix, MAIN_NS, "row",
+                Collections.singletonList(events.createAttribute("r", String.valueOf(rowIndex + 1))).iterator(),
+                Collections.emptyIterator()));
+        for (int column = 0; column < cells.length; column++) {
+          Object value = cells[column];
+          if (value == null || "".equals(value)) continue;
+          List<Attribute> attributes = new ArrayList<>();
+          attributes.add(events.createAttribute("r", new CellReference(rowIndex, column).formatAsString(false)));
+          if (value instanceof Number) {
+            attributes.add(events.createAttribute("s", amountStyle));
+            writer.add(events.createStartElement(prefix, MAIN_NS, "c", attributes.iterator(), Collections.emptyIterator()));
+            element(writer, prefix, "v", String.valueOf(((Number) value).doubleValue()), false);
+          } else {
+            attributes.add(events.createAttribute("t", "inlineStr"));
+            writer.add(events.createStartElement(prefix, MAIN_NS, "c", attributes.iterator(), Collections.emptyIterator()));
+            writer.add(events.createStartElement(prefix, MAIN_NS, "is", Collections.emptyIterator(),
+                    Collections.emptyIterator()));
+            String text = value.toString();
+            element(writer, prefix, "t", text, !text.equals(text.trim()));
+            writer.add(events.createEndElement(prefix, MAIN_NS, "is"));
+          }
+          writer.add(events.createEndElement(prefix, MAIN_NS, "c"));
+        }
+        writer.add(events.createEndElement(prefix, MAIN_NS, "row"));
+      }
+    }
+
+    private void element(XMLEventWriter writer, String prefix, String localName, String text, boolean preserveSpace)
+            throws XMLStreamException {
+      List<Attribute> attributes = preserveSpace
+              ? Collections.singletonList(events.createAttribute(
+                      new QName(XMLConstants.XML_NS_URI, "space", "xml"), "preserve"))
+              : Collections.emptyList();
+      writer.add(events.createStartElement(prefix, MAIN_NS, localName, attributes.iterator(),
+              Collections.emptyIterator()));
+      writer.add(events.createCharacters(text));
+      writer.add(events.createEndElement(prefix, MAIN_NS, localName));
+    }
+
+    private StartElement withAttribute(StartElement element, String name, String value) {
+      List<Attribute> attributes = new ArrayList<>();
+      boolean replaced = false;
+      for (Iterator<?> it = element.getAttributes(); it.hasNext(); ) {
+        Attribute attribute = (Attribute) it.next();
+        if (attribute.getName().getNamespaceURI().isEmpty() && attribute.getName().getLocalPart().equals(name)) {
+          attributes.add(events.createAttribute(name, value));
+          replaced = true;
+        } else {
+          attributes.add(attribute);
+        }
+      }
+      if (!replaced) attributes.add(events.createAttribute(name, value));
+      return events.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+    }
+
+    private static String displayText(Object value) {
+      return value instanceof Number ? String.format("%,.2f", ((Number) value).doubleValue()) : value.toString();
+    }
+  }
+
+  private static class ColumnHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+    private final int[] columns;
+    private final Map<Integer, String[]> rows;
+    private String[] values;
+
+    ColumnHandler(int[] columns, Map<Integer, String[]> rows) {
+      this.columns = columns;
+      this.rows = rows;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      values = null;
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+      if (cellReference == null || formattedValue == null || formattedValue.isEmpty()) return;
+      int column = new CellReference(cellReference).getCol();
+      for (int i = 0; i < columns.length; i++) {
+        if (columns[i] != column) continue;
+        if (values == null) values = new String[columns.length];
+        values[i] = formattedValue;
+      }
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      if (values != null) rows.put(rowNum, values);
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package org.example.fileMove;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 在不载入整个工作簿的情况下给 xlsx 中的若干行加填充色
+ * <p>
+ * 逐个复制 zip 条目：styles.xml 追加一个填充和一个单元格样式，目标工作表流式改写，
+ * 只修改匹配行（及其单元格）的 s 属性；其余条目原样复制压缩数据，不解压。
+ * 保存耗时与目标工作表大小成正比，与工作簿中其他内容无关
+ */
+public class XlsxRowStylePatcher {
+
+  static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+  static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+  static final String PACKAGE_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+  /**
+   * 复制 source 到 target，并给指定行加纯色填充（行和行内已有单元格都使用新样式）
+   *
+   * @param rowIndexes 行号（从 0 开始，同 POI 的 Row.getRowNum()）
+   * @param fillColor  填充颜色的索引色，如 IndexedColors.LIGHT_GREEN.getIndex()
+   * @return 实际改写的行数
+   */
+  public static int patch(Path source, Path target, String sheetName, Set<Integer> rowIndexes, short fillColor)
+          throws IOException {
+    try (ZipFile zip = new ZipFile(source.toFile());
+         OutputStream fileOut = Files.newOutputStream(target);
+         ZipArchiveOutputStream out = new ZipArchiveOutputStream(fileOut)) {
+      String workbookPart = findPart(zip, "_rels/.rels", "/officeDocument", null);
+      String workbookRels = relsPartOf(workbookPart);
+      String sheetPart = findPart(zip, workbookRels, "/worksheet", sheetRelationId(zip, workbookPart, sheetName));
+      String stylesPart = findPart(zip, workbookRels, "/styles", null);
+
+      int patchedRows = 0;
+      int styleIndex = -1;
+      for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+        String name = entry.getName();
+        if (name.equals(stylesPart)) {
+          out.putArchiveEntry(rewrittenEntry(entry));
+          try (InputStream in = zip.getInputStream(entry)) {
+            styleIndex = addFillStyle(in, out, fillColor);
+          }
+          out.closeArchiveEntry();
+        } else if (name.equals(sheetPart)) {
+          if (styleIndex < 0) {
+            // 工作表排在样式之前时先计算新样式的编号（样式表很小）
+            try (InputStream in = zip.getInputStream(zip.getEntry(stylesPart))) {
+              styleIndex = countCellXfs(in);
+            }
+          }
+          out.putArchiveEntry(rewrittenEntry(entry));
+          try (InputStream in = zip.getInputStream(entry)) {
+            patchedRows = patchRows(in, out, rowIndexes, styleIndex);
+          }
+          out.closeArchiveEntry();
+        } else {
+          out.addRawArchiveEntry(entry, zip.getRawInputStream(entry));
+        }
+      }
+      out.finish();
+      return patchedRows;
+    } catch (XMLStreamException | SAXException | ParserConfigurationException | TransformerException e) {
+      throw new IOException("改写工作簿失败: " + e.getMessage(), e);
+    }
+  }
+
+  // ================ 定位部件 ================ //
+
+  // 在关系文件中按类型（及编号）查找目标部件，返回 zip 条目名
+  static String findPart(ZipFile zip, String relsPart, String typeSuffix, String relationId)
+          throws IOException, XMLStreamException {
+    ZipArchiveEntry entry = zip.getEntry(relsPart);
+    if (entry == null) throw new IOException("工作簿缺少关系文件: " + relsPart);
+    try (InputStream in = zip.getInputStream(entry)) {
+      XMLEventReader reader = inputFactory().createXMLEventReader(in);
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (!isStart(event, PACKAGE_REL_NS, "Relationship")) continue;
+        StartElement element = event.asStartElement();
+        String type = attribute(element, new QName("Type"));
+        String id = attribute(element, new QName("Id"));
+        if (type != null && type.endsWith(typeSuffix) && (relationId == null || relationId.equals(id))) {
+          return resolve(relsPart, attribute(element, new QName("Target")));
+        }
+      }
+    }
+    throw new IOException("工作簿中未找到部件: " + typeSuffix + (relationId == null ? "" : " " + relationId));
+  }
+
+  static String sheetRelationId(ZipFile zip, String workbookPart, String sheetName)
+          throws IOException, XMLStreamException {
+    try (InputStream in = zip.getInputStream(zip.getEntry(workbookPart))) {
+      XMLEventReader reader = inputFactory().createXMLEventReader(in);
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (isStart(event, MAIN_NS, "sheet")
+                && sheetName.equals(attribute(event.asStartElement(), new QName("name")))) {
+          return attribute(event.asStartElement(), new QName(REL_NS, "id"));
+        }
+      }
+    }
+    throw new IOException("未找到工作表 '" + sheetName + "'");
+  }
+
+  // xl/workbook.xml → xl/_rels/workbook.xml.rels
+  static String relsPartOf(String part) {
+    int slash = part.lastIndexOf('/');
+    return part.substring(0, slash + 1) + "_rels/" + part.substring(slash + 1) + ".rels";
+  }
+
+  // 关系目标相对于被描述部件所在目录（_rels 的上一级），以 / 开头的为包内绝对路径
+  private static String resolve(String relsPart, String target) {
+    if (target.startsWith("/")) return target.substring(1);
+    String base = relsPart.substring(0, relsPart.lastIndexOf("_rels/"));
+    Deque<String> segments = new ArrayDeque<>();
+    for (String segment : (base + target).split("/")) {
+      if (segment.isEmpty() || segment.equals(".")) continue;
+      if (segment.equals("..")) {
+        segments.pollLast();
+      } else {
+        segments.addLast(segment);
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  // ================ 样式表 ================ //
+
+  // 追加纯色填充和引用它的单元格样式，返回新样式的编号（样式表很小，用 DOM 处理）
+  private static int addFillStyle(InputStream in, OutputStream out, short fillColor)
+          throws IOException, SAXException, ParserConfigurationException, TransformerException {
+    Document document = documentBuilderFactory().newDocumentBuilder().parse(in);
+    Element fills = child(document.getDocumentElement(), "fills");
+    Element cellXfs = child(document.getDocumentElement(), "cellXfs");
+    if (fills == null || cellXfs == null) throw new IOException("样式表缺少 fills 或 cellXfs");
+
+    int fillId = countChildren(fills, "fill");
+    Element fill = element(document, fills, "fill");
+    Element patternFill = element(document, fill, "patternFill");
+    patternFill.setAttribute("patternType", "solid");
+    element(document, patternFill, "fgColor").setAttribute("indexed", String.valueOf(fillColor));
+    element(document, patternFill, "bgColor").setAttribute("indexed", "64");
+    fills.setAttribute("count", String.valueOf(fillId + 1));
+
+    int styleIndex = countChildren(cellXfs, "xf");
+    Element xf = element(document, cellXfs, "xf");
+    xf.setAttribute("numFmtId", "0");
+    xf.setAttribute("fontId", "0");
+    xf.setAttribute("fillId", String.valueOf(fillId));
+    xf.setAttribute("borderId", "0");
+    xf.setAttribute("xfId", "0");
+    xf.setAttribute("applyFill", "1");
+    cellXfs.setAttribute("count", String.valueOf(styleIndex + 1));
+
+    writeXml(document, out);
+    return styleIndex;
+  }
+
+  static void writeXml(Document document, OutputStream out) throws TransformerException {
+    document.setXmlStandalone(true);
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+    transformer.transform(new DOMSource(document), new StreamResult(out));
+  }
+
+  private static int countCellXfs(InputStream in) throws IOException, SAXException, ParserConfigurationException {
+    Element cellXfs = child(documentBuilderFactory().newDocumentBuilder().parse(in).getDocumentElement(), "cellXfs");
+    return cellXfs == null ? 0 : countChildren(cellXfs, "xf");
+  }
+
+  static Element child(Element parent, String localName) {
+    for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node instanceof Element && localName.equals(node.getLocalName())) return (Element) node;
+    }
+    return null;
+  }
+
+  static int countChildren(Element parent, String localName) {
+    int count = 0;
+    for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node instanceof Element && localName.equals(node.getLocalName())) count++;
+    }
+    return count;
+  }
+
+  // 新元素沿用父元素的命名空间前缀
+  static Element element(Document document, Element parent, String localName) {
+    String prefix = parent.getPrefix();
+    Element element = document.createElementNS(MAIN_NS, prefix == null ? localName : prefix + ":" + localName);
+    parent.appendChild(element);
+    return element;
+  }
+
+  // ================ 工作表 ================ //
+
+  // 流式复制工作表，只改写目标行的 row 与 c 元素的 s 属性
+  private static int patchRows(InputStream in, OutputStream out, Set<Integer> rowIndexes, int styleIndex)
+          throws IOException, XMLStreamException {
+    XMLEventReader reader = inputFactory().createXMLEventReader(in);
+    // 写入缓冲后再交给压缩流，避免逐个小片段压缩
+    BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+    XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(buffered, "UTF-8");
+    XMLEventFactory events = XMLEventFactory.newInstance();
+    String style = String.valueOf(styleIndex);
+
+    int patched = 0;
+    int rowNumber = 0;
+    boolean inPatchedRow = false;
+    while (reader.hasNext()) {
+      XMLEvent event = reader.nextEvent();
+      if (isStart(event, MAIN_NS, "row")) {
+        String r = attribute(event.asStartElement(), new QName("r"));
+        // 省略 r 属性时行号为上一行加一
+        rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+        inPatchedRow = rowIndexes.contains(rowNumber - 1);
+        if (inPatchedRow) {
+          patched++;
+          event = withAttributes(events, event.asStartElement(), "s", style, "customFormat", "1");
+        }
+      } else if (inPatchedRow && isStart(event, MAIN_NS, "c")) {
+        event = withAttributes(events, event.asStartElement(), "s", style);
+      } else if (event.isEndElement() && "row".equals(event.asEndElement().getName().getLocalPart())) {
+        inPatchedRow = false;
+      }
+      writer.add(event);
+    }
+    writer.flush();
+    buffered.flush();
+    return patched;
+  }
+
+  // 替换（或新增）无命名空间的属性，其余属性和命名空间声明保持原样
+  private static StartElement withAttributes(XMLEventFactory events, StartElement element, String... namesAndValues) {
+    Map<String, String> replacements = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      replacements.put(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    List<Attribute> attributes = new ArrayList<>();
+    for (Iterator<?> it = element.getAttributes(); it.hasNext(); ) {
+      Attribute attribute = (Attribute) it.next();
+      String name = attribute.getName().getNamespaceURI().isEmpty() ? attribute.getName().getLocalPart() : null;
+      String replacement = name == null ? null : replacements.remove(name);
+      attributes.add(replacement == null ? attribute : events.createAttribute(name, replacement));
+    }
+    for (Map.Entry<String, String> added : replacements.entrySet()) {
+      attributes.add(events.createAttribute(added.getKey(), added.getValue()));
+    }
+    return events.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+  }
+
+  // ================ 工具方法 ================ //
+
+  static ZipArchiveEntry rewrittenEntry(ZipArchiveEntry original) {
+    ZipArchiveEntry entry = new ZipArchiveEntry(original.getName());
+    entry.setMethod(ZipArchiveEntry.DEFLATED);
+    entry.setTime(original.getTime());
+    return entry;
+  }
+
+  static boolean isStart(XMLEvent event, String namespace, String localName) {
+    if (!event.isStartElement()) return false;
+    QName name = event.asStartElement().getName();
+    return localName.equals(name.getLocalPart()) && namespace.equals(name.getNamespaceURI());
+  }
+
+  static String attribute(StartElement element, QName name) {
+    Attribute attribute = element.getAttributeByName(name);
+    return attribute == null ? null : attribute.getValue();
+  }
+
+  // 不解析 DTD 和外部实体
+  static XMLInputFactory inputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  static DocumentBuilderFactory documentBuilderFactory() throws ParserConfigurationException {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    return factory;
+  }
+}
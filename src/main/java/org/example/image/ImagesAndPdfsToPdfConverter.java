@@ -7,14 +7,20 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.util.Matrix;
+import org.example.fileMove.BlockingIoExecutor;
+import org.example.fileMove.IoScheduler;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * 图片插入到pdf汇总
@@ -22,12 +28,16 @@ import java.util.regex.Pattern;
  */
 public class ImagesAndPdfsToPdfConverter {
 
+  // 预检、预读的默认并发数
+  private static final int DEFAULT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
   public static void main(String[] args) {
     String inputFolderPath = "C:\\Users\\20847\\Desktop\\a\\GDGY-CGKZCS-4-付款凭证"; // 替换为你的文件夹路径
     String outputPdfName = "merged_output.pdf"; // 输出的PDF文件名
+    boolean linearized = false; // 线性化输出（快速 Web 查看），从文件共享、文档门户打开时先显示前几页
 
     try {
-      mergeImagesAndPdfsToPdf(inputFolderPath, outputPdfName);
+      mergeImagesAndPdfsToPdf(inputFolderPath, outputPdfName, linearized);
       System.out.println("PDF 合并成功！");
     } catch (IOException e) {
       System.err.println("处理过程中发生错误: " + e.getMessage());
@@ -36,80 +46,206 @@ public class ImagesAndPdfsToPdfConverter {
   }
 
   public static void mergeImagesAndPdfsToPdf(String inputFolderPath, String outputPdfName) throws IOException {
-    try (PDDocument finalPdf = new PDDocument()) {
-      File folder = new File(inputFolderPath);
-
-      if (!folder.exists() || !folder.isDirectory()) {
-        throw new IOException("指定的路径不是有效文件夹: " + inputFolderPath);
-      }
+    mergeImagesAndPdfsToPdf(inputFolderPath, outputPdfName, false);
+  }
 
-      // 获取支持的图片和PDF文件
-      List<File> files = Arrays.asList(folder.listFiles((dir, name) ->
-              name.toLowerCase().matches(".*\\.(jpg|jpeg|png|gif|bmp|pdf)$")
-      ));
+  public static void mergeImagesAndPdfsToPdf(String inputFolderPath, String outputPdfName, boolean linearized)
+          throws IOException {
+    File folder = new File(inputFolderPath);
+    if (!folder.exists() || !folder.isDirectory()) {
+      throw new IOException("指定的路径不是有效文件夹: " + inputFolderPath);
+    }
+    mergeImagesAndPdfsToPdf(folder, folder.listFiles(File::isFile), outputPdfName,
+            Runtime.getRuntime().maxMemory() / 4, DEFAULT_THREADS, linearized);
+  }
 
-      // 按文件名开头的数字排序，数字相同时保持原顺序
-      files.sort(Comparator.comparingInt(f -> extractLeadingNumber(f.getName())));
+  /**
+   * 合并已列出的文件（流水线中目录列表由各阶段共享，不再重复列目录）
+   *
+   * @param folderFiles 文件夹下的文件，只处理其中的图片和PDF
+   */
+  public static void mergeImagesAndPdfsToPdf(File folder, File[] folderFiles, String outputPdfName)
+          throws IOException {
+    mergeImagesAndPdfsToPdf(folder, folderFiles, outputPdfName,
+            Runtime.getRuntime().maxMemory() / 4, DEFAULT_THREADS);
+  }
 
-      if (files.isEmpty()) {
-        throw new IOException("文件夹中没有找到支持的图片或PDF文件");
-      }
+  /**
+   * 先并发预检全部文件（{@link PagePlan}），剔除无法合并的文件后按计划合并
+   *
+   * @param memoryBudget 预读（读取、解析下一批文件）占用的估算内存上限，单个文件超过时单独预读
+   * @param threads      预检和预读的并发数
+   */
+  public static void mergeImagesAndPdfsToPdf(File folder, File[] folderFiles, String outputPdfName,
+                                             long memoryBudget, int threads) throws IOException {
+    mergeImagesAndPdfsToPdf(folder, folderFiles, outputPdfName, memoryBudget, threads, false);
+  }
 
-      // 处理每个文件
-      for (File file : files) {
-        String fileName = file.getName().toLowerCase();
-        if (fileName.endsWith(".pdf")) {
-          // 处理PDF文件（合并所有页）
-          try (PDDocument pdfDoc = PDDocument.load(file)) {
-            PDFMergerUtility merger = new PDFMergerUtility();
-            merger.appendDocument(finalPdf, pdfDoc);
-          }
-        } else {
-          // 处理图片文件（插入到新的一页）
-          try {
-            PDPage page = new PDPage(PDRectangle.A4);
-            finalPdf.addPage(page);
+  /**
+   * 同上，可以选择线性化保存
+   *
+   * @param linearized 线性化保存（{@link LinearizedPdfWriter}），阅读器边下载边显示；保存耗时见输出的“PDF 已保存”一行
+   */
+  public static void mergeImagesAndPdfsToPdf(File folder, File[] folderFiles, String outputPdfName,
+                                             long memoryBudget, int threads, boolean linearized)
+          throws IOException {
+    if (folderFiles == null) {
+      throw new IOException("指定的路径不是有效文件夹: " + folder);
+    }
 
-            PDImageXObject pdImage = PDImageXObject.createFromFile(file.getAbsolutePath(), finalPdf);
+    // 获取支持的图片和PDF文件
+    List<File> files = Arrays.stream(folderFiles)
+            .filter(f -> f.getName().toLowerCase().matches(".*\\.(jpg|jpeg|png|gif|bmp|pdf)$"))
+            .collect(Collectors.toList());
 
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            float imageWidth = pdImage.getWidth();
-            float imageHeight = pdImage.getHeight();
+    if (files.isEmpty()) {
+      throw new IOException("文件夹中没有找到支持的图片或PDF文件");
+    }
 
-            float scaleX = pageWidth / imageWidth;
-            float scaleY = pageHeight / imageHeight;
-            float scale = Math.min(scaleX, scaleY);
+    // 预检：按文件名开头的数字排序（数字相同时保持原顺序），有问题的文件在合并前全部列出
+    PagePlan plan = PagePlan.probe(files, threads);
+    for (PagePlan.Item item : plan.getRejected()) {
+      System.err.println("跳过无法处理的文件: " + item.getFile().getName() + " - " + item.getProblem());
+    }
+    if (plan.getItems().isEmpty()) {
+      throw new IOException("没有可合并的文件（" + plan.getRejected().size() + " 个文件未通过预检）");
+    }
+    System.out.printf("页面计划: %d 个文件，%d 页，预计占用内存 %d MB%n", plan.getItems().size(),
+            plan.getTotalPages(), plan.getTotalEstimatedBytes() >> 20);
 
-            float scaledWidth = imageWidth * scale;
-            float scaledHeight = imageHeight * scale;
+    try (PDDocument finalPdf = new PDDocument()) {
+      appendAll(finalPdf, plan.getItems(), memoryBudget, threads);
+
+      // 保存PDF到源文件夹（输出大小按输入合计估算）
+      long inputBytes = 0;
+      for (PagePlan.Item item : plan.getItems()) inputBytes += item.getSize();
+      File output = new File(folder, outputPdfName).getAbsoluteFile();
+      long start = System.nanoTime();
+      scheduled(output, inputBytes, () -> {
+        if (linearized) {
+          LinearizedPdfWriter.save(finalPdf, output);
+        } else {
+          finalPdf.save(output);
+        }
+        return null;
+      });
+      System.out.printf("PDF 已保存%s：%.1f MB，耗时 %d ms%n", linearized ? "（线性化）" : "",
+              output.length() / 1048576.0, (System.nanoTime() - start) / 1_000_000);
+    }
+  }
 
-            float x = (pageWidth - scaledWidth) / 2;
-            float y = (pageHeight - scaledHeight) / 2;
+  /**
+   * 按计划顺序追加到目标文档：后台线程提前读取图片、解析PDF，在途的估算内存不超过预算；
+   * 写入目标文档只在当前线程按顺序进行
+   */
+  private static void appendAll(PDDocument finalPdf, List<PagePlan.Item> items, long memoryBudget, int threads)
+          throws IOException {
+    Deque<Future<Object>> loading = new ArrayDeque<>();
+    long inFlight = 0;
+    int next = 0;
+    try (BlockingIoExecutor io = BlockingIoExecutor.create(Math.max(1, threads))) {
+      for (int i = 0; i < items.size(); i++) {
+        while (next < items.size() && (loading.isEmpty()
+                || inFlight + items.get(next).getEstimatedBytes() <= memoryBudget)) {
+          PagePlan.Item item = items.get(next++);
+          inFlight += item.getEstimatedBytes();
+          loading.add(io.submit(() -> load(item)));
+        }
 
-            try (PDPageContentStream contentStream = new PDPageContentStream(finalPdf, page)) {
-              contentStream.transform(Matrix.getTranslateInstance(x, y));
-              contentStream.drawImage(pdImage, 0, 0, scaledWidth, scaledHeight);
+        PagePlan.Item item = items.get(i);
+        Object loaded = await(loading.poll(), item);
+        try {
+          if (loaded instanceof PDDocument) {
+            // 处理PDF文件（合并所有页）
+            try (PDDocument pdfDoc = (PDDocument) loaded) {
+              PDFMergerUtility merger = new PDFMergerUtility();
+              merger.appendDocument(finalPdf, pdfDoc);
             }
-          } catch (IOException e) {
-            System.err.println("跳过无法处理的文件: " + file.getName() + " - " + e.getMessage());
+          } else if (loaded != null) {
+            appendImage(finalPdf, item, (byte[]) loaded);
           }
+        } finally {
+          inFlight -= item.getEstimatedBytes();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("合并已中断");
+    } finally {
+      // 出错提前结束时，关闭已预读的PDF
+      for (Future<Object> future : loading) {
+        future.cancel(true);
+        try {
+          Object loaded = future.get();
+          if (loaded instanceof PDDocument) ((PDDocument) loaded).close();
+        } catch (Exception e) {
+          // 已取消或读取失败，没有需要关闭的文档
         }
       }
+    }
+  }
 
-      // 保存PDF到源文件夹
-      String outputPath = new File(folder, outputPdfName).getAbsolutePath();
-      finalPdf.save(outputPath);
+  // 后台读取：PDF 解析为独立文档，图片只读入字节（嵌入方式与 createFromFile 相同，在写入时决定）
+  private static Object load(PagePlan.Item item) throws IOException {
+    File file = item.getFile();
+    return scheduled(file, item.getSize(), () -> item.getKind() == PagePlan.Kind.PDF
+            ? PDDocument.load(file)
+            : Files.readAllBytes(file.toPath()));
+  }
+
+  // 图片读取失败时跳过该文件，PDF读取失败时终止合并
+  private static Object await(Future<Object> future, PagePlan.Item item)
+          throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (item.getKind() != PagePlan.Kind.PDF && cause instanceof IOException) {
+        System.err.println("跳过无法处理的文件: " + item.getFile().getName() + " - " + cause.getMessage());
+        return null;
+      }
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
     }
   }
 
-  // 提取文件名开头的数字（如 "1、WXGYBZ..." → 返回 1）
-  private static int extractLeadingNumber(String fileName) {
-    Pattern pattern = Pattern.compile("^(\\d+)、"); // 匹配 "数字、" 开头
-    Matcher matcher = pattern.matcher(fileName);
-    if (matcher.find()) {
-      return Integer.parseInt(matcher.group(1));
+  // 处理图片文件（插入到新的一页）
+  private static void appendImage(PDDocument finalPdf, PagePlan.Item item, byte[] bytes) {
+    try {
+      PDImageXObject pdImage = PDImageXObject.createFromByteArray(finalPdf, bytes, item.getFile().getName());
+      PDPage page = new PDPage(PDRectangle.A4);
+      finalPdf.addPage(page);
+
+      float pageWidth = page.getMediaBox().getWidth();
+      float pageHeight = page.getMediaBox().getHeight();
+      float imageWidth = pdImage.getWidth();
+      float imageHeight = pdImage.getHeight();
+
+      float scaleX = pageWidth / imageWidth;
+      float scaleY = pageHeight / imageHeight;
+      float scale = Math.min(scaleX, scaleY);
+
+      float scaledWidth = imageWidth * scale;
+      float scaledHeight = imageHeight * scale;
+
+      float x = (pageWidth - scaledWidth) / 2;
+      float y = (pageHeight - scaledHeight) / 2;
+
+      try (PDPageContentStream contentStream = new PDPageContentStream(finalPdf, page)) {
+        contentStream.transform(Matrix.getTranslateInstance(x, y));
+        contentStream.drawImage(pdImage, 0, 0, scaledWidth, scaledHeight);
+      }
+    } catch (IOException e) {
+      System.err.println("跳过无法处理的文件: " + item.getFile().getName() + " - " + e.getMessage());
+    }
+  }
+
+  // 在文件所在设备的并发、带宽限额内执行
+  private static <T> T scheduled(File file, long bytes, IoScheduler.IoTask<T> task) throws IOException {
+    try {
+      return IoScheduler.getDefault().run(file.toPath(), bytes, task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("合并已中断: " + file);
     }
-    throw new RuntimeException("文件异常"+fileName);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,661 @@
+package org.example.image;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 线性化（“快速 Web 查看”）保存：第一页用到的对象和首页交叉引用表放在文件开头，其余对象按页排列，
+ * 阅读器从文件共享、文档门户打开时边下载边显示，不必等整个文件下载完
+ * <p>
+ * PDFBox 2.0 不支持线性化保存，这里按 PDF 规范附录 F 排列和输出对象：
+ * 线性化参数字典、首页交叉引用表、文档目录、主提示流、第一页、其余各页、多页共用的对象、页面树等其他对象、主交叉引用表。
+ * 提示表中的数值统一按 32 位存放，提示流的大小在输出前就能确定；对象按顺序只输出一遍（流内容不读入内存），
+ * 最后回填参数字典、首页交叉引用表和提示流中的偏移量。不支持加密文档。
+ */
+final class LinearizedPdfWriter {
+
+  private static final int PART_DOCUMENT = 4;
+  private static final int PART_FIRST_PAGE = 6;
+  private static final int PART_PAGES = 7;
+  private static final int PART_SHARED = 8;
+  private static final int PART_OTHER = 9;
+
+  private final PDDocument document;
+  private final COSDictionary catalog;
+  private final COSDictionary info;
+  // 间接对象（按对象本身区分，不按 COSObject 包装）
+  private final Map<COSBase, Obj> objects = new IdentityHashMap<>();
+  private final List<Obj> pages = new ArrayList<>();
+  // 各页引用的、不属于本页的对象（第一页中的对象或多页共用的对象）
+  private final List<List<Obj>> sharedByPage = new ArrayList<>();
+  private final List<Obj> documentPart = new ArrayList<>();
+  private final List<Obj> firstPagePart = new ArrayList<>();
+  private final List<List<Obj>> pageParts = new ArrayList<>();
+  private final List<Obj> sharedPart = new ArrayList<>();
+  private final List<Obj> otherPart = new ArrayList<>();
+  // 后半部分的对象数（含 0 号），前半部分从线性化参数字典开始编号
+  private int secondHalfSize;
+  private int linearizationNumber;
+  private int hintNumber;
+  private int size;
+
+  private LinearizedPdfWriter(PDDocument document) {
+    this.document = document;
+    this.catalog = document.getDocumentCatalog().getCOSObject();
+    this.info = document.getDocument().getTrailer().getCOSDictionary(COSName.INFO);
+  }
+
+  /** 把文档线性化保存到文件 */
+  static void save(PDDocument document, File output) throws IOException {
+    if (document.isEncrypted()) {
+      throw new IOException("加密文档不支持线性化保存");
+    }
+    if (document.getNumberOfPages() == 0) {
+      throw new IOException("没有页面的文档不能线性化保存");
+    }
+    LinearizedPdfWriter writer = new LinearizedPdfWriter(document);
+    writer.arrange();
+    writer.write(output);
+  }
+
+  // ================ 对象归属和编号 ================ //
+
+  private void arrange() throws IOException {
+    discover(catalog);
+    if (info != null) discover(info);
+
+    // 页面树节点、各页、目录不属于任何一页，遍历各页的对象时在这些地方停下
+    Set<COSBase> boundaries = Collections.newSetFromMap(new IdentityHashMap<>());
+    boundaries.add(catalog);
+    collectPageTree(catalog.getDictionaryObject(COSName.PAGES), boundaries);
+    for (PDPage page : document.getPages()) {
+      Obj obj = objects.get(page.getCOSObject());
+      if (obj == null) throw new IOException("页面不在页面树中");
+      pages.add(obj);
+      boundaries.add(obj.base);
+    }
+
+    List<List<Obj>> reached = new ArrayList<>();
+    for (int i = 0; i < pages.size(); i++) {
+      List<Obj> pageObjects = reach(pages.get(i), boundaries);
+      for (Obj obj : pageObjects) {
+        if (i == 0) {
+          obj.firstPage = true;
+        } else {
+          obj.pageCount++;
+        }
+      }
+      reached.add(pageObjects);
+    }
+
+    // 第一页用到的对象全部放在第一页部分，其余各页只放本页独有的对象
+    for (int i = 0; i < pages.size(); i++) {
+      List<Obj> own = new ArrayList<>();
+      List<Obj> shared = new ArrayList<>();
+      for (Obj obj : reached.get(i)) {
+        if (i == 0) {
+          obj.part = PART_FIRST_PAGE;
+          own.add(obj);
+        } else if (!obj.firstPage && obj.pageCount == 1) {
+          obj.part = PART_PAGES;
+          own.add(obj);
+        } else {
+          shared.add(obj);
+        }
+      }
+      if (i == 0) {
+        firstPagePart.addAll(own);
+      } else {
+        pageParts.add(own);
+      }
+      sharedByPage.add(shared);
+    }
+    for (List<Obj> pageObjects : reached) {
+      for (Obj obj : pageObjects) {
+        if (obj.part == 0 && obj.pageCount > 1) {
+          obj.part = PART_SHARED;
+          sharedPart.add(obj);
+        }
+      }
+    }
+    // 共享对象提示表中的序号：先是第一页部分的对象，后面是共用对象部分
+    for (int i = 0; i < firstPagePart.size(); i++) firstPagePart.get(i).group = i;
+    for (int i = 0; i < sharedPart.size(); i++) sharedPart.get(i).group = firstPagePart.size() + i;
+
+    // 打开文档时就要用到的目录级对象放在第一页之前
+    catalogPart(catalog, boundaries);
+    for (COSName key : new COSName[]{COSName.VIEWER_PREFERENCES, COSName.OPEN_ACTION, COSName.ACRO_FORM,
+            COSName.THREADS}) {
+      for (COSBase base : references(catalog.getItem(key))) {
+        catalogPart(base, boundaries);
+      }
+    }
+    for (Obj obj : objects.values()) {
+      if (obj.part == 0) {
+        obj.part = PART_OTHER;
+        otherPart.add(obj);
+      }
+    }
+    otherPart.sort(Comparator.comparingInt(o -> o.discovered));
+
+    // 后半部分（其余各页、共用对象、其他对象）从 1 开始编号，前半部分接在后面，与交叉引用表的两段对应
+    int number = 1;
+    for (List<Obj> part : pageParts) number = numberAll(part, number);
+    number = numberAll(sharedPart, number);
+    number = numberAll(otherPart, number);
+    secondHalfSize = number;
+    linearizationNumber = number++;
+    number = numberAll(documentPart, number);
+    hintNumber = number++;
+    number = numberAll(firstPagePart, number);
+    size = number;
+  }
+
+  private static int numberAll(List<Obj> part, int first) {
+    int number = first;
+    for (Obj obj : part) obj.number = number++;
+    return number;
+  }
+
+  private void catalogPart(COSBase base, Set<COSBase> boundaries) {
+    Deque<COSBase> pending = new ArrayDeque<>();
+    pending.add(base);
+    while (!pending.isEmpty()) {
+      Obj obj = objects.get(pending.poll());
+      if (obj == null || obj.part != 0 || (boundaries.contains(obj.base) && obj.base != catalog)) continue;
+      obj.part = PART_DOCUMENT;
+      documentPart.add(obj);
+      if (obj.base != catalog) pending.addAll(references(obj.base));
+    }
+  }
+
+  // 从根对象出发找出全部间接对象（深度优先，记录发现顺序）
+  private void discover(COSDictionary root) {
+    Deque<COSBase> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      COSBase base = pending.pop();
+      if (objects.containsKey(base)) continue;
+      objects.put(base, new Obj(base, objects.size()));
+      List<COSBase> children = references(base);
+      for (int i = children.size() - 1; i >= 0; i--) {
+        if (!objects.containsKey(children.get(i))) pending.push(children.get(i));
+      }
+    }
+  }
+
+  private void collectPageTree(COSBase node, Set<COSBase> boundaries) {
+    if (!(node instanceof COSDictionary) || !boundaries.add(node)) return;
+    COSBase kids = ((COSDictionary) node).getDictionaryObject(COSName.KIDS);
+    if (kids instanceof COSArray) {
+      for (int i = 0; i < ((COSArray) kids).size(); i++) {
+        COSBase kid = ((COSArray) kids).getObject(i);
+        if (kid instanceof COSDictionary && ((COSDictionary) kid).containsKey(COSName.KIDS)) {
+          collectPageTree(kid, boundaries);
+        }
+      }
+    }
+  }
+
+  // 一页用到的对象（广度优先，页面对象在最前）
+  private List<Obj> reach(Obj page, Set<COSBase> boundaries) {
+    List<Obj> result = new ArrayList<>();
+    Set<Obj> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Obj> pending = new ArrayDeque<>();
+    pending.add(page);
+    seen.add(page);
+    while (!pending.isEmpty()) {
+      Obj obj = pending.poll();
+      result.add(obj);
+      for (COSBase child : references(obj.base)) {
+        Obj next = objects.get(child);
+        if (next != null && !boundaries.contains(child) && seen.add(next)) pending.add(next);
+      }
+    }
+    return result;
+  }
+
+  // 直接引用的间接对象（与输出时的规则一致：流和非直接的字典作为间接对象，其他值内联）
+  private static List<COSBase> references(COSBase base) {
+    List<COSBase> result = new ArrayList<>();
+    if (base instanceof COSDictionary) {
+      collectEntries((COSDictionary) base, result);
+    } else if (base != null) {
+      collect(base, result);
+    }
+    return result;
+  }
+
+  private static void collectEntries(COSDictionary dictionary, List<COSBase> result) {
+    for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+      if (dictionary instanceof COSStream && entry.getKey().equals(COSName.LENGTH)) continue;
+      collect(entry.getValue(), result);
+    }
+  }
+
+  private static void collect(COSBase value, List<COSBase> result) {
+    if (value instanceof COSObject) {
+      COSBase target = ((COSObject) value).getObject();
+      if (target instanceof COSDictionary) {
+        result.add(target);
+      } else if (target != null) {
+        collect(target, result);
+      }
+    } else if (value instanceof COSDictionary) {
+      if (isIndirect((COSDictionary) value)) {
+        result.add(value);
+      } else {
+        collectEntries((COSDictionary) value, result);
+      }
+    } else if (value instanceof COSArray) {
+      for (COSBase element : (COSArray) value) collect(element, result);
+    }
+  }
+
+  private static boolean isIndirect(COSDictionary dictionary) {
+    return dictionary instanceof COSStream || !dictionary.isDirect();
+  }
+
+  // ================ 输出 ================ //
+
+  private void write(File output) throws IOException {
+    int pageCount = pages.size();
+    Obj firstPage = pages.get(0);
+    byte[] hintPlaceholder = hints(0, 0);
+    int hintSharedOffset = sharedTableOffset();
+    byte[] id = fileId(output);
+
+    Obj hint = new Obj(null, -1);
+    hint.number = hintNumber;
+    long linearizationOffset;
+    long firstXrefOffset;
+    long firstXrefEntries;
+    long prevOffset;
+    long hintDataOffset;
+    long endOfFirstPage;
+    long mainXrefOffset;
+    long mainXrefEntries;
+    long fileLength;
+
+    try (CountingOutputStream out = new CountingOutputStream(
+            new BufferedOutputStream(new FileOutputStream(output), 64 * 1024))) {
+      String version = String.format(Locale.ROOT, "%.1f", document.getVersion());
+      ascii(out, "%PDF-" + version + "\n");
+      out.write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+
+      // 线性化参数字典，数值定宽，最后回填
+      linearizationOffset = out.position();
+      ascii(out, linearizationDictionary(0, 0, 0, firstPage.number, 0, pageCount, 0));
+
+      // 首页交叉引用表：前半部分的对象
+      firstXrefOffset = out.position();
+      ascii(out, "xref\n" + linearizationNumber + " " + (size - linearizationNumber) + "\n");
+      firstXrefEntries = out.position();
+      for (int i = linearizationNumber; i < size; i++) ascii(out, xrefEntry(0));
+      ascii(out, "trailer\n<< /Size " + size + " /Root " + objects.get(catalog).number + " 0 R");
+      if (info != null) ascii(out, " /Info " + objects.get(info).number + " 0 R");
+      ascii(out, " /ID [<" + hex(id) + "> <" + hex(id) + ">] /Prev ");
+      prevOffset = out.position();
+      ascii(out, String.format(Locale.ROOT, "%010d >>\nstartxref\n0\n%%%%EOF\n", 0));
+
+      writeAll(out, documentPart);
+
+      // 主提示流：页面偏移提示表 + 共享对象提示表
+      hint.offset = out.position();
+      ascii(out, hintNumber + " 0 obj\n<< /Length " + hintPlaceholder.length + " /S " + hintSharedOffset
+              + " >>\nstream\n");
+      hintDataOffset = out.position();
+      out.write(hintPlaceholder);
+      ascii(out, "\nendstream\nendobj\n");
+      hint.length = out.position() - hint.offset;
+
+      writeAll(out, firstPagePart);
+      endOfFirstPage = out.position();
+      for (List<Obj> part : pageParts) writeAll(out, part);
+      writeAll(out, sharedPart);
+      writeAll(out, otherPart);
+
+      // 主交叉引用表：后半部分的对象
+      mainXrefOffset = out.position();
+      ascii(out, "xref\n0 " + secondHalfSize);
+      mainXrefEntries = out.position();
+      ascii(out, "\n0000000000 65535 f\r\n");
+      Obj[] secondHalf = new Obj[secondHalfSize];
+      for (Obj obj : objects.values()) {
+        if (obj.number < secondHalfSize) secondHalf[obj.number] = obj;
+      }
+      for (int i = 1; i < secondHalfSize; i++) ascii(out, xrefEntry(secondHalf[i].offset));
+      ascii(out, "trailer\n<< /Size " + secondHalfSize + " >>\nstartxref\n" + firstXrefOffset + "\n%%EOF\n");
+      fileLength = out.position();
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+      file.seek(linearizationOffset);
+      file.write(linearizationDictionary(fileLength, hint.offset, hint.length, firstPage.number, endOfFirstPage,
+              pageCount, mainXrefEntries).getBytes(StandardCharsets.US_ASCII));
+
+      Obj[] firstHalf = new Obj[size - linearizationNumber];
+      for (Obj obj : objects.values()) {
+        if (obj.number >= linearizationNumber) firstHalf[obj.number - linearizationNumber] = obj;
+      }
+      firstHalf[hintNumber - linearizationNumber] = hint;
+      StringBuilder entries = new StringBuilder(xrefEntry(linearizationOffset));
+      for (int i = 1; i < firstHalf.length; i++) entries.append(xrefEntry(firstHalf[i].offset));
+      file.seek(firstXrefEntries);
+      file.write(entries.toString().getBytes(StandardCharsets.US_ASCII));
+
+      file.seek(prevOffset);
+      file.write(String.format(Locale.ROOT, "%010d", mainXrefOffset).getBytes(StandardCharsets.US_ASCII));
+
+      byte[] hintData = hints(hint.offset, hint.length);
+      if (hintData.length != hintPlaceholder.length) {
+        throw new IllegalStateException("提示流长度与预留不一致");
+      }
+      file.seek(hintDataOffset);
+      file.write(hintData);
+    }
+  }
+
+  private String linearizationDictionary(long length, long hintOffset, long hintLength, int firstPageNumber,
+                                         long endOfFirstPage, int pageCount, long mainXrefEntries) {
+    return String.format(Locale.ROOT,
+            "%d 0 obj\n<< /Linearized 1 /L %010d /H [ %010d %010d ] /O %d /E %010d /N %d /T %010d >>\nendobj\n",
+            linearizationNumber, length, hintOffset, hintLength, firstPageNumber, endOfFirstPage, pageCount,
+            mainXrefEntries);
+  }
+
+  private void writeAll(CountingOutputStream out, List<Obj> part) throws IOException {
+    for (Obj obj : part) {
+      obj.offset = out.position();
+      ascii(out, obj.number + " 0 obj\n");
+      if (obj.base instanceof COSStream) {
+        writeStream((COSStream) obj.base, out);
+      } else {
+        ascii(out, "<<");
+        writeEntries((COSDictionary) obj.base, out);
+        ascii(out, " >>");
+      }
+      ascii(out, "\nendobj\n");
+      obj.length = out.position() - obj.offset;
+    }
+  }
+
+  // 流的内容原样复制（不解码），长度按实际数据写成直接数值
+  private void writeStream(COSStream stream, OutputStream out) throws IOException {
+    ascii(out, "<<");
+    writeEntries(stream, out);
+    ascii(out, " /Length " + rawLength(stream) + " >>\nstream\n");
+    try (InputStream in = stream.createRawInputStream()) {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+    }
+    ascii(out, "\nendstream");
+  }
+
+  private static long rawLength(COSStream stream) throws IOException {
+    long length = 0;
+    try (InputStream in = stream.createRawInputStream()) {
+      // PDFBox 的流数据在缓冲区中，available 即剩余长度，skip 只移动位置
+      int available;
+      while ((available = in.available()) > 0) length += in.skip(available);
+      while (in.read() != -1) length++;
+    }
+    return length;
+  }
+
+  private void writeDirect(COSBase value, OutputStream out) throws IOException {
+    if (value == null || value instanceof COSNull) {
+      ascii(out, "null");
+    } else if (value instanceof COSObject) {
+      COSBase target = ((COSObject) value).getObject();
+      if (target instanceof COSDictionary) {
+        writeReference(target, out);
+      } else {
+        writeDirect(target, out);
+      }
+    } else if (value instanceof COSDictionary) {
+      if (isIndirect((COSDictionary) value)) {
+        writeReference(value, out);
+      } else {
+        ascii(out, "<<");
+        writeEntries((COSDictionary) value, out);
+        ascii(out, " >>");
+      }
+    } else if (value instanceof COSArray) {
+      ascii(out, "[");
+      for (COSBase element : (COSArray) value) {
+        ascii(out, " ");
+        writeDirect(element, out);
+      }
+      ascii(out, " ]");
+    } else if (value instanceof COSString) {
+      COSWriter.writeString((COSString) value, out);
+    } else if (value instanceof COSName) {
+      ((COSName) value).writePDF(out);
+    } else if (value instanceof COSInteger) {
+      ((COSInteger) value).writePDF(out);
+    } else if (value instanceof COSFloat) {
+      ((COSFloat) value).writePDF(out);
+    } else if (value instanceof COSBoolean) {
+      ((COSBoolean) value).writePDF(out);
+    } else {
+      throw new IOException("无法输出的对象类型: " + value.getClass().getSimpleName());
+    }
+  }
+
+  private void writeEntries(COSDictionary dictionary, OutputStream out) throws IOException {
+    for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+      if (dictionary instanceof COSStream && entry.getKey().equals(COSName.LENGTH)) continue;
+      ascii(out, " ");
+      entry.getKey().writePDF(out);
+      ascii(out, " ");
+      writeDirect(entry.getValue(), out);
+    }
+  }
+
+  private void writeReference(COSBase target, OutputStream out) throws IOException {
+    Obj obj = objects.get(target);
+    if (obj == null) throw new IOException("引用的对象未编号");
+    ascii(out, obj.number + " 0 R");
+  }
+
+  // ================ 提示表 ================ //
+
+  // 页面偏移提示表的长度，即共享对象提示表在提示流中的偏移
+  private int sharedTableOffset() {
+    int sharedReferences = 0;
+    for (List<Obj> shared : sharedByPage.subList(1, sharedByPage.size())) sharedReferences += shared.size();
+    return 36 + 16 * pages.size() + 4 * sharedReferences;
+  }
+
+  /**
+   * 生成提示流内容（规范表 F.3~F.6）。表中的偏移量按没有提示流计算（提示流之后的偏移减去提示流长度）；
+   * 可变数值都按 32 位存放，与实际数值无关，长度固定
+   */
+  private byte[] hints(long hintOffset, long hintLength) {
+    int pageCount = pages.size();
+    long[] objectCounts = new long[pageCount];
+    long[] lengths = new long[pageCount];
+    objectCounts[0] = firstPagePart.size();
+    lengths[0] = end(firstPagePart) - pages.get(0).offset;
+    for (int i = 1; i < pageCount; i++) {
+      List<Obj> part = pageParts.get(i - 1);
+      objectCounts[i] = part.size();
+      lengths[i] = end(part) - part.get(0).offset;
+    }
+    long leastObjects = min(objectCounts);
+    long leastLength = min(lengths);
+
+    BitWriter bits = new BitWriter();
+    // 页面偏移提示表头
+    bits.write(leastObjects, 32);
+    bits.write(adjust(pages.get(0).offset, hintOffset, hintLength), 32);
+    bits.write(32, 16);
+    bits.write(leastLength, 32);
+    bits.write(32, 16);
+    bits.write(0, 32);      // 内容流相对页面的最小偏移：不单独统计，按 0
+    bits.write(0, 16);
+    bits.write(leastLength, 32);  // 内容流长度按页面长度计
+    bits.write(32, 16);
+    bits.write(32, 16);
+    bits.write(32, 16);
+    bits.write(0, 16);      // 不提供共享对象在页面中的位置比例
+    bits.write(1, 16);
+
+    // 各页的数据按项排列（先是所有页的第一项，依此类推），每项结束时补齐到字节
+    for (long count : objectCounts) bits.write(count - leastObjects, 32);
+    bits.flush();
+    for (long length : lengths) bits.write(length - leastLength, 32);
+    bits.flush();
+    bits.write(0, 32);      // 第一页用到的对象都在第一页部分
+    for (int i = 1; i < pageCount; i++) bits.write(sharedByPage.get(i).size(), 32);
+    bits.flush();
+    for (int i = 1; i < pageCount; i++) {
+      for (Obj obj : sharedByPage.get(i)) bits.write(obj.group, 32);
+    }
+    bits.flush();
+    for (long length : lengths) bits.write(length - leastLength, 32);
+    bits.flush();
+
+    // 共享对象提示表：每个对象一组，顺序同 group
+    List<Obj> groups = new ArrayList<>(firstPagePart);
+    groups.addAll(sharedPart);
+    long[] groupLengths = new long[groups.size()];
+    for (int i = 0; i < groupLengths.length; i++) groupLengths[i] = groups.get(i).length;
+    long leastGroup = min(groupLengths);
+    bits.write(sharedPart.isEmpty() ? 0 : sharedPart.get(0).number, 32);
+    bits.write(sharedPart.isEmpty() ? 0 : adjust(sharedPart.get(0).offset, hintOffset, hintLength), 32);
+    bits.write(firstPagePart.size(), 32);
+    bits.write(groups.size(), 32);
+    bits.write(0, 16);
+    bits.write(leastGroup, 32);
+    bits.write(32, 16);
+    for (long length : groupLengths) bits.write(length - leastGroup, 32);
+    bits.flush();
+    for (int i = 0; i < groups.size(); i++) bits.write(0, 1);  // 没有 MD5 签名
+    bits.flush();
+    return bits.toByteArray();
+  }
+
+  private static long adjust(long offset, long hintOffset, long hintLength) {
+    return offset > hintOffset ? offset - hintLength : offset;
+  }
+
+  private static long end(List<Obj> part) {
+    Obj last = part.get(part.size() - 1);
+    return last.offset + last.length;
+  }
+
+  private static long min(long[] values) {
+    long min = values.length == 0 ? 0 : Long.MAX_VALUE;
+    for (long value : values) min = Math.min(min, value);
+    return min;
+  }
+
+  // ================ 工具方法 ================ //
+
+  private static String xrefEntry(long offset) {
+    return String.format(Locale.ROOT, "%010d 00000 n\r\n", offset);
+  }
+
+  private static void ascii(OutputStream out, String text) throws IOException {
+    out.write(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private byte[] fileId(File output) {
+    try {
+      MessageDigest md5 = MessageDigest.getInstance("MD5");
+      md5.update(Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII));
+      md5.update(output.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+      md5.update(Integer.toString(objects.size()).getBytes(StandardCharsets.US_ASCII));
+      return md5.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder text = new StringBuilder();
+    for (byte b : bytes) text.append(String.format("%02X", b));
+    return text.toString();
+  }
+
+  /** 一个间接对象的归属、编号和输出位置 */
+  private static final class Obj {
+    private final COSBase base;
+    private final int discovered;
+    private int number;
+    private int part;
+    private boolean firstPage;
+    // 引用该对象的页数（不含第一页）
+    private int pageCount;
+    // 在共享对象提示表中的序号
+    private int group;
+    private long offset;
+    private long length;
+
+    Obj(COSBase base, int discovered) {
+      this.base = base;
+      this.discovered = discovered;
+    }
+  }
+
+  private static final class BitWriter {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private int current;
+    private int used;
+
+    void write(long value, int width) {
+      for (int i = width - 1; i >= 0; i--) {
+        current = (current << 1) | (int) ((value >>> i) & 1);
+        if (++used == 8) {
+          bytes.write(current);
+          current = 0;
+          used = 0;
+        }
+      }
+    }
+
+    void flush() {
+      if (used > 0) write(0, 8 - used);
+    }
+
+    byte[] toByteArray() {
+      flush();
+      return bytes.toByteArray();
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long position;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    long position() {
+      return position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+  }
+}
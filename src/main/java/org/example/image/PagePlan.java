@@ -0,0 +1,308 @@
+package org.example.image;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.example.fileMove.BlockingIoExecutor;
+import org.example.fileMove.IoScheduler;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 合并前的预检：并发探测每个文件（文件头魔数、图片头中的尺寸、PDF 页数），不做完整解码，
+ * 得到按序号排列的页面计划和每项的内存估算；无序号、类型不符、损坏、需要密码、过大的文件在合并前剔除
+ * <p>
+ * 内存估算：JPEG 原样嵌入，约为文件大小的两倍；其他图片要解码成像素再压缩，按 宽×高×4 加文件大小；
+ * PDF 合并时对象全部复制进内存，按文件大小的三倍加每页 64KB
+ */
+public class PagePlan {
+
+  /** 探测出的文件类型（按文件头，不按扩展名） */
+  public enum Kind {
+    JPEG, PNG, GIF, BMP, PDF
+  }
+
+  // 单张图片像素上限（约 600MB 解码内存），超过时不合并
+  static final long MAX_IMAGE_PIXELS = 150_000_000L;
+  private static final long PDF_PAGE_BYTES = 64 * 1024;
+  private static final Pattern LEADING_NUMBER = Pattern.compile("^(\\d+)、");
+
+  private final List<Item> items;
+  private final List<Item> rejected;
+
+  private PagePlan(List<Item> items, List<Item> rejected) {
+    this.items = items;
+    this.rejected = rejected;
+  }
+
+  /**
+   * 并发探测文件，按文件名开头的序号排序（序号相同时保持原顺序）
+   *
+   * @param files   待合并的文件
+   * @param threads 并发探测数（同一设备上另受 IoScheduler 限制）
+   */
+  public static PagePlan probe(List<File> files, int threads) throws IOException {
+    long heapLimit = Runtime.getRuntime().maxMemory();
+    List<Future<Item>> futures = new ArrayList<>();
+    List<Item> probed = new ArrayList<>();
+    try (BlockingIoExecutor io = BlockingIoExecutor.create(Math.max(1, Math.min(threads, files.size())))) {
+      for (File file : files) {
+        futures.add(io.submit(() -> IoScheduler.getDefault().run(file.toPath(), 0, () -> probe(file, heapLimit))));
+      }
+      for (Future<Item> future : futures) {
+        probed.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("预检已中断", e);
+    } catch (ExecutionException e) {
+      throw new IOException("预检失败: " + e.getCause().getMessage(), e.getCause());
+    }
+
+    List<Item> items = new ArrayList<>();
+    List<Item> rejected = new ArrayList<>();
+    for (Item item : probed) {
+      (item.problem == null ? items : rejected).add(item);
+    }
+    items.sort(Comparator.comparingInt(Item::getOrder));
+    return new PagePlan(items, rejected);
+  }
+
+  /** 可以合并的文件，按合并顺序 */
+  public List<Item> getItems() {
+    return items;
+  }
+
+  /** 被剔除的文件及原因（{@link Item#getProblem()}） */
+  public List<Item> getRejected() {
+    return rejected;
+  }
+
+  public int getTotalPages() {
+    int pages = 0;
+    for (Item item : items) pages += item.pages;
+    return pages;
+  }
+
+  public long getTotalEstimatedBytes() {
+    long bytes = 0;
+    for (Item item : items) bytes += item.estimatedBytes;
+    return bytes;
+  }
+
+  /** 文件名开头的序号（如 "1、WXGYBZ..." → 1），没有时返回 -1 */
+  static int leadingNumber(String fileName) {
+    Matcher matcher = LEADING_NUMBER.matcher(fileName);
+    if (!matcher.find()) return -1;
+    try {
+      return Integer.parseInt(matcher.group(1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  // ================ 单个文件的探测 ================ //
+
+  private static Item probe(File file, long heapLimit) throws IOException {
+    Item item = new Item(file);
+    item.order = leadingNumber(file.getName());
+    if (item.order < 0) return item.reject("文件名不以“序号、”开头");
+
+    byte[] header = new byte[1024];
+    int length;
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      length = readFully(in, header);
+    } catch (IOException e) {
+      return item.reject("无法读取: " + e.getMessage());
+    }
+    item.kind = detect(header, length);
+    if (item.kind == null) return item.reject("不是可识别的图片或PDF（文件头不符）");
+    boolean pdfName = file.getName().toLowerCase().endsWith(".pdf");
+    if (pdfName != (item.kind == Kind.PDF)) {
+      return item.reject("扩展名与内容不符（实际为 " + item.kind + "）");
+    }
+
+    try {
+      if (item.kind == Kind.PDF) {
+        probePdf(item);
+      } else {
+        probeImage(item);
+      }
+    } catch (IOException | RuntimeException e) {
+      return item.reject("文件损坏: " + e.getMessage());
+    }
+    if (item.problem != null) return item;
+    if (item.estimatedBytes > heapLimit) {
+      return item.reject(String.format("估算需要 %d MB 内存，超过堆上限 %d MB",
+              item.estimatedBytes >> 20, heapLimit >> 20));
+    }
+    return item;
+  }
+
+  // 只读图片头中的尺寸（ImageReader 的 seekForwardOnly/ignoreMetadata 模式不解码像素）
+  private static void probeImage(Item item) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(item.file)) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        item.reject("没有可用的图片解码器");
+        return;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        item.width = reader.getWidth(0);
+        item.height = reader.getHeight(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+    item.pages = 1;
+    long pixels = (long) item.width * item.height;
+    if (pixels <= 0) {
+      item.reject("图片尺寸无效");
+    } else if (pixels > MAX_IMAGE_PIXELS) {
+      item.reject(String.format("图片过大（%d×%d）", item.width, item.height));
+    } else {
+      item.estimatedBytes = item.kind == Kind.JPEG ? item.size * 2 : pixels * 4 + item.size;
+    }
+  }
+
+  // 只解析交叉引用表和页面树，页面内容不解析；解析缓存放临时文件，不占堆
+  private static void probePdf(Item item) throws IOException {
+    // 截断的文件 PDFBox 也能宽松解析出部分页面，先检查文件尾（与 Acrobat 一样要求最后 1024 字节内有 %%EOF）
+    if (!hasEndMarker(item.file)) {
+      item.reject("PDF不完整（缺少文件尾 %%EOF）");
+      return;
+    }
+    try (PDDocument document = PDDocument.load(item.file, MemoryUsageSetting.setupTempFileOnly())) {
+      item.pages = document.getNumberOfPages();
+    } catch (InvalidPasswordException e) {
+      // 只设了权限密码的PDF可以打开和合并，需要打开密码的不行
+      item.reject("PDF需要打开密码");
+      return;
+    }
+    if (item.pages == 0) {
+      item.reject("PDF没有页面");
+    } else {
+      item.estimatedBytes = item.size * 3 + item.pages * PDF_PAGE_BYTES;
+    }
+  }
+
+  private static boolean hasEndMarker(File file) throws IOException {
+    try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+      byte[] tail = new byte[(int) Math.min(1024, in.length())];
+      in.seek(in.length() - tail.length);
+      in.readFully(tail);
+      return new String(tail, StandardCharsets.ISO_8859_1).contains("%%EOF");
+    }
+  }
+
+  private static Kind detect(byte[] header, int length) {
+    if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) return Kind.JPEG;
+    if (startsWith(header, length, 0x89, 'P', 'N', 'G')) return Kind.PNG;
+    if (startsWith(header, length, 'G', 'I', 'F', '8')) return Kind.GIF;
+    if (startsWith(header, length, 'B', 'M')) return Kind.BMP;
+    // PDF 规范允许 %PDF- 出现在前 1024 字节内
+    for (int i = 0; i + 5 <= length; i++) {
+      if (header[i] == '%' && header[i + 1] == 'P' && header[i + 2] == 'D' && header[i + 3] == 'F'
+              && header[i + 4] == '-') {
+        return Kind.PDF;
+      }
+    }
+    return null;
+  }
+
+  private static boolean startsWith(byte[] header, int length, int... magic) {
+    if (length < magic.length) return false;
+    for (int i = 0; i < magic.length; i++) {
+      if ((header[i] & 0xFF) != magic[i]) return false;
+    }
+    return true;
+  }
+
+  private static int readFully(InputStream in, byte[] buffer) throws IOException {
+    int length = 0;
+    int read;
+    while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+    }
+    return length;
+  }
+
+  /** 计划中的一个文件 */
+  public static class Item {
+    private final File file;
+    private final long size;
+    private Kind kind;
+    private int order;
+    private int pages;
+    private int width;
+    private int height;
+    private long estimatedBytes;
+    private String problem;
+
+    Item(File file) {
+      this.file = file;
+      this.size = file.length();
+    }
+
+    private Item reject(String problem) {
+      this.problem = problem;
+      return this;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    /** 文件头识别出的类型，无法识别时为 null */
+    public Kind getKind() {
+      return kind;
+    }
+
+    /** 文件名开头的序号，没有时为 -1 */
+    public int getOrder() {
+      return order;
+    }
+
+    public int getPages() {
+      return pages;
+    }
+
+    /** 图片宽度（像素），PDF 为 0 */
+    public int getWidth() {
+      return width;
+    }
+
+    public int getHeight() {
+      return height;
+    }
+
+    /** 合并时预计占用的堆内存（字节） */
+    public long getEstimatedBytes() {
+      return estimatedBytes;
+    }
+
+    /** 剔除原因，可以合并时为 null */
+    public String getProblem() {
+      return problem;
+    }
+  }
+}
@@ -0,0 +1,481 @@
+package org.example.pipeline;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.fileMove.IoScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地常驻任务服务：POI/PDFBox 只加载、预热一次，解析过的工作簿和数据搜索记录在任务间复用
+ * <p>
+ * 只监听 127.0.0.1。任务类型 archive、validate、scan、merge，参数与 PipelineRunner 的配置项相同。
+ * 任务进入有界队列（队列满时返回 503），每种类型有各自的并发上限。
+ * <p>
+ * 启动时生成随机访问令牌，打印到控制台并写入令牌文件（仅当前用户可读），每个请求都要在
+ * X-Job-Token 头中带上令牌；带 Origin 头（浏览器发出）或 Host 不是 localhost/127.0.0.1 的请求一律拒绝。
+ * 任务只能覆盖各类型的运行参数（见 JOB_KEYS），路径和 io.* 只能在服务配置中设置。
+ * <pre>
+ *   POST /jobs/{类型}   请求体为 UTF-8 properties（覆盖服务配置中允许覆盖的项），返回任务编号
+ *   GET  /jobs/{编号}   任务状态与耗时（排队、执行），失败原因
+ *   GET  /jobs          最近的任务
+ *   GET  /status        队列、各类型运行数、解析缓存命中情况、各设备的文件操作排队情况
+ *   POST /shutdown      等待执行中的任务完成后退出
+ * </pre>
+ * 用法：JobServer [配置文件，默认 jobserver.properties]，配置项：
+ * <pre>
+ * port=8765
+ * token.file=jobserver.token   # 访问令牌文件，每次启动重新生成
+ * queue.capacity=32            # 排队（未开始执行）任务数上限
+ * limit.archive=1              # 各类型的并发上限；归档会移动文件、修改工作簿，默认串行
+ * limit.validate=2
+ * limit.scan=2
+ * limit.merge=2
+ * history=200                  # 保留的已结束任务数
+ * io.concurrency=4             # 共享盘限流（所有任务共用），见 IoScheduler
+ * archive.excel=...            # 其余为任务参数默认值，同 PipelineRunner
+ * </pre>
+ * 示例：curl -H "X-Job-Token: $(cat jobserver.token)" --data-binary @scan.properties http://127.0.0.1:8765/jobs/scan
+ */
+public class JobServer {
+
+  private static final List<String> JOB_TYPES = Arrays.asList("archive", "validate", "scan", "merge");
+  private static final int DEFAULT_LIMIT = 2;
+  static final String TOKEN_HEADER = "X-Job-Token";
+  // 各类型任务可在请求中覆盖的配置项；路径（源目录、工作簿、输出位置）和 io.* 不在其中
+  private static final Map<String, List<String>> JOB_KEYS = new HashMap<>();
+
+  static {
+    JOB_KEYS.put("archive", Arrays.asList("archive.sheet", "threads"));
+    JOB_KEYS.put("validate", Arrays.asList("validate.sheet"));
+    JOB_KEYS.put("scan", Arrays.asList("scan.verifyPdf", "scan.verifyPageLimit", "scan.incremental",
+            "scan.parallelism", "scan.pushdown", "scan.ingestThreads"));
+    JOB_KEYS.put("merge", Arrays.asList("merge.memoryBudgetMb", "merge.threads", "merge.linearized"));
+  }
+
+  private final Properties config;
+  private final ParsedFileCache parsedFiles = new ParsedFileCache();
+  private final Map<String, ExecutorService> executors = new HashMap<>();
+  private final Map<String, AtomicInteger> running = new HashMap<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong nextId = new AtomicLong(1);
+  // 任务编号 -> 任务，按提交顺序保留最近 history 个
+  private final Map<Long, Job> jobs = new LinkedHashMap<>();
+  private final int queueCapacity;
+  private final int history;
+  private final long startMillis = System.currentTimeMillis();
+  private final String token = newToken();
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private HttpServer server;
+  private ExecutorService httpExecutor;
+
+  public JobServer(Properties config) {
+    this.config = config;
+    this.queueCapacity = Integer.parseInt(config.getProperty("queue.capacity", "32").trim());
+    this.history = Integer.parseInt(config.getProperty("history", "200").trim());
+    for (String type : JOB_TYPES) {
+      int limit = Integer.parseInt(config.getProperty("limit." + type,
+              String.valueOf("archive".equals(type) ? 1 : DEFAULT_LIMIT)).trim());
+      executors.put(type, Executors.newFixedThreadPool(Math.max(1, limit)));
+      running.put(type, new AtomicInteger());
+    }
+  }
+
+  public static void main(String[] args) {
+    String configPath = args.length > 0 ? args[0] : "jobserver.properties";
+    try {
+      Properties config = new Properties();
+      if (Files.exists(Paths.get(configPath))) {
+        try (Reader reader = Files.newBufferedReader(Paths.get(configPath), StandardCharsets.UTF_8)) {
+          config.load(reader);
+        }
+      }
+      IoScheduler.setDefault(IoScheduler.fromConfig(config));
+      JobServer jobServer = new JobServer(config);
+      jobServer.start(Integer.parseInt(config.getProperty("port", "8765").trim()));
+      Path tokenFile = Paths.get(config.getProperty("token.file", "jobserver.token").trim());
+      writeToken(tokenFile, jobServer.getToken());
+      System.out.println("访问令牌: " + jobServer.getToken() + "（已写入 " + tokenFile.toAbsolutePath()
+              + "，请求头 " + TOKEN_HEADER + "）");
+      Runtime.getRuntime().addShutdownHook(new Thread(jobServer::stop));
+      jobServer.awaitStop();
+    } catch (Exception e) {
+      System.err.println("任务服务启动失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  public void start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/jobs", this::handleJobs);
+    server.createContext("/status", this::handleStatus);
+    server.createContext("/shutdown", this::handleShutdown);
+    // 请求处理很轻，单线程即可；任务在各类型的线程池中执行
+    httpExecutor = Executors.newSingleThreadExecutor();
+    server.setExecutor(httpExecutor);
+    server.start();
+    System.out.println("任务服务已启动: http://" + server.getAddress().getHostString() + ":"
+            + server.getAddress().getPort() + "/");
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /** 本次启动的访问令牌 */
+  public String getToken() {
+    return token;
+  }
+
+  public void awaitStop() throws InterruptedException {
+    stopped.await();
+  }
+
+  /** 不再接受新任务，等待已提交的任务完成后释放缓存 */
+  public synchronized void stop() {
+    if (stopped.getCount() == 0) return;
+    if (server != null) {
+      server.stop(0);
+      httpExecutor.shutdown();
+    }
+    for (ExecutorService executor : executors.values()) {
+      executor.shutdown();
+    }
+    try {
+      for (ExecutorService executor : executors.values()) {
+        executor.awaitTermination(1, TimeUnit.HOURS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    parsedFiles.close();
+    stopped.countDown();
+    System.out.println("任务服务已停止");
+  }
+
+  // ================ 任务 ================ //
+
+  private static class Job {
+    private final long id;
+    private final String type;
+    private final long submittedMillis = System.currentTimeMillis();
+    private volatile String status = "QUEUED";
+    private volatile long startedMillis;
+    private volatile long finishedMillis;
+    private volatile String error;
+
+    Job(long id, String type) {
+      this.id = id;
+      this.type = type;
+    }
+  }
+
+  /**
+   * 提交任务
+   *
+   * @param parameters 任务参数，覆盖服务配置中的同名项；只接受 JOB_KEYS 中该类型的项
+   * @return 任务；队列已满时返回 null
+   */
+  private Job submit(String type, Properties parameters) {
+    if (!JOB_TYPES.contains(type)) {
+      throw new IllegalArgumentException("未知任务类型: " + type + "，可选: " + JOB_TYPES);
+    }
+    for (String key : parameters.stringPropertyNames()) {
+      if (!JOB_KEYS.get(type).contains(key)) {
+        throw new IllegalArgumentException("任务参数不允许覆盖: " + key + "（路径和 io.* 只能在服务配置中设置），"
+                + type + " 可覆盖: " + JOB_KEYS.get(type));
+      }
+    }
+    if (queued.incrementAndGet() > queueCapacity) {
+      queued.decrementAndGet();
+      return null;
+    }
+    Properties jobConfig = new Properties();
+    jobConfig.putAll(config);
+    jobConfig.putAll(parameters);
+    jobConfig.setProperty("stages", type);
+
+    Job job = new Job(nextId.getAndIncrement(), type);
+    synchronized (jobs) {
+      jobs.put(job.id, job);
+      trimHistory();
+    }
+    try {
+      executors.get(type).execute(() -> run(job, jobConfig));
+    } catch (RejectedExecutionException e) {
+      queued.decrementAndGet();
+      job.status = "REJECTED";
+      job.error = "服务正在停止";
+    }
+    return job;
+  }
+
+  private void run(Job job, Properties jobConfig) {
+    queued.decrementAndGet();
+    running.get(job.type).incrementAndGet();
+    job.startedMillis = System.currentTimeMillis();
+    job.status = "RUNNING";
+    try {
+      PipelineRunner runner = new PipelineRunner(jobConfig, parsedFiles);
+      boolean ok = runner.run();
+      job.error = runner.getStageError(job.type);
+      job.status = ok ? "SUCCEEDED" : "FAILED";
+    } catch (Exception e) {
+      job.error = String.valueOf(e.getMessage());
+      job.status = "FAILED";
+    } finally {
+      job.finishedMillis = System.currentTimeMillis();
+      running.get(job.type).decrementAndGet();
+    }
+  }
+
+  // 只淘汰已结束的任务
+  private void trimHistory() {
+    Iterator<Job> iterator = jobs.values().iterator();
+    while (jobs.size() > history && iterator.hasNext()) {
+      Job oldest = iterator.next();
+      if (oldest.finishedMillis > 0 || "REJECTED".equals(oldest.status)) iterator.remove();
+    }
+  }
+
+  // ================ HTTP ================ //
+
+  /**
+   * 拒绝未带令牌、来自浏览器页面（有 Origin 头）或 Host 不是本机名（DNS 重绑定）的请求
+   *
+   * @return 已拒绝时返回 false
+   */
+  private boolean authorize(HttpExchange exchange) throws IOException {
+    if (exchange.getRequestHeaders().containsKey("Origin")) {
+      respond(exchange, 403, error("不接受浏览器跨站请求"));
+      return false;
+    }
+    if (!isLocalHost(exchange.getRequestHeaders().getFirst("Host"))) {
+      respond(exchange, 403, error("Host 必须为 localhost 或 127.0.0.1"));
+      return false;
+    }
+    String presented = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+    if (presented == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+            presented.trim().getBytes(StandardCharsets.UTF_8))) {
+      respond(exchange, 401, error("缺少或错误的访问令牌（请求头 " + TOKEN_HEADER + "）"));
+      return false;
+    }
+    return true;
+  }
+
+  private static boolean isLocalHost(String host) {
+    if (host == null) return false;
+    String name = host.trim().toLowerCase(Locale.ROOT);
+    int colon = name.lastIndexOf(':');
+    if (colon >= 0) name = name.substring(0, colon);
+    return "localhost".equals(name) || "127.0.0.1".equals(name);
+  }
+
+  private void handleJobs(HttpExchange exchange) throws IOException {
+    if (!authorize(exchange)) return;
+    try {
+      String path = exchange.getRequestURI().getPath();
+      String rest = path.length() > "/jobs".length() ? path.substring("/jobs/".length()) : "";
+      String method = exchange.getRequestMethod();
+      if ("POST".equals(method) && !rest.isEmpty()) {
+        Properties parameters = new Properties();
+        parameters.load(new StringReader(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8)));
+        Job job;
+        try {
+          job = submit(rest, parameters);
+        } catch (IllegalArgumentException e) {
+          respond(exchange, 400, error(e.getMessage()));
+          return;
+        }
+        if (job == null) {
+          respond(exchange, 503, error("任务队列已满（" + queueCapacity + "），请稍后再试"));
+        } else {
+          respond(exchange, 202, toJson(job));
+        }
+      } else if ("GET".equals(method) && rest.isEmpty()) {
+        StringBuilder json = new StringBuilder("[");
+        synchronized (jobs) {
+          for (Job job : jobs.values()) {
+            if (json.length() > 1) json.append(",\n");
+            json.append(toJson(job));
+          }
+        }
+        respond(exchange, 200, json.append("]").toString());
+      } else if ("GET".equals(method)) {
+        Job job;
+        synchronized (jobs) {
+          job = jobs.get(parseId(rest));
+        }
+        if (job == null) {
+          respond(exchange, 404, error("任务不存在: " + rest));
+        } else {
+          respond(exchange, 200, toJson(job));
+        }
+      } else {
+        respond(exchange, 405, error("不支持的请求: " + method + " " + path));
+      }
+    } catch (Exception e) {
+      respond(exchange, 500, error(String.valueOf(e.getMessage())));
+    }
+  }
+
+  private void handleStatus(HttpExchange exchange) throws IOException {
+    if (!authorize(exchange)) return;
+    StringBuilder json = new StringBuilder("{");
+    json.append("\"uptimeMillis\":").append(System.currentTimeMillis() - startMillis);
+    json.append(",\"queued\":").append(queued.get());
+    json.append(",\"queueCapacity\":").append(queueCapacity);
+    json.append(",\"running\":{");
+    for (int i = 0; i < JOB_TYPES.size(); i++) {
+      if (i > 0) json.append(',');
+      json.append(jsonString(JOB_TYPES.get(i))).append(':').append(running.get(JOB_TYPES.get(i)).get());
+    }
+    json.append("},\"parsedFiles\":{\"entries\":").append(parsedFiles.size())
+            .append(",\"hits\":").append(parsedFiles.getHits())
+            .append(",\"misses\":").append(parsedFiles.getMisses()).append("},\"io\":[");
+    List<IoScheduler.DeviceStats> devices = IoScheduler.getDefault().getStats();
+    for (int i = 0; i < devices.size(); i++) {
+      IoScheduler.DeviceStats device = devices.get(i);
+      if (i > 0) json.append(',');
+      json.append("{\"root\":").append(jsonString(device.getRoot()))
+              .append(",\"queued\":").append(device.getQueued())
+              .append(",\"active\":").append(device.getActive())
+              .append(",\"maxQueued\":").append(device.getMaxQueued())
+              .append(",\"completed\":").append(device.getCompleted())
+              .append(",\"bytes\":").append(device.getBytes())
+              .append(",\"averageWaitMillis\":").append(String.format(Locale.ROOT, "%.2f", device.getAverageWaitMillis()))
+              .append('}');
+    }
+    json.append("]}");
+    respond(exchange, 200, json.toString());
+  }
+
+  private void handleShutdown(HttpExchange exchange) throws IOException {
+    if (!authorize(exchange)) return;
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 405, error("请使用 POST"));
+      return;
+    }
+    respond(exchange, 202, "{\"status\":\"STOPPING\"}");
+    // 在其他线程中停止，HTTP 服务的线程不能等待自己结束
+    new Thread(this::stop, "job-server-stop").start();
+  }
+
+  private static String newToken() {
+    byte[] bytes = new byte[24];
+    new SecureRandom().nextBytes(bytes);
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  // 先删除旧文件，再以仅所有者可读写的权限新建（不支持 POSIX 权限的系统上沿用用户目录的访问控制）
+  static void writeToken(Path tokenFile, String token) throws IOException {
+    Files.deleteIfExists(tokenFile);
+    if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } else {
+      Files.createFile(tokenFile);
+    }
+    Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long parseId(String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static String toJson(Job job) {
+    long now = System.currentTimeMillis();
+    long queuedUntil = job.startedMillis > 0 ? job.startedMillis : (job.finishedMillis > 0 ? job.finishedMillis : now);
+    StringBuilder json = new StringBuilder("{");
+    json.append("\"id\":").append(job.id);
+    json.append(",\"type\":").append(jsonString(job.type));
+    json.append(",\"status\":").append(jsonString(job.status));
+    json.append(",\"queueMillis\":").append(queuedUntil - job.submittedMillis);
+    if (job.startedMillis > 0) {
+      json.append(",\"runMillis\":").append((job.finishedMillis > 0 ? job.finishedMillis : now) - job.startedMillis);
+    }
+    if (job.error != null) {
+      json.append(",\"error\":").append(jsonString(job.error));
+    }
+    return json.append('}').toString();
+  }
+
+  private static String error(String message) {
+    return "{\"error\":" + jsonString(message) + "}";
+  }
+
+  private static String jsonString(String value) {
+    StringBuilder json = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    return json.append('"').toString();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,141 @@
+package org.example.pipeline;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.fileMove.DocumentScanner;
+import org.example.fileMove.LedgerIndex;
+import org.example.fileMove.LedgerRowFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已解析文件的缓存：Excel 路径 -> 工作簿，数据搜索文件列表 -> 凭证索引
+ * <p>
+ * 以文件大小 + 修改时间判断是否过期，文件变化后重新解析。不同文件并发解析，同一文件只解析一次。
+ * 工作簿对象由调用方共享，使用时以工作簿对象加锁；会修改工作簿的调用方用完后应调用 {@link #evict}
+ */
+public class ParsedFileCache implements AutoCloseable {
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  // 一个缓存项：文件戳与解析结果，加载和校验以项本身加锁
+  private static class Entry {
+    private List<String> stamp;
+    private Object value;
+  }
+
+  private interface Loader {
+    Object load() throws Exception;
+  }
+
+  public Workbook workbook(String path) throws IOException {
+    try {
+      return (Workbook) get("workbook:" + key(path), stamp(path), () -> {
+        try (InputStream in = Files.newInputStream(Paths.get(path))) {
+          return new XSSFWorkbook(in);
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("读取Excel失败: " + path, e);
+    }
+  }
+
+  /**
+   * 载入全部记录的凭证索引（不做下推过滤，才能供不同凭证文件夹的扫描复用）
+   *
+   * @param sources 数据搜索文件，格式同 DocumentScanner.Options.ledgerSources
+   */
+  public LedgerIndex ledger(List<String> sources, int threads) throws IOException, InterruptedException {
+    List<String> stamp = new ArrayList<>();
+    StringBuilder key = new StringBuilder("ledger:");
+    for (String source : sources) {
+      int separator = source.lastIndexOf('!');
+      String filePath = separator > 0 ? source.substring(0, separator) : source;
+      stamp.addAll(stamp(filePath));
+      key.append(key(filePath)).append(separator > 0 ? source.substring(separator) : "").append(';');
+    }
+    try {
+      return (LedgerIndex) get(key.toString(), stamp,
+              () -> DocumentScanner.loadLedgerIndex(sources, LedgerRowFilter.ALL, threads));
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("读取数据搜索文件失败: " + sources, e);
+    }
+  }
+
+  /** 丢弃某个 Excel 的缓存工作簿（被修改过、不再与文件一致时） */
+  public void evict(String path) {
+    entries.remove("workbook:" + key(path));
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void close() {
+    for (Entry entry : entries.values()) {
+      synchronized (entry) {
+        if (entry.value instanceof Workbook) {
+          try {
+            ((Workbook) entry.value).close();
+          } catch (IOException e) {
+            System.err.println("关闭工作簿时出错: " + e.getMessage());
+          }
+        }
+      }
+    }
+    entries.clear();
+  }
+
+  private Object get(String key, List<String> stamp, Loader loader) throws Exception {
+    Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+    synchronized (entry) {
+      if (entry.value != null && stamp.equals(entry.stamp)) {
+        hits.incrementAndGet();
+        return entry.value;
+      }
+      misses.incrementAndGet();
+      entry.value = loader.load();
+      entry.stamp = stamp;
+      return entry.value;
+    }
+  }
+
+  private static String key(String path) {
+    return new File(path).getAbsolutePath();
+  }
+
+  private static List<String> stamp(String path) throws IOException {
+    File file = new File(path);
+    if (!file.isFile()) {
+      throw new IOException("文件不存在: " + path);
+    }
+    List<String> stamp = new ArrayList<>();
+    stamp.add(String.valueOf(file.length()));
+    stamp.add(String.valueOf(file.lastModified()));
+    return stamp;
+  }
+}
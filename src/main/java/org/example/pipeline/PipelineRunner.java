@@ -0,0 +1,390 @@
+package org.example.pipeline;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.example.fileMove.*;
+import org.example.image.ImagesAndPdfsToPdfConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 月末流水线：在一个进程中依次/并发执行 重命名 → 归档 → 校验 → 凭证扫描 → 合并PDF
+ * <p>
+ * 各阶段共享同一 JVM（POI/PDFBox 只预热一次）、同一份已解析的工作簿和目录列表缓存；
+ * 会改动目录的阶段（重命名、归档）完成后清除相应目录的缓存。
+ * 没有依赖关系的阶段并发执行，默认依赖：validate 在 archive 之后，scan 和 merge 在 rename 之后。
+ * <p>
+ * 用法：PipelineRunner [配置文件，默认 pipeline.properties]，配置文件为 UTF-8 的 properties 格式，
+ * 路径中的反斜杠需写成 \\ 或改用 /。
+ * <pre>
+ * stages=rename,archive,validate,scan,merge
+ * threads=8                      # 重命名、归档移动文件的并发数
+ * report.dir=                    # 明细输出目录，默认为 Excel 所在目录
+ *
+ * rename.dir=D:/抽凭/应付账款抽凭
+ * rename.include=*.pdf           # 只给凭证文件编号（通配符，不区分大小写），留空表示全部文件；已编号的文件跳过
+ * archive.source=D:/抽凭/凭证汇总
+ * archive.excel=D:/抽凭/样本检查记录.xlsx
+ * archive.sheet=1-6月样本检查记录
+ * archive.catalog=D:/抽凭/归档记录   # 归档记录目录，留空不记录
+ * validate.base=D:/抽凭/采购入库单截图
+ * validate.excel=                # 默认与 archive.excel 相同（共享同一工作簿）
+ * validate.sheet=                # 默认与 archive.sheet 相同
+ * validate.catalog=              # 默认与 archive.catalog 相同；设置后按记录校验，不遍历归档目录
+ * scan.source=D:/抽凭/应付账款抽凭   # 默认与 rename.dir 相同
+ * scan.ledger=D:/抽凭/数据搜索.xlsx;D:/抽凭/导出.csv   # 分号分隔，默认 scan.source/数据搜索.xlsx
+ * scan.output=                   # 默认 scan.source/审计结果.xlsx
+ * scan.verifyPdf=false
+ * scan.incremental=false         # 审计结果已存在时只处理新文件和上次的异常文件，追加到结果末尾
+ * merge.folder=D:/抽凭/付款凭证
+ * merge.output=merged_output.pdf
+ * merge.memoryBudgetMb=          # 合并时预读的估算内存上限，默认最大堆的 1/4
+ * merge.threads=4                # 预检、预读的并发数
+ * merge.linearized=false        # 线性化输出（快速 Web 查看），在文件共享、文档门户上先显示前几页
+ * validate.after=archive         # 覆盖默认依赖，逗号分隔，留空表示不依赖其他阶段
+ * io.concurrency=4               # 共享盘限流，见 IoScheduler；不配置时不限
+ * io.bandwidth=40M
+ * io.device.nas=//nas/财务,2,20M
+ * io.latencyMillis=0             # 模拟网络盘延迟，用本地目录测试
+ * </pre>
+ */
+public class PipelineRunner {
+
+  private static final List<String> KNOWN_STAGES =
+          Arrays.asList("rename", "archive", "validate", "scan", "merge");
+  private static final Map<String, String> DEFAULT_DEPENDENCIES = new HashMap<>();
+
+  static {
+    DEFAULT_DEPENDENCIES.put("validate", "archive");
+    DEFAULT_DEPENDENCIES.put("scan", "rename");
+    DEFAULT_DEPENDENCIES.put("merge", "rename");
+  }
+
+  private final Properties config;
+  private final DirectoryCache directoryCache = new DirectoryCache();
+  // 已解析的工作簿（各阶段共享，使用时以工作簿对象加锁）和凭证索引
+  private final ParsedFileCache parsedFiles;
+  // 缓存由常驻服务传入、跨多次运行共享时为 true
+  private final boolean sharedParsedFiles;
+  private final Map<String, Long> stageMillis = new ConcurrentHashMap<>();
+  private final Map<String, String> stageErrors = new ConcurrentHashMap<>();
+
+  public PipelineRunner(Properties config) {
+    this(config, new ParsedFileCache(), false);
+  }
+
+  /**
+   * 使用外部的解析缓存（常驻服务中多次运行共享），运行结束后不关闭缓存
+   */
+  public PipelineRunner(Properties config, ParsedFileCache parsedFiles) {
+    this(config, parsedFiles, true);
+  }
+
+  private PipelineRunner(Properties config, ParsedFileCache parsedFiles, boolean shared) {
+    this.config = config;
+    this.parsedFiles = parsedFiles;
+    this.sharedParsedFiles = shared;
+  }
+
+  public static void main(String[] args) {
+    String configPath = args.length > 0 ? args[0] : "pipeline.properties";
+    try {
+      Properties config = new Properties();
+      try (Reader reader = Files.newBufferedReader(Paths.get(configPath), StandardCharsets.UTF_8)) {
+        config.load(reader);
+      }
+      IoScheduler.setDefault(IoScheduler.fromConfig(config));
+      new PipelineRunner(config).run();
+    } catch (Exception e) {
+      System.err.println("流水线执行失败: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * 按依赖关系执行配置的阶段；某阶段失败时，依赖它的阶段跳过，其余阶段照常执行
+   *
+   * @return 全部阶段成功时返回 true
+   */
+  public boolean run() throws IOException, InterruptedException {
+    List<String> stages = new ArrayList<>();
+    for (String stage : get("stages", String.join(",", KNOWN_STAGES)).split(",")) {
+      if (stage.trim().isEmpty()) continue;
+      if (!KNOWN_STAGES.contains(stage.trim())) {
+        throw new IllegalArgumentException("未知阶段: " + stage.trim() + "，可选: " + KNOWN_STAGES);
+      }
+      stages.add(stage.trim());
+    }
+
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, stages.size()));
+    Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+    try {
+      for (String stage : stages) {
+        schedule(stage, stages, futures, new LinkedHashSet<>(), pool);
+      }
+      try {
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+      } catch (CompletionException e) {
+        // 失败信息已记录在 stageErrors 中
+      }
+    } finally {
+      pool.shutdownNow();
+      if (!sharedParsedFiles) parsedFiles.close();
+    }
+    long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+    printTimings(stages, wallMillis);
+    return stageErrors.isEmpty() && stageMillis.keySet().containsAll(stages);
+  }
+
+  // 先调度依赖的阶段，再在依赖全部完成后执行本阶段
+  private CompletableFuture<Void> schedule(String stage, List<String> stages,
+                                           Map<String, CompletableFuture<Void>> futures,
+                                           Set<String> visiting, Executor pool) {
+    CompletableFuture<Void> existing = futures.get(stage);
+    if (existing != null) return existing;
+    if (!visiting.add(stage)) {
+      throw new IllegalArgumentException("阶段依赖存在循环: " + visiting);
+    }
+
+    List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+    for (String dependency : dependenciesOf(stage)) {
+      // 未启用的阶段不作为依赖
+      if (stages.contains(dependency)) {
+        dependencies.add(schedule(dependency, stages, futures, visiting, pool));
+      }
+    }
+    visiting.remove(stage);
+
+    CompletableFuture<Void> future = CompletableFuture
+            .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+            .thenRunAsync(() -> runStage(stage), pool);
+    futures.put(stage, future);
+    return future;
+  }
+
+  private List<String> dependenciesOf(String stage) {
+    String value = config.getProperty(stage + ".after", DEFAULT_DEPENDENCIES.getOrDefault(stage, ""));
+    List<String> dependencies = new ArrayList<>();
+    for (String dependency : value.split(",")) {
+      if (dependency.trim().isEmpty()) continue;
+      if (!KNOWN_STAGES.contains(dependency.trim())) {
+        throw new IllegalArgumentException(stage + ".after 中的阶段未知: " + dependency.trim());
+      }
+      dependencies.add(dependency.trim());
+    }
+    return dependencies;
+  }
+
+  private void runStage(String stage) {
+    System.out.println("\n>>> 开始阶段: " + stage);
+    long start = System.nanoTime();
+    try {
+      switch (stage) {
+        case "rename":
+          rename();
+          break;
+        case "archive":
+          archive();
+          break;
+        case "validate":
+          validate();
+          break;
+        case "scan":
+          scan();
+          break;
+        case "merge":
+          merge();
+          break;
+        default:
+          throw new IllegalArgumentException("未知阶段: " + stage);
+      }
+      stageMillis.put(stage, (System.nanoTime() - start) / 1_000_000);
+      System.out.println("<<< 完成阶段: " + stage);
+    } catch (Exception e) {
+      stageErrors.put(stage, String.valueOf(e.getMessage()));
+      System.err.println("阶段 " + stage + " 失败: " + e.getMessage());
+      e.printStackTrace();
+      throw new CompletionException(e);
+    }
+  }
+
+  /** 阶段耗时（毫秒），阶段未成功完成时返回 null */
+  public Long getStageMillis(String stage) {
+    return stageMillis.get(stage);
+  }
+
+  /** 阶段失败原因，未失败时返回 null */
+  public String getStageError(String stage) {
+    return stageErrors.get(stage);
+  }
+
+  // ================ 各阶段 ================ //
+
+  private void rename() throws IOException, InterruptedException {
+    Path dir = Paths.get(require("rename.dir"));
+    // 数据搜索、审计结果等放在同一目录的文件不能改名，否则扫描找不到它们
+    RenamePlanner planner = RenamePlanner.numbered(dir, get("rename.include", "*.pdf"));
+    if (!planner.getProblems().isEmpty()) {
+      throw new IOException("重命名计划存在冲突，未改动任何文件: " + planner.getProblems());
+    }
+    if (planner.size() == 0) {
+      // 不写空的撤销日志，以免它成为最近一次日志、遮住真正可还原的批次
+      System.out.println("没有需要编号的文件");
+      return;
+    }
+    try {
+      RenamePlanner.Result result = planner.execute(getInt("threads", 8));
+      System.out.println("重命名完成，成功 " + result.getRenamed().size() + " 个，失败 "
+              + result.getFailed().size() + " 个。撤销日志: " + result.getJournal());
+      if (!result.getFailed().isEmpty()) {
+        throw new IOException("部分文件重命名失败: " + result.getFailed());
+      }
+    } finally {
+      directoryCache.invalidate(dir.toFile());
+    }
+  }
+
+  private void archive() throws IOException, InterruptedException {
+    String excel = require("archive.excel");
+    String sheet = require("archive.sheet");
+    Workbook workbook = parsedFiles.workbook(excel);
+    synchronized (workbook) {
+      // 归档会标记匹配行并新增问题文件 Sheet，之后的运行不能再用这份工作簿（本次运行的后续阶段仍可见）
+      if (sharedParsedFiles) parsedFiles.evict(excel);
+      String catalogDir = get("archive.catalog", null);
+      try (ArchiveCatalog catalog = catalogDir == null ? null : ArchiveCatalog.open(Paths.get(catalogDir));
+           ResultReporter reporter = ResultReporter.create(reportDir(excel), "归档结果",
+              ResultReporter.ConsoleMode.SUMMARY, PurchaseImageArchiver1.PROCESSED,
+              PurchaseImageArchiver1.UNMATCHED, PurchaseImageArchiver1.ERROR)) {
+        if (!PurchaseImageArchiver1.archive(workbook, excel, sheet, require("archive.source"),
+                reporter, directoryCache, getInt("threads", 8), catalog)) {
+          throw new IOException("归档未执行（映射读取失败或源文件夹没有子目录）");
+        }
+        reporter.printSummary("处理结果汇总");
+      }
+    }
+  }
+
+  private void validate() throws IOException {
+    String excel = get("validate.excel", config.getProperty("archive.excel"));
+    String sheet = get("validate.sheet", config.getProperty("archive.sheet"));
+    if (excel == null || sheet == null) {
+      throw new IllegalArgumentException("缺少配置项: validate.excel / validate.sheet");
+    }
+    ReceiptMap mapping;
+    Workbook workbook = parsedFiles.workbook(excel);
+    synchronized (workbook) {
+      mapping = FileLocationValidator.readExcelMapping(workbook, sheet);
+    }
+    if (mapping == null) {
+      throw new IOException("Excel映射关系读取失败: " + excel);
+    }
+    try (ResultReporter reporter = ResultReporter.create(reportDir(excel), "校验结果",
+            ResultReporter.ConsoleMode.SUMMARY, FileLocationValidator.CORRECT,
+            FileLocationValidator.INCORRECT, FileLocationValidator.UNMATCHED,
+            FileLocationValidator.MISSING_FOLDER)) {
+      String catalogDir = get("validate.catalog", get("archive.catalog", null));
+      if (catalogDir != null) {
+        try (ArchiveCatalog catalog = ArchiveCatalog.open(Paths.get(catalogDir))) {
+          FileLocationValidator.validateFromCatalog(require("validate.base"), mapping, reporter, catalog);
+        }
+      } else {
+        FileLocationValidator.validateArchiveStructure(require("validate.base"), mapping, reporter, directoryCache);
+      }
+      reporter.printSummary("校验结果");
+    }
+  }
+
+  private void scan() throws Exception {
+    DocumentScanner.Options options = new DocumentScanner.Options();
+    options.sourceFolderPath = get("scan.source", config.getProperty("rename.dir"));
+    if (options.sourceFolderPath == null) {
+      throw new IllegalArgumentException("缺少配置项: scan.source");
+    }
+    String ledger = get("scan.ledger", new File(options.sourceFolderPath, "数据搜索.xlsx").getPath());
+    options.ledgerSources = new ArrayList<>();
+    for (String source : ledger.split(";")) {
+      if (!source.trim().isEmpty()) options.ledgerSources.add(source.trim());
+    }
+    options.outputFilePath = get("scan.output", new File(options.sourceFolderPath, "审计结果.xlsx").getPath());
+    options.parallelism = getInt("scan.parallelism", options.parallelism);
+    options.pushdownLoad = Boolean.parseBoolean(get("scan.pushdown", String.valueOf(options.pushdownLoad)));
+    options.ingestThreads = getInt("scan.ingestThreads", options.ingestThreads);
+    options.verifyPdfText = Boolean.parseBoolean(get("scan.verifyPdf", String.valueOf(options.verifyPdfText)));
+    options.verifyPageLimit = getInt("scan.verifyPageLimit", options.verifyPageLimit);
+    options.incremental = Boolean.parseBoolean(get("scan.incremental", String.valueOf(options.incremental)));
+    options.textCacheDir = get("scan.textCacheDir", new File(options.sourceFolderPath, ".pdf_text_cache").getPath());
+    if (sharedParsedFiles) {
+      // 常驻服务中复用已载入的数据搜索记录（全量载入，不做下推过滤）
+      options.ledgerIndex = parsedFiles.ledger(options.ledgerSources, options.ingestThreads);
+    }
+    DocumentScanner.scan(options, directoryCache);
+  }
+
+  private void merge() throws IOException {
+    File folder = new File(require("merge.folder"));
+    String output = get("merge.output", "merged_output.pdf");
+    File[] files = directoryCache.listFiles(folder);
+    if (files != null) {
+      // 不把上次合并的输出文件再合并进去
+      files = Arrays.stream(files).filter(f -> !f.getName().equals(output)).toArray(File[]::new);
+    }
+    long memoryBudget = Long.parseLong(get("merge.memoryBudgetMb",
+            String.valueOf(Runtime.getRuntime().maxMemory() / 4 >> 20))) << 20;
+    ImagesAndPdfsToPdfConverter.mergeImagesAndPdfsToPdf(folder, files, output, memoryBudget,
+            getInt("merge.threads", 4), Boolean.parseBoolean(get("merge.linearized", "false")));
+    directoryCache.invalidate(folder);
+    System.out.println("PDF 合并成功: " + new File(folder, output));
+  }
+
+  // ================ 配置 ================ //
+
+  private String reportDir(String excelPath) {
+    return get("report.dir", new File(excelPath).getAbsoluteFile().getParent());
+  }
+
+  private String get(String key, String defaultValue) {
+    String value = config.getProperty(key);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  private int getInt(String key, int defaultValue) {
+    return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+  }
+
+  private String require(String key) {
+    String value = get(key, null);
+    if (value == null) {
+      throw new IllegalArgumentException("缺少配置项: " + key);
+    }
+    return value;
+  }
+
+  private void printTimings(List<String> stages, long wallMillis) {
+    System.out.println("\n=== 流水线耗时 ===");
+    long sum = 0;
+    for (String stage : stages) {
+      Long millis = stageMillis.get(stage);
+      if (millis != null) {
+        sum += millis;
+        System.out.printf("%-10s %8d ms%n", stage, millis);
+      } else if (stageErrors.containsKey(stage)) {
+        System.out.printf("%-10s %8s    %s%n", stage, "失败", stageErrors.get(stage));
+      } else {
+        System.out.printf("%-10s %8s    （依赖的阶段失败）%n", stage, "跳过");
+      }
+    }
+    System.out.printf("各阶段合计 %d ms，实际用时 %d ms；目录缓存命中 %d 次，列目录 %d 次%n",
+            sum, wallMillis, directoryCache.getHits(), directoryCache.getMisses());
+    IoScheduler.getDefault().printSummary();
+  }
+}
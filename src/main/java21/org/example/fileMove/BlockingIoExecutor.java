@@ -0,0 +1,79 @@
+package org.example.fileMove;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞文件操作（移动、创建目录等）的执行器，Java 21 及以上版本
+ * 每个任务一个虚拟线程，阻塞在网络存储上时不占用平台线程；
+ * 用信号量限制同时进行的操作数，避免压垮文件服务器
+ * 公共接口须与 src/main/java 中的同名类保持一致
+ */
+public final class BlockingIoExecutor implements AutoCloseable {
+
+  private final ExecutorService pool;
+  private final Semaphore permits;
+  private final int maxConcurrency;
+
+  private BlockingIoExecutor(int maxConcurrency) {
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.permits = new Semaphore(this.maxConcurrency);
+    this.pool = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * @param maxConcurrency 同时进行的阻塞操作上限
+   */
+  public static BlockingIoExecutor create(int maxConcurrency) {
+    return new BlockingIoExecutor(maxConcurrency);
+  }
+
+  public <T> Future<T> submit(Callable<T> task) {
+    return pool.submit(() -> {
+      // 在虚拟线程中等待许可，等待期间不占用平台线程
+      permits.acquire();
+      try {
+        return task.call();
+      } finally {
+        permits.release();
+      }
+    });
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /** 用于日志输出的说明 */
+  public String describe() {
+    return "虚拟线程，并发上限 " + maxConcurrency;
+  }
+
+  /**
+   * 等待已提交的任务全部完成后关闭
+   * 同 ExecutorService.close()：等待中被中断时取消未完成的任务，继续等到全部结束后再恢复中断标记
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (pool.awaitTermination(1, TimeUnit.MINUTES)) break;
+        System.out.println("等待文件操作完成...");
+      } catch (InterruptedException e) {
+        if (!interrupted) {
+          pool.shutdownNow();
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
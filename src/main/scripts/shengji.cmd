@@ -0,0 +1,16 @@
+@echo off
+rem Usage: shengji.cmd <command> [args]; run without arguments to list commands.
+rem Uses shengji-launcher.jsa next to this script (created by "java -jar shengji-launcher.jar cds") when present.
+setlocal
+set "DIR=%~dp0"
+set "JAR=%DIR%shengji-launcher.jar"
+set "JSA=%DIR%shengji-launcher.jsa"
+set "JAVA=java"
+if defined JAVA_HOME set "JAVA=%JAVA_HOME%\bin\java"
+
+if exist "%JSA%" (
+  "%JAVA%" -XX:SharedArchiveFile="%JSA%" -Xshare:auto %JAVA_OPTS% -cp "%JAR%" org.example.Launcher %*
+) else (
+  "%JAVA%" %JAVA_OPTS% -cp "%JAR%" org.example.Launcher %*
+)
+exit /b %ERRORLEVEL%
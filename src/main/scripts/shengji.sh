@@ -0,0 +1,12 @@
+#!/bin/sh
+# 运行工具：shengji.sh <子命令> [参数]，不带参数时列出子命令
+# 同目录下有 shengji-launcher.jsa（java -jar shengji-launcher.jar cds 生成）时使用类数据共享归档加快启动
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/shengji-launcher.jar"
+JSA="$DIR/shengji-launcher.jsa"
+if [ -n "$JAVA_HOME" ]; then JAVA="$JAVA_HOME/bin/java"; else JAVA=java; fi
+
+if [ -f "$JSA" ]; then
+  exec "$JAVA" -XX:SharedArchiveFile="$JSA" -Xshare:auto $JAVA_OPTS -cp "$JAR" org.example.Launcher "$@"
+fi
+exec "$JAVA" $JAVA_OPTS -cp "$JAR" org.example.Launcher "$@"
@@ -0,0 +1,68 @@
+package org.example.bench;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.fileMove.DocumentScanner;
+import org.example.fileMove.LedgerRowFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CorpusGeneratorTest {
+
+  @TempDir
+  Path dir;
+
+  // 语料文件名带 “、”，文件名编码不支持时跳过
+  @BeforeEach
+  void requireUnicodeFileNames() {
+    String encoding = System.getProperty("sun.jnu.encoding");
+    assumeTrue(encoding == null || Charset.forName(encoding).newEncoder().canEncode("、"));
+  }
+
+  // 账簿超过每表行数时分到多个工作表，每个工作表都有标题行，按 “!*” 读取时记录不丢失
+  @Test
+  void ledgerIsSplitAcrossSheets() throws Exception {
+    int items = 100;
+    new CorpusGenerator(dir, items, CorpusGenerator.DEFAULT_SEED, 30).generate();
+    Path ledger = dir.resolve("vouchers").resolve(CorpusGenerator.LEDGER_WORKBOOK);
+
+    int dataRows = 0;
+    try (InputStream in = Files.newInputStream(ledger); Workbook workbook = new XSSFWorkbook(in)) {
+      assertTrue(workbook.getNumberOfSheets() >= 4);
+      assertEquals(CorpusGenerator.LEDGER_SHEET, workbook.getSheetName(0));
+      assertEquals(CorpusGenerator.LEDGER_SHEET + "2", workbook.getSheetName(1));
+      for (Sheet sheet : workbook) {
+        assertEquals("凭证号", sheet.getRow(0).getCell(1).getStringCellValue());
+        assertTrue(sheet.getLastRowNum() <= 30, sheet.getSheetName() + ": " + sheet.getLastRowNum());
+        dataRows += sheet.getLastRowNum();
+      }
+    }
+    assertTrue(dataRows > items);
+
+    int loaded = DocumentScanner.loadLedgerIndex(Collections.singletonList(ledger + "!*"), LedgerRowFilter.ALL, 2)
+            .getStore().size();
+    assertEquals(dataRows, loaded);
+  }
+
+  @Test
+  void smallLedgerStaysInOneSheet() throws Exception {
+    new CorpusGenerator(dir, 20, CorpusGenerator.DEFAULT_SEED).generate();
+    try (InputStream in = Files.newInputStream(dir.resolve("vouchers").resolve(CorpusGenerator.LEDGER_WORKBOOK));
+         Workbook workbook = new XSSFWorkbook(in)) {
+      assertEquals(1, workbook.getNumberOfSheets());
+      assertEquals(CorpusGenerator.LEDGER_SHEET, workbook.getSheetName(0));
+    }
+    assertTrue(Files.isRegularFile(dir.resolve(CorpusGenerator.MARKER)));
+  }
+}
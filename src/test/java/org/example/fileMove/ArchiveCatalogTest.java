@@ -0,0 +1,215 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveCatalogTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void describeRecordsSizeAndHash() throws IOException {
+    Path file = dir.resolve("a.jpg");
+    Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+    ArchiveCatalog.Entry entry = ArchiveCatalog.describe("R1", file);
+    assertEquals(3, entry.getSize());
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", entry.getSha256());
+    assertEquals(file.toAbsolutePath().normalize().toString(), entry.getPath());
+    assertEquals("a.jpg", entry.getFileName());
+  }
+
+  @Test
+  void lookupBeforeAndAfterCompaction() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      for (int i = 0; i < 500; i++) {
+        catalog.append(entry("R" + (i % 100), "F" + (i % 12), "file" + i + ".jpg", i));
+      }
+      assertLookups(catalog);
+      catalog.compact();
+      assertLookups(catalog);
+    }
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertLookups(catalog);
+    }
+  }
+
+  // 压缩后追加的记录：同一路径改到别的入库单号、新文件，压缩前后查询结果一致
+  @Test
+  void tailOverridesIndexAndSurvivesSecondCompaction() throws IOException {
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(dir.resolve("catalog"))) {
+      catalog.append(entry("R1", "F1", "a.jpg", 1));
+      catalog.append(entry("R1", "F1", "b.jpg", 2));
+      catalog.append(entry("R2", "F2", "c.jpg", 3));
+      catalog.compact();
+
+      catalog.append(entry("R3", "F1", "a.jpg", 4));
+      catalog.append(entry("R1", "F1", "d.jpg", 5));
+      catalog.append(entry("R2", "F2", "c.jpg", 6));
+      for (int pass = 0; pass < 2; pass++) {
+        assertEquals(names("b.jpg", "d.jpg"), fileNames(catalog.findByReceipt("R1")));
+        assertEquals(names("c.jpg"), fileNames(catalog.findByReceipt("R2")));
+        assertEquals(6, catalog.findByReceipt("R2").get(0).getMovedMillis());
+        assertEquals(names("a.jpg"), fileNames(catalog.findByReceipt("R3")));
+        assertEquals(names("a.jpg", "b.jpg", "d.jpg"), fileNames(catalog.listFolder(folder("F1"))));
+        catalog.compact();
+      }
+    }
+  }
+
+  // 文件夹前缀相同（F1 与 F10）时不混在一起
+  @Test
+  void listFolderMatchesWholeName() throws IOException {
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(dir.resolve("catalog"))) {
+      catalog.append(entry("R1", "F1", "a.jpg", 1));
+      catalog.append(entry("R2", "F10", "b.jpg", 2));
+      catalog.append(entry("R3", "F1/sub", "c.jpg", 3));
+      catalog.compact();
+      assertEquals(names("a.jpg"), fileNames(catalog.listFolder(folder("F1"))));
+      assertEquals(names("a.jpg", "c.jpg"), fileNames(catalog.listUnder(folder("F1"))));
+      assertEquals(names("b.jpg"), fileNames(catalog.listFolder(folder("F10"))));
+    }
+  }
+
+  @Test
+  void incompleteLastLineIgnored() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      catalog.append(entry("R1", "F1", "a.jpg", 1));
+    }
+    Files.write(catalogDir.resolve("moves.log"), "R1\t/x/F1/b.jpg\t3".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertEquals(names("a.jpg"), fileNames(catalog.findByReceipt("R1")));
+    }
+  }
+
+  @Test
+  void closeCompactsLargeTail() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      for (int i = 0; i < 5000; i++) {
+        catalog.append(entry("R" + i, "F" + (i % 50), "file" + i + ".jpg", i));
+      }
+    }
+    assertTrue(Files.exists(catalogDir.resolve("entries-1.dat")));
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertEquals(names("file4321.jpg"), fileNames(catalog.findByReceipt("R4321")));
+      assertEquals(100, catalog.listFolder(folder("F7")).size());
+    }
+  }
+
+  // 每次压缩换一组新代号的文件，切换后删除旧的一组
+  @Test
+  void compactionSwitchesGeneration() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      catalog.append(entry("R1", "F1", "a.jpg", 1));
+      catalog.compact();
+      catalog.append(entry("R2", "F1", "b.jpg", 2));
+      catalog.compact();
+    }
+    assertFalse(Files.exists(catalogDir.resolve("entries-1.dat")));
+    assertFalse(Files.exists(catalogDir.resolve("path-1.off")));
+    assertTrue(Files.exists(catalogDir.resolve("entries-2.dat")));
+    assertTrue(Files.exists(catalogDir.resolve("receipt-2.off")));
+  }
+
+  // 模拟压缩写到一半中断：新代号的文件不完整，catalog.state 仍指向旧代号，查询不受影响
+  @Test
+  void interruptedCompactionKeepsPreviousIndex() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      for (int i = 0; i < 500; i++) {
+        catalog.append(entry("R" + (i % 100), "F" + (i % 12), "file" + i + ".jpg", i));
+      }
+      catalog.compact();
+    }
+    Files.write(catalogDir.resolve("entries-2.dat"), new byte[]{1, 2, 3});
+    Files.write(catalogDir.resolve("path-2.off"), new byte[16]);
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertLookups(catalog);
+      // 下次压缩覆盖残留的文件
+      catalog.compact();
+      assertLookups(catalog);
+    }
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertLookups(catalog);
+    }
+  }
+
+  // 索引文件与 catalog.state 记录的长度不符（被截断、被其他版本改写）时改为按日志查询
+  @Test
+  void damagedIndexFallsBackToLog() throws IOException {
+    Path catalogDir = dir.resolve("catalog");
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      for (int i = 0; i < 500; i++) {
+        catalog.append(entry("R" + (i % 100), "F" + (i % 12), "file" + i + ".jpg", i));
+      }
+      catalog.compact();
+    }
+    Path data = catalogDir.resolve("entries-1.dat");
+    byte[] bytes = Files.readAllBytes(data);
+    Files.write(data, Arrays.copyOf(bytes, bytes.length / 2));
+    try (ArchiveCatalog catalog = ArchiveCatalog.open(catalogDir)) {
+      assertLookups(catalog);
+      catalog.compact();
+      assertLookups(catalog);
+    }
+  }
+
+  @Test
+  void tabInPathRejected() {
+    assertThrows(IOException.class, () -> {
+      try (ArchiveCatalog catalog = ArchiveCatalog.open(dir.resolve("catalog"))) {
+        catalog.append(entry("R1", "F1", "a\tb.jpg", 1));
+      }
+    });
+  }
+
+  // 500 条记录：入库单号 R0..R99 各 5 条，路径 F(i%12)/file{i}.jpg
+  private void assertLookups(ArchiveCatalog catalog) throws IOException {
+    for (int r = 0; r < 100; r += 7) {
+      List<String> expected = new ArrayList<>();
+      for (int i = r; i < 500; i += 100) expected.add("file" + i + ".jpg");
+      expected.sort(null);
+      List<String> actual = fileNames(catalog.findByReceipt("R" + r));
+      actual.sort(null);
+      assertEquals(expected, actual, "R" + r);
+    }
+    assertTrue(catalog.findByReceipt("R100").isEmpty());
+    assertTrue(catalog.findByReceipt("").isEmpty());
+    assertEquals(42, catalog.listFolder(folder("F3")).size());
+    assertEquals(41, catalog.listFolder(folder("F11")).size());
+  }
+
+  private ArchiveCatalog.Entry entry(String receipt, String folder, String fileName, long movedMillis) {
+    return new ArchiveCatalog.Entry(receipt, folder(folder).resolve(fileName).toString(), 10, "00", movedMillis);
+  }
+
+  private Path folder(String name) {
+    return dir.resolve("archive").resolve(name).toAbsolutePath().normalize();
+  }
+
+  private static List<String> fileNames(List<ArchiveCatalog.Entry> entries) {
+    List<String> names = new ArrayList<>();
+    for (ArchiveCatalog.Entry entry : entries) names.add(entry.getFileName());
+    return names;
+  }
+
+  private static List<String> names(String... names) {
+    return Arrays.asList(names);
+  }
+}
@@ -0,0 +1,37 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingOutputStreamTest {
+
+  // DataOutputStream.size() 超过 2 GB 后停在 Integer.MAX_VALUE，计数必须继续增长
+  @Test
+  void countsPastTwoGigabytes() throws IOException {
+    CountingOutputStream counter = new CountingOutputStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+      }
+    });
+    DataOutputStream out = new DataOutputStream(counter);
+    byte[] block = new byte[1 << 20];
+    for (int i = 0; i < 3 * 1024; i++) {
+      out.write(block);
+    }
+    out.writeLong(1);
+    out.writeUTF("记791");
+    long expected = 3L * 1024 * (1 << 20) + 8 + 2 + "记791".getBytes(StandardCharsets.UTF_8).length;
+    assertEquals(expected, counter.getCount());
+    assertEquals(Integer.MAX_VALUE, out.size());
+  }
+}
@@ -0,0 +1,127 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvLedgerReaderTest {
+
+  private static final String HEADER = "日期,凭证号,摘要,科目全名,币别,借方金额";
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void emptyFile() throws IOException {
+    assertEquals(0, read(write("empty.csv", "")).size());
+  }
+
+  @Test
+  void headerOnlyWithNewline() throws IOException {
+    assertEquals(0, read(write("header.csv", HEADER + "\r\n")).size());
+  }
+
+  @Test
+  void headerOnlyWithoutNewline() throws IOException {
+    assertEquals(0, read(write("header.csv", HEADER)).size());
+  }
+
+  @Test
+  void lastRecordWithoutNewline() throws IOException {
+    LedgerStore store = read(write("ledger.csv", HEADER + "\n2025/01/02,记1,付款,应付账款,人民币,10\n"
+            + "2025-01-03,记2,付款,应付账款,人民币,20.5"));
+    assertEquals(2, store.size());
+    assertEquals("2025/01/03", store.row(1).getDate());
+    assertEquals(20.5, store.row(1).getDebitAmount());
+  }
+
+  @Test
+  void quotedFields() throws IOException {
+    LedgerStore store = read(write("ledger.csv", HEADER + "\r\n"
+            + "2025/01/02,记1,\"含逗号,和\"\"引号\"\"\n及换行\",应付账款,人民币,\"1,234.50\"\r\n"
+            + "2025/01/03,记2,普通,应付账款,人民币,\n"));
+    assertEquals(2, store.size());
+    LedgerStore.Row row = store.row(0);
+    assertEquals("记1", row.getVoucherNumber());
+    assertEquals("含逗号,和\"引号\"\n及换行", row.getSummary());
+    assertEquals(1234.5, row.getDebitAmount());
+    assertEquals("记2", store.row(1).getVoucherNumber());
+    assertFalse(store.row(1).hasDebitAmount());
+  }
+
+  @Test
+  void columnsByHeaderNameAndTabDelimiter() throws IOException {
+    LedgerStore store = read(write("ledger.tsv", "借方金额\t其他\t凭证号\t日期\t摘要\t科目全名\t币别\n"
+            + "99.9\tx\t记7\t2025/02/01\t摘要\t应付账款\t人民币\n"));
+    assertEquals(1, store.size());
+    assertEquals("记7", store.row(0).getVoucherNumber());
+    assertEquals("2025/02/01", store.row(0).getDate());
+    assertEquals(99.9, store.row(0).getDebitAmount());
+  }
+
+  @Test
+  void gbkDetected() throws IOException {
+    Path file = dir.resolve("gbk.csv");
+    Files.write(file, (HEADER + "\n2025/01/02,记1,采购付款,应付账款,人民币,5\n").getBytes(Charset.forName("GBK")));
+    LedgerStore store = read(file);
+    assertEquals(1, store.size());
+    assertEquals("采购付款", store.row(0).getSummary());
+  }
+
+  @Test
+  void headerLongerThanSampleRejected() throws IOException {
+    char[] padding = new char[70 * 1024];
+    Arrays.fill(padding, 'x');
+    Path file = write("long.csv", HEADER + "," + new String(padding) + "\n2025/01/02,记1,a,b,c,1\n");
+    IOException e = assertThrows(IOException.class, () -> read(file));
+    assertTrue(e.getMessage().contains("标题行"), e.getMessage());
+  }
+
+  // 超过一个切块（16 MB），每条记录都有引号内的换行，切块边界无论落在哪里都不能拆开记录
+  @Test
+  void recordsAcrossChunkBoundaries() throws IOException {
+    Path file = dir.resolve("large.csv");
+    int rows = 0;
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write(HEADER + "\n");
+      while (rows < 220_000) {
+        writer.write("2025/01/02,记" + rows + ",\"第一行\n第二行," + rows + "\",应付账款,人民币,\"1,000.00\"\n");
+        rows++;
+      }
+    }
+    assertTrue(Files.size(file) > 16 * 1024 * 1024, "测试文件应超过一个切块");
+    CsvLedgerReader reader = new CsvLedgerReader(4);
+    LedgerStore store = reader.read(file.toFile(), null, LedgerRowFilter.ALL);
+    assertEquals(rows, store.size());
+    assertEquals(rows, reader.getScannedRows());
+    for (int i = 0; i < rows; i += 997) {
+      assertEquals("记" + i, store.row(i).getVoucherNumber());
+      assertEquals("第一行\n第二行," + i, store.row(i).getSummary());
+      assertEquals(1000.0, store.row(i).getDebitAmount());
+    }
+  }
+
+  private Path write(String name, String content) throws IOException {
+    Path file = dir.resolve(name);
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static LedgerStore read(Path file) throws IOException {
+    return read(file.toFile());
+  }
+
+  private static LedgerStore read(File file) throws IOException {
+    return new CsvLedgerReader(4).read(file, null, LedgerRowFilter.ALL);
+  }
+}
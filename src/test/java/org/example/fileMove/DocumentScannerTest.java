@@ -0,0 +1,196 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DocumentScannerTest {
+
+  private static final String HEADER = "日期,凭证号,摘要,科目全名,币别,借方金额";
+  private static final int FILES = 60;
+
+  @TempDir
+  Path dir;
+
+  private Path folder;
+  private Path workbook;
+  private Path csv;
+
+  // 文件名带 “、”，文件名编码不支持时跳过
+  @BeforeEach
+  void requireUnicodeFileNames() {
+    String encoding = System.getProperty("sun.jnu.encoding");
+    assumeTrue(encoding == null || Charset.forName(encoding).newEncoder().canEncode("、"));
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    folder = Files.createDirectories(dir.resolve("vouchers"));
+    workbook = dir.resolve("数据搜索.xlsx");
+    csv = dir.resolve("补充.csv");
+  }
+
+  // 并行匹配、下推载入与顺序匹配、全量载入的结果逐格相同，行顺序也相同
+  @Test
+  void parallelAndPushdownMatchSequentialFullLoad() throws Exception {
+    writeCorpus();
+    List<List<String>> expected = scan(1, false);
+
+    // 正常匹配按索引号（数字顺序）在前，未匹配、匹配到多条的在后
+    assertEquals(FILES, expected.size());
+    List<String> indexes = new ArrayList<>();
+    Map<String, Integer> conclusions = new TreeMap<>();
+    for (List<String> row : expected) {
+      indexes.add(row.get(8));
+      conclusions.merge(row.get(9), 1, Integer::sum);
+    }
+    assertEquals(47, conclusions.get("无异常").intValue());
+    assertEquals(7, conclusions.get("异常：未匹配到数据").intValue());
+    assertEquals(6, conclusions.get("异常：匹配到多条数据").intValue());
+    assertEquals(Arrays.asList("F2202-50-1", "F2202-50-2", "F2202-50-4"), indexes.subList(0, 3));
+    assertEquals("F2202-50-10", indexes.get(7));
+    assertEquals("F2202-50-7", indexes.get(47));
+    assertEquals("F2202-50-59", indexes.get(53));
+    assertEquals("F2202-50-3", indexes.get(54));
+    // 两个来源合并，带数据来源列
+    assertEquals(Arrays.asList("2025/02/05", "记101", "摘要1", "应付账款", "人民币", "101.50", "", "",
+            "F2202-50-1", "无异常", "数据搜索.xlsx"), expected.get(0));
+    assertEquals("F2202-50-11", expected.get(8).get(8));
+    assertEquals("补充.csv", expected.get(8).get(10));
+
+    assertEquals(expected, scan(1, true));
+    assertEquals(expected, scan(4, false));
+    assertEquals(expected, scan(4, true));
+  }
+
+  // CSV 没有工作表：带 “!工作表” 时明确报错，而不是把整个来源当作文件名打开
+  @Test
+  void csvSourceWithSheetSuffixIsRejected() throws Exception {
+    Files.write(csv, Arrays.asList(HEADER, "2025/05/10,记791,采购,应付账款,人民币,100.00"), StandardCharsets.UTF_8);
+    IOException e = assertThrows(IOException.class, () ->
+            DocumentScanner.loadLedgerIndex(Collections.singletonList(csv + "!x"), LedgerRowFilter.ALL, 1));
+    assertTrue(e.getMessage().contains("CSV") && e.getMessage().contains("!x"), e.getMessage());
+
+    // 与其他来源一起配置时同样报错
+    writeWorkbook(workbook, Collections.singletonList(new String[]{"2025/05/11", "记792", "采购", "应付账款", "人民币", "1"}));
+    assertThrows(IOException.class, () ->
+            DocumentScanner.loadLedgerIndex(Arrays.asList(workbook + "!*", csv + "!x"), LedgerRowFilter.ALL, 2));
+
+    LedgerStore store = DocumentScanner.loadLedgerIndex(Arrays.asList(workbook + "!*", csv.toString()),
+            LedgerRowFilter.ALL, 2).getStore();
+    assertEquals(2, store.size());
+    assertEquals("补充.csv", store.row(1).getSource());
+  }
+
+  // 路径中含 “!” 的文件按整个路径读取
+  @Test
+  void pathContainingExclamationMark() throws Exception {
+    Path odd = Files.createDirectories(dir.resolve("a!b")).resolve("ledger.csv");
+    Files.write(odd, Arrays.asList(HEADER, "2025/05/10,记791,采购,应付账款,人民币,100.00"), StandardCharsets.UTF_8);
+    LedgerStore store = DocumentScanner.loadLedgerIndex(Collections.singletonList(odd.toString()),
+            LedgerRowFilter.ALL, 1).getStore();
+    assertEquals(1, store.size());
+    assertEquals("记791", store.row(0).getVoucherNumber());
+  }
+
+  // 第 i 个文件：凭证号 100+i，年月 2025.(i%12+1)；i%10==3 的账上有两条，i%10==7 的账上没有，第 59 个年月不合法
+  // 能匹配的记录一部分在工作簿，一部分在 CSV；另有同凭证号不同月份、同月份不同凭证号的干扰行
+  private void writeCorpus() throws IOException {
+    List<String[]> workbookRows = new ArrayList<>();
+    List<String> csvLines = new ArrayList<>(Collections.singletonList(HEADER));
+    List<Integer> order = new ArrayList<>();
+    for (int i = 1; i <= FILES; i++) order.add(i);
+    Collections.shuffle(order, new Random(42));
+
+    for (int i : order) {
+      int month = i % 12 + 1;
+      String yearMonth = i == 59 ? "2025.13" : String.format("2025.%02d", month);
+      Files.createFile(folder.resolve(i + "、" + yearMonth + "#" + (100 + i) + ".pdf"));
+
+      String date = String.format("2025/%02d/05", month);
+      String[] row = {date, "记" + (100 + i), "摘要" + i, "应付账款", "人民币", (100 + i) + ".50"};
+      if (i % 10 != 7) {
+        if (i % 4 == 3) {
+          csvLines.add(String.join(",", row));
+        } else {
+          workbookRows.add(row);
+        }
+      }
+      if (i % 10 == 3) {
+        workbookRows.add(new String[]{String.format("2025/%02d/20", month), "记" + (100 + i), "重复" + i,
+                "应付账款", "人民币", "1.00"});
+      }
+      workbookRows.add(new String[]{String.format("2025/%02d/05", (month % 12) + 1), "记" + (100 + i), "他月",
+              "应付账款", "人民币", "2.00"});
+      csvLines.add(String.join(",", date, "记" + (500 + i), "他号", "银行存款", "人民币", "3.00"));
+    }
+    // 不符合命名规则的文件不参与匹配
+    Files.createFile(folder.resolve("说明.pdf"));
+    Files.createFile(folder.resolve("2025.05#101.pdf"));
+
+    writeWorkbook(workbook, workbookRows);
+    Files.write(csv, csvLines, StandardCharsets.UTF_8);
+  }
+
+  private List<List<String>> scan(int parallelism, boolean pushdown) throws Exception {
+    DocumentScanner.Options options = new DocumentScanner.Options();
+    options.sourceFolderPath = folder.toString();
+    options.outputFilePath = dir.resolve("审计结果-" + parallelism + "-" + pushdown + ".xlsx").toString();
+    options.ledgerSources = Arrays.asList(workbook.toString(), csv.toString());
+    options.parallelism = parallelism;
+    options.pushdownLoad = pushdown;
+    options.ingestThreads = 2;
+    DocumentScanner.scan(options, new DirectoryCache());
+    return readResult(Paths.get(options.outputFilePath));
+  }
+
+  private static void writeWorkbook(Path path, List<String[]> rows) throws IOException {
+    try (Workbook workbook = new XSSFWorkbook()) {
+      Sheet sheet = workbook.createSheet("数据搜索");
+      String[] header = HEADER.split(",");
+      Row headerRow = sheet.createRow(0);
+      for (int j = 0; j < header.length; j++) headerRow.createCell(j).setCellValue(header[j]);
+      for (int i = 0; i < rows.size(); i++) {
+        Row row = sheet.createRow(i + 1);
+        for (int j = 0; j < rows.get(i).length; j++) {
+          row.createCell(j).setCellValue(rows.get(i)[j]);
+        }
+      }
+      try (OutputStream out = Files.newOutputStream(path)) {
+        workbook.write(out);
+      }
+    }
+  }
+
+  // 审计结果的数据行，每格按显示文本
+  private static List<List<String>> readResult(Path path) throws IOException {
+    DataFormatter formatter = new DataFormatter(Locale.ROOT);
+    List<List<String>> rows = new ArrayList<>();
+    try (InputStream in = Files.newInputStream(path); Workbook workbook = new XSSFWorkbook(in)) {
+      for (Row row : workbook.getSheet("审计结果")) {
+        if (row.getRowNum() == 0) continue;
+        List<String> cells = new ArrayList<>();
+        for (int j = 0; j < row.getLastCellNum(); j++) {
+          cells.add(formatter.formatCellValue(row.getCell(j)));
+        }
+        rows.add(cells);
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,211 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IoSchedulerTest {
+
+  @TempDir
+  Path dir;
+
+  // 同时进行的操作数不超过设备上限，多出的排队
+  @Test
+  void concurrencyIsCappedPerDevice() throws Exception {
+    IoScheduler scheduler = new IoScheduler(0, 0);
+    scheduler.addDevice(dir.toString(), 3, 0);
+    scheduler.setLatencyMillis(20);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    ExecutorService pool = Executors.newFixedThreadPool(12);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 24; i++) {
+        Path file = dir.resolve("f" + i);
+        futures.add(pool.submit(() -> scheduler.run(file, 0, () -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+          running.decrementAndGet();
+          return 1;
+        })));
+      }
+      for (Future<Integer> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(maxRunning.get() <= 3, "最大并发 " + maxRunning.get());
+    assertTrue(maxRunning.get() >= 2, "最大并发 " + maxRunning.get());
+    IoScheduler.DeviceStats stats = stats(scheduler, dir);
+    assertEquals(3, stats.getMaxConcurrency());
+    assertEquals(24, stats.getCompleted());
+    assertEquals(0, stats.getActive());
+    assertEquals(0, stats.getQueued());
+    assertTrue(stats.getMaxQueued() > 0);
+    assertTrue(stats.getAverageWaitMillis() > 0);
+  }
+
+  // 排队数：占满名额后再提交的操作都在排队，名额释放后归零，最大值保留
+  @Test
+  void queueDepthIsReported() throws Exception {
+    IoScheduler scheduler = new IoScheduler(0, 0);
+    scheduler.addDevice(dir.toString(), 2, 0);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService pool = Executors.newFixedThreadPool(5);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        futures.add(pool.submit(() -> scheduler.run(dir, 0, () -> {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+          return null;
+        })));
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      IoScheduler.DeviceStats stats = stats(scheduler, dir);
+      while ((stats.getActive() != 2 || stats.getQueued() != 3) && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+        stats = stats(scheduler, dir);
+      }
+      assertEquals(2, stats.getActive());
+      assertEquals(3, stats.getQueued());
+      assertEquals(0, stats.getCompleted());
+
+      release.countDown();
+      for (Future<Void> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+
+    IoScheduler.DeviceStats stats = stats(scheduler, dir);
+    assertEquals(0, stats.getActive());
+    assertEquals(0, stats.getQueued());
+    assertEquals(3, stats.getMaxQueued());
+    assertEquals(5, stats.getCompleted());
+  }
+
+  // 令牌桶：首秒可突发 rate 字节，超出部分按速率折算等待
+  @Test
+  void bandwidthLimitsThroughput() throws Exception {
+    long rate = 100_000;
+    IoScheduler scheduler = new IoScheduler(0, 0);
+    scheduler.addDevice(dir.toString(), 0, rate);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      scheduler.run(dir.resolve("f" + i), 50_000, () -> null);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    // 250 000 字节减去 100 000 的突发，至少 1.5 秒
+    assertTrue(seconds >= 1.45, "耗时 " + seconds);
+    assertTrue(seconds < 5, "耗时 " + seconds);
+    IoScheduler.DeviceStats stats = stats(scheduler, dir);
+    assertEquals(250_000, stats.getBytes());
+    assertEquals(rate, stats.getBytesPerSecond());
+    assertTrue(stats.getAverageWaitMillis() >= 250, "平均等待 " + stats.getAverageWaitMillis());
+  }
+
+  // 失败的操作只计次数，不计字节
+  @Test
+  void bytesAreCountedOnlyOnSuccess() throws Exception {
+    IoScheduler scheduler = new IoScheduler(0, 0);
+    scheduler.addDevice(dir.toString(), 1, 0);
+    assertEquals("ok", scheduler.run(dir.resolve("a"), 100, () -> "ok"));
+    assertThrows(IOException.class, () -> scheduler.run(dir.resolve("b"), 1000, () -> {
+      throw new IOException("磁盘已满");
+    }));
+
+    IoScheduler.DeviceStats stats = stats(scheduler, dir);
+    assertEquals(100, stats.getBytes());
+    assertEquals(2, stats.getCompleted());
+    assertEquals(0, stats.getActive());
+    // 失败后名额已归还
+    assertEquals("again", scheduler.run(dir.resolve("c"), 0, () -> "again"));
+  }
+
+  // 模拟延迟加在每个操作上，但不算进等待时间
+  @Test
+  void latencyDelaysEachOperation() throws Exception {
+    IoScheduler scheduler = new IoScheduler(0, 0);
+    scheduler.addDevice(dir.toString(), 0, 0);
+    scheduler.setLatencyMillis(50);
+    long start = System.nanoTime();
+    for (int i = 0; i < 3; i++) {
+      scheduler.run(dir, 0, () -> null);
+    }
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+    assertTrue(stats(scheduler, dir).getAverageWaitMillis() < 50);
+  }
+
+  @Test
+  void configuredDevicesAndMoveBytes() throws Exception {
+    Path nas = Files.createDirectories(dir.resolve("nas"));
+    Path deep = Files.createDirectories(nas.resolve("deep"));
+    Path local = Files.createDirectories(dir.resolve("local"));
+    Properties config = new Properties();
+    config.setProperty("io.concurrency", "4");
+    config.setProperty("io.bandwidth", "40M");
+    config.setProperty("io.device.nas", nas + ",2,20M");
+    config.setProperty("io.device.deep", deep + ", 1, 512K");
+    IoScheduler scheduler = IoScheduler.fromConfig(config);
+
+    assertEquals(2, stats(scheduler, nas).getMaxConcurrency());
+    assertEquals(20L << 20, stats(scheduler, nas).getBytesPerSecond());
+    assertEquals(512L << 10, stats(scheduler, deep).getBytesPerSecond());
+
+    // 最长前缀：deep 下的路径属于 deep，而不是 nas
+    scheduler.run(deep.resolve("x.pdf"), 10, () -> null);
+    assertEquals(10, stats(scheduler, deep).getBytes());
+    assertEquals(0, stats(scheduler, nas).getBytes());
+
+    Path file = nas.resolve("a.pdf");
+    Files.write(file, new byte[1234]);
+    assertEquals(0, scheduler.moveBytes(file, nas.resolve("sub")));
+    assertEquals(1234, scheduler.moveBytes(file, deep));
+    assertEquals(1234, scheduler.moveBytes(file, local));
+
+    config.setProperty("io.device.bad", nas.toString());
+    assertThrows(IllegalArgumentException.class, () -> IoScheduler.fromConfig(config));
+  }
+
+  @Test
+  void parseBytes() {
+    assertEquals(0, IoScheduler.parseBytes("0"));
+    assertEquals(1536, IoScheduler.parseBytes("1.5K"));
+    assertEquals(40L << 20, IoScheduler.parseBytes(" 40m "));
+    assertEquals(2L << 30, IoScheduler.parseBytes("2G"));
+  }
+
+  private static IoScheduler.DeviceStats stats(IoScheduler scheduler, Path root) {
+    String expected = root.toFile().getAbsolutePath();
+    for (IoScheduler.DeviceStats stats : scheduler.getStats()) {
+      if (stats.getRoot().equals(expected)) return stats;
+    }
+    throw new AssertionError("没有设备 " + expected + "：" + scheduler.getStats());
+  }
+}
@@ -0,0 +1,64 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerStoreTest {
+
+  @Test
+  void rowsKeepTheirValues() {
+    LedgerStore store = new LedgerStore("a.xlsx!Sheet1", 1);
+    int day = LedgerStore.parseEpochDay("2025/5/3");
+    for (int i = 0; i < 100; i++) {
+      store.add(day, "记" + (i % 3), "摘要" + i, "应付账款", "人民币", i == 7 ? "见附件" : String.valueOf(i));
+    }
+    store.add(LedgerStore.NO_DATE, "记9", null, "", "", "");
+
+    assertEquals(101, store.size());
+    LedgerStore.Row row = store.row(7);
+    assertEquals("2025/05/03", row.getDate());
+    assertEquals("记1", row.getVoucherNumber());
+    assertEquals("摘要7", row.getSummary());
+    assertEquals("应付账款", row.getSubject());
+    assertFalse(row.hasDebitAmount());
+    assertEquals("见附件", row.getDebitText());
+    assertEquals(99.0, store.row(99).getDebitAmount());
+    assertEquals("a.xlsx!Sheet1", store.row(99).getSource());
+
+    LedgerStore.Row empty = store.row(100);
+    assertEquals("", empty.getDate());
+    assertNull(empty.getSummary());
+    assertEquals("", empty.getDebitText());
+    assertThrows(IndexOutOfBoundsException.class, () -> store.row(101));
+  }
+
+  // 合并时字典列按目标存储重新编码，摘要、来源、非数字金额跟随各自的行
+  @Test
+  void appendAllKeepsRowsAndSources() {
+    LedgerStore first = new LedgerStore("a.xlsx!Sheet1", 16);
+    first.add(LedgerStore.NO_DATE, "记1", "采购", "应付账款", "人民币", "100.00");
+    LedgerStore second = new LedgerStore("b.csv", 16);
+    second.add(LedgerStore.NO_DATE, "记2", "付款", "银行存款", "美元", "待定");
+    second.add(LedgerStore.NO_DATE, "记1", "退货", "应付账款", "人民币", "-5");
+
+    LedgerStore merged = new LedgerStore();
+    merged.appendAll(first);
+    merged.appendAll(second);
+
+    assertEquals(3, merged.size());
+    assertEquals("采购", merged.row(0).getSummary());
+    assertEquals("a.xlsx!Sheet1", merged.row(0).getSource());
+    assertEquals("付款", merged.row(1).getSummary());
+    assertEquals("美元", merged.row(1).getCurrency());
+    assertEquals("待定", merged.row(1).getDebitText());
+    assertEquals("b.csv", merged.row(1).getSource());
+    assertEquals("退货", merged.row(2).getSummary());
+    assertEquals(-5.0, merged.row(2).getDebitAmount());
+    assertEquals(merged.getVoucherCode(0), merged.getVoucherCode(2));
+    assertEquals(merged.getVoucherCode(2), merged.lookupVoucherCode("记1"));
+    assertEquals(-1, merged.lookupVoucherCode("记3"));
+    // 空来源（默认构造）加上两个合并进来的来源
+    assertEquals(3, merged.sourceCount());
+  }
+}
@@ -0,0 +1,96 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptMapTest {
+
+  @Test
+  void packedKeysKeepPrefixDashAndDigits() {
+    ReceiptMap map = new ReceiptMap();
+    map.put("CGRK-250415012167", "F1");
+    map.put("CGRK250415012167", "F2");
+    map.put("CGR-250415012167", "F3");
+    map.put("ZZZZ-000000000000", "F4");
+    map.put("A-999999999999", "F5");
+
+    assertEquals(0, map.getFallbackSize());
+    assertEquals(5, map.size());
+    assertEquals("F1", map.get("CGRK-250415012167"));
+    assertEquals("F2", map.get("CGRK250415012167"));
+    assertEquals("F3", map.get("CGR-250415012167"));
+    assertEquals("F4", map.get("ZZZZ-000000000000"));
+    assertEquals("F5", map.get("A-999999999999"));
+    assertNull(map.get("CGRK-250415012168"));
+    assertNull(map.get("CGRJ-250415012167"));
+  }
+
+  @Test
+  void irregularKeysUseFallback() {
+    ReceiptMap map = new ReceiptMap();
+    map.put("cgrk-250415012167", "F1");
+    map.put("ABCDE-250415012167", "F2");
+    map.put("CGRK-2504150121", "F3");
+    map.put("入库单1", "F4");
+
+    assertEquals(4, map.getFallbackSize());
+    assertEquals("F1", map.get("cgrk-250415012167"));
+    assertEquals("F2", map.get("ABCDE-250415012167"));
+    assertEquals("F3", map.get("CGRK-2504150121"));
+    assertEquals("F4", map.get("入库单1"));
+    assertNull(map.get("CGRK-250415012167"));
+  }
+
+  @Test
+  void putOverwritesFolder() {
+    ReceiptMap map = new ReceiptMap();
+    map.put("CGRK-250415012167", "F1");
+    map.put("CGRK-250415012167", "F2");
+    assertEquals(1, map.size());
+    assertEquals("F2", map.get("CGRK-250415012167"));
+  }
+
+  @Test
+  void matchStripsSuffixes() {
+    ReceiptMap map = new ReceiptMap();
+    map.put("CGRK-250415012167", "F1");
+    map.put("CGRK-250415012168-1", "F2");
+    map.put("入库单", "F3");
+
+    assertEquals(17, map.match("CGRK-250415012167"));
+    assertEquals(17, map.match("CGRK-250415012167-2"));
+    assertEquals(17, map.match("CGRK-250415012167(3)"));
+    assertEquals(17, map.match("CGRK-250415012167 (3)"));
+    assertEquals(17, map.match("CGRK-250415012167-1(2)"));
+    assertEquals(19, map.match("CGRK-250415012168-1(2)"));
+    assertEquals(3, map.match("入库单-5"));
+    assertEquals(-1, map.match("CGRK-250415012167x"));
+    assertEquals(-1, map.match("CGRK-250415012167-"));
+    assertEquals(-1, map.match("IMG_0001"));
+  }
+
+  // 扩容前后与 HashMap 结果一致
+  @Test
+  void growsAndMatchesHashMap() {
+    ReceiptMap map = new ReceiptMap(4);
+    Map<String, String> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 50_000; i++) {
+      String receipt = "CGRK-" + (250400000000L + random.nextInt(1_000_000));
+      String folder = "F" + random.nextInt(500);
+      map.put(receipt, folder);
+      expected.put(receipt, folder);
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<String, String> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+    assertEquals(new HashSet<>(expected.values()), map.getFolders());
+  }
+}
@@ -0,0 +1,232 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RenamePlannerTest {
+
+  @TempDir
+  Path dir;
+
+  // 目标名带 “、”，文件名编码不支持时（如没有 UTF-8 区域设置的 Linux）跳过
+  @BeforeEach
+  void requireUnicodeFileNames() {
+    String encoding = System.getProperty("sun.jnu.encoding");
+    assumeTrue(encoding == null || Charset.forName(encoding).newEncoder().canEncode("、"));
+  }
+
+  @Test
+  void numbersInNaturalOrder() throws Exception {
+    create("10.pdf", "2.pdf", "a.pdf");
+    RenamePlanner planner = RenamePlanner.numbered(dir);
+    assertTrue(planner.getProblems().isEmpty(), planner.getProblems().toString());
+
+    RenamePlanner.Result result = planner.execute(4);
+    assertTrue(result.getFailed().isEmpty(), result.getFailed().toString());
+    assertEquals(set("1、2.pdf", "2、10.pdf", "3、a.pdf"), files());
+    assertEquals("2.pdf", content("1、2.pdf"));
+  }
+
+  @Test
+  void skipsNumberedFilesAndContinuesNumbering() throws Exception {
+    create("1、2025.05#1.pdf", "2、2025.05#2.pdf", "2025.05#3.pdf", "10.pdf");
+    RenamePlanner planner = RenamePlanner.numbered(dir);
+    assertEquals(2, planner.size());
+    planner.execute(2);
+    assertEquals(set("1、2025.05#1.pdf", "2、2025.05#2.pdf", "3、10.pdf", "4、2025.05#3.pdf"), files());
+
+    // 再次运行没有需要编号的文件，不会产生 “1、1、”
+    assertEquals(0, RenamePlanner.numbered(dir).size());
+  }
+
+  @Test
+  void includeGlobLimitsFiles() throws Exception {
+    create("2025.05#1.PDF", "2025.05#2.pdf", "数据搜索.xlsx", "审计结果.xlsx");
+    RenamePlanner.numbered(dir, "*.pdf").execute(2);
+    assertEquals(set("1、2025.05#1.PDF", "2、2025.05#2.pdf", "数据搜索.xlsx", "审计结果.xlsx"), files());
+  }
+
+  // 修复前的版本会给已编号的文件再加前缀，还原这样的批次时 2、x.pdf 既是原名又是另一文件的目标名，须经临时名中转
+  @Test
+  void chainGoesThroughTemporaryName() throws Exception {
+    Path legacy = legacyBatch();
+    RenamePlanner planner = RenamePlanner.undo(legacy);
+    assertEquals(1, planner.getChainCount());
+
+    planner.execute(2);
+    assertEquals(set("2、x.pdf", "x.pdf", "y.pdf"), files());
+    assertEquals("2、x.pdf", content("2、x.pdf"));
+    assertEquals("x.pdf", content("x.pdf"));
+  }
+
+  @Test
+  void occupiedTargetBlocksWholeBatch() throws Exception {
+    create("a.pdf", "b.pdf");
+    Files.createDirectory(dir.resolve("2、b.pdf"));
+    RenamePlanner planner = RenamePlanner.numbered(dir);
+    assertFalse(planner.getProblems().isEmpty());
+    assertThrows(IllegalStateException.class, () -> planner.execute(2));
+    assertEquals(set("a.pdf", "b.pdf", "2、b.pdf"), files());
+  }
+
+  @Test
+  void undoCompletedBatch() throws Exception {
+    create("x.pdf", "y.pdf");
+    Path journal = RenamePlanner.numbered(dir).execute(2).getJournal();
+    assertEquals(set("1、x.pdf", "2、y.pdf"), files());
+
+    RenamePlanner undo = RenamePlanner.undo(journal);
+    assertTrue(undo.getProblems().isEmpty(), undo.getProblems().toString());
+    undo.execute(2);
+    assertEquals(set("x.pdf", "y.pdf"), files());
+    assertEquals("x.pdf", content("x.pdf"));
+  }
+
+  // 模拟阶段一完成后中断：需要中转的文件停留在临时名，其余文件仍是原名
+  @Test
+  void undoAfterCrashBetweenPhases() throws Exception {
+    Path journal = RenamePlanner.undo(legacyBatch()).execute(2).getJournal();
+    int temporary = 0;
+    for (String[] line : journalLines(journal)) {
+      if (!line[1].isEmpty()) {
+        Files.move(dir.resolve(line[2]), dir.resolve(line[1]));
+        temporary++;
+      } else {
+        Files.move(dir.resolve(line[2]), dir.resolve(line[0]));
+      }
+    }
+    assertEquals(1, temporary);
+    assertFalse(files().contains("2、x.pdf"));
+
+    // 规划新批次时不应把临时名当作待编号的文件
+    assertEquals(0, RenamePlanner.numbered(dir).size());
+
+    RenamePlanner undo = RenamePlanner.undo(journal);
+    assertTrue(undo.getProblems().isEmpty(), undo.getProblems().toString());
+    undo.execute(2);
+    assertEquals(set("1、2、x.pdf", "2、x.pdf", "3、y.pdf"), files());
+    assertEquals("2、x.pdf", content("1、2、x.pdf"));
+    assertEquals("x.pdf", content("2、x.pdf"));
+  }
+
+  // 模拟阶段二部分完成后中断：一个文件已是目标名，另一个还在临时名
+  @Test
+  void undoAfterCrashDuringSecondPhase() throws Exception {
+    Path journal = RenamePlanner.undo(legacyBatch()).execute(2).getJournal();
+    for (String[] line : journalLines(journal)) {
+      if (!line[1].isEmpty()) Files.move(dir.resolve(line[2]), dir.resolve(line[1]));
+    }
+
+    RenamePlanner undo = RenamePlanner.undo(journal);
+    assertTrue(undo.getProblems().isEmpty(), undo.getProblems().toString());
+    undo.execute(2);
+    assertEquals(set("1、2、x.pdf", "2、x.pdf", "3、y.pdf"), files());
+    assertEquals("2、x.pdf", content("1、2、x.pdf"));
+    assertEquals("x.pdf", content("2、x.pdf"));
+  }
+
+  @Test
+  void undoReportsMissingFile() throws Exception {
+    create("a.pdf");
+    Path journal = RenamePlanner.numbered(dir).execute(1).getJournal();
+    Files.delete(dir.resolve("1、a.pdf"));
+    RenamePlanner undo = RenamePlanner.undo(journal);
+    assertEquals(1, undo.getProblems().size());
+    assertTrue(undo.getProblems().get(0).contains("a.pdf"));
+  }
+
+  // 同一秒内的多个批次按序号比较，不按文件名字符串比较；其他名称的文件不算日志
+  @Test
+  void latestJournalOrdersBySequenceWithinBatch() throws Exception {
+    assertNull(RenamePlanner.latestJournal(dir));
+    String prefix = RenamePlanner.JOURNAL_PREFIX;
+    Files.createFile(dir.resolve(prefix + "20250101000000.tsv"));
+    assertEquals(prefix + "20250101000000.tsv", RenamePlanner.latestJournal(dir).getFileName().toString());
+    Files.createFile(dir.resolve(prefix + "20250101000000-2.tsv"));
+    assertEquals(prefix + "20250101000000-2.tsv", RenamePlanner.latestJournal(dir).getFileName().toString());
+    Files.createFile(dir.resolve(prefix + "20250101000000-10.tsv"));
+    Files.createFile(dir.resolve(prefix + "20250101000000-9.tsv"));
+    Files.createFile(dir.resolve(prefix + "20250101000000-x.tsv"));
+    Files.createFile(dir.resolve(prefix + "backup.tsv"));
+    assertEquals(prefix + "20250101000000-10.tsv", RenamePlanner.latestJournal(dir).getFileName().toString());
+
+    // 后一秒的批次优先于前一秒的任何序号
+    Files.createFile(dir.resolve(prefix + "20250101000001.tsv"));
+    assertEquals(prefix + "20250101000001.tsv", RenamePlanner.latestJournal(dir).getFileName().toString());
+  }
+
+  // 同一秒内连续执行两批，撤销时取后一批
+  @Test
+  void latestJournalIsLastExecutedBatch() throws Exception {
+    create("a.pdf");
+    Path first = RenamePlanner.numbered(dir).execute(1).getJournal();
+    create("b.pdf");
+    Path second = RenamePlanner.numbered(dir).execute(1).getJournal();
+    Path latest = RenamePlanner.latestJournal(dir);
+    assertEquals(second, latest);
+    assertNotEquals(first, latest);
+  }
+
+  @Test
+  void naturalKeyOrder() {
+    List<String> names = new ArrayList<>(Arrays.asList("10、b", "2、a", "002、a", "B", "a"));
+    names.sort(Comparator.comparing(RenamePlanner.NaturalKey::new));
+    assertEquals(Arrays.asList("002、a", "2、a", "10、b", "a", "B"), names);
+  }
+
+  // 修复前的版本对 {2、x.pdf, x.pdf, y.pdf} 编号后的目录和日志
+  private Path legacyBatch() throws IOException {
+    Files.write(dir.resolve("1、2、x.pdf"), "2、x.pdf".getBytes(StandardCharsets.UTF_8));
+    Files.write(dir.resolve("2、x.pdf"), "x.pdf".getBytes(StandardCharsets.UTF_8));
+    Files.write(dir.resolve("3、y.pdf"), "y.pdf".getBytes(StandardCharsets.UTF_8));
+    Path journal = dir.resolve(RenamePlanner.JOURNAL_PREFIX + "20250101000000.tsv");
+    Files.write(journal, Arrays.asList("# " + dir.toAbsolutePath(),
+            "2、x.pdf\t\t1、2、x.pdf", "x.pdf\t\t2、x.pdf", "y.pdf\t\t3、y.pdf"), StandardCharsets.UTF_8);
+    return journal;
+  }
+
+  // 文件内容为原名，用于确认改名后的对应关系
+  private void create(String... names) throws IOException {
+    for (String name : names) {
+      Files.write(dir.resolve(name), name.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private String content(String name) throws IOException {
+    return new String(Files.readAllBytes(dir.resolve(name)), StandardCharsets.UTF_8);
+  }
+
+  // 目录中的文件和子目录，不含撤销日志
+  private Set<String> files() throws IOException {
+    try (Stream<Path> stream = Files.list(dir)) {
+      return stream.map(path -> path.getFileName().toString())
+              .filter(name -> !name.startsWith(RenamePlanner.JOURNAL_PREFIX))
+              .collect(Collectors.toSet());
+    }
+  }
+
+  private static List<String[]> journalLines(Path journal) throws IOException {
+    List<String[]> lines = new ArrayList<>();
+    for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+      if (!line.startsWith("# ") && !line.isEmpty()) lines.add(line.split("\t", -1));
+    }
+    return lines;
+  }
+
+  private static Set<String> set(String... names) {
+    return new HashSet<>(Arrays.asList(names));
+  }
+}
@@ -0,0 +1,60 @@
+package org.example.fileMove;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoucherPdfVerifierTest {
+
+  @Test
+  void voucherNumberWithPrefixOrLabel() {
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("记账凭证\n记791\n", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("凭证字号：记-791 附件 2 张", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("记 0791", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("记字第791号", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("凭证号: 00791", "记0791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("字号 791", "记791"));
+  }
+
+  // 单独出现的数字是金额、日期、页码或其他凭证的分录，不能当作凭证号
+  @Test
+  void bareDigitsAreNotVoucherNumbers() {
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记-100 借方 791.00", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记-100 日期 2025-07-91", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记-100 第 791 页", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记-100 应付账款 791 元", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记账凭证 791", "记791"));
+  }
+
+  @Test
+  void voucherNumberFollowedByDecimalOrLongerNumber() {
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记791.00", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记791,000", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记7910", "记791"));
+    assertFalse(VoucherPdfVerifier.containsVoucherNumber("记1791", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("记791。", "记791"));
+    assertTrue(VoucherPdfVerifier.containsVoucherNumber("记791, 附件", "记791"));
+  }
+
+  // 只去掉千分位逗号（逗号后恰好三位数字），相邻的数字不会因此连在一起
+  @Test
+  void amountIgnoresOnlyThousandsSeparators() {
+    assertTrue(VoucherPdfVerifier.containsAmount("合计 1,234,567.80", 1234567.8));
+    assertTrue(VoucherPdfVerifier.containsAmount("借方 12，345.00", 12345));
+    assertTrue(VoucherPdfVerifier.containsAmount("12345.00", 12345));
+    assertFalse(VoucherPdfVerifier.containsAmount("100,200.00", 200));
+    assertFalse(VoucherPdfVerifier.containsAmount("数量 100, 单价 200.00", 100200));
+    assertFalse(VoucherPdfVerifier.containsAmount("1,2345.00", 12345));
+    assertFalse(VoucherPdfVerifier.containsAmount("791 100.00", 791100));
+    assertFalse(VoucherPdfVerifier.containsAmount("7,91\n100.00", 791100));
+  }
+
+  @Test
+  void amountMustNotBePartOfLongerNumber() {
+    assertFalse(VoucherPdfVerifier.containsAmount("1100.00", 100));
+    assertFalse(VoucherPdfVerifier.containsAmount("100.005", 100));
+    assertFalse(VoucherPdfVerifier.containsAmount("3.100.00", 100));
+    assertTrue(VoucherPdfVerifier.containsAmount("￥100.00元", 100));
+    assertTrue(VoucherPdfVerifier.containsAmount("-100.00", -100));
+  }
+}
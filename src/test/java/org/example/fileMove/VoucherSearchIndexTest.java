@@ -0,0 +1,150 @@
+package org.example.fileMove;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoucherSearchIndexTest {
+
+  @TempDir
+  Path dir;
+
+  private Path archive;
+  private Path index;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    archive = Files.createDirectories(dir.resolve("archive"));
+    index = dir.resolve("index");
+  }
+
+  @Test
+  void queryReturnsFilesAndPages() throws Exception {
+    Path a = archive.resolve("2025.05#791.pdf");
+    Path b = archive.resolve("2025.05#792.pdf");
+    Path c = archive.resolve("scan 2025.06#5.jpg");
+    Files.write(a, pdf("RK-123456 12,345.00", "TOTAL 300.00"));
+    Files.write(b, pdf("RK-123456"));
+    Files.createFile(c);
+    Files.createFile(archive.resolve("notes.txt"));
+    build();
+
+    // 文件名中的凭证号和年月记在第 0 页
+    assertHits(query("791"), a, 0);
+    assertHits(query("记0791"), a, 0);
+    assertHits(query("2025.06"), c, 0);
+    // 金额去掉千分位，带不带逗号都能查到
+    assertHits(query("12,345.00"), a, 1);
+    assertHits(query("12345.00"), a, 1);
+    // 多个词要求同一文件全部命中，页码合并
+    assertHits(query("记791", "300.00"), a, 0, 2);
+    assertTrue(query("记791", "RK-654321").isEmpty());
+    assertTrue(query("notes").isEmpty());
+
+    List<VoucherSearchIndex.Hit> hits = query("rk-123456");
+    assertEquals(Arrays.asList(a.toString(), b.toString()), paths(hits));
+    assertEquals(Collections.singletonList(1), hits.get(1).getPages());
+  }
+
+  // 大小和修改时间都没变的文件沿用旧词条，修改时间变化的重新解析，删除的文件从索引中移除
+  @Test
+  void incrementalRebuild() throws Exception {
+    Path a = archive.resolve("2025.05#791.pdf");
+    Path b = archive.resolve("2025.05#792.pdf");
+    Path c = archive.resolve("2025.05#793.pdf");
+    byte[] before = pdf("RK-111111");
+    byte[] after = pdf("RK-222222");
+    int size = Math.max(before.length, after.length);
+    Files.write(a, Arrays.copyOf(before, size));
+    Files.write(b, pdf("RK-333333"));
+    Files.write(c, pdf("RK-444444"));
+    build();
+    assertHits(query("RK-111111"), a, 1);
+
+    // 内容变了但大小和修改时间相同：沿用，仍按旧内容命中
+    FileTime modified = Files.getLastModifiedTime(a);
+    Files.write(a, Arrays.copyOf(after, size));
+    Files.setLastModifiedTime(a, modified);
+    build();
+    assertHits(query("RK-111111"), a, 1);
+    assertTrue(query("RK-222222").isEmpty());
+
+    // 修改时间变化：重新解析
+    Files.setLastModifiedTime(a, FileTime.fromMillis(modified.toMillis() + 5000));
+    build();
+    assertTrue(query("RK-111111").isEmpty());
+    assertHits(query("RK-222222"), a, 1);
+
+    // 删除中间的文件后文件编号重排，路径表仍要对得上
+    Files.delete(b);
+    build();
+    assertTrue(query("RK-333333").isEmpty());
+    assertTrue(query("792").isEmpty());
+    assertHits(query("RK-444444"), c, 1);
+    assertEquals(Arrays.asList(a.toString(), c.toString()), paths(query("2025.05")));
+  }
+
+  @Test
+  void damagedPdfIsSkipped() throws Exception {
+    Path good = archive.resolve("2025.05#791.pdf");
+    Files.write(good, pdf("RK-123456"));
+    Files.write(archive.resolve("2025.05#792.pdf"), "not a pdf".getBytes("US-ASCII"));
+    build();
+    assertHits(query("RK-123456"), good, 1);
+    assertTrue(query("792").isEmpty());
+  }
+
+  private void build() throws IOException, InterruptedException {
+    VoucherSearchIndex.build(index, Collections.singletonList(archive), 2);
+  }
+
+  private List<VoucherSearchIndex.Hit> query(String... terms) throws IOException {
+    return VoucherSearchIndex.query(index, Arrays.asList(terms));
+  }
+
+  private static void assertHits(List<VoucherSearchIndex.Hit> hits, Path file, Integer... pages) {
+    assertEquals(1, hits.size(), hits.toString());
+    assertEquals(file.toAbsolutePath().normalize().toString(), hits.get(0).getPath());
+    assertEquals(Arrays.asList(pages), hits.get(0).getPages());
+  }
+
+  private static List<String> paths(List<VoucherSearchIndex.Hit> hits) {
+    return hits.stream().map(VoucherSearchIndex.Hit::getPath).collect(Collectors.toList());
+  }
+
+  // 每个参数一页文字
+  private static byte[] pdf(String... pages) throws IOException {
+    try (PDDocument document = new PDDocument()) {
+      for (String text : pages) {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+          content.beginText();
+          content.setFont(PDType1Font.HELVETICA, 12);
+          content.newLineAtOffset(72, 700);
+          content.showText(text);
+          content.endText();
+        }
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxRowAppenderTest {
+
+  private static final String SHEET = "审计结果";
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void appendsAfterLastRow() throws IOException {
+    Path source = sourceWorkbook(false);
+    Path target = dir.resolve("target.xlsx");
+    List<Object[]> rows = Arrays.asList(
+            new Object[]{"新1", 1234.5, null, " 前后空格 "},
+            new Object[]{"新2", -7, "说明"});
+    int first = XlsxRowAppender.append(source, target, SHEET, Collections.<Integer>emptySet(), rows);
+    assertEquals(5, first);
+
+    try (Workbook workbook = open(target)) {
+      Sheet sheet = workbook.getSheet(SHEET);
+      assertEquals(6, sheet.getLastRowNum());
+      assertOriginalRows(sheet, 0, 1, 2, 3, 4);
+
+      Row row = sheet.getRow(5);
+      assertEquals("新1", row.getCell(0).getStringCellValue());
+      assertEquals(1234.5, row.getCell(1).getNumericCellValue());
+      assertEquals("#,##0.00", row.getCell(1).getCellStyle().getDataFormatString());
+      assertNull(row.getCell(2));
+      assertEquals(" 前后空格 ", row.getCell(3).getStringCellValue());
+      assertEquals(-7.0, sheet.getRow(6).getCell(1).getNumericCellValue());
+      assertEquals("说明", sheet.getRow(6).getCell(2).getStringCellValue());
+
+      assertEquals("A1:D7", ((XSSFSheet) sheet).getCTWorksheet().getDimension().getRef());
+      // 另一个工作表原样保留
+      assertEquals("其他内容", workbook.getSheet("其他").getRow(0).getCell(0).getStringCellValue());
+    }
+  }
+
+  // 删去末尾两行和中间一行：新行接在保留的最后一行之后，中间删去的行留空
+  @Test
+  void removesRowsBeforeAppending() throws IOException {
+    Path source = sourceWorkbook(false);
+    Path target = dir.resolve("target.xlsx");
+    int first = XlsxRowAppender.append(source, target, SHEET, new HashSet<>(Arrays.asList(2, 3, 4)),
+            Collections.singletonList(new Object[]{"新", 1.0}));
+    assertEquals(2, first);
+
+    try (Workbook workbook = open(target)) {
+      Sheet sheet = workbook.getSheet(SHEET);
+      assertOriginalRows(sheet, 0, 1);
+      assertEquals("新", sheet.getRow(2).getCell(0).getStringCellValue());
+      assertEquals(2, sheet.getLastRowNum());
+    }
+
+    target = dir.resolve("target2.xlsx");
+    first = XlsxRowAppender.append(source, target, SHEET, new HashSet<>(Arrays.asList(2)),
+            Collections.singletonList(new Object[]{"新"}));
+    assertEquals(5, first);
+    try (Workbook workbook = open(target)) {
+      Sheet sheet = workbook.getSheet(SHEET);
+      assertNull(sheet.getRow(2));
+      assertOriginalRows(sheet, 0, 1, 3, 4);
+      assertEquals("新", sheet.getRow(5).getCell(0).getStringCellValue());
+    }
+  }
+
+  @Test
+  void reusesExistingAmountStyle() throws IOException {
+    Path source = sourceWorkbook(true);
+    int styles;
+    try (Workbook workbook = open(source)) {
+      styles = workbook.getNumCellStyles();
+    }
+    Path target = dir.resolve("target.xlsx");
+    XlsxRowAppender.append(source, target, SHEET, Collections.<Integer>emptySet(),
+            Collections.singletonList(new Object[]{"新", 99.0}));
+    try (Workbook workbook = open(target)) {
+      assertEquals(styles, workbook.getNumCellStyles());
+      assertEquals("#,##0.00", workbook.getSheet(SHEET).getRow(5).getCell(1).getCellStyle().getDataFormatString());
+    }
+  }
+
+  @Test
+  void widensNarrowColumns() throws IOException {
+    Path source = sourceWorkbook(false);
+    Path target = dir.resolve("target.xlsx");
+    XlsxRowAppender.append(source, target, SHEET, Collections.<Integer>emptySet(),
+            Collections.singletonList(new Object[]{"很长很长很长很长的一段说明文字", 1.0}));
+    try (Workbook workbook = open(target)) {
+      Sheet sheet = workbook.getSheet(SHEET);
+      assertTrue(sheet.getColumnWidth(0) > 6 * 256, "第一列应加宽");
+      assertEquals(30 * 256, sheet.getColumnWidth(1));
+    }
+  }
+
+  @Test
+  void readColumnsReturnsFormattedValues() throws IOException {
+    Path source = sourceWorkbook(false);
+    Map<Integer, String[]> rows = XlsxRowAppender.readColumns(source.toFile(), SHEET, 1, 0);
+    assertEquals(5, rows.size());
+    assertArrayEquals(new String[]{"金额", "标题"}, rows.get(0));
+    assertArrayEquals(new String[]{"1.5", "行1"}, rows.get(1));
+    assertArrayEquals(new String[]{null, "行2"}, rows.get(2));
+    assertThrows(IOException.class, () -> XlsxRowAppender.readColumns(source.toFile(), "不存在", 0));
+  }
+
+  // 标题行 + 4 行：A 列文本，B 列数字（第 2 行为空），第一列较窄、第二列较宽
+  private Path sourceWorkbook(boolean withAmountStyle) throws IOException {
+    Path file = dir.resolve(withAmountStyle ? "source-styled.xlsx" : "source.xlsx");
+    try (Workbook workbook = new XSSFWorkbook()) {
+      workbook.createSheet("其他").createRow(0).createCell(0).setCellValue("其他内容");
+      Sheet sheet = workbook.createSheet(SHEET);
+      Row header = sheet.createRow(0);
+      header.createCell(0).setCellValue("标题");
+      header.createCell(1).setCellValue("金额");
+      for (int r = 1; r <= 4; r++) {
+        Row row = sheet.createRow(r);
+        row.createCell(0).setCellValue("行" + r);
+        if (r != 2) row.createCell(1).setCellValue(r * 1.5);
+      }
+      if (withAmountStyle) {
+        CellStyle amount = workbook.createCellStyle();
+        amount.setDataFormat((short) 4);
+        sheet.getRow(1).getCell(1).setCellStyle(amount);
+      }
+      sheet.setColumnWidth(0, 6 * 256);
+      sheet.setColumnWidth(1, 30 * 256);
+      XlsxRowStylePatcherTest.save(workbook, file);
+    }
+    return file;
+  }
+
+  private static void assertOriginalRows(Sheet sheet, int... rowIndexes) {
+    for (int r : rowIndexes) {
+      Row row = sheet.getRow(r);
+      assertNotNull(row, "行 " + r);
+      assertEquals(r == 0 ? "标题" : "行" + r, row.getCell(0).getStringCellValue());
+      if (r > 0 && r != 2) assertEquals(r * 1.5, row.getCell(1).getNumericCellValue());
+    }
+  }
+
+  private static Workbook open(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return new XSSFWorkbook(in);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.example.fileMove;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxRowStylePatcherTest {
+
+  private static final short GREEN = IndexedColors.LIGHT_GREEN.getIndex();
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void patchesOnlySelectedRowsOfTargetSheet() throws IOException {
+    Path source = dir.resolve("source.xlsx");
+    try (Workbook workbook = new XSSFWorkbook()) {
+      fill(workbook.createSheet("其他"), 5);
+      Sheet sheet = workbook.createSheet("样本");
+      fill(sheet, 6);
+      CellStyle bold = workbook.createCellStyle();
+      Font font = workbook.createFont();
+      font.setBold(true);
+      bold.setFont(font);
+      sheet.getRow(0).getCell(0).setCellStyle(bold);
+      save(workbook, source);
+    }
+
+    Path target = dir.resolve("target.xlsx");
+    // 第 9 行不存在，不计入改写行数
+    int patched = XlsxRowStylePatcher.patch(source, target, "样本", new HashSet<>(Arrays.asList(1, 3, 9)), GREEN);
+    assertEquals(2, patched);
+
+    try (InputStream in = Files.newInputStream(target); Workbook workbook = new XSSFWorkbook(in)) {
+      Sheet sheet = workbook.getSheet("样本");
+      assertEquals(5, sheet.getLastRowNum());
+      for (int r = 0; r <= 5; r++) {
+        Row row = sheet.getRow(r);
+        assertEquals("行" + r, row.getCell(0).getStringCellValue());
+        assertEquals(r * 1.5, row.getCell(1).getNumericCellValue());
+        boolean green = r == 1 || r == 3;
+        for (Cell cell : row) {
+          CellStyle style = cell.getCellStyle();
+          assertEquals(green, style.getFillPattern() == FillPatternType.SOLID_FOREGROUND, "行 " + r);
+          if (green) assertEquals(GREEN, style.getFillForegroundColor());
+        }
+        assertEquals(green, row.isFormatted(), "行 " + r);
+      }
+      assertTrue(workbook.getFontAt(sheet.getRow(0).getCell(0).getCellStyle().getFontIndex()).getBold());
+
+      Sheet other = workbook.getSheet("其他");
+      for (Row row : other) {
+        for (Cell cell : row) {
+          assertNotEquals(FillPatternType.SOLID_FOREGROUND, cell.getCellStyle().getFillPattern());
+        }
+      }
+    }
+  }
+
+  @Test
+  void missingSheetRejected() throws IOException {
+    Path source = dir.resolve("source.xlsx");
+    try (Workbook workbook = new XSSFWorkbook()) {
+      fill(workbook.createSheet("样本"), 2);
+      save(workbook, source);
+    }
+    assertThrows(IOException.class, () -> XlsxRowStylePatcher.patch(source, dir.resolve("target.xlsx"), "不存在",
+            new HashSet<>(Arrays.asList(0)), GREEN));
+  }
+
+  // 每行：文本、数字，偶数行再加一个空白但有样式的单元格
+  static void fill(Sheet sheet, int rows) {
+    for (int r = 0; r < rows; r++) {
+      Row row = sheet.createRow(r);
+      row.createCell(0).setCellValue("行" + r);
+      row.createCell(1).setCellValue(r * 1.5);
+      if (r % 2 == 0) row.createCell(3);
+    }
+  }
+
+  static void save(Workbook workbook, Path file) throws IOException {
+    try (OutputStream out = Files.newOutputStream(file)) {
+      workbook.write(out);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package org.example.image;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearizedPdfWriterTest {
+
+  private static final Pattern LINEARIZATION = Pattern.compile(
+          "/Linearized 1 /L (\\d+) /H \\[ (\\d+) (\\d+) \\] /O (\\d+) /E (\\d+) /N (\\d+) /T (\\d+)");
+  private static final Pattern XREF_SECTION = Pattern.compile("xref\n(\\d+) (\\d+)\\s*\n");
+  // 页面偏移提示表头的字节数（13 项，32/16 位定宽）
+  private static final int PAGE_HINT_HEADER = 36;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void multiPageDocument() throws IOException {
+    checkLinearized(5);
+  }
+
+  @Test
+  void singlePageDocument() throws IOException {
+    checkLinearized(1);
+  }
+
+  @Test
+  void emptyDocumentRejected() throws IOException {
+    try (PDDocument document = new PDDocument()) {
+      assertThrows(IOException.class, () -> LinearizedPdfWriter.save(document, dir.resolve("empty.pdf").toFile()));
+    }
+  }
+
+  private void checkLinearized(int pageCount) throws IOException {
+    File output = dir.resolve("linearized.pdf").toFile();
+    String[] texts = new String[pageCount];
+    try (PDDocument document = PDDocument.load(sampleDocument(pageCount))) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      for (int i = 0; i < pageCount; i++) {
+        stripper.setStartPage(i + 1);
+        stripper.setEndPage(i + 1);
+        texts[i] = stripper.getText(document);
+      }
+      LinearizedPdfWriter.save(document, output);
+    }
+
+    byte[] bytes = Files.readAllBytes(output.toPath());
+    String text = new String(bytes, StandardCharsets.ISO_8859_1);
+    Matcher dict = LINEARIZATION.matcher(text.substring(0, 1024));
+    assertTrue(dict.find(), "文件开头应为线性化参数字典");
+    long length = Long.parseLong(dict.group(1));
+    long hintOffset = Long.parseLong(dict.group(2));
+    long hintLength = Long.parseLong(dict.group(3));
+    int firstPageNumber = Integer.parseInt(dict.group(4));
+    long endOfFirstPage = Long.parseLong(dict.group(5));
+    long mainXrefEntries = Long.parseLong(dict.group(7));
+    assertEquals(bytes.length, length);
+    assertEquals(pageCount, Integer.parseInt(dict.group(6)));
+
+    // 首页交叉引用表紧跟参数字典，文件末尾的 startxref 指向它，其 /Prev 指向主交叉引用表
+    int firstXref = text.indexOf("xref\n", dict.end());
+    Matcher startxref = Pattern.compile("startxref\n(\\d+)\n%%EOF\n$").matcher(text);
+    assertTrue(startxref.find());
+    assertEquals(firstXref, Long.parseLong(startxref.group(1)));
+    Matcher prev = Pattern.compile("/Prev (\\d+)").matcher(text);
+    assertTrue(prev.find(firstXref));
+    long mainXref = Long.parseLong(prev.group(1));
+    assertTrue(text.startsWith("xref\n0 ", (int) mainXref));
+    assertTrue(Character.isWhitespace(text.charAt((int) mainXrefEntries)));
+    assertTrue(text.startsWith("0000000000 65535 f", (int) mainXrefEntries + 1));
+
+    long firstPageOffset = checkXref(text, firstXref, firstPageNumber);
+    checkXref(text, mainXref, -1);
+
+    // 提示流在第一页之前，第一页紧接提示流，第一页部分在 /E 之前结束
+    assertTrue(text.startsWith("stream\n", text.indexOf(">>", (int) hintOffset) + 3));
+    assertEquals(hintOffset + hintLength, firstPageOffset);
+    assertTrue(endOfFirstPage > firstPageOffset && endOfFirstPage < mainXref);
+
+    // 页面偏移提示表：各页的起点（提示流之后的位置按去掉提示流计算）依次累加，应落在各页的页面对象上
+    int data = text.indexOf("stream\n", (int) hintOffset) + "stream\n".length();
+    long leastObjects = readInt(bytes, data);
+    long firstPage = readInt(bytes, data + 4);
+    long leastLength = readInt(bytes, data + 10);
+    assertEquals(firstPageOffset - hintLength, firstPage);
+    assertTrue(leastObjects >= 1);
+    long pageStart = firstPage;
+    for (int i = 0; i < pageCount; i++) {
+      int actual = (int) (pageStart + hintLength);
+      String object = text.substring(actual, text.indexOf("endobj", actual));
+      assertTrue(object.matches("(?s)\\d+ 0 obj\n<<.*/Type /Page\\b.*"), "第 " + (i + 1) + " 页的起点: " + object);
+      pageStart += leastLength + readInt(bytes, data + PAGE_HINT_HEADER + pageCount * 4 + i * 4);
+    }
+    // 第一页的长度到 /E 为止
+    assertEquals(endOfFirstPage - hintLength, firstPage + leastLength
+            + readInt(bytes, data + PAGE_HINT_HEADER + pageCount * 4));
+
+    try (PDDocument document = PDDocument.load(output)) {
+      assertEquals(pageCount, document.getNumberOfPages());
+      PDFTextStripper stripper = new PDFTextStripper();
+      for (int i = 0; i < pageCount; i++) {
+        stripper.setStartPage(i + 1);
+        stripper.setEndPage(i + 1);
+        assertEquals(texts[i], stripper.getText(document));
+      }
+    }
+  }
+
+  // 检查交叉引用表中使用中的条目都指向对应编号的对象，返回 expectNumber 号对象的位置
+  private static long checkXref(String text, long xrefOffset, int expectNumber) {
+    Matcher section = XREF_SECTION.matcher(text);
+    assertTrue(section.find((int) xrefOffset) && section.start() == xrefOffset);
+    int first = Integer.parseInt(section.group(1));
+    int count = Integer.parseInt(section.group(2));
+    int position = section.end();
+    long found = -1;
+    // 每个条目 20 字节
+    for (int i = 0; i < count; i++) {
+      String entry = text.substring(position + i * 20, position + i * 20 + 20);
+      assertTrue(entry.matches("\\d{10} \\d{5} [nf]\\s\\s"), "交叉引用条目格式: " + entry);
+      if (entry.charAt(17) != 'n') continue;
+      int offset = Integer.parseInt(entry.substring(0, 10));
+      int number = first + i;
+      assertTrue(text.startsWith(number + " 0 obj", offset), "对象 " + number + " 的偏移 " + offset);
+      if (number == expectNumber) found = offset;
+    }
+    if (expectNumber >= 0) assertTrue(found > 0, "首页交叉引用表中应有第一页对象");
+    return found;
+  }
+
+  private static long readInt(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < 4; i++) value = (value << 8) | (bytes[offset + i] & 0xFF);
+    return value;
+  }
+
+  // 每页一行文字；第 2 页起共用同一张图片（共用对象部分）
+  private static byte[] sampleDocument(int pageCount) throws IOException {
+    try (PDDocument document = new PDDocument()) {
+      BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+      for (int x = 0; x < 40; x++) image.setRGB(x, x % 30, 0xFF0000);
+      PDImageXObject shared = LosslessFactory.createFromImage(document, image);
+      for (int i = 0; i < pageCount; i++) {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+          content.beginText();
+          content.setFont(PDType1Font.HELVETICA, 12);
+          content.newLineAtOffset(72, 720);
+          content.showText("Page " + (i + 1));
+          content.endText();
+          if (i > 0) content.drawImage(shared, 72, 500);
+        }
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.example.image;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PagePlanTest {
+
+  @TempDir
+  Path dir;
+
+  // 文件名带 “、”，文件名编码不支持时跳过
+  @BeforeEach
+  void requireUnicodeFileNames() {
+    String encoding = System.getProperty("sun.jnu.encoding");
+    assumeTrue(encoding == null || Charset.forName(encoding).newEncoder().canEncode("、"));
+  }
+
+  @Test
+  void leadingNumber() {
+    assertEquals(1, PagePlan.leadingNumber("1、WXGYBZ.png"));
+    assertEquals(12, PagePlan.leadingNumber("012、x.pdf"));
+    assertEquals(-1, PagePlan.leadingNumber("x.pdf"));
+    assertEquals(-1, PagePlan.leadingNumber("1.x.pdf"));
+    assertEquals(-1, PagePlan.leadingNumber("a1、x.pdf"));
+    // 超出 int 范围的序号按无序号处理
+    assertEquals(-1, PagePlan.leadingNumber("99999999999、x.pdf"));
+  }
+
+  // 按序号排列（2 在 10 之前），序号相同时保持传入顺序
+  @Test
+  void itemsAreOrderedByLeadingNumber() throws Exception {
+    List<File> files = Arrays.asList(
+            png("2、b.png", 20, 10),
+            pdf("10、a.pdf", 2),
+            jpg("1、c.jpg", 30, 40),
+            png("2、a.png", 5, 5));
+    PagePlan plan = PagePlan.probe(files, 3);
+
+    assertTrue(plan.getRejected().isEmpty(), problems(plan.getRejected()).toString());
+    assertEquals(Arrays.asList("1、c.jpg", "2、b.png", "2、a.png", "10、a.pdf"), names(plan.getItems()));
+    assertEquals(5, plan.getTotalPages());
+
+    PagePlan.Item jpeg = plan.getItems().get(0);
+    assertEquals(PagePlan.Kind.JPEG, jpeg.getKind());
+    assertEquals(1, jpeg.getOrder());
+    assertEquals(30, jpeg.getWidth());
+    assertEquals(40, jpeg.getHeight());
+    assertEquals(jpeg.getSize() * 2, jpeg.getEstimatedBytes());
+    PagePlan.Item png = plan.getItems().get(1);
+    assertEquals(20L * 10 * 4 + png.getSize(), png.getEstimatedBytes());
+    PagePlan.Item pdf = plan.getItems().get(3);
+    assertEquals(PagePlan.Kind.PDF, pdf.getKind());
+    assertEquals(2, pdf.getPages());
+    assertEquals(0, pdf.getWidth());
+
+    long total = 0;
+    for (PagePlan.Item item : plan.getItems()) total += item.getEstimatedBytes();
+    assertEquals(total, plan.getTotalEstimatedBytes());
+  }
+
+  @Test
+  void missingLeadingNumberIsRejected() throws Exception {
+    PagePlan plan = PagePlan.probe(Arrays.asList(png("1、a.png", 4, 4), png("b.png", 4, 4)), 2);
+    assertEquals(Collections.singletonList("1、a.png"), names(plan.getItems()));
+    assertEquals(-1, plan.getRejected().get(0).getOrder());
+    assertTrue(plan.getRejected().get(0).getProblem().contains("序号"), plan.getRejected().get(0).getProblem());
+  }
+
+  // 截断的 PDF 缺少文件尾，PDFBox 宽松解析能读出页面，预检必须剔除
+  @Test
+  void truncatedPdfIsRejected() throws Exception {
+    File whole = pdf("1、whole.pdf", 3);
+    byte[] bytes = Files.readAllBytes(whole.toPath());
+    File truncated = dir.resolve("2、truncated.pdf").toFile();
+    Files.write(truncated.toPath(), Arrays.copyOf(bytes, bytes.length * 2 / 3));
+
+    PagePlan plan = PagePlan.probe(Arrays.asList(whole, truncated), 2);
+    assertEquals(Collections.singletonList("1、whole.pdf"), names(plan.getItems()));
+    assertEquals(Collections.singletonList("2、truncated.pdf"), names(plan.getRejected()));
+    assertTrue(plan.getRejected().get(0).getProblem().contains("%%EOF"), plan.getRejected().get(0).getProblem());
+  }
+
+  // 类型按文件头识别，扩展名与内容不符、无法识别的都剔除
+  @Test
+  void mismatchedExtensionIsRejected() throws Exception {
+    File pngAsPdf = png("1、x.pdf", 4, 4);
+    File pdfAsJpg = pdf("2、y.jpg", 1);
+    File text = dir.resolve("3、z.png").toFile();
+    Files.write(text.toPath(), "not an image".getBytes(StandardCharsets.US_ASCII));
+    File empty = dir.resolve("4、empty.pdf").toFile();
+    Files.createFile(empty.toPath());
+
+    PagePlan plan = PagePlan.probe(Arrays.asList(pngAsPdf, pdfAsJpg, text, empty), 2);
+    assertTrue(plan.getItems().isEmpty());
+    Map<String, String> problems = problems(plan.getRejected());
+    assertTrue(problems.get("1、x.pdf").contains("PNG"), problems.toString());
+    assertTrue(problems.get("2、y.jpg").contains("PDF"), problems.toString());
+    assertTrue(problems.get("3、z.png").contains("文件头"), problems.toString());
+    assertTrue(problems.get("4、empty.pdf").contains("文件头"), problems.toString());
+  }
+
+  // 只读图片头：声明 20000×20000 的图片不解码像素就能剔除
+  @Test
+  void oversizedImageIsRejected() throws Exception {
+    File huge = dir.resolve("1、huge.png").toFile();
+    Files.write(huge.toPath(), pngHeader(20000, 20000));
+    PagePlan plan = PagePlan.probe(Collections.singletonList(huge), 1);
+
+    assertTrue(plan.getItems().isEmpty());
+    PagePlan.Item item = plan.getRejected().get(0);
+    assertEquals(PagePlan.Kind.PNG, item.getKind());
+    assertEquals(20000, item.getWidth());
+    assertTrue(item.getProblem().contains("过大"), item.getProblem());
+  }
+
+  @Test
+  void passwordProtectedPdfIsRejected() throws Exception {
+    File locked = dir.resolve("1、locked.pdf").toFile();
+    try (PDDocument document = new PDDocument()) {
+      document.addPage(new PDPage());
+      StandardProtectionPolicy policy = new StandardProtectionPolicy("owner", "user", new AccessPermission());
+      document.protect(policy);
+      document.save(locked);
+    }
+    PagePlan plan = PagePlan.probe(Collections.singletonList(locked), 1);
+    assertTrue(plan.getItems().isEmpty());
+    assertTrue(plan.getRejected().get(0).getProblem().contains("密码"), plan.getRejected().get(0).getProblem());
+  }
+
+  private File png(String name, int width, int height) throws IOException {
+    return image(name, "png", width, height);
+  }
+
+  private File jpg(String name, int width, int height) throws IOException {
+    return image(name, "jpg", width, height);
+  }
+
+  private File image(String name, String format, int width, int height) throws IOException {
+    File file = dir.resolve(name).toFile();
+    assertTrue(ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, file));
+    return file;
+  }
+
+  private File pdf(String name, int pages) throws IOException {
+    File file = dir.resolve(name).toFile();
+    try (PDDocument document = new PDDocument()) {
+      for (int i = 0; i < pages; i++) {
+        document.addPage(new PDPage());
+      }
+      document.save(file);
+    }
+    return file;
+  }
+
+  // 只有文件签名和 IHDR 块的 PNG，足够读出尺寸
+  private static byte[] pngHeader(int width, int height) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+    ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(chunk);
+    data.writeBytes("IHDR");
+    data.writeInt(width);
+    data.writeInt(height);
+    data.write(new byte[]{8, 2, 0, 0, 0});
+    out.writeInt(13);
+    out.write(chunk.toByteArray());
+    CRC32 crc = new CRC32();
+    crc.update(chunk.toByteArray());
+    out.writeInt((int) crc.getValue());
+    return bytes.toByteArray();
+  }
+
+  private static List<String> names(List<PagePlan.Item> items) {
+    return items.stream().map(item -> item.getFile().getName()).collect(Collectors.toList());
+  }
+
+  private static Map<String, String> problems(List<PagePlan.Item> items) {
+    Map<String, String> problems = new LinkedHashMap<>();
+    for (PagePlan.Item item : items) problems.put(item.getFile().getName(), item.getProblem());
+    return problems;
+  }
+}
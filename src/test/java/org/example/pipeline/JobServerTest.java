@@ -0,0 +1,123 @@
+package org.example.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JobServerTest {
+
+  @TempDir
+  Path dir;
+
+  private JobServer server;
+
+  @BeforeEach
+  void start() throws IOException {
+    Properties config = new Properties();
+    config.setProperty("scan.source", dir.resolve("missing").toString());
+    server = new JobServer(config);
+    server.start(0);
+  }
+
+  @AfterEach
+  void stop() {
+    server.stop();
+  }
+
+  @Test
+  void requestWithoutTokenIsRejected() throws IOException {
+    assertTrue(request("GET", "/status", "127.0.0.1", null, null, "").startsWith("HTTP/1.1 401"));
+    assertTrue(request("GET", "/status", "127.0.0.1", "wrong", null, "").startsWith("HTTP/1.1 401"));
+    assertTrue(request("POST", "/jobs/scan", "127.0.0.1", null, null, "").startsWith("HTTP/1.1 401"));
+    assertTrue(request("POST", "/shutdown", "localhost", null, null, "").startsWith("HTTP/1.1 401"));
+  }
+
+  @Test
+  void browserOriginAndForeignHostAreRejected() throws IOException {
+    String token = server.getToken();
+    assertTrue(request("POST", "/jobs/scan", "127.0.0.1", token, "http://evil.example", "")
+            .startsWith("HTTP/1.1 403"));
+    assertTrue(request("POST", "/jobs/scan", "127.0.0.1", token, "null", "").startsWith("HTTP/1.1 403"));
+    // DNS 重绑定：页面的域名解析到 127.0.0.1，Host 仍是原域名
+    assertTrue(request("POST", "/jobs/scan", "evil.example:" + server.getPort(), token, null, "")
+            .startsWith("HTTP/1.1 403"));
+    assertTrue(request("GET", "/status", "localhost:" + server.getPort(), token, null, "")
+            .startsWith("HTTP/1.1 200"));
+  }
+
+  @Test
+  void pathAndIoOverridesAreRejected() throws IOException {
+    String token = server.getToken();
+    for (String body : new String[]{"scan.source=/etc", "scan.output=/tmp/x.xlsx", "io.latencyMillis=1000",
+            "rename.dir=/home", "archive.source=/"}) {
+      String response = request("POST", "/jobs/scan", "127.0.0.1", token, null, body);
+      assertTrue(response.startsWith("HTTP/1.1 400"), body + " -> " + response);
+    }
+    assertTrue(request("POST", "/jobs/archive", "127.0.0.1", token, null, "archive.source=/")
+            .startsWith("HTTP/1.1 400"));
+    assertTrue(request("POST", "/jobs/merge", "127.0.0.1", token, null, "merge.output=../../x.pdf")
+            .startsWith("HTTP/1.1 400"));
+  }
+
+  @Test
+  void whitelistedParametersAreAccepted() throws IOException {
+    String response = request("POST", "/jobs/scan", "127.0.0.1", server.getToken(), null,
+            "scan.verifyPdf=true\nscan.parallelism=1\n");
+    assertTrue(response.startsWith("HTTP/1.1 202"), response);
+    assertTrue(response.contains("\"type\":\"scan\""));
+  }
+
+  @Test
+  void tokenFileIsOwnerOnly() throws IOException {
+    Path tokenFile = dir.resolve("jobserver.token");
+    Files.write(tokenFile, "old".getBytes(StandardCharsets.UTF_8));
+    JobServer.writeToken(tokenFile, server.getToken());
+    assertEquals(server.getToken(), new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8));
+    assumeTrue(tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+  }
+
+  // 直接写原始请求，以便设置任意 Host 头
+  private String request(String method, String path, String host, String token, String origin, String body)
+          throws IOException {
+    byte[] content = body.getBytes(StandardCharsets.UTF_8);
+    StringBuilder head = new StringBuilder();
+    head.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+    head.append("Host: ").append(host).append("\r\n");
+    if (token != null) head.append(JobServer.TOKEN_HEADER).append(": ").append(token).append("\r\n");
+    if (origin != null) head.append("Origin: ").append(origin).append("\r\n");
+    head.append("Content-Type: text/plain\r\n");
+    head.append("Content-Length: ").append(content.length).append("\r\n");
+    head.append("Connection: close\r\n\r\n");
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+      OutputStream out = socket.getOutputStream();
+      out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+      out.write(content);
+      out.flush();
+      InputStream in = socket.getInputStream();
+      ByteArrayOutputStream response = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        response.write(buffer, 0, read);
+      }
+      return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.example.pipeline;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PipelineRunnerTest {
+
+  @TempDir
+  Path dir;
+
+  // 文件名带 “、”，文件名编码不支持时跳过
+  @BeforeEach
+  void requireUnicodeFileNames() {
+    String encoding = System.getProperty("sun.jnu.encoding");
+    assumeTrue(encoding == null || Charset.forName(encoding).newEncoder().canEncode("、"));
+  }
+
+  // 数据搜索和审计结果放在凭证目录中（默认配置），重命名不能动它们，第二次运行增量追加
+  @Test
+  void renameThenScanTwiceOnOneFolder() throws Exception {
+    writeLedger(dir.resolve("数据搜索.xlsx"));
+    Files.createFile(dir.resolve("2025.05#791.pdf"));
+    Files.createFile(dir.resolve("2025.05#792.pdf"));
+
+    assertTrue(run());
+    assertEquals(set("1、2025.05#791.pdf", "2、2025.05#792.pdf", "数据搜索.xlsx", "审计结果.xlsx"), files());
+    assertEquals(Arrays.asList("F2202-50-1", "F2202-50-2"), resultIndexes());
+
+    Files.createFile(dir.resolve("2025.06#5.pdf"));
+    assertTrue(run());
+    assertEquals(set("1、2025.05#791.pdf", "2、2025.05#792.pdf", "3、2025.06#5.pdf",
+            "数据搜索.xlsx", "审计结果.xlsx"), files());
+    assertEquals(Arrays.asList("F2202-50-1", "F2202-50-2", "F2202-50-3"), resultIndexes());
+
+    // 没有新文件时重命名什么也不做
+    assertTrue(run());
+    assertEquals(Arrays.asList("F2202-50-1", "F2202-50-2", "F2202-50-3"), resultIndexes());
+  }
+
+  private boolean run() throws IOException, InterruptedException {
+    Properties config = new Properties();
+    config.setProperty("stages", "rename,scan");
+    config.setProperty("rename.dir", dir.toString());
+    config.setProperty("scan.incremental", "true");
+    config.setProperty("scan.parallelism", "1");
+    return new PipelineRunner(config).run();
+  }
+
+  private static void writeLedger(Path path) throws IOException {
+    try (Workbook workbook = new XSSFWorkbook()) {
+      Sheet sheet = workbook.createSheet("数据搜索");
+      String[][] rows = {
+              {"日期", "凭证号", "摘要", "科目全名", "币别", "借方金额"},
+              {"2025/05/10", "记791", "采购", "应付账款", "人民币", "100.00"},
+              {"2025/05/11", "记792", "采购", "应付账款", "人民币", "200.00"},
+              {"2025/06/01", "记5", "付款", "应付账款", "人民币", "300.00"},
+      };
+      for (int i = 0; i < rows.length; i++) {
+        Row row = sheet.createRow(i);
+        for (int j = 0; j < rows[i].length; j++) {
+          row.createCell(j).setCellValue(rows[i][j]);
+        }
+      }
+      try (OutputStream out = Files.newOutputStream(path)) {
+        workbook.write(out);
+      }
+    }
+  }
+
+  // 审计结果中的索引号列（I 列），按行顺序
+  private List<String> resultIndexes() throws IOException {
+    List<String> indexes = new ArrayList<>();
+    try (InputStream in = Files.newInputStream(dir.resolve("审计结果.xlsx"));
+         Workbook workbook = new XSSFWorkbook(in)) {
+      Sheet sheet = workbook.getSheet("审计结果");
+      for (Row row : sheet) {
+        if (row.getRowNum() == 0) continue;
+        indexes.add(row.getCell(8).getStringCellValue());
+        assertEquals("无异常", row.getCell(9).getStringCellValue());
+      }
+    }
+    return indexes;
+  }
+
+  // 目录中的文件，不含撤销日志
+  private Set<String> files() throws IOException {
+    try (Stream<Path> stream = Files.list(dir)) {
+      return stream.map(path -> path.getFileName().toString())
+              .filter(name -> !name.startsWith(".rename-journal-"))
+              .collect(Collectors.toSet());
+    }
+  }
+
+  private static Set<String> set(String... names) {
+    return new HashSet<>(Arrays.asList(names));
+  }
+}